@@ -63,7 +63,15 @@ public class SunSpotHostApplication {
     public static void main(String[] args) throws Exception {
         SunSpotHostApplication app = new SunSpotHostApplication();
 
-        new DSRClient(g);
+        final DSRClient client = new DSRClient(g);
+        // closing the GUI exits the VM, stop the client to close its connections
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+
+            public void run() {
+                client.stop();
+                System.out.println("[dsr] " + client.statisticsToString());
+            }
+        });
         //testGUI();
     }
 }
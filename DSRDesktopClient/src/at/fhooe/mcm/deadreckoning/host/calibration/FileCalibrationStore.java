@@ -0,0 +1,110 @@
+package at.fhooe.mcm.deadreckoning.host.calibration;
+
+import at.fhooe.mcm.deadreckoning.calibration.CalibrationState;
+import at.fhooe.mcm.deadreckoning.calibration.ICalibrationStore;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * @class FileCalibrationStore
+ * @brief This class stores the calibration in a file.
+ *
+ * It is the stand-in for the record store of the SPOT when the calibration
+ * handling is run on a plain JVM, e.g. to replay traces with the
+ * calibration of a SPOT. It implements the interface of the sensor, so the
+ * records are parsed by the same <code>CalibrationState</code> and can be
+ * exchanged between both stores. A record is first written to a
+ * temporary file which then replaces the store file, so a crash during
+ * saving never leaves a truncated record behind.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 02.06.2010
+ * @version 1.0
+ */
+public class FileCalibrationStore implements ICalibrationStore {
+
+    /** @brief The file holding the calibration record. */
+    private File m_file;
+
+    /**
+     * @brief Creates a store.
+     *
+     * @param _file The file holding the calibration record.
+     */
+    public FileCalibrationStore(File _file) {
+        m_file = _file;
+    }
+
+    /**
+     * @brief Loads the stored calibration.
+     *
+     * @return The stored state or <code>null</code> if there is none or it is invalid.
+     * @throws IOException If the file cannot be read.
+     */
+    public CalibrationState load() throws IOException {
+        if (!m_file.isFile() || m_file.length() != CalibrationState.RECORD_SIZE) {
+            return null;
+        }
+
+        byte[] record = new byte[CalibrationState.RECORD_SIZE];
+        FileInputStream in = new FileInputStream(m_file);
+
+        try {
+            int read = 0;
+            while (read < record.length) {
+                int n = in.read(record, read, record.length - read);
+                if (n < 0) {
+                    return null;
+                }
+                read += n;
+            }
+        } finally {
+            in.close();
+        }
+
+        try {
+            return CalibrationState.fromBytes(record);
+        } catch (IOException ex) {
+            // corrupted or outdated record
+            return null;
+        }
+    }
+
+    /**
+     * @brief Replaces the stored calibration.
+     *
+     * @param _state The state to store.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(CalibrationState _state) throws IOException {
+        File temp = new File(m_file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temp);
+
+        try {
+            out.write(_state.toBytes());
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+
+        if (!temp.renameTo(m_file)) {
+            // renaming onto an existing file fails on some platforms
+            if (!m_file.delete() || !temp.renameTo(m_file)) {
+                throw new IOException("Cannot replace " + m_file);
+            }
+        }
+    }
+
+    /**
+     * @brief Removes the stored calibration.
+     *
+     * @throws IOException If the file cannot be deleted.
+     */
+    public void clear() throws IOException {
+        if (m_file.exists() && !m_file.delete()) {
+            throw new IOException("Cannot delete " + m_file);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package at.fhooe.mcm.deadreckoning.host.dsr;
+
+import com.sun.spot.util.IEEEAddress;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * @class Address
+ * @brief This class converts the 64 bit IEEE addresses used by DSR.
+ *
+ * Within DSR every node address is a <code>long</code> as provided by the
+ * radio. The dotted hex form, e.g. "0014.4F01.0000.6EF0", is only used at
+ * the edges, i.e. for the URLs of radiogram connections, for the public
+ * interface of the client and for logging.
+ *
+ * On the radio an address is written with 8 bytes. All SunSPOTs share the
+ * upper 32 bits "0014.4F01.", so a package whose addresses all carry this
+ * prefix can optionally be written in compact form with 4 bytes per
+ * address (@see PacketHeader.COMPACT).
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 15.06.2010
+ * @version 1.0
+ */
+public final class Address {
+
+    /** @brief The value representing no address, e.g. if a route has no next hop. */
+    public static final long NONE = 0;
+
+    /** @brief The upper 32 bits shared by all SunSPOTs, "0014.4F01.". */
+    public static final long PREFIX = 0x00144F0100000000L;
+
+    /** @brief The mask selecting the prefix of an address. */
+    private static final long PREFIX_MASK = 0xFFFFFFFF00000000L;
+
+    /** @brief The number of hex digits of an address. */
+    private static final int DIGITS = 16;
+
+    /**
+     * @brief Should not be instantiated.
+     */
+    private Address() {
+    }
+
+    /**
+     * @brief Converts a dotted hex address to its 64 bit value.
+     *
+     * Unlike <code>IEEEAddress.toLong</code> no logical SPOT names are
+     * looked up.
+     *
+     * @param _addr The address, e.g. "0014.4F01.0000.6EF0".
+     * @return The 64 bit address.
+     * @throws IllegalArgumentException If the address is not in dotted hex format.
+     */
+    public static long parse(String _addr) {
+        long addr = 0;
+        int digits = 0;
+
+        for (int i = 0; i < _addr.length(); i++) {
+            char c = _addr.charAt(i);
+            if (c == '.') {
+                continue;
+            }
+            int digit = Character.digit(c, 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid address: " + _addr);
+            }
+            addr = (addr << 4) | digit;
+            digits++;
+        }
+
+        if (digits != DIGITS) {
+            throw new IllegalArgumentException("Invalid address: " + _addr);
+        }
+        return addr;
+    }
+
+    /**
+     * @brief Converts a 64 bit address to its dotted hex form.
+     *
+     * @param _addr The 64 bit address.
+     * @return The address, e.g. "0014.4F01.0000.6EF0".
+     */
+    public static String format(long _addr) {
+        return IEEEAddress.toDottedHex(_addr);
+    }
+
+    /**
+     * @brief Checks whether an address carries the common SunSPOT prefix.
+     *
+     * @param _addr The 64 bit address.
+     * @return <code>true</code> if the address can be written in compact form.
+     */
+    public static boolean hasPrefix(long _addr) {
+        return (_addr & PREFIX_MASK) == PREFIX;
+    }
+
+    /**
+     * @brief Writes an address.
+     *
+     * @param _out The output the address is written to.
+     * @param _addr The 64 bit address.
+     * @param _compact <code>true</code> to write only the lower 32 bits, the
+     * address must carry the common prefix.
+     * @throws IOException If the address cannot be written.
+     */
+    public static void write(DataOutput _out, long _addr, boolean _compact) throws IOException {
+        if (_compact) {
+            _out.writeInt((int) _addr);
+        } else {
+            _out.writeLong(_addr);
+        }
+    }
+
+    /**
+     * @brief Reads an address.
+     *
+     * @param _in The input the address is read from.
+     * @param _compact <code>true</code> if the address has been written in compact form.
+     * @return The 64 bit address.
+     * @throws IOException If the address cannot be read.
+     */
+    public static long read(DataInput _in, boolean _compact) throws IOException {
+        if (_compact) {
+            return PREFIX | (_in.readInt() & 0xFFFFFFFFL);
+        }
+        return _in.readLong();
+    }
+
+    /**
+     * @brief Reads an address from a buffer.
+     *
+     * @param _buffer The buffer holding the address.
+     * @param _offset The offset of the address within the buffer.
+     * @param _compact <code>true</code> if the address has been written in compact form.
+     * @return The 64 bit address.
+     */
+    public static long read(byte[] _buffer, int _offset, boolean _compact) {
+        int bytes = getSize(_compact);
+        long addr = _compact ? PREFIX >>> 32 : 0;
+
+        for (int i = 0; i < bytes; i++) {
+            addr = (addr << 8) | (_buffer[_offset + i] & 0xFF);
+        }
+        return addr;
+    }
+
+    /**
+     * @brief Provides the number of bytes of a written address.
+     *
+     * @param _compact <code>true</code> for the compact form.
+     * @return 4 for the compact form, 8 otherwise.
+     */
+    public static int getSize(boolean _compact) {
+        return _compact ? 4 : 8;
+    }
+}
@@ -1,5 +1,9 @@
 package at.fhooe.mcm.deadreckoning.host.dsr;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * @class DataPkg
  * @brief This class represents a data package used by DSR.
@@ -10,17 +14,22 @@ package at.fhooe.mcm.deadreckoning.host.dsr;
  * @author Florian Lettner, Lukas Bischof, Peter Riedl
  * @version 1.0
  */
-public class DataPkg {
+public class DataPkg implements IPacket {
 
     /**@brief The route from the initiator to the target of the data. */
     private RouteRecord m_rec = new RouteRecord();
 
+    /** @brief The index of the hop the package is sent to, @see SourceRoute. */
+    private int m_next = 1;
+
     /**@brief The actual data. */
     private String m_data = "";
 
     /**
      * @brief Instantiates a new data package with passed route and data.
      *
+     * The package is sent by the first node of the route to the second one.
+     *
      * @param _rr The route for the data.
      * @param _data The actual data.
      */
@@ -30,44 +39,38 @@ public class DataPkg {
     }
 
     /**
-     * @brief Istantiates a new data package from the passed string representation of the data package.
+     * @brief Reads a data package whose header has already been read.
      *
-     * @param _pkg The string representation of the data package.
+     * @param _in The input the package is read from.
+     * @param _compact <code>true</code> if the header has the <code>COMPACT</code> flag set.
+     * @throws IOException If the package cannot be read.
      */
-    public DataPkg(String _pkg) {
-        parseDataPkg(_pkg);
+    public DataPkg(DataInput _in, boolean _compact) throws IOException {
+        m_next = _in.readUnsignedByte();
+        setRouteRecord(new RouteRecord(_in, _compact));
+        setData(_in.readUTF());
     }
 
     /**
-     * @brief Parses the string representation of a data package.
+     * @brief Writes the package in the binary wire format.
      *
-     * Assures that the passed string is a representation of a data package and
-     * extracts RouteRecord and data from the package.
+     * The data follows the next hop index and the RouteRecord as UTF string, i.e. prefixed by its
+     * length, so it may contain any character.
      *
-     * @param _pkg The string representation of the data package.
+     * @param _out The output the package is written to.
+     * @param _compact <code>true</code> to write the addresses in compact form if possible.
+     * @throws IOException If the package cannot be written.
      */
-    private void parseDataPkg(String _pkg) {
-        int nextDividerIdx = 0;
-        String buff = _pkg;
-        if (!buff.startsWith("[DATA]")) {
-            return;
-        }
-
-        int headerEndIdx = buff.indexOf("]");
-        buff = buff.substring(headerEndIdx + 1);
-
-        nextDividerIdx = buff.indexOf(";");
-        String route = buff.substring(0, nextDividerIdx);
-
-        setRouteRecord(new RouteRecord(route));
-
-        buff = buff.substring(nextDividerIdx + 1);
-        setData(buff);
-
+    public void writeTo(DataOutput _out, boolean _compact) throws IOException {
+        boolean compact = _compact && m_rec.hasPrefix();
+        PacketHeader.write(_out, PacketHeader.DATA, compact);
+        _out.writeByte(m_next);
+        m_rec.writeTo(_out, compact);
+        _out.writeUTF(m_data);
     }
 
     /**
-     * @brief Creates the string representation of a data package.
+     * @brief Creates the string representation of a data package for logging.
      *
      * Creates the string representation of a data package by adding the string
      * "[DATA]", the RouteRecord of the data and the actual data to the result.
@@ -117,4 +120,22 @@ public class DataPkg {
     public void setRouteRecord(RouteRecord _rec) {
         this.m_rec = _rec;
     }
+
+    /**
+     * @brief Provides the index of the hop the package is sent to.
+     *
+     * @return The index within the RouteRecord.
+     */
+    public int getNextIndex() {
+        return m_next;
+    }
+
+    /**
+     * @brief Provides the address of the hop the package is sent to.
+     *
+     * @return The address of the next hop.
+     */
+    public long getNextHop() {
+        return m_rec.getNodeAddr(m_next);
+    }
 }
@@ -15,10 +15,10 @@ package at.fhooe.mcm.deadreckoning.host.dsr;
 public class IITupel {
 
     /**@brief The initiator of the IITupel. */
-    private String m_initiator = "";
+    private long m_initiator = Address.NONE;
 
     /**@brief The ID of the IITupel. */
-    private Integer m_id = new Integer(-1);
+    private int m_id = -1;
 
     /**
      * @brief Instantiates a new IITupel with passed initiator and ID.
@@ -26,9 +26,9 @@ public class IITupel {
      * @param _initiator The initiator of the IITupel.
      * @param _id The ID of the IITupel.
      */
-    public IITupel(String _initiator, int _id) {
+    public IITupel(long _initiator, int _id) {
         m_initiator = _initiator;
-        m_id = new Integer(_id);
+        m_id = _id;
     }
 
     /**
@@ -36,7 +36,7 @@ public class IITupel {
      *
      * @return The ID of the IITupel.
      */
-    public Integer getID() {
+    public int getID() {
         return m_id;
     }
 
@@ -46,7 +46,7 @@ public class IITupel {
      * @param _id The ID of the IITupel.
      */
     public void setID(int _id) {
-        this.m_id = new Integer(_id);
+        this.m_id = _id;
     }
 
     /**
@@ -54,16 +54,16 @@ public class IITupel {
      *
      * @return The initiator of the IITupel.
      */
-    public String getInitiator() {
+    public long getInitiator() {
         return m_initiator;
     }
 
     /**
-     * @brief Sets the passed string as initiator of the IITupel.
+     * @brief Sets the passed address as initiator of the IITupel.
      *
      * @param _initiator The initiator of the IITupel.
      */
-    public void setInitiator(String _initiator) {
+    public void setInitiator(long _initiator) {
         this.m_initiator = _initiator;
     }
 
@@ -81,7 +81,7 @@ public class IITupel {
             return false;
         }
         IITupel _t = (IITupel) _obj;
-        return _t.getID().equals(getID()) && _t.getInitiator().equals(getInitiator());
+        return _t.m_id == m_id && _t.m_initiator == m_initiator;
     }
 
     /**
@@ -91,8 +91,8 @@ public class IITupel {
      */
     public int hashCode() {
         int hash = 5;
-        hash = 67 * hash + (this.m_initiator != null ? this.m_initiator.hashCode() : 0);
-        hash = 67 * hash + (this.m_id != null ? this.m_id.hashCode() : 0);
+        hash = 67 * hash + (int) (this.m_initiator ^ (this.m_initiator >>> 32));
+        hash = 67 * hash + this.m_id;
         return hash;
     }
 
@@ -101,6 +101,6 @@ public class IITupel {
      * @return The string representation of an IITupel.
      */
     public String toString() {
-        return m_initiator + ":" + m_id;
+        return Address.format(m_initiator) + ":" + m_id;
     }
 }
@@ -1,66 +1,76 @@
 package at.fhooe.mcm.deadreckoning.host.dsr;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * @class RREPPkg
  * @brief this class represents a RREP package used by DSR.
  *
  * Container for a RREP package in DSR. It contains the route from initiator
- * to target.
+ * to target and travels back along this route from the node answering the
+ * request to the initiator.
  *
  * @author Florian Lettner, Lukas Bischof, Peter Riedl
  * @date 26.05.2010
  * @version 1.0
  */
-public class RREPPkg {
+public class RREPPkg implements IPacket {
 
     /** @brief The route record containing the route from the initiator to the target of the data. */
     private RouteRecord m_rec = new RouteRecord();
 
+    /** @brief The index of the hop the package is sent to, @see SourceRoute. */
+    private int m_next;
+
     /**
      * @brief Initiates a new RREP package with the passed RouteRecord.
      *
      * @param _rr The route to be set.
+     * @param _next The index of the hop the package is sent to, the one
+     * before the answering node.
      */
-    public RREPPkg(RouteRecord _rr) {
+    public RREPPkg(RouteRecord _rr, int _next) {
         m_rec = _rr;
+        m_next = _next;
     }
 
     /**
-     * @brief Instantiates a new RREP package from the passed string representation of the RREP package.
+     * @brief Reads a RREP package whose header has already been read.
      *
-     * @param _pkg The string representation of a RREP package.
+     * @param _in The input the package is read from.
+     * @param _compact <code>true</code> if the header has the <code>COMPACT</code> flag set.
+     * @throws IOException If the package cannot be read.
      */
-    public RREPPkg(String _pkg) {
-        parseRREP(_pkg);
+    public RREPPkg(DataInput _in, boolean _compact) throws IOException {
+        m_next = _in.readUnsignedByte();
+        setRouteRecord(new RouteRecord(_in, _compact));
     }
 
     /**
-     * @brief Creates a string representation of a RREP package.
+     * @brief Writes the package in the binary wire format.
      *
-     * @return The string representation of a RREP package.
+     * @param _out The output the package is written to.
+     * @param _compact <code>true</code> to write the addresses in compact form if possible.
+     * @throws IOException If the package cannot be written.
      */
-    public String toString() {
-        StringBuffer b = new StringBuffer("[RREP]");
-        b.append(m_rec.toString());
-        return b.toString();
+    public void writeTo(DataOutput _out, boolean _compact) throws IOException {
+        boolean compact = _compact && m_rec.hasPrefix();
+        PacketHeader.write(_out, PacketHeader.RREP, compact);
+        _out.writeByte(m_next);
+        m_rec.writeTo(_out, compact);
     }
 
     /**
-     * @brief Parses the string representation of a RREP package.
-     *
-     * Assures that the passed string is a representation of a RREP package and
-     * extracts the RouteRecord from the package.
+     * @brief Creates a string representation of a RREP package for logging.
      *
-     * @param _pkg The string representation of the RREP package.
+     * @return The string representation of a RREP package.
      */
-    private void parseRREP(String _pkg) {
-        String buff = _pkg;
-        if (!buff.startsWith("[RREP]")) {
-            return;
-        }
-        int headerEndIdx = buff.indexOf("]");
-        buff = buff.substring(headerEndIdx + 1);
-        setRouteRecord(new RouteRecord(buff));
+    public String toString() {
+        StringBuffer b = new StringBuffer("[RREP]");
+        b.append(m_rec.toString());
+        return b.toString();
     }
 
     /**
@@ -80,4 +90,22 @@ public class RREPPkg {
     public void setRouteRecord(RouteRecord _rec) {
         this.m_rec = _rec;
     }
+
+    /**
+     * @brief Provides the index of the hop the package is sent to.
+     *
+     * @return The index within the RouteRecord.
+     */
+    public int getNextIndex() {
+        return m_next;
+    }
+
+    /**
+     * @brief Provides the address of the hop the package is sent to.
+     *
+     * @return The address of the next hop.
+     */
+    public long getNextHop() {
+        return m_rec.getNodeAddr(m_next);
+    }
 }
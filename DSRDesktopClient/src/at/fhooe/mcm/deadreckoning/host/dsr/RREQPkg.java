@@ -1,5 +1,9 @@
 package at.fhooe.mcm.deadreckoning.host.dsr;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * @class RREQPkg
  * @brief This class represents a RREQ package used by DSR.
@@ -7,17 +11,24 @@ package at.fhooe.mcm.deadreckoning.host.dsr;
  * Container for a RREQ package in DSR. It contains the initiator, the target, a
  * RouteRecord and an id.
  *
+ * On the radio the initiator is not written separately, as it is always the
+ * first node of the RouteRecord. The id is written as unsigned short, so
+ * initiators wrap their counter with <code>ID_MASK</code>.
+ *
  * @author Florian Lettner, Lukas Bischof, Peter Riedl
  * @date 26.05.2010
  * @version 1.0
  */
-public class RREQPkg {
+public class RREQPkg implements IPacket {
+
+    /** @brief The mask of the 16 bit RREQ IDs. */
+    public static final int ID_MASK = 0xFFFF;
 
     /**@brief The initiator of the RREQ. */
-    private String m_initiator = "";
+    private long m_initiator = Address.NONE;
 
     /**@brief The target of the RREQ. */
-    private String m_target = "";
+    private long m_target = Address.NONE;
 
     /**@brief The route record of the RREQ. */
     private RouteRecord m_route = null;
@@ -30,9 +41,9 @@ public class RREQPkg {
      */
     public RREQPkg() {
         setID(0);
-        setInitiator("");
+        setInitiator(Address.NONE);
         setRouteRecord(new RouteRecord());
-        setTargetAddress("");
+        setTargetAddress(Address.NONE);
     }
 
     /**
@@ -43,7 +54,7 @@ public class RREQPkg {
      * @param _rr The route record of the RREQ.
      * @param _id The ID of the RREQ.
      */
-    public RREQPkg(String _initiator, String _target, RouteRecord _rr, int _id) {
+    public RREQPkg(long _initiator, long _target, RouteRecord _rr, int _id) {
         m_initiator = _initiator;
         m_target = _target;
         m_route = _rr;
@@ -51,12 +62,20 @@ public class RREQPkg {
     }
 
     /**
-     * @brief Instantiates a new RREQ package from the passed string representation of a RREQ package.
+     * @brief Reads a RREQ package whose header has already been read.
      *
-     * @param _pkg The package to be parsed.
+     * @param _in The input the package is read from.
+     * @param _compact <code>true</code> if the header has the <code>COMPACT</code> flag set.
+     * @throws IOException If the package cannot be read.
      */
-    public RREQPkg(String _pkg) {
-        parseRREQPkg(_pkg);
+    public RREQPkg(DataInput _in, boolean _compact) throws IOException {
+        setID(_in.readUnsignedShort());
+        setTargetAddress(Address.read(_in, _compact));
+        setRouteRecord(new RouteRecord(_in, _compact));
+        if (m_route.size() == 0) {
+            throw new IOException("RREQ without initiator");
+        }
+        setInitiator(m_route.getInitiator());
     }
 
     /**
@@ -107,16 +126,16 @@ public class RREQPkg {
      *
      * @return The address of the initiator of the package.
      */
-    public String getInitiator() {
+    public long getInitiator() {
         return m_initiator;
     }
 
     /**
-     * @brief Sets the passed string as initiator of the package.
+     * @brief Sets the passed address as initiator of the package.
      *
      * @param _initiator The address of the initiator.
      */
-    public void setInitiator(String _initiator) {
+    public void setInitiator(long _initiator) {
         this.m_initiator = _initiator;
     }
 
@@ -143,7 +162,7 @@ public class RREQPkg {
      *
      * @return The target address of the RREQ package.
      */
-    public String getTargetAddress() {
+    public long getTargetAddress() {
         return m_target;
     }
 
@@ -152,7 +171,7 @@ public class RREQPkg {
      *
      * @param _target The target address of a RREQ package.
      */
-    public void setTargetAddress(String _target) {
+    public void setTargetAddress(long _target) {
         this.m_target = _target;
     }
 
@@ -166,52 +185,34 @@ public class RREQPkg {
     }
 
     /**
-     * @brief Provides a string representation of the RREQ package.
+     * @brief Writes the package in the binary wire format.
+     *
+     * @param _out The output the package is written to.
+     * @param _compact <code>true</code> to write the addresses in compact form if possible.
+     * @throws IOException If the package cannot be written.
+     */
+    public void writeTo(DataOutput _out, boolean _compact) throws IOException {
+        boolean compact = _compact && Address.hasPrefix(m_target) && m_route.hasPrefix();
+        PacketHeader.write(_out, PacketHeader.RREQ, compact);
+        _out.writeShort(m_id);
+        Address.write(_out, m_target, compact);
+        m_route.writeTo(_out, compact);
+    }
+
+    /**
+     * @brief Provides a string representation of the RREQ package for logging.
      *
      * @return The string representation of the RREQ package.
      */
     public String toString() {
         StringBuffer b = new StringBuffer("[RREQ]");
-        b.append(m_initiator);
+        b.append(Address.format(m_initiator));
         b.append(";");
-        b.append(m_target);
+        b.append(Address.format(m_target));
         b.append(";");
         b.append(m_route.toString());
         b.append(";");
         b.append(m_id);
         return b.toString();
     }
-
-    /**
-     * @brief Parses the string representation of a RREQ package.
-     *
-     * Assures that the passed string is a representation of a RREQ package and
-     * extracts the initiator, the target, the RouteRecord and the ID from the package.
-     *
-     * @param _pkg The string representation of the RREQ package.
-     */
-    private void parseRREQPkg(String _pkg) {
-        int nextDividerIdx = 0;
-        String buff = _pkg;
-        if (!buff.startsWith("[RREQ]")) {
-            return;
-        }
-
-        int headerEndIdx = buff.indexOf("]");
-        buff = buff.substring(headerEndIdx + 1);
-        nextDividerIdx = buff.indexOf(";");
-        setInitiator(buff.substring(0, nextDividerIdx));
-
-        buff = buff.substring(nextDividerIdx + 1);
-        nextDividerIdx = buff.indexOf(";");
-        setTargetAddress(buff.substring(0, nextDividerIdx));
-
-        buff = buff.substring(nextDividerIdx + 1);
-        nextDividerIdx = buff.indexOf(";");
-        String route = buff.substring(0, nextDividerIdx);
-        setRouteRecord(new RouteRecord(route));
-
-        buff = buff.substring(nextDividerIdx + 1);
-        setID(Integer.valueOf(buff).intValue());
-    }
 }
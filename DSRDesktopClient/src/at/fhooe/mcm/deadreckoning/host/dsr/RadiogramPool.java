@@ -0,0 +1,295 @@
+package at.fhooe.mcm.deadreckoning.host.dsr;
+
+import com.sun.spot.io.j2me.radiogram.Radiogram;
+import com.sun.spot.io.j2me.radiogram.RadiogramConnection;
+import com.sun.spot.peripheral.NoRouteException;
+import java.io.IOException;
+import javax.microedition.io.Connector;
+
+/**
+ * @class RadiogramPool
+ * @brief This class keeps the radiogram connections to recently used destinations open.
+ *
+ * Opening a connection and allocating its datagram cost far more on the SPOT
+ * than sending a single package over it. The pool therefore keeps up to
+ * <code>capacity</code> client connections open, identified by their URL,
+ * e.g. "radiogram://0014.4F01.0000.6EF0:66". Every connection owns a single
+ * datagram that is reset and reused for each package, because a radiogram
+ * can only be sent over the connection that created it. If the pool is full,
+ * the least recently used connection is closed to make room.
+ *
+ * A connection whose send fails with a <code>NoRouteException</code> is
+ * closed and removed, so the next package to that destination opens a fresh
+ * connection.
+ *
+ * Connections to a single node can also be looked up by its 64 bit address
+ * and port. The URL is then only built when the connection is opened, so
+ * sending to a node that is in the pool allocates nothing.
+ *
+ * One pool is shared by all senders of the application. A datagram must be
+ * written and sent while holding the lock of the pool:
+ * <pre>
+ * synchronized (pool) {
+ *     Radiogram rg = pool.getDatagram(url);
+ *     rg.writeUTF("...");
+ *     pool.send(rg);
+ * }
+ * </pre>
+ * All connections are limited to a single broadcast hop, because DSR does
+ * its own multi hop routing. On shutdown <code>closeAll</code> closes every
+ * open connection.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 17.06.2010
+ * @version 1.0
+ */
+public class RadiogramPool {
+
+    /** @brief The default number of connections kept open. */
+    public static final int DEFAULT_CAPACITY = 8;
+
+    /** @brief The URLs of the open connections, <code>null</code> for a free slot. */
+    private String[] m_urls;
+
+    /** @brief The addresses of the nodes of the connections, <code>Address.NONE</code> if opened by URL. */
+    private long[] m_addresses;
+
+    /** @brief The ports of the connections opened by address. */
+    private int[] m_ports;
+
+    /** @brief The open connections. */
+    private RadiogramConnection[] m_connections;
+
+    /** @brief The datagram of every connection. */
+    private Radiogram[] m_datagrams;
+
+    /** @brief The value of the use counter at the last use of every connection. */
+    private long[] m_lastUse;
+
+    /** @brief The use counter, incremented whenever a datagram is handed out. */
+    private long m_uses;
+
+    /** @brief The number of connections opened so far. */
+    private int m_opened;
+
+    /**
+     * @brief Creates an empty pool.
+     *
+     * @param _capacity The maximum number of connections kept open.
+     */
+    public RadiogramPool(int _capacity) {
+        if (_capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        m_urls = new String[_capacity];
+        m_addresses = new long[_capacity];
+        m_ports = new int[_capacity];
+        m_connections = new RadiogramConnection[_capacity];
+        m_datagrams = new Radiogram[_capacity];
+        m_lastUse = new long[_capacity];
+    }
+
+    /**
+     * @brief Provides the caller with the reset datagram of the connection to a destination.
+     *
+     * The connection is opened if it is not in the pool yet.
+     *
+     * @param _url The URL of the destination.
+     * @return The datagram, ready to be written.
+     * @throws IOException If the connection cannot be opened.
+     */
+    public synchronized Radiogram getDatagram(String _url) throws IOException {
+        int slot = indexOf(_url);
+
+        if (slot < 0) {
+            slot = open(_url, Address.NONE, 0);
+        }
+        return use(slot);
+    }
+
+    /**
+     * @brief Provides the caller with the reset datagram of the connection to a node.
+     *
+     * The connection is opened if it is not in the pool yet.
+     *
+     * @param _addr The 64 bit address of the node.
+     * @param _port The port of the connection.
+     * @return The datagram, ready to be written.
+     * @throws IOException If the connection cannot be opened.
+     */
+    public synchronized Radiogram getDatagram(long _addr, int _port) throws IOException {
+        int slot = indexOf(_addr, _port);
+
+        if (slot < 0) {
+            slot = open("radiogram://" + Address.format(_addr) + ":" + _port, _addr, _port);
+        }
+        return use(slot);
+    }
+
+    /**
+     * @brief Sends a datagram over the connection it belongs to.
+     *
+     * @param _rg A datagram provided by <code>getDatagram</code>.
+     * @throws NoRouteException If the destination cannot be reached, the
+     * connection has been closed and removed.
+     * @throws IOException If the datagram cannot be sent.
+     */
+    public synchronized void send(Radiogram _rg) throws IOException {
+        int slot = indexOf(_rg);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Datagram does not belong to the pool");
+        }
+
+        try {
+            m_connections[slot].send(_rg);
+        } catch (NoRouteException ex) {
+            close(slot);
+            throw ex;
+        }
+    }
+
+    /**
+     * @brief Closes all open connections and frees their slots.
+     *
+     * The pool stays usable, the next package to a destination opens a
+     * fresh connection.
+     */
+    public synchronized void closeAll() {
+        for (int i = 0; i < m_urls.length; i++) {
+            if (m_urls[i] != null) {
+                close(i);
+            }
+        }
+    }
+
+    /**
+     * @brief Provides the caller with the number of connections opened so far.
+     *
+     * @return The number of opened connections, the difference to the number
+     * of sent packages is the number of saved connection setups.
+     */
+    public synchronized int getOpenedCount() {
+        return m_opened;
+    }
+
+    /**
+     * @brief Looks up the slot of a connection.
+     *
+     * @param _url The URL of the connection.
+     * @return The slot, -1 if the connection is not open.
+     */
+    private int indexOf(String _url) {
+        for (int i = 0; i < m_urls.length; i++) {
+            if (_url.equals(m_urls[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @brief Looks up the slot of a connection opened by address.
+     *
+     * @param _addr The 64 bit address of the node.
+     * @param _port The port of the connection.
+     * @return The slot, -1 if the connection is not open.
+     */
+    private int indexOf(long _addr, int _port) {
+        for (int i = 0; i < m_addresses.length; i++) {
+            if (m_addresses[i] == _addr && m_ports[i] == _port && m_urls[i] != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @brief Looks up the slot of a datagram.
+     *
+     * @param _rg The datagram.
+     * @return The slot, -1 if the datagram does not belong to an open connection.
+     */
+    private int indexOf(Radiogram _rg) {
+        for (int i = 0; i < m_datagrams.length; i++) {
+            if (m_datagrams[i] == _rg) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @brief Opens a connection in a free slot.
+     *
+     * @param _url The URL of the destination.
+     * @param _addr The 64 bit address of the node, <code>Address.NONE</code> if opened by URL.
+     * @param _port The port of the connection.
+     * @return The slot of the connection.
+     * @throws IOException If the connection cannot be opened.
+     */
+    private int open(String _url, long _addr, int _port) throws IOException {
+        int slot = getFreeSlot();
+        RadiogramConnection conn = (RadiogramConnection) Connector.open(_url);
+        conn.setMaxBroadcastHops(1);
+        m_urls[slot] = _url;
+        m_addresses[slot] = _addr;
+        m_ports[slot] = _port;
+        m_connections[slot] = conn;
+        m_datagrams[slot] = (Radiogram) conn.newDatagram(conn.getMaximumLength());
+        m_opened++;
+        return slot;
+    }
+
+    /**
+     * @brief Marks a connection as used and provides its reset datagram.
+     *
+     * @param _slot The slot of the connection.
+     * @return The datagram, ready to be written.
+     */
+    private Radiogram use(int _slot) {
+        m_lastUse[_slot] = ++m_uses;
+        Radiogram rg = m_datagrams[_slot];
+        rg.reset();
+        return rg;
+    }
+
+    /**
+     * @brief Provides the caller with a free slot.
+     *
+     * If all slots are used, the least recently used connection is closed.
+     *
+     * @return The free slot.
+     */
+    private int getFreeSlot() {
+        int lru = 0;
+
+        for (int i = 0; i < m_urls.length; i++) {
+            if (m_urls[i] == null) {
+                return i;
+            }
+            if (m_lastUse[i] < m_lastUse[lru]) {
+                lru = i;
+            }
+        }
+
+        close(lru);
+        return lru;
+    }
+
+    /**
+     * @brief Closes the connection in a slot and frees the slot.
+     *
+     * @param _slot The slot.
+     */
+    private void close(int _slot) {
+        try {
+            m_connections[_slot].close();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+        m_urls[_slot] = null;
+        m_addresses[_slot] = Address.NONE;
+        m_connections[_slot] = null;
+        m_datagrams[_slot] = null;
+    }
+}
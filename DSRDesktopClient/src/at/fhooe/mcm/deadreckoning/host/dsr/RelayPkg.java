@@ -0,0 +1,68 @@
+package at.fhooe.mcm.deadreckoning.host.dsr;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * @class RelayPkg
+ * @brief This class represents a received routed package that is sent on unchanged.
+ *
+ * The package only refers to the received body, whose next hop index has
+ * been moved by <code>SourceRoute.advance</code>. It is written with the
+ * received header, so the addresses keep the form they have been received
+ * in. A relay reuses a single instance for all packages.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 16.06.2010
+ * @version 1.0
+ */
+public class RelayPkg implements IPacket {
+
+    /** @brief The type of the package. */
+    private int m_type;
+
+    /** @brief <code>true</code> if the addresses have been received in compact form. */
+    private boolean m_compact;
+
+    /** @brief The buffer holding the body. */
+    private byte[] m_body;
+
+    /** @brief The length of the body. */
+    private int m_length;
+
+    /**
+     * @brief Sets the package to be relayed.
+     *
+     * @param _type The type of the package, e.g. <code>PacketHeader.DATA</code>.
+     * @param _compact <code>true</code> if the header has the <code>COMPACT</code> flag set.
+     * @param _body The buffer holding the body, it is not copied.
+     * @param _length The length of the body.
+     */
+    public void set(int _type, boolean _compact, byte[] _body, int _length) {
+        m_type = _type;
+        m_compact = _compact;
+        m_body = _body;
+        m_length = _length;
+    }
+
+    /**
+     * @brief Writes the received header and body.
+     *
+     * @param _out The output the package is written to.
+     * @param _compact Ignored, the addresses are written as received.
+     * @throws IOException If the package cannot be written.
+     */
+    public void writeTo(DataOutput _out, boolean _compact) throws IOException {
+        PacketHeader.write(_out, m_type, m_compact);
+        _out.write(m_body, 0, m_length);
+    }
+
+    /**
+     * @brief Creates a string representation of the package for logging.
+     *
+     * @return The type and the length of the body.
+     */
+    public String toString() {
+        return "[RELAY]" + m_type + ";" + m_length;
+    }
+}
@@ -1,6 +1,8 @@
 package at.fhooe.mcm.deadreckoning.host.dsr;
 
-import java.util.Vector;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * @class RouteRecord
@@ -9,19 +11,37 @@ import java.util.Vector;
  * This class is a ontainer for storage of a list of node addresses and provides some useful
  * operations needed for DSR.
  *
+ * The addresses are stored as 64 bit values in a growing array, so looking
+ * up a hop compares primitives and adding a hop only allocates if the
+ * capacity is exceeded (@see Address).
+ *
+ * On the radio a RouteRecord is written as the number of hops followed by
+ * the address of every hop, i.e. 8 or, in compact form, 4 bytes per hop
+ * instead of the 20 characters of the dotted hex string and its separator.
+ *
  * @author Florian Lettner, Lukas Bischof, Peter Riedl
  * @date 25.05.2010
  * @version 1.0
  */
 public class RouteRecord {
 
-    /** @brief A vector containing the stored node addresses. */
-    private Vector m_records = new Vector();
+    /** @brief The maximum number of hops that can be written. */
+    public static final int MAX_HOPS = 255;
+
+    /** @brief The initial capacity, enough for most routes. */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /** @brief The stored node addresses. */
+    private long[] m_records;
+
+    /** @brief The number of stored node addresses. */
+    private int m_size;
 
     /**
      * @brief Instantiates an empty RouteRecord.
      */
     public RouteRecord() {
+        m_records = new long[INITIAL_CAPACITY];
     }
 
     /**
@@ -30,46 +50,75 @@ public class RouteRecord {
      * @param _rr The RouteRecord to copy.
      */
     public RouteRecord(RouteRecord _rr) {
-        m_records = _rr.getRecord();
+        m_records = new long[Math.max(_rr.m_size, INITIAL_CAPACITY)];
+        System.arraycopy(_rr.m_records, 0, m_records, 0, _rr.m_size);
+        m_size = _rr.m_size;
     }
 
     /**
-     * @brief Instantiates a new RouteRecord from the passed string representation of a RouteRequest.
+     * @brief Reads a RouteRecord in the binary wire format.
      *
-     * @param _rec The string representation of the RouteRecord.
+     * @param _in The input the RouteRecord is read from.
+     * @param _compact <code>true</code> if the addresses have been written in compact form.
+     * @throws IOException If the RouteRecord cannot be read.
      */
-    public RouteRecord(String _rec) {
-        parseRouteRecordStr(_rec);
+    public RouteRecord(DataInput _in, boolean _compact) throws IOException {
+        int hops = _in.readUnsignedByte();
+        m_records = new long[Math.max(hops, INITIAL_CAPACITY)];
+        for (int i = 0; i < hops; i++) {
+            m_records[i] = Address.read(_in, _compact);
+        }
+        m_size = hops;
     }
 
     /**
-     * @brief Adds the passed string as a node address in the list.
+     * @brief Adds the passed address as a node address in the list.
      *
      * @param _addr The address to store.
      */
-    public void addNodeAddr(String _addr) {
-        m_records.addElement(_addr);
+    public void addNodeAddr(long _addr) {
+        if (m_size == m_records.length) {
+            long[] records = new long[m_size * 2];
+            System.arraycopy(m_records, 0, records, 0, m_size);
+            m_records = records;
+        }
+        m_records[m_size++] = _addr;
+    }
+
+    /**
+     * @brief Provides the number of node addresses.
+     *
+     * @return The number of node addresses.
+     */
+    public int size() {
+        return m_size;
     }
 
     /**
-     * @brief Provides the vector of node addresses.
+     * @brief Provides a node address.
      *
-     * @return The vector of node addresses.
+     * @param _idx The index of the node, 0 is the initiator.
+     * @return The address of the node.
      */
-    public Vector getRecord() {
-        return m_records;
+    public long getNodeAddr(int _idx) {
+        if (_idx >= m_size) {
+            throw new ArrayIndexOutOfBoundsException(_idx);
+        }
+        return m_records[_idx];
     }
 
     /**
      * @brief Concatenates the passed RouteRecord with this RouteRecord and returns the result.
      *
+     * Neither this nor the passed RouteRecord is changed.
+     *
      * @param _rec The RouteRecord to concatenate.
      * @return The concatenated RouteRecord.
      */
     public RouteRecord concat(RouteRecord _rec) {
         RouteRecord r = new RouteRecord(this);
-        for (int i = 0; i < _rec.getRecord().size(); i++) {
-            r.addNodeAddr((String) _rec.getRecord().elementAt(i));
+        for (int i = 0; i < _rec.m_size; i++) {
+            r.addNodeAddr(_rec.m_records[i]);
         }
         return r;
     }
@@ -78,16 +127,16 @@ public class RouteRecord {
      * @brief Provides the address of the next node in the list of addresses after the passed address.
      *
      * @param _ownAddr The address to get the next hop for.
-     * @return The address of the next node in the RouteRecord.
+     * @return The address of the next node in the RouteRecord, <code>Address.NONE</code>
+     * if the passed address is not followed by a node.
      */
-    public String getNextHop(String _ownAddr) {
-        for (int i = 0; i < m_records.size() - 1; i++) {
-            String s = (String) m_records.elementAt(i);
-            if (s.equals(_ownAddr)) {
-                return (String) m_records.elementAt(i + 1);
+    public long getNextHop(long _ownAddr) {
+        for (int i = 0; i < m_size - 1; i++) {
+            if (m_records[i] == _ownAddr) {
+                return m_records[i + 1];
             }
         }
-        return "";
+        return Address.NONE;
     }
 
     /**
@@ -95,16 +144,16 @@ public class RouteRecord {
      *
      * @return The address of the first node in the RouteRecord.
      */
-    public String getInitiator() {
-        return (String) m_records.firstElement();
+    public long getInitiator() {
+        return getNodeAddr(0);
     }
 
     /**
      * @brief Provides the address of the last node in the RouteRecord.
      * @return The address of the last node in the RouteRecord.
      */
-    public String getTarget() {
-        return (String) m_records.lastElement();
+    public long getTarget() {
+        return getNodeAddr(m_size - 1);
     }
 
     /**
@@ -114,41 +163,60 @@ public class RouteRecord {
      */
     public RouteRecord reverse() {
         RouteRecord res = new RouteRecord();
-        for (int i = m_records.size() - 1; i >= 0; i--) {
-            res.addNodeAddr((String) m_records.elementAt(i));
+        for (int i = m_size - 1; i >= 0; i--) {
+            res.addNodeAddr(m_records[i]);
         }
         return res;
     }
 
+    /**
+     * @brief Checks whether all node addresses carry the common SunSPOT prefix.
+     *
+     * @return <code>true</code> if the RouteRecord can be written in compact form.
+     */
+    public boolean hasPrefix() {
+        for (int i = 0; i < m_size; i++) {
+            if (!Address.hasPrefix(m_records[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * @brief Provides a string representation of the RouteRecord.
      *
-     * @return The string representation of the RouteRecord.
+     * @return The dotted hex addresses separated by commas.
      */
     public String toString() {
-        if (m_records.isEmpty()) {
+        if (m_size == 0) {
             return "";
         }
-        StringBuffer b = new StringBuffer((String) m_records.elementAt(0));
-        for (int i = 1; i < m_records.size(); i++) {
+        StringBuffer b = new StringBuffer(Address.format(m_records[0]));
+        for (int i = 1; i < m_size; i++) {
             b.append(",");
-            b.append((String) m_records.elementAt(i));
+            b.append(Address.format(m_records[i]));
         }
         return b.toString();
     }
 
     /**
-     * @brief Parses a string representation of a passed string.
-     * @param _rec The string representation of a RouteRecord.
+     * @brief Writes the RouteRecord in the binary wire format.
+     *
+     * @param _out The output the RouteRecord is written to.
+     * @param _compact <code>true</code> to write the addresses in compact form,
+     * only valid if <code>hasPrefix</code> is <code>true</code>.
+     * @throws IOException If the RouteRecord has more than <code>MAX_HOPS</code>
+     * hops or cannot be written.
      */
-    private void parseRouteRecordStr(String _rec) {
-        int divIdx = -2;
-        String buff = _rec;
-        while (buff.indexOf(",") != -1) {
-            divIdx = buff.indexOf(",");
-            addNodeAddr(buff.substring(0, divIdx));
-            buff = buff.substring(divIdx + 1);
+    public void writeTo(DataOutput _out, boolean _compact) throws IOException {
+        if (m_size > MAX_HOPS) {
+            throw new IOException("Route too long: " + m_size + " hops");
+        }
+
+        _out.writeByte(m_size);
+        for (int i = 0; i < m_size; i++) {
+            Address.write(_out, m_records[i], _compact);
         }
-        addNodeAddr(buff);
     }
 }
@@ -0,0 +1,128 @@
+package at.fhooe.mcm.deadreckoning.host.dsr;
+
+/**
+ * @class SourceRoute
+ * @brief This class forwards routed DSR packages without decoding them.
+ *
+ * The body of every routed package, i.e. [RREP], [DATA] and [BDATA], starts
+ * with the next hop index followed by the route:
+ * <pre>
+ * offset size        field
+ *      0 1           index of the node the package is sent to
+ *      1 1           number of hops
+ *      2 hops * 4/8  address of every hop
+ *        ...         payload of the package
+ * </pre>
+ * [DATA] and [BDATA] travel from the first to the last hop of the route, a
+ * [RREP] travels back from the target of the discovered route to its
+ * initiator. A relay checks that the index points to itself, moves it one
+ * hop in the direction of the package and sends the received body on
+ * unchanged (@see RelayPkg). Relaying therefore costs the same for every
+ * route length and payload and neither parses nor allocates anything.
+ *
+ * All methods work on the body of a package, i.e. the radiogram without
+ * its header byte.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 16.06.2010
+ * @version 1.0
+ */
+public final class SourceRoute {
+
+    /** @brief The offset of the next hop index. */
+    private static final int NEXT_OFFSET = 0;
+
+    /** @brief The offset of the number of hops. */
+    private static final int HOPS_OFFSET = 1;
+
+    /** @brief The offset of the first address. */
+    private static final int ROUTE_OFFSET = 2;
+
+    /**
+     * @brief Should not be instantiated.
+     */
+    private SourceRoute() {
+    }
+
+    /**
+     * @brief Checks whether packages of a type carry a source route.
+     *
+     * @param _type The type of the package, e.g. <code>PacketHeader.RREP</code>.
+     * @return <code>true</code> for [RREP], [DATA] and [BDATA].
+     */
+    public static boolean isRouted(int _type) {
+        return _type == PacketHeader.RREP || _type == PacketHeader.DATA || _type == PacketHeader.BDATA;
+    }
+
+    /**
+     * @brief Provides the direction a package of a type travels along its route.
+     *
+     * @param _type The type of the package.
+     * @return -1 for a [RREP] travelling back to the initiator, 1 otherwise.
+     */
+    public static int getDirection(int _type) {
+        return (_type == PacketHeader.RREP) ? -1 : 1;
+    }
+
+    /**
+     * @brief Checks whether a received package is addressed to a node.
+     *
+     * @param _body The body of the package.
+     * @param _length The length of the body.
+     * @param _compact <code>true</code> if the header has the <code>COMPACT</code> flag set.
+     * @param _addr The address of the receiving node.
+     * @return <code>true</code> if the route is complete and its next hop
+     * index points to the node.
+     */
+    public static boolean isNextHop(byte[] _body, int _length, boolean _compact, long _addr) {
+        if (_length < ROUTE_OFFSET) {
+            return false;
+        }
+
+        int next = _body[NEXT_OFFSET] & 0xFF;
+        int hops = _body[HOPS_OFFSET] & 0xFF;
+
+        return next < hops && getAddressOffset(hops, _compact) <= _length
+                && Address.read(_body, getAddressOffset(next, _compact), _compact) == _addr;
+    }
+
+    /**
+     * @brief Checks whether the node the next hop index points to is the destination.
+     *
+     * @param _body The body of the package.
+     * @param _type The type of the package.
+     * @return <code>true</code> if the route ends at the node.
+     */
+    public static boolean isDestination(byte[] _body, int _type) {
+        int next = (_body[NEXT_OFFSET] & 0xFF) + getDirection(_type);
+        return next < 0 || next >= (_body[HOPS_OFFSET] & 0xFF);
+    }
+
+    /**
+     * @brief Moves the next hop index one hop in the direction of the package.
+     *
+     * The body is changed in place, the caller has to ensure that the package
+     * is addressed to it and not at its destination.
+     *
+     * @param _body The body of the package.
+     * @param _type The type of the package.
+     * @param _compact <code>true</code> if the header has the <code>COMPACT</code> flag set.
+     * @return The address of the next hop.
+     */
+    public static long advance(byte[] _body, int _type, boolean _compact) {
+        int next = (_body[NEXT_OFFSET] & 0xFF) + getDirection(_type);
+        _body[NEXT_OFFSET] = (byte) next;
+        return Address.read(_body, getAddressOffset(next, _compact), _compact);
+    }
+
+    /**
+     * @brief Provides the offset of an address within the body.
+     *
+     * @param _idx The index of the hop.
+     * @param _compact <code>true</code> if the addresses are written in compact form.
+     * @return The offset of the address.
+     */
+    private static int getAddressOffset(int _idx, boolean _compact) {
+        return ROUTE_OFFSET + _idx * Address.getSize(_compact);
+    }
+}
@@ -1,7 +1,14 @@
 package at.fhooe.mcm.deadreckoning.host.gui;
 
+import at.fhooe.mcm.deadreckoning.telemetry.TelemetryFrame;
+import at.fhooe.mcm.deadreckoning.telemetry.TelemetryPredictor;
+import at.fhooe.mcm.deadreckoning.telemetry.TelemetrySummary;
+import at.fhooe.mcm.deadreckoning.telemetry.TelemetryThrottle;
 import java.awt.EventQueue;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.util.StringTokenizer;
+import javax.swing.Timer;
 
 /**
  * @class DeadReckoningInfoGUI
@@ -12,15 +19,55 @@ import java.util.StringTokenizer;
  *
  * Displays filter coefficients, accelerations, computed velocities and positions
  * as well as the distance and the averaged distance of two sensors.
+ *
+ * The sensor only sends a telemetry frame if the extrapolated distance
+ * deviates too much, so the distance is extrapolated between two frames.
+ * The statistics of the samples between two frames are shown as tool tips
+ * of the acceleration, velocity and distance fields.
  */
 public class DeadReckoningInfoGUI extends javax.swing.JFrame {
 
+    /** @brief The period in which the extrapolated distance is shown in milliseconds. */
+    private static final int EXTRAPOLATION_PERIOD = 100;
+
+    /** @brief The latest telemetry values, guarded by the array itself. */
+    private final float[] m_telemetry = new float[TelemetryFrame.FIELD_COUNT];
+
+    /** @brief The telemetry values shown, only accessed on the event queue. */
+    private final float[] m_shownTelemetry = new float[TelemetryFrame.FIELD_COUNT];
+
+    /** @brief <code>true</code> while an update of the telemetry fields is queued. */
+    private boolean m_telemetryPending = false;
+
+    /** @brief Copies the latest telemetry values into the GUI fields. */
+    private final Runnable m_telemetryUpdater = new Runnable() {
+
+        public void run() {
+            showTelemetry();
+        }
+    };
+
+    /** @brief Extrapolates the distance from the latest frame, guarded by <code>m_telemetry</code>. */
+    private final TelemetryPredictor m_predictor = new TelemetryPredictor();
+
+    /** @brief The time the latest frame has been received in milliseconds, guarded by <code>m_telemetry</code>. */
+    private long m_frameTime;
+
+    /** @brief Periodically shows the extrapolated distance. */
+    private final Timer m_extrapolationTimer = new Timer(EXTRAPOLATION_PERIOD, new ActionListener() {
+
+        public void actionPerformed(ActionEvent _e) {
+            showExtrapolatedDistance();
+        }
+    });
+
     /** 
      * @brief Creates new form DeadReckoningInfoGUI.
      */
     public DeadReckoningInfoGUI() {
         initComponents();
         setVisible(true);
+        m_extrapolationTimer.start();
     }
 
     /**
@@ -399,6 +446,127 @@ public class DeadReckoningInfoGUI extends javax.swing.JFrame {
         });
     }
 
+    /**
+     * @brief Sets the values of a telemetry frame thread safe for the several GUI fields.
+     *
+     * The values are copied, so the caller may reuse the frame. If several
+     * frames arrive before the GUI is updated, only the latest is shown.
+     * Frames arriving out of order are ignored.
+     *
+     * @param _frame The decoded telemetry frame.
+     * @return <code>false</code> if the frame is outdated and has been ignored.
+     */
+    public boolean setData(TelemetryFrame _frame) {
+        synchronized (m_telemetry) {
+            if (!m_predictor.update(_frame, (System.currentTimeMillis() - m_frameTime) / 1000f)) {
+                return false;
+            }
+            m_frameTime = System.currentTimeMillis();
+
+            for (int i = 0; i < TelemetryFrame.FIELD_COUNT; i++) {
+                m_telemetry[i] = _frame.get(i);
+            }
+
+            if (m_telemetryPending) {
+                return true;
+            }
+            m_telemetryPending = true;
+        }
+
+        EventQueue.invokeLater(m_telemetryUpdater);
+        return true;
+    }
+
+    /**
+     * @brief Copies the latest telemetry values into the GUI fields, called on the event queue.
+     */
+    private void showTelemetry() {
+        float[] v = m_shownTelemetry;
+
+        synchronized (m_telemetry) {
+            System.arraycopy(m_telemetry, 0, v, 0, v.length);
+            m_telemetryPending = false;
+        }
+
+        accelerationXField.setText(delimit(String.valueOf(v[TelemetryFrame.ACCELERATION_X]), 3));
+        accelerationYField.setText(delimit(String.valueOf(v[TelemetryFrame.ACCELERATION_Y]), 3));
+        velocityXField.setText(delimit(String.valueOf(v[TelemetryFrame.VELOCITY_X]), 3));
+        velocityYField.setText(delimit(String.valueOf(v[TelemetryFrame.VELOCITY_Y]), 3));
+        positionXField.setText(delimit(String.valueOf(v[TelemetryFrame.POSITION_DELTA_X]), 3));
+        positionYField.setText(delimit(String.valueOf(v[TelemetryFrame.POSITION_DELTA_Y]), 3));
+        distanceField.setText(delimit(String.valueOf(v[TelemetryFrame.DISTANCE]), 3));
+        intervalField.setText(delimit(String.valueOf(v[TelemetryFrame.INTERVAL]), 3));
+        inputXField.setText(delimit(String.valueOf(v[TelemetryFrame.FILTER_INPUT_X]), 3));
+        inputYField.setText(delimit(String.valueOf(v[TelemetryFrame.FILTER_INPUT_Y]), 3));
+        correctedXField.setText(delimit(String.valueOf(v[TelemetryFrame.FILTER_OUTPUT_X]), 3));
+        correctedYField.setText(delimit(String.valueOf(v[TelemetryFrame.FILTER_OUTPUT_Y]), 3));
+        distanceAvgField.setText(delimit(String.valueOf(v[TelemetryFrame.DISTANCE_AVERAGE]), 3));
+    }
+
+    /**
+     * @brief Sets the statistics of a telemetry summary thread safe as tool tips of the GUI fields.
+     *
+     * @param _summary The decoded summary, it may be reused by the caller.
+     */
+    public void setSummary(TelemetrySummary _summary) {
+        final String accelX = summaryToString(_summary, TelemetrySummary.ACCELERATION_X);
+        final String accelY = summaryToString(_summary, TelemetrySummary.ACCELERATION_Y);
+        final String velX = summaryToString(_summary, TelemetrySummary.VELOCITY_X);
+        final String velY = summaryToString(_summary, TelemetrySummary.VELOCITY_Y);
+        final String dist = summaryToString(_summary, TelemetrySummary.DISTANCE);
+
+        EventQueue.invokeLater(new Runnable() {
+
+            public void run() {
+                accelerationXField.setToolTipText(accelX);
+                accelerationYField.setToolTipText(accelY);
+                velocityXField.setToolTipText(velX);
+                velocityYField.setToolTipText(velY);
+                distanceField.setToolTipText(dist);
+            }
+        });
+    }
+
+    /**
+     * @brief Formats the statistics of a summary channel.
+     *
+     * @param _summary The summary.
+     * @param _channel The channel.
+     * @return The statistics as single line of text.
+     */
+    private String summaryToString(TelemetrySummary _summary, int _channel) {
+        return "min " + delimit(String.valueOf(_summary.get(_channel, TelemetrySummary.MIN)), 3)
+                + ", max " + delimit(String.valueOf(_summary.get(_channel, TelemetrySummary.MAX)), 3)
+                + ", mean " + delimit(String.valueOf(_summary.get(_channel, TelemetrySummary.MEAN)), 3)
+                + ", sd " + delimit(String.valueOf(_summary.get(_channel, TelemetrySummary.STANDARD_DEVIATION)), 3)
+                + " (" + _summary.getCount() + " samples, "
+                + delimit(String.valueOf(_summary.getDuration()), 3) + "s)";
+    }
+
+    /**
+     * @brief Shows the distance extrapolated from the latest frame, called on the event queue.
+     *
+     * The extrapolation stops after the heartbeat interval of the sensor,
+     * because a new frame should have arrived by then.
+     */
+    private void showExtrapolatedDistance() {
+        float distance;
+
+        synchronized (m_telemetry) {
+            if (!m_predictor.hasReference()) {
+                return;
+            }
+
+            float elapsed = (System.currentTimeMillis() - m_frameTime) / 1000f;
+            if (elapsed > TelemetryThrottle.HEARTBEAT_INTERVAL) {
+                elapsed = TelemetryThrottle.HEARTBEAT_INTERVAL;
+            }
+            distance = m_predictor.predict(elapsed);
+        }
+
+        distanceField.setText(delimit(String.valueOf(distance), 3));
+    }
+
     /**
      * @brief Delimits the passed string representation of a floating point value
      * to the specified digits after the period.
@@ -0,0 +1,110 @@
+package at.fhooe.mcm.deadreckoning.host.replay;
+
+import at.fhooe.mcm.deadreckoning.sensor.ISensorSource;
+import at.fhooe.mcm.deadreckoning.trace.TraceRecorder;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * @class MappedTraceSource
+ * @brief This class replays a trace file through a memory mapping.
+ *
+ * The file is mapped read-only, so the samples are read straight from the
+ * page cache without copying them through stream buffers. This is the
+ * preferred source when many traces are replayed in parallel. The format is
+ * the one written by <code>TraceRecorder</code>, an incomplete last sample is
+ * ignored.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 05.06.2010
+ * @version 1.0
+ */
+public class MappedTraceSource implements ISensorSource {
+
+    /** @brief The mapped trace. */
+    private ByteBuffer m_buffer;
+
+    /** @brief The time stamp of the last read sample in microseconds. */
+    private long m_time;
+
+    /**
+     * @brief Maps a trace file and reads the header.
+     *
+     * @param _file The trace file.
+     * @throws IOException If the file cannot be mapped or has an invalid header.
+     */
+    public MappedTraceSource(File _file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(_file, "r");
+
+        try {
+            FileChannel channel = raf.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            init(buffer);
+        } finally {
+            // the mapping stays valid after the file has been closed
+            raf.close();
+        }
+    }
+
+    /**
+     * @brief Reads a trace from a buffer.
+     *
+     * @param _buffer The buffer holding the trace, starting at its position.
+     * @throws IOException If the header is invalid.
+     */
+    public MappedTraceSource(ByteBuffer _buffer) throws IOException {
+        init(_buffer.slice());
+    }
+
+    /**
+     * @brief Reads the header.
+     *
+     * @param _buffer The buffer holding the trace.
+     * @throws IOException If the header is invalid.
+     */
+    private void init(ByteBuffer _buffer) throws IOException {
+        m_buffer = _buffer;
+
+        if (m_buffer.remaining() < TraceRecorder.HEADER_SIZE || m_buffer.getInt() != TraceRecorder.MAGIC) {
+            throw new IOException("Invalid trace magic");
+        }
+
+        if (m_buffer.get() != TraceRecorder.VERSION) {
+            throw new IOException("Unsupported trace version");
+        }
+
+        m_time = m_buffer.getLong();
+    }
+
+    /**
+     * @brief Reads the next sample of the trace.
+     *
+     * @param _accel The array receiving the x-, y- and z-acceleration in G.
+     * @return <code>true</code> if a sample has been read, <code>false</code>
+     * at the end of the trace.
+     */
+    public boolean read(double[] _accel) {
+        if (m_buffer.remaining() < TraceRecorder.SAMPLE_SIZE) {
+            return false;
+        }
+
+        m_time += m_buffer.getInt();
+        _accel[0] = m_buffer.getFloat();
+        _accel[1] = m_buffer.getFloat();
+        _accel[2] = m_buffer.getFloat();
+        return true;
+    }
+
+    /**
+     * @brief Provides the caller with the time stamp of the last read sample.
+     *
+     * @return The recorded time stamp in microseconds.
+     */
+    public long getTimeMicros() {
+        return m_time;
+    }
+}
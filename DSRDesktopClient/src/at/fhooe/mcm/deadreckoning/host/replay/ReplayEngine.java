@@ -0,0 +1,271 @@
+package at.fhooe.mcm.deadreckoning.host.replay;
+
+import at.fhooe.mcm.deadreckoning.calibration.ICalibrationStore;
+import at.fhooe.mcm.deadreckoning.host.calibration.FileCalibrationStore;
+import at.fhooe.mcm.deadreckoning.integrator.IntegratorComparison;
+import at.fhooe.mcm.deadreckoning.sensor.ISensorSource;
+import at.fhooe.mcm.deadreckoning.sensor.InertialSensor;
+import at.fhooe.mcm.deadreckoning.sensor.SensorSnapshot;
+import at.fhooe.mcm.deadreckoning.trace.TraceReplaySource;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @class ReplayEngine
+ * @brief This class runs recorded traces through the dead reckoning chain of the SPOT.
+ *
+ * The trace is fed into an <code>InertialSensor</code> which uses the
+ * recorded time stamps as virtual clock instead of the system clock. The
+ * samples are therefore processed as fast as they can be read and the result
+ * does not depend on the load of the host: replaying the same trace with the
+ * same configuration always yields bit-identical results.
+ *
+ * The sensor is configured like on the SPOT, subclasses can override
+ * <code>configure</code> to evaluate other filters or parameters. If a
+ * calibration store is passed, every replay starts with the stored
+ * calibration like a rebooted SPOT, e.g. from a <code>FileCalibrationStore</code>
+ * holding a record saved on the device. The store is only read.
+ *
+ * <code>compareIntegrators</code> records the filtered accelerations of a
+ * replay and integrates them with every integrator
+ * (@see IntegratorComparison), so the drift of the integration methods can
+ * be compared on real traces.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 04.06.2010
+ * @version 1.0
+ */
+public class ReplayEngine {
+
+    /** @brief The initial capacity of the recorded acceleration series. */
+    private static final int SERIES_CAPACITY = 1 << 12;
+
+    /** @brief <code>true</code> to replay with Q16.16 arithmetic. */
+    private boolean m_fixedPoint;
+
+    /** @brief The store the initial calibration is loaded from, <code>null</code> to start uncalibrated. */
+    private ICalibrationStore m_calibrationStore;
+
+    /**
+     * @brief Creates a replay engine using float arithmetic.
+     */
+    public ReplayEngine() {
+        this(false);
+    }
+
+    /**
+     * @brief Creates a replay engine starting uncalibrated.
+     *
+     * @param _fixedPoint <code>true</code> to replay with Q16.16 arithmetic.
+     */
+    public ReplayEngine(boolean _fixedPoint) {
+        this(_fixedPoint, null);
+    }
+
+    /**
+     * @brief Creates a replay engine.
+     *
+     * @param _fixedPoint <code>true</code> to replay with Q16.16 arithmetic.
+     * @param _store The store the initial calibration is loaded from, may be <code>null</code>.
+     */
+    public ReplayEngine(boolean _fixedPoint, ICalibrationStore _store) {
+        m_fixedPoint = _fixedPoint;
+        m_calibrationStore = _store;
+    }
+
+    /**
+     * @brief Replays a trace file.
+     *
+     * @param _trace The trace file.
+     * @return The result of the replay.
+     * @throws IOException If the trace cannot be read.
+     */
+    public ReplayResult replay(File _trace) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(_trace), 1 << 16);
+
+        try {
+            return replay(_trace.getName(), in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @brief Replays a trace from a stream.
+     *
+     * @param _name The name of the trace used in the result.
+     * @param _in The stream the trace is read from.
+     * @return The result of the replay.
+     * @throws IOException If the trace cannot be read.
+     */
+    public ReplayResult replay(String _name, InputStream _in) throws IOException {
+        return replay(_name, new TraceReplaySource(_in));
+    }
+
+    /**
+     * @brief Replays the samples of a source.
+     *
+     * The source has to provide the time stamp of the recording start before
+     * the first sample is read.
+     *
+     * @param _name The name of the trace used in the result.
+     * @param _source The source providing the recorded samples.
+     * @return The result of the replay.
+     * @throws IOException If the source cannot be read.
+     */
+    public ReplayResult replay(String _name, ISensorSource _source) throws IOException {
+        long startMicros = _source.getTimeMicros();
+
+        InertialSensor sensor = new InertialSensor(_source, m_fixedPoint, m_calibrationStore);
+        configure(sensor);
+        sensor.init();
+
+        int samples = 0;
+        long start = System.nanoTime();
+        while (sensor.updateFromSource()) {
+            samples++;
+        }
+        long wall = System.nanoTime() - start;
+
+        float vx = sensor.getVelocityX();
+        float vy = sensor.getVelocityY();
+
+        return new ReplayResult(_name, samples, _source.getTimeMicros() - startMicros,
+                wall, sensor.getDistance(), (float) Math.sqrt(vx * vx + vy * vy));
+    }
+
+    /**
+     * @brief Compares the drift of all integrators on a trace file.
+     *
+     * @param _trace The trace file, it has to start and end at rest.
+     * @return The report of the comparison per axis.
+     * @throws IOException If the trace cannot be read.
+     */
+    public String compareIntegrators(File _trace) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(_trace), 1 << 16);
+
+        try {
+            return compareIntegrators(_trace.getName(), new TraceReplaySource(in));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @brief Compares the drift of all integrators on the samples of a source.
+     *
+     * The source is replayed like by <code>replay</code>. The filtered
+     * accelerations of both axes and the time step of every sample are
+     * recorded and then integrated by every integrator.
+     *
+     * @param _name The name of the trace used in the report.
+     * @param _source The source providing the recorded samples.
+     * @return The report of the comparison per axis.
+     * @throws IOException If the source cannot be read.
+     */
+    public String compareIntegrators(String _name, ISensorSource _source) throws IOException {
+        long lastMicros = _source.getTimeMicros();
+
+        InertialSensor sensor = new InertialSensor(_source, m_fixedPoint, m_calibrationStore);
+        configure(sensor);
+        sensor.init();
+
+        SensorSnapshot snapshot = new SensorSnapshot();
+        float[] x = new float[SERIES_CAPACITY];
+        float[] y = new float[SERIES_CAPACITY];
+        float[] dt = new float[SERIES_CAPACITY];
+        int count = 0;
+
+        while (sensor.updateFromSource()) {
+            if (count == dt.length) {
+                x = grow(x);
+                y = grow(y);
+                dt = grow(dt);
+            }
+            long micros = _source.getTimeMicros();
+            sensor.getSnapshot(snapshot);
+            x[count] = snapshot.getAccelerationX();
+            y[count] = snapshot.getAccelerationY();
+            dt[count] = (micros - lastMicros) * 0.000001f;
+            lastMicros = micros;
+            count++;
+        }
+
+        IntegratorComparison comparison = new IntegratorComparison();
+        StringBuffer report = new StringBuffer(_name + ": " + count + " samples\n");
+
+        comparison.run(x, dt, count);
+        report.append("x-axis\n").append(comparison.resultToString());
+        comparison.run(y, dt, count);
+        report.append("y-axis\n").append(comparison.resultToString());
+
+        return report.toString();
+    }
+
+    /**
+     * @brief Doubles the capacity of a series.
+     *
+     * @param _series The series.
+     * @return A copy of the series with twice the capacity.
+     */
+    private static float[] grow(float[] _series) {
+        float[] grown = new float[_series.length * 2];
+        System.arraycopy(_series, 0, grown, 0, _series.length);
+        return grown;
+    }
+
+    /**
+     * @brief Configures a sensor before a trace is replayed.
+     *
+     * The default configuration matches the one of the SPOT.
+     *
+     * @param _sensor The sensor to configure.
+     */
+    protected void configure(InertialSensor _sensor) {
+        _sensor.setGravityCompensation(true);
+    }
+
+    /**
+     * @brief Replays the trace files passed as arguments and prints the results.
+     *
+     * @param args The trace files, optionally preceded by "-fixed",
+     * "-calibration file" to start from a stored calibration and
+     * "-integrators" to print the drift of every integrator instead.
+     */
+    public static void main(String[] args) {
+        boolean fixedPoint = false;
+        boolean integrators = false;
+        ICalibrationStore store = null;
+        int first = 0;
+
+        for (; first < args.length && args[first].startsWith("-"); first++) {
+            if (args[first].equals("-fixed")) {
+                fixedPoint = true;
+            } else if (args[first].equals("-calibration") && first + 1 < args.length) {
+                store = new FileCalibrationStore(new File(args[++first]));
+            } else if (args[first].equals("-integrators")) {
+                integrators = true;
+            } else {
+                System.err.println("unknown option " + args[first]);
+                return;
+            }
+        }
+
+        ReplayEngine engine = new ReplayEngine(fixedPoint, store);
+
+        for (int i = first; i < args.length; i++) {
+            try {
+                if (integrators) {
+                    System.out.print(engine.compareIntegrators(new File(args[i])));
+                } else {
+                    System.out.println(engine.replay(new File(args[i])));
+                }
+            } catch (IOException ex) {
+                System.err.println(args[i] + ": " + ex.getMessage());
+            }
+        }
+    }
+}
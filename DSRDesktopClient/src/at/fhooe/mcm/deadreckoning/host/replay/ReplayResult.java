@@ -0,0 +1,126 @@
+package at.fhooe.mcm.deadreckoning.host.replay;
+
+/**
+ * @class ReplayResult
+ * @brief This class holds the outcome of replaying a single trace.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 04.06.2010
+ * @version 1.0
+ */
+public class ReplayResult {
+
+    /** @brief The name of the replayed trace. */
+    private String m_name;
+
+    /** @brief The number of replayed samples. */
+    private int m_samples;
+
+    /** @brief The recorded duration of the trace in microseconds. */
+    private long m_traceMicros;
+
+    /** @brief The time the replay took in nanoseconds. */
+    private long m_wallNanos;
+
+    /** @brief The distance measured by the sensor in meters. */
+    private float m_distance;
+
+    /** @brief The speed left at the end of the trace in m/s. */
+    private float m_drift;
+
+    /**
+     * @brief Creates a new result.
+     *
+     * @param _name The name of the replayed trace.
+     * @param _samples The number of replayed samples.
+     * @param _traceMicros The recorded duration of the trace in microseconds.
+     * @param _wallNanos The time the replay took in nanoseconds.
+     * @param _distance The distance measured by the sensor in meters.
+     * @param _drift The speed left at the end of the trace in m/s.
+     */
+    public ReplayResult(String _name, int _samples, long _traceMicros, long _wallNanos, float _distance, float _drift) {
+        m_name = _name;
+        m_samples = _samples;
+        m_traceMicros = _traceMicros;
+        m_wallNanos = _wallNanos;
+        m_distance = _distance;
+        m_drift = _drift;
+    }
+
+    /**
+     * @brief Provides the caller with the name of the replayed trace.
+     *
+     * @return The name of the trace.
+     */
+    public String getName() {
+        return m_name;
+    }
+
+    /**
+     * @brief Provides the caller with the number of replayed samples.
+     *
+     * @return The number of samples.
+     */
+    public int getSamples() {
+        return m_samples;
+    }
+
+    /**
+     * @brief Provides the caller with the recorded duration of the trace.
+     *
+     * @return The duration in microseconds.
+     */
+    public long getTraceMicros() {
+        return m_traceMicros;
+    }
+
+    /**
+     * @brief Provides the caller with the time the replay took.
+     *
+     * @return The wall clock time in nanoseconds.
+     */
+    public long getWallNanos() {
+        return m_wallNanos;
+    }
+
+    /**
+     * @brief Provides the caller with the measured distance.
+     *
+     * @return The distance in meters.
+     */
+    public float getDistance() {
+        return m_distance;
+    }
+
+    /**
+     * @brief Provides the caller with the velocity drift.
+     *
+     * Recorded walks end at rest, so any speed left at the end of the trace
+     * is drift accumulated by the chain.
+     *
+     * @return The speed at the end of the trace in m/s.
+     */
+    public float getDrift() {
+        return m_drift;
+    }
+
+    /**
+     * @brief Provides the caller with the ratio of recorded time to replay time.
+     *
+     * @return How many times faster than real time the trace was replayed.
+     */
+    public double getSpeedup() {
+        return (m_wallNanos == 0) ? 0 : m_traceMicros * 1000.0 / m_wallNanos;
+    }
+
+    /**
+     * @brief Serializes the result to a single line.
+     *
+     * @return The name, sample count, durations, speedup, distance and drift.
+     */
+    public String toString() {
+        return m_name + ": " + m_samples + " samples, " + (m_traceMicros / 1000000.0) + " s recorded, "
+                + (m_wallNanos / 1000000.0) + " ms replayed (" + Math.round(getSpeedup()) + "x), distance "
+                + m_distance + " m, drift " + m_drift + " m/s";
+    }
+}
@@ -0,0 +1,205 @@
+package at.fhooe.mcm.deadreckoning.host.replay;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @class TraceBatchProcessor
+ * @brief This class replays many traces in parallel for regression checks.
+ *
+ * Every trace is replayed by its own task on a thread pool with one thread
+ * per core. The traces are independent and a replay only works on its own
+ * <code>InertialSensor</code>, so the tasks never share mutable state and
+ * the throughput scales with the number of cores until the disk becomes the
+ * bottleneck. The trace files are memory mapped, so the data is read from the
+ * page cache without stream copies.
+ *
+ * The results are returned in the order of the passed files, independent of
+ * the order in which the tasks finish.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 05.06.2010
+ * @version 1.0
+ */
+public class TraceBatchProcessor {
+
+    /** @brief The file extension of traces. */
+    public static final String TRACE_EXTENSION = ".drt";
+
+    /** @brief The engine used to replay the traces. */
+    private ReplayEngine m_engine;
+
+    /** @brief The number of worker threads. */
+    private int m_threads;
+
+    /**
+     * @brief Creates a processor using one thread per core.
+     *
+     * @param _engine The engine used to replay the traces.
+     */
+    public TraceBatchProcessor(ReplayEngine _engine) {
+        this(_engine, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @brief Creates a processor.
+     *
+     * @param _engine The engine used to replay the traces, it must not keep state between replays.
+     * @param _threads The number of worker threads.
+     */
+    public TraceBatchProcessor(ReplayEngine _engine, int _threads) {
+        if (_threads <= 0) {
+            throw new IllegalArgumentException("At least one thread is required");
+        }
+
+        m_engine = _engine;
+        m_threads = _threads;
+    }
+
+    /**
+     * @brief Replays the passed traces in parallel.
+     *
+     * @param _traces The trace files.
+     * @return The results in the order of the passed files, <code>null</code>
+     * for traces that could not be read.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public ReplayResult[] process(File[] _traces) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(m_threads, Math.max(1, _traces.length)));
+        List<Future<ReplayResult>> futures = new ArrayList<Future<ReplayResult>>(_traces.length);
+
+        try {
+            for (int i = 0; i < _traces.length; i++) {
+                final File trace = _traces[i];
+
+                futures.add(pool.submit(new Callable<ReplayResult>() {
+
+                    public ReplayResult call() throws IOException {
+                        return m_engine.replay(trace.getName(), new MappedTraceSource(trace));
+                    }
+                }));
+            }
+
+            ReplayResult[] results = new ReplayResult[_traces.length];
+
+            for (int i = 0; i < results.length; i++) {
+                try {
+                    results[i] = futures.get(i).get();
+                } catch (ExecutionException ex) {
+                    System.err.println(_traces[i] + ": " + ex.getCause().getMessage());
+                }
+            }
+
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @brief Collects the traces of the passed files and directories.
+     *
+     * @param _paths Trace files or directories containing trace files.
+     * @return The trace files.
+     */
+    public static File[] collectTraces(String[] _paths) {
+        List<File> traces = new ArrayList<File>();
+        FileFilter filter = new FileFilter() {
+
+            public boolean accept(File _file) {
+                return _file.isFile() && _file.getName().endsWith(TRACE_EXTENSION);
+            }
+        };
+
+        for (int i = 0; i < _paths.length; i++) {
+            File path = new File(_paths[i]);
+
+            if (path.isDirectory()) {
+                File[] files = path.listFiles(filter);
+                java.util.Arrays.sort(files);
+
+                for (int k = 0; k < files.length; k++) {
+                    traces.add(files[k]);
+                }
+            } else {
+                traces.add(path);
+            }
+        }
+
+        return traces.toArray(new File[traces.size()]);
+    }
+
+    /**
+     * @brief Replays all traces of the passed files and directories and prints a summary.
+     *
+     * The output has one semicolon separated line per trace with name,
+     * samples, recorded seconds, distance and drift, followed by the overall
+     * throughput.
+     *
+     * @param args Trace files or directories, optionally preceded by "-threads n" and "-fixed".
+     * Unknown options print the usage.
+     * @throws InterruptedException
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean fixedPoint = false;
+        int first = 0;
+
+        while (first < args.length && args[first].startsWith("-")) {
+            if (args[first].equals("-threads") && first + 1 < args.length) {
+                threads = Integer.parseInt(args[++first]);
+            } else if (args[first].equals("-fixed")) {
+                fixedPoint = true;
+            } else {
+                printUsage();
+                return;
+            }
+            first++;
+        }
+
+        if (first >= args.length) {
+            printUsage();
+            return;
+        }
+
+        String[] paths = new String[args.length - first];
+        System.arraycopy(args, first, paths, 0, paths.length);
+
+        File[] traces = collectTraces(paths);
+        TraceBatchProcessor processor = new TraceBatchProcessor(new ReplayEngine(fixedPoint), threads);
+
+        long start = System.nanoTime();
+        ReplayResult[] results = processor.process(traces);
+        long wall = System.nanoTime() - start;
+
+        long samples = 0;
+        System.out.println("trace;samples;seconds;distance;drift");
+
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != null) {
+                samples += results[i].getSamples();
+                System.out.println(results[i].getName() + ";" + results[i].getSamples() + ";"
+                        + (results[i].getTraceMicros() / 1000000.0) + ";" + results[i].getDistance() + ";"
+                        + results[i].getDrift());
+            }
+        }
+
+        System.out.println(traces.length + " traces, " + samples + " samples in " + (wall / 1000000) + " ms on "
+                + threads + " threads, " + Math.round(samples * 1e9 / wall) + " samples/s");
+    }
+
+    /**
+     * @brief Prints the command line options.
+     */
+    private static void printUsage() {
+        System.err.println("usage: TraceBatchProcessor [-threads n] [-fixed] trace|directory...");
+    }
+}
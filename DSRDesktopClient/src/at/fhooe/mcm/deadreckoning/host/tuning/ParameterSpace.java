@@ -0,0 +1,125 @@
+package at.fhooe.mcm.deadreckoning.host.tuning;
+
+import java.util.Random;
+
+/**
+ * @class ParameterSpace
+ * @brief This class describes the ranges searched by a parameter sweep.
+ *
+ * Every parameter has a closed range and a number of grid steps. A range
+ * with a single step pins the parameter to the lower bound. The space can be
+ * enumerated as a full grid or sampled randomly, the latter scales better
+ * with the number of parameters because only few of them usually matter
+ * (Bergstra and Bengio, 2012).
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 06.06.2010
+ * @version 1.0
+ */
+public class ParameterSpace {
+
+    /** @brief The lower bounds of the parameters. */
+    private float[] m_min;
+
+    /** @brief The upper bounds of the parameters. */
+    private float[] m_max;
+
+    /** @brief The number of grid steps of the parameters. */
+    private int[] m_steps;
+
+    /**
+     * @brief Creates a space pinned to the default parameters.
+     */
+    public ParameterSpace() {
+        TuningParameters defaults = TuningParameters.defaults();
+
+        m_min = new float[TuningParameters.COUNT];
+        m_max = new float[TuningParameters.COUNT];
+        m_steps = new int[TuningParameters.COUNT];
+
+        for (int i = 0; i < TuningParameters.COUNT; i++) {
+            setRange(i, defaults.get(i), defaults.get(i), 1);
+        }
+    }
+
+    /**
+     * @brief Sets the range of a parameter.
+     *
+     * @param _index The index of the parameter as defined by <code>TuningParameters</code>.
+     * @param _min The lower bound.
+     * @param _max The upper bound.
+     * @param _steps The number of grid steps including both bounds.
+     */
+    public void setRange(int _index, float _min, float _max, int _steps) {
+        if (_max < _min || _steps <= 0) {
+            throw new IllegalArgumentException("Invalid range for " + TuningParameters.NAMES[_index]);
+        }
+
+        m_min[_index] = _min;
+        m_max[_index] = _max;
+        m_steps[_index] = _min == _max ? 1 : _steps;
+    }
+
+    /**
+     * @brief Provides the caller with the number of grid points.
+     *
+     * @return The number of parameter combinations of the grid.
+     */
+    public int getGridSize() {
+        int size = 1;
+
+        for (int i = 0; i < TuningParameters.COUNT; i++) {
+            size *= m_steps[i];
+        }
+
+        return size;
+    }
+
+    /**
+     * @brief Enumerates all combinations of the grid.
+     *
+     * @return The parameter sets of the grid.
+     */
+    public TuningParameters[] grid() {
+        TuningParameters[] grid = new TuningParameters[getGridSize()];
+        float[] values = new float[TuningParameters.COUNT];
+
+        for (int n = 0; n < grid.length; n++) {
+            // decode the mixed radix index into one step per parameter
+            int rest = n;
+
+            for (int i = 0; i < TuningParameters.COUNT; i++) {
+                int step = rest % m_steps[i];
+                rest /= m_steps[i];
+                values[i] = m_steps[i] == 1 ? m_min[i] : m_min[i] + (m_max[i] - m_min[i]) * step / (m_steps[i] - 1);
+            }
+
+            grid[n] = new TuningParameters(values);
+        }
+
+        return grid;
+    }
+
+    /**
+     * @brief Draws random combinations uniformly from the ranges.
+     *
+     * @param _count The number of combinations.
+     * @param _seed The seed of the random generator, equal seeds yield equal samples.
+     * @return The parameter sets.
+     */
+    public TuningParameters[] random(int _count, long _seed) {
+        Random random = new Random(_seed);
+        TuningParameters[] samples = new TuningParameters[_count];
+        float[] values = new float[TuningParameters.COUNT];
+
+        for (int n = 0; n < _count; n++) {
+            for (int i = 0; i < TuningParameters.COUNT; i++) {
+                values[i] = m_min[i] + (m_max[i] - m_min[i]) * random.nextFloat();
+            }
+
+            samples[n] = new TuningParameters(values);
+        }
+
+        return samples;
+    }
+}
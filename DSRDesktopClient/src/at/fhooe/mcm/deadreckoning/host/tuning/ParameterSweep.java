@@ -0,0 +1,302 @@
+package at.fhooe.mcm.deadreckoning.host.tuning;
+
+import at.fhooe.mcm.deadreckoning.calibration.ICalibrationStore;
+import at.fhooe.mcm.deadreckoning.host.calibration.FileCalibrationStore;
+import at.fhooe.mcm.deadreckoning.host.replay.MappedTraceSource;
+import at.fhooe.mcm.deadreckoning.host.replay.ReplayEngine;
+import at.fhooe.mcm.deadreckoning.host.replay.ReplayResult;
+import at.fhooe.mcm.deadreckoning.sensor.InertialSensor;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @class ParameterSweep
+ * @brief This class tunes the constants of the float path against ground-truth traces.
+ *
+ * Every parameter combination replays all reference traces and is scored by
+ * the relative error between the measured and the true walked distance. The
+ * CPU cost is not scored: all combinations run the same filter chain, so
+ * their cost differs by less than the JIT and thread pool noise of a
+ * single parallel replay. The combinations are independent, so
+ * they are evaluated in parallel with one thread per core. The traces are
+ * mapped once and shared read-only by all evaluations. An optional
+ * calibration store provides the initial calibration of every replay, so
+ * the parameters can be tuned for a calibrated SPOT.
+ *
+ * The ground truth is a properties file mapping trace files, relative to the
+ * directory of the properties file, to the true distance in meters:
+ * <pre>
+ * corridor.drt=42.0
+ * stairs.drt=17.5
+ * </pre>
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 06.06.2010
+ * @version 1.0
+ */
+public class ParameterSweep {
+
+    /** @brief The names of the reference traces. */
+    private String[] m_names;
+
+    /** @brief The mapped reference traces. */
+    private ByteBuffer[] m_traces;
+
+    /** @brief The true distances of the reference traces in meters. */
+    private float[] m_distances;
+
+    /** @brief The number of worker threads. */
+    private int m_threads;
+
+    /** @brief The store the initial calibration is loaded from, <code>null</code> to start uncalibrated. */
+    private ICalibrationStore m_calibrationStore;
+
+    /**
+     * @brief Creates a sweep over the traces of a ground-truth file using one thread per core.
+     *
+     * @param _groundTruth The properties file mapping trace files to true distances.
+     * @throws IOException If the ground truth or a trace cannot be read.
+     */
+    public ParameterSweep(File _groundTruth) throws IOException {
+        this(_groundTruth, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @brief Creates a sweep over the traces of a ground-truth file.
+     *
+     * @param _groundTruth The properties file mapping trace files to true distances.
+     * @param _threads The number of worker threads.
+     * @throws IOException If the ground truth or a trace cannot be read.
+     */
+    public ParameterSweep(File _groundTruth, int _threads) throws IOException {
+        this(_groundTruth, _threads, null);
+    }
+
+    /**
+     * @brief Creates a sweep over the traces of a ground-truth file starting from a stored calibration.
+     *
+     * @param _groundTruth The properties file mapping trace files to true distances.
+     * @param _threads The number of worker threads.
+     * @param _store The store the initial calibration is loaded from, may be <code>null</code>.
+     * @throws IOException If the ground truth or a trace cannot be read.
+     */
+    public ParameterSweep(File _groundTruth, int _threads, ICalibrationStore _store) throws IOException {
+        if (_threads <= 0) {
+            throw new IllegalArgumentException("At least one thread is required");
+        }
+
+        Properties truth = new Properties();
+        InputStream in = new FileInputStream(_groundTruth);
+
+        try {
+            truth.load(in);
+        } finally {
+            in.close();
+        }
+
+        String[] names = truth.stringPropertyNames().toArray(new String[0]);
+        int count = names.length;
+
+        Arrays.sort(names);
+
+        m_names = names;
+        m_traces = new ByteBuffer[count];
+        m_distances = new float[count];
+        m_threads = _threads;
+        m_calibrationStore = _store;
+
+        for (int i = 0; i < count; i++) {
+            m_distances[i] = Float.parseFloat(truth.getProperty(names[i]).trim());
+
+            if (m_distances[i] <= 0) {
+                throw new IOException("True distance of " + names[i] + " must be positive");
+            }
+
+            m_traces[i] = map(new File(_groundTruth.getParentFile(), names[i]));
+        }
+    }
+
+    /**
+     * @brief Maps a trace file read-only.
+     *
+     * @param _file The trace file.
+     * @return The mapped file.
+     * @throws IOException If the file cannot be mapped.
+     */
+    private static ByteBuffer map(File _file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(_file, "r");
+
+        try {
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * @brief Evaluates parameter combinations in parallel and ranks them.
+     *
+     * @param _candidates The parameter combinations.
+     * @return The results, most accurate first.
+     * @throws IOException If a trace cannot be replayed.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public SweepResult[] run(TuningParameters[] _candidates) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(m_threads);
+        List<Future<SweepResult>> futures = new ArrayList<Future<SweepResult>>(_candidates.length);
+        SweepResult[] results = new SweepResult[_candidates.length];
+
+        try {
+            for (int i = 0; i < _candidates.length; i++) {
+                final TuningParameters parameters = _candidates[i];
+
+                futures.add(pool.submit(new Callable<SweepResult>() {
+
+                    public SweepResult call() throws IOException {
+                        return evaluate(parameters);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < results.length; i++) {
+                try {
+                    results[i] = futures.get(i).get();
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof IOException) {
+                        throw (IOException) ex.getCause();
+                    }
+                    throw new RuntimeException(ex.getCause().toString());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Arrays.sort(results);
+        return results;
+    }
+
+    /**
+     * @brief Replays all reference traces with one parameter combination.
+     *
+     * @param _parameters The parameters to evaluate.
+     * @return The score of the parameters.
+     * @throws IOException If a trace cannot be replayed.
+     */
+    public SweepResult evaluate(final TuningParameters _parameters) throws IOException {
+        ReplayEngine engine = new ReplayEngine(false, m_calibrationStore) {
+
+            protected void configure(InertialSensor _sensor) {
+                super.configure(_sensor);
+                _parameters.applyTo(_sensor);
+            }
+        };
+
+        float errorSum = 0;
+        float maxError = 0;
+
+        for (int i = 0; i < m_traces.length; i++) {
+            ReplayResult result = engine.replay(m_names[i], new MappedTraceSource(m_traces[i].duplicate()));
+            float error = Math.abs(result.getDistance() - m_distances[i]) / m_distances[i];
+
+            errorSum += error;
+            maxError = Math.max(maxError, error);
+        }
+
+        return new SweepResult(_parameters, m_traces.length > 0 ? errorSum / m_traces.length : 0, maxError);
+    }
+
+    /**
+     * @brief Provides the caller with the number of reference traces.
+     *
+     * @return The number of traces.
+     */
+    public int getTraceCount() {
+        return m_traces.length;
+    }
+
+    /**
+     * @brief Runs a sweep around the current constants and prints the ranking.
+     *
+     * By default the full grid is evaluated, "-random n" draws n random
+     * combinations from the same ranges instead. The output has one
+     * semicolon separated line per combination with mean error, max error
+     * and the parameters, best first. The cost of the filter chain is
+     * measured by the InertialSensorBenchmark of the benchmark project.
+     *
+     * @param args The ground-truth file, optionally preceded by "-threads n",
+     * "-random n", "-seed s", "-top n" and "-calibration file".
+     * @throws Exception If the sweep fails.
+     */
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int random = 0;
+        long seed = 1;
+        int top = 20;
+        ICalibrationStore store = null;
+        int first = 0;
+
+        while (first < args.length - 1 && args[first].startsWith("-")) {
+            String value = args[first + 1];
+
+            if (args[first].equals("-threads")) {
+                threads = Integer.parseInt(value);
+            } else if (args[first].equals("-random")) {
+                random = Integer.parseInt(value);
+            } else if (args[first].equals("-seed")) {
+                seed = Long.parseLong(value);
+            } else if (args[first].equals("-top")) {
+                top = Integer.parseInt(value);
+            } else if (args[first].equals("-calibration")) {
+                store = new FileCalibrationStore(new File(value));
+            }
+            first += 2;
+        }
+
+        if (first >= args.length) {
+            System.err.println("usage: ParameterSweep [-threads n] [-random n] [-seed s] [-top n] [-calibration file] truth.properties");
+            return;
+        }
+
+        ParameterSpace space = new ParameterSpace();
+        space.setRange(TuningParameters.PERCENT_VAR, 0.01f, 0.2f, 4);
+        space.setRange(TuningParameters.GAIN, 0.5f, 0.95f, 4);
+        space.setRange(TuningParameters.RC_TIME_CONSTANT, 0.002f, 0.05f, 3);
+        space.setRange(TuningParameters.SLOWDOWN_THRESHOLD, 5f, 30f, 3);
+        space.setRange(TuningParameters.DISCRIMINATION_SIZE, 0.5f, 3f, 4);
+
+        TuningParameters[] candidates = random > 0 ? space.random(random, seed) : space.grid();
+        ParameterSweep sweep = new ParameterSweep(new File(args[first]), threads, store);
+
+        long start = System.nanoTime();
+        SweepResult[] results = sweep.run(candidates);
+        long wall = System.nanoTime() - start;
+
+        SweepResult baseline = sweep.evaluate(TuningParameters.defaults());
+
+        System.out.println("meanError;maxError;parameters");
+        System.out.println(baseline + " (current)");
+
+        for (int i = 0; i < results.length && i < top; i++) {
+            System.out.println(results[i]);
+        }
+
+        System.out.println(candidates.length + " combinations x " + sweep.getTraceCount() + " traces in "
+                + (wall / 1000000) + " ms on " + threads + " threads");
+    }
+}
@@ -0,0 +1,92 @@
+package at.fhooe.mcm.deadreckoning.host.tuning;
+
+/**
+ * @class SweepResult
+ * @brief This class holds the score of one parameter combination.
+ *
+ * Results are ordered by the mean distance error first and by the largest
+ * error of a single trace second, so the most accurate combination ranks
+ * first.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 06.06.2010
+ * @version 1.0
+ */
+public class SweepResult implements Comparable<SweepResult> {
+
+    /** @brief The evaluated parameters. */
+    private TuningParameters m_parameters;
+
+    /** @brief The mean relative distance error over all traces. */
+    private float m_meanError;
+
+    /** @brief The largest relative distance error of a single trace. */
+    private float m_maxError;
+
+    /**
+     * @brief Creates a result.
+     *
+     * @param _parameters The evaluated parameters.
+     * @param _meanError The mean relative distance error over all traces.
+     * @param _maxError The largest relative distance error of a single trace.
+     */
+    public SweepResult(TuningParameters _parameters, float _meanError, float _maxError) {
+        m_parameters = _parameters;
+        m_meanError = _meanError;
+        m_maxError = _maxError;
+    }
+
+    /**
+     * @brief Provides the caller with the evaluated parameters.
+     *
+     * @return The parameters.
+     */
+    public TuningParameters getParameters() {
+        return m_parameters;
+    }
+
+    /**
+     * @brief Provides the caller with the mean distance error.
+     *
+     * @return The mean of |measured - true| / true over all traces.
+     */
+    public float getMeanError() {
+        return m_meanError;
+    }
+
+    /**
+     * @brief Provides the caller with the largest distance error.
+     *
+     * @return The largest |measured - true| / true of a single trace.
+     */
+    public float getMaxError() {
+        return m_maxError;
+    }
+
+    /**
+     * @brief Compares the results by mean error first and largest error second.
+     *
+     * @param _other The other result.
+     * @return A negative value if this result ranks before the other one.
+     */
+    public int compareTo(SweepResult _other) {
+        if (m_meanError != _other.m_meanError) {
+            return m_meanError < _other.m_meanError ? -1 : 1;
+        }
+
+        if (m_maxError != _other.m_maxError) {
+            return m_maxError < _other.m_maxError ? -1 : 1;
+        }
+
+        return 0;
+    }
+
+    /**
+     * @brief Serializes the result to a string.
+     *
+     * @return The errors and the parameters separated by semicolons.
+     */
+    public String toString() {
+        return m_meanError + ";" + m_maxError + ";" + m_parameters;
+    }
+}
@@ -0,0 +1,115 @@
+package at.fhooe.mcm.deadreckoning.host.tuning;
+
+import at.fhooe.mcm.deadreckoning.filter.KalmanFilter;
+import at.fhooe.mcm.deadreckoning.filter.LowpassFilter;
+import at.fhooe.mcm.deadreckoning.sensor.InertialSensor;
+
+/**
+ * @class TuningParameters
+ * @brief This class holds one combination of the tunable constants of the float path.
+ *
+ * The parameters are applied to an <code>InertialSensor</code> before it is
+ * initialized. Instances are immutable and can therefore be shared between
+ * the threads of a sweep.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 06.06.2010
+ * @version 1.0
+ */
+public class TuningParameters {
+
+    /** @brief The number of tunable parameters. */
+    public static final int COUNT = 5;
+
+    /** @brief Index of the noise variance estimation of the Kalman filter. */
+    public static final int PERCENT_VAR = 0;
+
+    /** @brief Index of the gain of the Kalman filter. */
+    public static final int GAIN = 1;
+
+    /** @brief Index of the time constant of the position lowpass filter. */
+    public static final int RC_TIME_CONSTANT = 2;
+
+    /** @brief Index of the movement end threshold. */
+    public static final int SLOWDOWN_THRESHOLD = 3;
+
+    /** @brief Index of the size of the discrimination window. */
+    public static final int DISCRIMINATION_SIZE = 4;
+
+    /** @brief The names of the parameters, ordered by index. */
+    public static final String[] NAMES = {
+        "percentVar", "gain", "rcTimeConstant", "slowdownThreshold", "discriminationSize"
+    };
+
+    /** @brief The parameter values, ordered by index. */
+    private float[] m_values;
+
+    /**
+     * @brief Creates a parameter set.
+     *
+     * @param _values The parameter values, ordered by index.
+     */
+    public TuningParameters(float[] _values) {
+        if (_values.length != COUNT) {
+            throw new IllegalArgumentException("Expected " + COUNT + " parameters");
+        }
+
+        m_values = new float[COUNT];
+        System.arraycopy(_values, 0, m_values, 0, COUNT);
+    }
+
+    /**
+     * @brief Provides the caller with the parameters currently used on the SPOT.
+     *
+     * @return The default parameter set.
+     */
+    public static TuningParameters defaults() {
+        float[] values = new float[COUNT];
+        values[PERCENT_VAR] = KalmanFilter.PERCENT_VAR;
+        values[GAIN] = KalmanFilter.GAIN;
+        values[RC_TIME_CONSTANT] = LowpassFilter.RC_TIME_CONSTANT;
+        values[SLOWDOWN_THRESHOLD] = InertialSensor.SLOWDOWN_THRESHOLD;
+        values[DISCRIMINATION_SIZE] = InertialSensor.DISCRIMINATION_SIZE;
+        return new TuningParameters(values);
+    }
+
+    /**
+     * @brief Provides the caller with a parameter value.
+     *
+     * @param _index The index of the parameter.
+     * @return The value of the parameter.
+     */
+    public float get(int _index) {
+        return m_values[_index];
+    }
+
+    /**
+     * @brief Applies the parameters to a sensor.
+     *
+     * The filters are replaced, so this has to be called before the sensor
+     * is initialized.
+     *
+     * @param _sensor The sensor to configure.
+     */
+    public void applyTo(InertialSensor _sensor) {
+        _sensor.setAccelerationFilter(new KalmanFilter(m_values[PERCENT_VAR], m_values[GAIN]));
+        _sensor.setPositionFilter(new LowpassFilter(m_values[RC_TIME_CONSTANT]));
+        _sensor.setSlowdownThreshold(m_values[SLOWDOWN_THRESHOLD]);
+        _sensor.setDiscriminationSize(m_values[DISCRIMINATION_SIZE]);
+    }
+
+    /**
+     * @brief Serializes the parameters to a string.
+     *
+     * @return The parameters as name=value pairs separated by semicolons.
+     */
+    public String toString() {
+        String temp = "";
+
+        for (int i = 0; i < COUNT; i++) {
+            temp += (i > 0 ? ";" : "") + NAMES[i] + "=" + m_values[i];
+        }
+
+        return temp;
+    }
+}
@@ -0,0 +1,41 @@
+package at.fhooe.mcm.deadreckoning.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * @class BenchmarkRunner
+ * @brief This class runs the benchmarks with the allocation profiler enabled.
+ *
+ * Every benchmark reports its score, the average time per operation for the
+ * sensor chain and the throughput for the DSR codecs, and, through the GC
+ * profiler, the bytes allocated per operation
+ * ("gc.alloc.rate.norm"). The iteration counts and forks are fixed by the
+ * annotations of the benchmarks and the input is generated from a fixed
+ * seed, so runs on the same machine are comparable. The regular JMH command
+ * line options are accepted, e.g. a benchmark regex or "-rf csv".
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 07.06.2010
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+
+    /**
+     * @brief Runs the benchmarks.
+     *
+     * @param args JMH command line options.
+     * @throws Exception If the benchmarks cannot be run.
+     */
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
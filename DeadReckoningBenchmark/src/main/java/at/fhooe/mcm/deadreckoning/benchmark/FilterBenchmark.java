@@ -0,0 +1,106 @@
+package at.fhooe.mcm.deadreckoning.benchmark;
+
+import at.fhooe.mcm.deadreckoning.filter.IBufferedFilter;
+import at.fhooe.mcm.deadreckoning.filter.KalmanFilter;
+import at.fhooe.mcm.deadreckoning.filter.LowpassFilter;
+import at.fhooe.mcm.deadreckoning.filter.StateKalmanFilter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @class FilterBenchmark
+ * @brief This class measures a single update of the filters of the float path.
+ *
+ * The filters are fed with the simulated accelerations in m/s^2 through
+ * reused buffers, exactly like <code>InertialSensor</code> does, so the
+ * allocation rate of a filter update is expected to be zero.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 07.06.2010
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FilterBenchmark {
+
+    /** @brief The time step of the simulated sample rate in seconds. */
+    private static final float DT = 1f / SimulatedAccelerometer.RATE;
+
+    /** @brief The earth gravity in m/s^2. */
+    private static final float EARTH_ACCELERATION = 9.812865328f;
+
+    /** @brief The filter to measure. */
+    @Param({"kalman", "stateKalman", "lowpass"})
+    public String m_filterName;
+
+    /** @brief The filter under test. */
+    private IBufferedFilter m_filter;
+
+    /** @brief The precomputed filter inputs, interleaved x and y. */
+    private float[] m_samples;
+
+    /** @brief Reusable filter input buffer. */
+    private float[] m_in;
+
+    /** @brief Reusable filter output buffer. */
+    private float[] m_out;
+
+    /** @brief The index of the next sample. */
+    private int m_index;
+
+    /**
+     * @brief Creates and initializes the filter.
+     */
+    @Setup
+    public void setup() {
+        SimulatedAccelerometer source = new SimulatedAccelerometer(1);
+
+        m_samples = new float[2 * SimulatedAccelerometer.LENGTH];
+        for (int i = 0; i < SimulatedAccelerometer.LENGTH; i++) {
+            m_samples[2 * i] = source.get(i, 0) * EARTH_ACCELERATION;
+            m_samples[2 * i + 1] = source.get(i, 1) * EARTH_ACCELERATION;
+        }
+
+        if (m_filterName.equals("kalman")) {
+            m_filter = new KalmanFilter();
+        } else if (m_filterName.equals("stateKalman")) {
+            m_filter = new StateKalmanFilter();
+        } else {
+            m_filter = new LowpassFilter();
+        }
+
+        m_in = new float[2];
+        m_out = new float[2];
+        m_filter.init(m_in, 2);
+    }
+
+    /**
+     * @brief Filters the next sample.
+     *
+     * @return The filtered x-value, returned to prevent dead code elimination.
+     */
+    @Benchmark
+    public float update() {
+        int idx = m_index;
+        m_index = (idx + 2) & (m_samples.length - 1);
+
+        m_in[0] = m_samples[idx];
+        m_in[1] = m_samples[idx + 1];
+        m_filter.update(m_in, m_out, DT);
+        return m_out[0];
+    }
+}
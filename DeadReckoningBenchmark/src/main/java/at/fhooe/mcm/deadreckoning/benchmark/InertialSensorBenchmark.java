@@ -0,0 +1,86 @@
+package at.fhooe.mcm.deadreckoning.benchmark;
+
+import at.fhooe.mcm.deadreckoning.sensor.InertialSensor;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @class InertialSensorBenchmark
+ * @brief This class measures the full dead reckoning chain of the SPOT.
+ *
+ * The sensor reads the simulated accelerometer and is configured like in
+ * <code>DeadReckoningAPI</code>. It is calibrated and warmed up during the
+ * setup, so the measurement only contains regular updates.
+ *
+ * The fixed-point mode is not measured, because it leaves out stages of the
+ * float chain and the timings would not be comparable.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 07.06.2010
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class InertialSensorBenchmark {
+
+    /** @brief The time step of the simulated sample rate in seconds. */
+    private static final float DT = 1f / SimulatedAccelerometer.RATE;
+
+    /** @brief The number of updates run during the setup, covers the calibration. */
+    private static final int SETUP_UPDATES = 1000;
+
+    /** @brief The sensor under test. */
+    private InertialSensor m_sensor;
+
+    /**
+     * @brief Creates, calibrates and warms up the sensor.
+     *
+     * @throws IOException
+     */
+    @Setup
+    public void setup() throws IOException {
+        m_sensor = new InertialSensor(new SimulatedAccelerometer(1), false, null);
+        m_sensor.setGravityCompensation(true);
+        m_sensor.init();
+
+        for (int i = 0; i < SETUP_UPDATES; i++) {
+            m_sensor.update(DT);
+        }
+    }
+
+    /**
+     * @brief Runs one sample through the whole chain.
+     *
+     * @return The distance, returned to prevent dead code elimination.
+     * @throws IOException
+     */
+    @Benchmark
+    public float update() throws IOException {
+        m_sensor.update(DT);
+        return m_sensor.getDistance();
+    }
+
+    /**
+     * @brief Serializes the sensor state like it is sent once a second.
+     *
+     * @return The serialized state.
+     */
+    @Benchmark
+    public String currentStateToString() {
+        return m_sensor.currentStateToString();
+    }
+}
@@ -0,0 +1,109 @@
+package at.fhooe.mcm.deadreckoning.benchmark;
+
+import at.fhooe.mcm.deadreckoning.integrator.EulerIntegrator;
+import at.fhooe.mcm.deadreckoning.integrator.IIntegrator;
+import at.fhooe.mcm.deadreckoning.integrator.RungeKuttaIntegrator;
+import at.fhooe.mcm.deadreckoning.integrator.SimpsonIntegrator;
+import at.fhooe.mcm.deadreckoning.integrator.TrapezoidIntegrator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @class IntegratorBenchmark
+ * @brief This class measures one integration step of the available integrators.
+ *
+ * The higher order methods cost more per step but allow a lower sample
+ * rate, so their cost has to be weighed against the saved samples.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 07.06.2010
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class IntegratorBenchmark {
+
+    /** @brief The time step of the simulated sample rate in seconds. */
+    private static final float DT = 1f / SimulatedAccelerometer.RATE;
+
+    /** @brief The integration method to measure. */
+    @Param({"euler", "trapezoid", "simpson", "rungeKutta"})
+    public String m_integratorName;
+
+    /** @brief The simulated accelerometer providing the input. */
+    private SimulatedAccelerometer m_source;
+
+    /** @brief The integrator under test. */
+    private IIntegrator m_integrator;
+
+    /** @brief The previous and the current acceleration. */
+    private float[] m_acceleration;
+
+    /** @brief The previous and the current velocity. */
+    private float[] m_velocity;
+
+    /** @brief The previous and the current position. */
+    private float[] m_position;
+
+    /** @brief The index of the next sample. */
+    private int m_index;
+
+    /**
+     * @brief Creates the integrator.
+     */
+    @Setup
+    public void setup() {
+        m_source = new SimulatedAccelerometer(1);
+
+        if (m_integratorName.equals("euler")) {
+            m_integrator = new EulerIntegrator();
+        } else if (m_integratorName.equals("trapezoid")) {
+            m_integrator = new TrapezoidIntegrator();
+        } else if (m_integratorName.equals("simpson")) {
+            m_integrator = new SimpsonIntegrator();
+        } else {
+            m_integrator = new RungeKuttaIntegrator();
+        }
+        m_integrator.init(1);
+
+        m_acceleration = new float[2];
+        m_velocity = new float[2];
+        m_position = new float[2];
+    }
+
+    /**
+     * @brief Integrates the next sample on one axis.
+     *
+     * @return The new position, returned to prevent dead code elimination.
+     */
+    @Benchmark
+    public float integrate() {
+        m_acceleration[0] = m_acceleration[1];
+        m_acceleration[1] = m_source.get(m_index++, 0);
+        m_velocity[0] = m_velocity[1];
+        m_position[0] = m_position[1];
+
+        m_integrator.integrate(0, m_acceleration, m_velocity, m_position, DT);
+
+        // keep the values bounded, the input has a gravity offset
+        if (m_velocity[1] > 100f || m_velocity[1] < -100f) {
+            m_velocity[1] = 0;
+            m_integrator.reset(0);
+        }
+        return m_position[1];
+    }
+}
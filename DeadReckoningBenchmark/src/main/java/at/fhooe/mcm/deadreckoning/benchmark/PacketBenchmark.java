@@ -0,0 +1,266 @@
+package at.fhooe.mcm.deadreckoning.benchmark;
+
+import at.fhooe.mcm.dsr.packages.DataPkg;
+import at.fhooe.mcm.dsr.packages.IPacket;
+import at.fhooe.mcm.dsr.packages.PacketHeader;
+import at.fhooe.mcm.dsr.packages.RREPPkg;
+import at.fhooe.mcm.dsr.packages.RREQPkg;
+import at.fhooe.mcm.dsr.packages.RelayPkg;
+import at.fhooe.mcm.dsr.packages.SourceRoute;
+import at.fhooe.mcm.dsr.util.RouteRecord;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @class PacketBenchmark
+ * @brief This class measures parsing and serializing the DSR packages by route length.
+ *
+ * Every received radio frame is parsed, every sent or forwarded one is
+ * serialized in the binary wire format. The streams are reused like the
+ * radiogram of the DSR client, so only the packages themselves are
+ * allocated. The data package carries a sensor state of typical size.
+ *
+ * A relay in the middle of the route forwards a received package in place
+ * (@see SourceRoute), the former decode and encode is measured for comparison.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 08.06.2010
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PacketBenchmark {
+
+    /** @brief A sensor state as sent once a second. */
+    private static final String PAYLOAD = "0.012|-0.034|0.0|0.0|0.4512|0.0213|12.034|3.512|0.53|-0.21|0.53|-0.21|42.7|";
+
+    /** @brief The number of hops of the route. */
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int m_hops;
+
+    /** @brief Writes the addresses without the common SunSPOT prefix. */
+    @Param({"false", "true"})
+    public boolean m_compact;
+
+    /** @brief The route request under test. */
+    private RREQPkg m_rreq;
+
+    /** @brief The route reply under test. */
+    private RREPPkg m_rrep;
+
+    /** @brief The data package under test. */
+    private DataPkg m_data;
+
+    /** @brief The serialized route request. */
+    private DataInputStream m_rreqIn;
+
+    /** @brief The serialized route reply. */
+    private DataInputStream m_rrepIn;
+
+    /** @brief The serialized data package. */
+    private DataInputStream m_dataIn;
+
+    /** @brief The received body of the data package, i.e. without its header. */
+    private byte[] m_dataBody;
+
+    /** @brief The length of the received body. */
+    private int m_dataLength;
+
+    /** @brief The index of the relay within the route. */
+    private int m_relayIndex;
+
+    /** @brief The address of the relay. */
+    private long m_relayAddress;
+
+    /** @brief The package sending the relayed body. */
+    private RelayPkg m_relayPkg;
+
+    /** @brief The buffer receiving serialized packages. */
+    private ByteArrayOutputStream m_buffer;
+
+    /** @brief The output serialized packages are written to. */
+    private DataOutputStream m_out;
+
+    /**
+     * @brief Creates the packages.
+     *
+     * @throws IOException If a package cannot be serialized.
+     */
+    @Setup
+    public void setup() throws IOException {
+        long[] addresses = RouteBenchmark.createAddresses(m_hops + 1, 0);
+        RouteRecord route = RouteBenchmark.createRoute(addresses);
+
+        m_rreq = new RREQPkg(addresses[0], addresses[m_hops], route, 4711);
+        m_rrep = new RREPPkg(route, m_hops - 1);
+        m_data = new DataPkg(route, PAYLOAD);
+
+        m_buffer = new ByteArrayOutputStream(1260);
+        m_out = new DataOutputStream(m_buffer);
+
+        m_rreqIn = toInput(m_rreq);
+        m_rrepIn = toInput(m_rrep);
+        m_dataIn = toInput(m_data);
+
+        m_dataLength = serialize(m_data) - 1;
+        m_dataBody = new byte[m_dataLength];
+        System.arraycopy(m_buffer.toByteArray(), 1, m_dataBody, 0, m_dataLength);
+        m_relayIndex = m_hops / 2;
+        m_relayAddress = addresses[m_relayIndex];
+        m_relayPkg = new RelayPkg();
+    }
+
+    /**
+     * @brief Serializes a package into a stream that can be read repeatedly.
+     *
+     * @param _pkg The package.
+     * @return The stream, <code>reset</code> rewinds it to the header.
+     * @throws IOException If the package cannot be serialized.
+     */
+    private DataInputStream toInput(IPacket _pkg) throws IOException {
+        serialize(_pkg);
+        return new DataInputStream(new ByteArrayInputStream(m_buffer.toByteArray()));
+    }
+
+    /**
+     * @brief Serializes a package into the reused buffer.
+     *
+     * @param _pkg The package.
+     * @return The size of the package in bytes.
+     * @throws IOException If the package cannot be serialized.
+     */
+    private int serialize(IPacket _pkg) throws IOException {
+        m_buffer.reset();
+        _pkg.writeTo(m_out, m_compact);
+        return m_buffer.size();
+    }
+
+    /**
+     * @brief Rewinds a serialized package and reads its header.
+     *
+     * @param _in The serialized package.
+     * @return The stream positioned behind the header.
+     * @throws IOException If the header cannot be read.
+     */
+    private static DataInputStream rewind(DataInputStream _in) throws IOException {
+        _in.reset();
+        PacketHeader.read(_in);
+        return _in;
+    }
+
+    /**
+     * @brief Parses a route request.
+     *
+     * @return The parsed package.
+     * @throws IOException If the package cannot be read.
+     */
+    @Benchmark
+    public RREQPkg parseRREQ() throws IOException {
+        return new RREQPkg(rewind(m_rreqIn), m_compact);
+    }
+
+    /**
+     * @brief Serializes a route request.
+     *
+     * @return The size of the serialized package.
+     * @throws IOException If the package cannot be written.
+     */
+    @Benchmark
+    public int serializeRREQ() throws IOException {
+        return serialize(m_rreq);
+    }
+
+    /**
+     * @brief Parses a route reply.
+     *
+     * @return The parsed package.
+     * @throws IOException If the package cannot be read.
+     */
+    @Benchmark
+    public RREPPkg parseRREP() throws IOException {
+        return new RREPPkg(rewind(m_rrepIn), m_compact);
+    }
+
+    /**
+     * @brief Serializes a route reply.
+     *
+     * @return The size of the serialized package.
+     * @throws IOException If the package cannot be written.
+     */
+    @Benchmark
+    public int serializeRREP() throws IOException {
+        return serialize(m_rrep);
+    }
+
+    /**
+     * @brief Parses a data package.
+     *
+     * @return The parsed package.
+     * @throws IOException If the package cannot be read.
+     */
+    @Benchmark
+    public DataPkg parseData() throws IOException {
+        return new DataPkg(rewind(m_dataIn), m_compact);
+    }
+
+    /**
+     * @brief Serializes a data package.
+     *
+     * @return The size of the serialized package.
+     * @throws IOException If the package cannot be written.
+     */
+    @Benchmark
+    public int serializeData() throws IOException {
+        return serialize(m_data);
+    }
+
+    /**
+     * @brief Forwards a received data package in place like a relay does.
+     *
+     * @return The address of the next hop plus the size of the forwarded package.
+     * @throws IOException If the package cannot be written.
+     */
+    @Benchmark
+    public long relayData() throws IOException {
+        // the next hop index is the first byte of the body, point it to the relay again
+        m_dataBody[0] = (byte) m_relayIndex;
+        if (!SourceRoute.isNextHop(m_dataBody, m_dataLength, m_compact, m_relayAddress)
+                || SourceRoute.isDestination(m_dataBody, PacketHeader.DATA)) {
+            throw new IllegalStateException("relay not on route");
+        }
+
+        long next = SourceRoute.advance(m_dataBody, PacketHeader.DATA, m_compact);
+        m_relayPkg.set(PacketHeader.DATA, m_compact, m_dataBody, m_dataLength);
+        return next + serialize(m_relayPkg);
+    }
+
+    /**
+     * @brief Parses and serializes a data package like a relay without next hop index.
+     *
+     * @return The size of the forwarded package.
+     * @throws IOException If the package cannot be read or written.
+     */
+    @Benchmark
+    public int reencodeData() throws IOException {
+        return serialize(new DataPkg(rewind(m_dataIn), m_compact));
+    }
+}
@@ -0,0 +1,118 @@
+package at.fhooe.mcm.deadreckoning.benchmark;
+
+import at.fhooe.mcm.dsr.util.IITupel;
+import at.fhooe.mcm.dsr.util.RequestTable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @class RequestTableBenchmark
+ * @brief This class measures the duplicate check of route requests by table size.
+ *
+ * Every received route request is looked up in the request table. The
+ * table forgets requests after <code>RequestTable.MAX_AGE</code> and holds
+ * at most <code>RequestTable.MAX_SIZE</code> of them, so the sizes stay
+ * within that bound. A rebroadcast of a recent request is found at the end
+ * of the table, a new request is compared against every entry.
+ *
+ * Adding a request to a full table forgets the oldest one, which shifts
+ * both vectors of the table by one element. Pruning an expired request
+ * removes the same head elements, so the add case also shows the cost of
+ * pruning per forgotten request.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 08.06.2010
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RequestTableBenchmark {
+
+    /** @brief The number of requests in the table. */
+    @Param({"1", "16", "64"})
+    public int m_size;
+
+    /** @brief The table under test. */
+    private RequestTable m_table;
+
+    /** @brief A copy of the most recently added request. */
+    private IITupel m_recent;
+
+    /** @brief A request not in the table. */
+    private IITupel m_unknown;
+
+    /** @brief The initiators of the requests. */
+    private long[] m_initiators;
+
+    /** @brief The sequence number of the next added request. */
+    private int m_next;
+
+    /**
+     * @brief Fills the table with requests of 8 initiators.
+     */
+    @Setup
+    public void setup() {
+        m_initiators = RouteBenchmark.createAddresses(8, 0);
+        long[] initiators = m_initiators;
+        m_table = new RequestTable();
+
+        for (int i = 0; i < m_size; i++) {
+            m_table.addTupel(new IITupel(initiators[i % initiators.length], i));
+        }
+
+        int last = m_size - 1;
+        m_recent = new IITupel(initiators[last % initiators.length], last);
+        m_unknown = new IITupel(initiators[0], m_size);
+        m_next = m_size;
+    }
+
+    /**
+     * @brief Looks up a rebroadcast of the most recent request.
+     *
+     * @return <code>true</code>, returned to prevent dead code elimination.
+     */
+    @Benchmark
+    public boolean containsRecent() {
+        return m_table.contains(m_recent);
+    }
+
+    /**
+     * @brief Looks up a new request.
+     *
+     * @return <code>false</code>, returned to prevent dead code elimination.
+     */
+    @Benchmark
+    public boolean containsUnknown() {
+        return m_table.contains(m_unknown);
+    }
+
+    /**
+     * @brief Adds a new request.
+     *
+     * After <code>RequestTable.MAX_SIZE</code> invocations the table is full
+     * whatever its initial size, so the measurement is dominated by forgetting
+     * the oldest request.
+     *
+     * @return The table size, returned to prevent dead code elimination.
+     */
+    @Benchmark
+    public int addEvicting() {
+        m_table.addTupel(new IITupel(m_initiators[m_next % m_initiators.length], m_next));
+        m_next++;
+        return m_table.size();
+    }
+}
@@ -0,0 +1,185 @@
+package at.fhooe.mcm.deadreckoning.benchmark;
+
+import at.fhooe.mcm.dsr.util.Address;
+import at.fhooe.mcm.dsr.util.RouteRecord;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @class RouteBenchmark
+ * @brief This class measures the route record utilities of the DSR client by route length.
+ *
+ * Every relay parses the route record of a forwarded package, looks up its
+ * next hop and serializes the record again, route requests and replies
+ * additionally reverse or concatenate routes. The cost of these operations
+ * therefore grows with the diameter of the network.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 08.06.2010
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RouteBenchmark {
+
+    /** @brief The number of hops of the route. */
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int m_hops;
+
+    /** @brief The addresses of the route. */
+    private long[] m_addresses;
+
+    /** @brief The route under test. */
+    private RouteRecord m_route;
+
+    /** @brief The serialized route, <code>reset</code> rewinds it. */
+    private DataInputStream m_routeIn;
+
+    /** @brief The buffer receiving the serialized route. */
+    private ByteArrayOutputStream m_buffer;
+
+    /** @brief The output the route is serialized to. */
+    private DataOutputStream m_out;
+
+    /** @brief A route appended by <code>concat</code>. */
+    private RouteRecord m_tail;
+
+    /** @brief The address of the relay in the middle of the route. */
+    private long m_relay;
+
+    /**
+     * @brief Creates the routes.
+     *
+     * @throws IOException If the route cannot be serialized.
+     */
+    @Setup
+    public void setup() throws IOException {
+        m_addresses = createAddresses(m_hops + 1, 0);
+        m_route = createRoute(m_addresses);
+
+        m_buffer = new ByteArrayOutputStream(1260);
+        m_out = new DataOutputStream(m_buffer);
+        serialize();
+        m_routeIn = new DataInputStream(new ByteArrayInputStream(m_buffer.toByteArray()));
+
+        m_tail = createRoute(createAddresses(m_hops, m_hops + 1));
+        m_relay = m_addresses[m_hops / 2];
+    }
+
+    /**
+     * @brief Creates distinct SPOT addresses.
+     *
+     * @param _count The number of addresses.
+     * @param _first The number of the first address.
+     * @return The 64 bit addresses of the SPOTs.
+     */
+    public static long[] createAddresses(int _count, int _first) {
+        long[] addresses = new long[_count];
+
+        for (int i = 0; i < _count; i++) {
+            addresses[i] = Address.PREFIX | (_first + i);
+        }
+
+        return addresses;
+    }
+
+    /**
+     * @brief Creates a route from addresses.
+     *
+     * @param _addresses The addresses of the nodes from initiator to target.
+     * @return The route.
+     */
+    public static RouteRecord createRoute(long[] _addresses) {
+        RouteRecord route = new RouteRecord();
+
+        for (int i = 0; i < _addresses.length; i++) {
+            route.addNodeAddr(_addresses[i]);
+        }
+
+        return route;
+    }
+
+    /**
+     * @brief Parses a serialized route.
+     *
+     * @return The parsed route.
+     * @throws IOException If the route cannot be read.
+     */
+    @Benchmark
+    public RouteRecord parse() throws IOException {
+        m_routeIn.reset();
+        return new RouteRecord(m_routeIn, false);
+    }
+
+    /**
+     * @brief Serializes the route.
+     *
+     * @return The size of the serialized route in bytes.
+     * @throws IOException If the route cannot be written.
+     */
+    @Benchmark
+    public int serialize() throws IOException {
+        m_buffer.reset();
+        m_route.writeTo(m_out, false);
+        return m_buffer.size();
+    }
+
+    /**
+     * @brief Reverses the route, e.g. to send a reply back to the initiator.
+     *
+     * @return The reversed route.
+     */
+    @Benchmark
+    public RouteRecord reverse() {
+        return m_route.reverse();
+    }
+
+    /**
+     * @brief Appends a cached route to the route.
+     *
+     * @return The concatenated route.
+     */
+    @Benchmark
+    public RouteRecord concat() {
+        return m_route.concat(m_tail);
+    }
+
+    /**
+     * @brief Builds the route from its addresses.
+     *
+     * @return The built route.
+     */
+    @Benchmark
+    public RouteRecord build() {
+        return createRoute(m_addresses);
+    }
+
+    /**
+     * @brief Looks up the next hop of the relay in the middle of the route.
+     *
+     * @return The address of the next hop.
+     */
+    @Benchmark
+    public long nextHop() {
+        return m_route.getNextHop(m_relay);
+    }
+}
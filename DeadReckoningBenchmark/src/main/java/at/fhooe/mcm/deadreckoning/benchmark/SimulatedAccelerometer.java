@@ -0,0 +1,124 @@
+package at.fhooe.mcm.deadreckoning.benchmark;
+
+import at.fhooe.mcm.deadreckoning.sensor.ISensorSource;
+import java.util.Random;
+
+/**
+ * @class SimulatedAccelerometer
+ * @brief This class simulates the accelerometer of a walking person.
+ *
+ * The signal alternates between walking phases, a 1.8Hz step pattern on the
+ * forward axis with a smaller lateral sway and a vertical bounce, and stance
+ * phases in which only gravity and sensor noise remain. The SPOT is mounted
+ * with a small tilt, so gravity leaks into the horizontal axes.
+ *
+ * The samples are computed once from a seeded generator and then replayed
+ * in a loop, so reading a sample costs nothing but an array access and two
+ * runs with the same seed see bit-identical input.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 07.06.2010
+ * @version 1.0
+ */
+public class SimulatedAccelerometer implements ISensorSource {
+
+    /** @brief The number of precomputed samples, 40.96s at 100Hz. */
+    public static final int LENGTH = 4096;
+
+    /** @brief The sample rate in Hz. */
+    public static final int RATE = 100;
+
+    /** @brief The duration of a walking or stance phase in samples. */
+    private static final int PHASE_LENGTH = 512;
+
+    /** @brief The step frequency in Hz. */
+    private static final double STEP_FREQUENCY = 1.8;
+
+    /** @brief The standard deviation of the sensor noise in G. */
+    private static final double NOISE = 0.01;
+
+    /** @brief The tilt of the SPOT in radians. */
+    private static final double TILT = 0.05;
+
+    /** @brief The precomputed x-accelerations in G. */
+    private float[] m_x;
+
+    /** @brief The precomputed y-accelerations in G. */
+    private float[] m_y;
+
+    /** @brief The precomputed z-accelerations in G. */
+    private float[] m_z;
+
+    /** @brief The index of the next sample. */
+    private int m_index;
+
+    /** @brief The time stamp of the last read sample in microseconds. */
+    private long m_time;
+
+    /**
+     * @brief Creates a simulated accelerometer.
+     *
+     * @param _seed The seed of the noise generator.
+     */
+    public SimulatedAccelerometer(long _seed) {
+        Random random = new Random(_seed);
+
+        m_x = new float[LENGTH];
+        m_y = new float[LENGTH];
+        m_z = new float[LENGTH];
+
+        double gravityX = Math.sin(TILT);
+        double gravityZ = Math.cos(TILT);
+
+        for (int i = 0; i < LENGTH; i++) {
+            double t = (double) i / RATE;
+            boolean walking = (i / PHASE_LENGTH) % 2 == 1;
+            double phase = 2 * Math.PI * STEP_FREQUENCY * t;
+
+            double forward = walking ? 0.3 * Math.sin(phase) + 0.1 * Math.sin(2 * phase) : 0;
+            double lateral = walking ? 0.08 * Math.sin(phase / 2) : 0;
+            double vertical = walking ? 0.25 * Math.cos(2 * phase) : 0;
+
+            m_x[i] = (float) (gravityX + forward + NOISE * random.nextGaussian());
+            m_y[i] = (float) (lateral + NOISE * random.nextGaussian());
+            m_z[i] = (float) (gravityZ + vertical + NOISE * random.nextGaussian());
+        }
+    }
+
+    /**
+     * @brief Provides the caller with the next sample, the signal repeats endlessly.
+     *
+     * @param _accel The array receiving the x-, y- and z-acceleration in G.
+     * @return Always <code>true</code>.
+     */
+    public boolean read(double[] _accel) {
+        _accel[0] = m_x[m_index];
+        _accel[1] = m_y[m_index];
+        _accel[2] = m_z[m_index];
+
+        m_index = (m_index + 1) & (LENGTH - 1);
+        m_time += 1000000 / RATE;
+        return true;
+    }
+
+    /**
+     * @brief Provides the caller with the time stamp of the last read sample.
+     *
+     * @return The simulated time stamp in microseconds.
+     */
+    public long getTimeMicros() {
+        return m_time;
+    }
+
+    /**
+     * @brief Provides the caller with a precomputed sample without advancing.
+     *
+     * @param _index The index of the sample, wrapped to the signal length.
+     * @param _axis 0, 1 or 2 for the x-, y- or z-axis.
+     * @return The acceleration in G.
+     */
+    public float get(int _index, int _axis) {
+        int idx = _index & (LENGTH - 1);
+        return _axis == 0 ? m_x[idx] : (_axis == 1 ? m_y[idx] : m_z[idx]);
+    }
+}
@@ -0,0 +1,86 @@
+package at.fhooe.mcm.deadreckoning.benchmark;
+
+import at.fhooe.mcm.deadreckoning.sensor.GravityCompensator;
+import at.fhooe.mcm.deadreckoning.sensor.ZeroVelocityDetector;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @class StageBenchmark
+ * @brief This class measures the detection stages of the float path on their own.
+ *
+ * Together with <code>FilterBenchmark</code> and
+ * <code>IntegratorBenchmark</code> the stages add up to one
+ * <code>InertialSensor.update</code>, the difference to the full update is
+ * the glue code and the sample acquisition.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 07.06.2010
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StageBenchmark {
+
+    /** @brief The time step of the simulated sample rate in seconds. */
+    private static final float DT = 1f / SimulatedAccelerometer.RATE;
+
+    /** @brief The simulated accelerometer providing the input. */
+    private SimulatedAccelerometer m_source;
+
+    /** @brief The zero velocity detector under test. */
+    private ZeroVelocityDetector m_detector;
+
+    /** @brief The gravity compensator under test. */
+    private GravityCompensator m_compensator;
+
+    /** @brief The index of the next sample. */
+    private int m_index;
+
+    /**
+     * @brief Creates the stages.
+     */
+    @Setup
+    public void setup() {
+        m_source = new SimulatedAccelerometer(1);
+
+        m_detector = new ZeroVelocityDetector();
+        m_compensator = new GravityCompensator();
+    }
+
+    /**
+     * @brief Feeds the next sample into the zero velocity detector.
+     *
+     * @return <code>true</code> if stationary, returned to prevent dead code elimination.
+     */
+    @Benchmark
+    public boolean detectZeroVelocity() {
+        int idx = m_index++;
+        return m_detector.update(m_source.get(idx, 0), m_source.get(idx, 1), m_source.get(idx, 2));
+    }
+
+    /**
+     * @brief Feeds the next sample into the gravity compensator.
+     *
+     * @return The horizontal x-component, returned to prevent dead code elimination.
+     */
+    @Benchmark
+    public float compensateGravity() {
+        int idx = m_index++;
+        m_compensator.update(m_source.get(idx, 0), m_source.get(idx, 1), m_source.get(idx, 2), DT, false);
+        return m_compensator.getHorizontalX();
+    }
+}
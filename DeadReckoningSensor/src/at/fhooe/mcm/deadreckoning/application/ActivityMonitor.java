@@ -0,0 +1,223 @@
+package at.fhooe.mcm.deadreckoning.application;
+
+import at.fhooe.mcm.deadreckoning.sensor.AccelerometerSampler;
+import at.fhooe.mcm.deadreckoning.sensor.InertialSensor;
+
+/**
+ * @class ActivityMonitor
+ * @brief This class duty cycles the sensor loop depending on the activity of the wearer.
+ *
+ * While the SPOT lies on a desk, sampling and updating at the full rate only
+ * burns the battery. The monitor is a two state machine on top of the stance
+ * detection of the <code>InertialSensor</code>:
+ * <ul>
+ * <li>ACTIVE: the loop and the sampler run at the full rate. After the
+ * sensor has been stationary for <code>IDLE_DELAY</code> seconds without
+ * interruption, the monitor switches to WATCH.</li>
+ * <li>WATCH: the loop and the sampler are slowed down by the watch stride,
+ * e.g. to 10Hz. The stance detection keeps running on the sparse samples.
+ * As soon as the stance ends, or a single sample deviates from the stance
+ * mean by more than <code>WAKE_THRESHOLD</code>, the monitor switches back
+ * to ACTIVE.</li>
+ * </ul>
+ * A motion onset is therefore noticed with the next watch sample, and the
+ * full rate is restored at the latest one watch period later, so the wake
+ * up latency is bounded by two watch periods (0.2s at a stride of 10).
+ *
+ * The time, the loop ticks and the processed samples are counted per mode,
+ * so the saving can be read from <code>statisticsToString</code>.
+ *
+ * The sensor detects stance phases in both the float and the fixed-point
+ * mode, the latter in Q16.16 arithmetic, so the monitor works in both.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 13.06.2010
+ * @version 1.0
+ */
+public class ActivityMonitor {
+
+    /** @brief The mode running at the full rate. */
+    public static final int ACTIVE = 0;
+
+    /** @brief The mode running at the reduced rate while the sensor rests. */
+    public static final int WATCH = 1;
+
+    /** @brief The number of modes. */
+    public static final int MODE_COUNT = 2;
+
+    /** @brief The time in seconds the sensor has to be stationary before the rate is reduced. */
+    public static final float IDLE_DELAY = 2f;
+
+    /** @brief The deviation of a single sample from the stance mean in m/s^2 that ends WATCH. */
+    public static final float WAKE_THRESHOLD = 1.5f;
+
+    /** @brief The mode names used in the statistics. */
+    private static final String[] MODE_NAMES = {"active", "watch"};
+
+    /** @brief The observed sensor. */
+    private InertialSensor m_sensor;
+
+    /** @brief The scheduler of the main loop. */
+    private SensorScheduler m_scheduler;
+
+    /** @brief The background sampler, <code>null</code> if not used. */
+    private AccelerometerSampler m_sampler;
+
+    /** @brief The stride of the loop and the sampler in WATCH. */
+    private int m_watchStride;
+
+    /** @brief The current mode. */
+    private int m_mode;
+
+    /** @brief The time the sensor has been stationary without interruption in seconds. */
+    private float m_stationaryTime;
+
+    /** @brief The sample count of the sensor at the previous update. */
+    private int m_lastSampleCount;
+
+    /** @brief The time spent per mode in seconds. */
+    private float[] m_time;
+
+    /** @brief The number of loop ticks per mode. */
+    private int[] m_ticks;
+
+    /** @brief The number of processed samples per mode. */
+    private int[] m_samples;
+
+    /** @brief The number of switches from WATCH to ACTIVE. */
+    private int m_wakeUps;
+
+    /**
+     * @brief Creates a new monitor in ACTIVE mode.
+     *
+     * @param _sensor The observed sensor.
+     * @param _scheduler The scheduler of the main loop.
+     * @param _sampler The background sampler, <code>null</code> if not used.
+     * @param _watchStride The number of steps per tick in WATCH, at most the step limit of the scheduler.
+     */
+    public ActivityMonitor(InertialSensor _sensor, SensorScheduler _scheduler, AccelerometerSampler _sampler, int _watchStride) {
+        if (_watchStride <= 1) {
+            throw new IllegalArgumentException("Watch stride must be greater than one");
+        }
+        m_sensor = _sensor;
+        m_scheduler = _scheduler;
+        m_sampler = _sampler;
+        m_watchStride = _watchStride;
+        m_mode = ACTIVE;
+
+        m_time = new float[MODE_COUNT];
+        m_ticks = new int[MODE_COUNT];
+        m_samples = new int[MODE_COUNT];
+        m_lastSampleCount = _sensor.getSampleCount();
+    }
+
+    /**
+     * @brief Updates the mode after a sensor update.
+     *
+     * @param _dt The time covered by the sensor update in seconds.
+     * @return <code>true</code> if the mode has changed.
+     */
+    public boolean update(float _dt) {
+        int count = m_sensor.getSampleCount();
+        m_samples[m_mode] += count - m_lastSampleCount;
+        m_lastSampleCount = count;
+        m_time[m_mode] += _dt;
+        m_ticks[m_mode]++;
+
+        boolean stationary = m_sensor.isStationary();
+        m_stationaryTime = stationary ? m_stationaryTime + _dt : 0;
+
+        if (m_mode == ACTIVE) {
+            if (m_stationaryTime >= IDLE_DELAY) {
+                setMode(WATCH, m_watchStride);
+                return true;
+            }
+        } else if (!stationary || m_sensor.getMotionDeviation() > WAKE_THRESHOLD * WAKE_THRESHOLD) {
+            m_wakeUps++;
+            m_stationaryTime = 0;
+            setMode(ACTIVE, 1);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @brief Switches the mode and the rate of the loop and the sampler.
+     *
+     * @param _mode The new mode.
+     * @param _stride The stride of the new mode.
+     */
+    private void setMode(int _mode, int _stride) {
+        m_mode = _mode;
+        m_scheduler.setStride(_stride);
+        if (m_sampler != null) {
+            m_sampler.setStride(_stride);
+        }
+    }
+
+    /**
+     * @brief Provides the caller with the current mode.
+     *
+     * @return <code>ACTIVE</code> or <code>WATCH</code>.
+     */
+    public int getMode() {
+        return m_mode;
+    }
+
+    /**
+     * @brief Provides the caller with the time spent in a mode.
+     *
+     * @param _mode The mode.
+     * @return The time in seconds.
+     */
+    public float getTime(int _mode) {
+        return m_time[_mode];
+    }
+
+    /**
+     * @brief Provides the caller with the number of loop ticks in a mode.
+     *
+     * @param _mode The mode.
+     * @return The number of ticks.
+     */
+    public int getTicks(int _mode) {
+        return m_ticks[_mode];
+    }
+
+    /**
+     * @brief Provides the caller with the number of samples processed in a mode.
+     *
+     * @param _mode The mode.
+     * @return The number of samples.
+     */
+    public int getSamples(int _mode) {
+        return m_samples[_mode];
+    }
+
+    /**
+     * @brief Provides the caller with the number of wake ups.
+     *
+     * @return The number of switches from WATCH to ACTIVE.
+     */
+    public int getWakeUps() {
+        return m_wakeUps;
+    }
+
+    /**
+     * @brief Serializes the statistics to a string.
+     *
+     * @return The current mode followed by time, ticks and samples per mode
+     * and the number of wake ups, separated by pipes.
+     */
+    public String statisticsToString() {
+        String temp = MODE_NAMES[m_mode] + "|";
+
+        for (int i = 0; i < MODE_COUNT; i++) {
+            temp += m_time[i] + "|" + m_ticks[i] + "|" + m_samples[i] + "|";
+        }
+
+        temp += m_wakeUps + "|";
+        return temp;
+    }
+}
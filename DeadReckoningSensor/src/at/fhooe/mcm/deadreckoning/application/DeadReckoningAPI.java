@@ -30,13 +30,28 @@
 package at.fhooe.mcm.deadreckoning.application;
 
 import at.fhooe.mcm.deadreckoning.Communication.DistanceSync;
+import at.fhooe.mcm.deadreckoning.calibration.RecordStoreCalibrationStore;
+import at.fhooe.mcm.deadreckoning.filter.KalmanFilter;
+import at.fhooe.mcm.deadreckoning.integrator.EulerIntegrator;
+import at.fhooe.mcm.deadreckoning.sensor.AccelerometerSampler;
+import at.fhooe.mcm.deadreckoning.sensor.AccelerometerSource;
+import at.fhooe.mcm.deadreckoning.sensor.ISensorSource;
 import at.fhooe.mcm.deadreckoning.sensor.InertialSensor;
+import at.fhooe.mcm.deadreckoning.telemetry.TelemetryFrame;
+import at.fhooe.mcm.deadreckoning.telemetry.TelemetrySummary;
+import at.fhooe.mcm.deadreckoning.telemetry.TelemetryThrottle;
+import at.fhooe.mcm.deadreckoning.telemetry.TelemetryWindow;
+import at.fhooe.mcm.deadreckoning.trace.TraceRecorder;
 import at.fhooe.mcm.dsr.DSRClient;
-import com.sun.spot.util.Utils;
+import at.fhooe.mcm.dsr.util.Address;
+import at.fhooe.mcm.dsr.util.RadiogramPool;
+import com.sun.spot.sensorboard.EDemoBoard;
 import com.sun.spot.util.BootloaderListener;
+import com.sun.squawk.VM;
 
 import java.io.IOException;
 
+import javax.microedition.io.Connector;
 import javax.microedition.midlet.MIDlet;
 import javax.microedition.midlet.MIDletStateChangeException;
 
@@ -50,8 +65,55 @@ import javax.microedition.midlet.MIDletStateChangeException;
  */
 public class DeadReckoningAPI extends MIDlet {
 
-    /** @brief A timer to count delta times in order to send data periodically. */
-    private float m_timer;
+    /**
+     * @brief The connection the processed samples are recorded to, <code>null</code> disables recording.
+     *
+     * Any connection providing an output stream can be used, e.g. a radio
+     * stream to a host: "radiostream://0014.4F01.0000.6D72:100".
+     */
+    private static final String TRACE_URL = null;
+
+    /** @brief The rate of the main loop in Hz. */
+    private static final int LOOP_RATE = 100;
+
+    /** @brief The maximum number of steps processed at once after the loop has been late. */
+    private static final int MAX_CATCH_UP_STEPS = 25;
+
+    /** @brief The interval in seconds in which the calibration is written to flash. */
+    private static final float CALIBRATION_SAVE_INTERVAL = 600f;
+
+    /** @brief The interval in seconds in which the loop and sampler statistics are printed. */
+    private static final float STATISTICS_INTERVAL = 60f;
+
+    /** @brief Projects the accelerations onto the horizontal plane to compensate a tilt. */
+    private static final boolean USE_GRAVITY_COMPENSATION = true;
+
+    /** @brief Samples the accelerometer in a background thread instead of once per loop. */
+    private static final boolean USE_SAMPLER = true;
+
+    /** @brief The rate of the background sampler in Hz. */
+    private static final int SAMPLING_RATE = 100;
+
+    /** @brief The number of accelerometer reads averaged into one sample. */
+    private static final int OVERSAMPLING = 1;
+
+    /** @brief The capacity of the sample ring buffer, enough for 0.64s at 100Hz. */
+    private static final int SAMPLER_CAPACITY = 64;
+
+    /** @brief Slows the loop and the sampler down while the sensor rests. */
+    private static final boolean USE_DUTY_CYCLING = true;
+
+    /** @brief The number of steps per tick while the sensor rests, 10Hz at a loop rate of 100Hz. */
+    private static final int WATCH_STRIDE = 10;
+
+    /** @brief The address of the host receiving the telemetry, converted once. */
+    private static final long HOST_ADDRESS = Address.parse("0014.4F01.0000.6D72");
+
+    /** @brief A timer to count delta times in order to save the calibration periodically. */
+    private float m_saveTimer;
+
+    /** @brief A timer to count delta times in order to print the statistics periodically. */
+    private float m_statisticsTimer;
 
     /** @brief The DSR client that enables ad hoc networking. */
     private DSRClient m_dsr ;
@@ -62,14 +124,46 @@ public class DeadReckoningAPI extends MIDlet {
     /** @brief A distance sync in order to correct sensor measurements by using reference sensors. */
     private DistanceSync m_distSync;
 
-    /** @brief A clock in order to measure time. */
-    private Timer m_clock;
+    /** @brief The open connections shared by the DSR client and the distance sync. */
+    private RadiogramPool m_radiograms = new RadiogramPool(RadiogramPool.DEFAULT_CAPACITY);
+
+    /** @brief Paces the main loop with a fixed time step. */
+    private SensorScheduler m_scheduler;
+
+    /** @brief The background accelerometer sampler, <code>null</code> if not used. */
+    private AccelerometerSampler m_sampler;
+
+    /** @brief The recorder of the processed samples, <code>null</code> if not used. */
+    private TraceRecorder m_recorder;
+
+    /** @brief Duty cycles the loop while the sensor rests, <code>null</code> if not used. */
+    private ActivityMonitor m_activity;
+
+    /** @brief Reusable frame holding the sensor state sent to the host. */
+    private TelemetryFrame m_telemetry = new TelemetryFrame();
+
+    /** @brief Aggregates the samples processed between two telemetry frames. */
+    private TelemetryWindow m_telemetryWindow = new TelemetryWindow();
+
+    /** @brief Reusable summary of the samples processed since the previous frame. */
+    private TelemetrySummary m_telemetrySummary = new TelemetrySummary();
+
+    /** @brief Reusable buffer the telemetry frame and its summary are encoded into. */
+    private byte[] m_telemetryBuffer = new byte[TelemetryFrame.SIZE + TelemetrySummary.SIZE];
+
+    /** @brief The sequence number of the next telemetry frame. */
+    private int m_telemetrySequence;
+
+    /** @brief Decides when the host's extrapolation requires a new telemetry frame. */
+    private TelemetryThrottle m_throttle = new TelemetryThrottle();
 
     /**
      * @brief Main application loop.
      *
      * This method represents the main update loop for the sensor calculations.
-     * The spot sends its collected data once a second to any arbitrary address.
+     * The spot sends its collected data to any arbitrary address whenever the
+     * distance extrapolated by the host deviates too much, at least every
+     * few seconds.
      * If a spot is used as reference sensor to average measurement data, the
      * m_dsr.sendData() method call has to be commented on deploy.
      * 
@@ -87,6 +181,8 @@ public class DeadReckoningAPI extends MIDlet {
          * /-------------------------------------------------------------------\
          * | m_distSync = new DistanceSync(m_sensor);                          |
          * \-------------------------------------------------------------------/
+         * The default passes the connection pool of the DSR client, so both
+         * share the open connections.
          */
         /**
          * In case of Transceiver SPOT:
@@ -111,29 +207,93 @@ public class DeadReckoningAPI extends MIDlet {
          * value.
          */
 
-        m_distSync = new DistanceSync(m_sensor);
-
-        while (true) {
-            m_timer += (float)m_clock.getDelta();
-            m_sensor.update((float) m_clock.getDelta());
-            
-            if (m_timer > 1f) {
+        m_distSync = new DistanceSync(m_sensor, m_radiograms);
 
-                m_dsr.sendData(m_sensor.currentStateToString() + m_distSync.getAverage() + "|", "0014.4F01.0000.6D72");
-                m_timer = 0f;
-            }
+        m_scheduler.reset();
 
+        while (true) {
             /*
              * The sensor operates at 160 Hz which means 160 updates per second.
              * This means that a new value is achieved 0.00625 seconds which are
-             * 6.25 ms. To not get the same value multiple times the sleep must
-             * be longer than 7ms.
+             * 6.25 ms. To not get the same value multiple times the loop rate
+             * must be lower than 160 Hz. The scheduler hands out whole steps of
+             * 1 / LOOP_RATE seconds, several at once if the loop has been late.
+             * The sampler time stamps its samples itself, without it every
+             * step reads and integrates one sample with the fixed time step.
              */
-            Utils.sleep(10);
-            m_clock.tick();
+            int steps = m_scheduler.waitForTick();
+            float dt = steps * m_scheduler.getStepSeconds();
+
+            if (m_sampler != null) {
+                m_sensor.update(dt);
+            } else {
+                for (int i = 0; i < steps; i++) {
+                    m_sensor.update(m_scheduler.getStepSeconds());
+                }
+            }
+
+            if (m_activity != null && m_activity.update(dt)) {
+                System.out.println("[activity] " + m_activity.statisticsToString());
+            }
+            
+            if (m_throttle.update(dt, m_sensor.getDistance())) {
+                sendTelemetry();
+            }
+
+            m_saveTimer += dt;
+            if (m_saveTimer > CALIBRATION_SAVE_INTERVAL && m_sensor.isStationary()) {
+                m_sensor.saveCalibration();
+                m_saveTimer = 0f;
+            }
+
+            m_statisticsTimer += dt;
+            if (m_statisticsTimer > STATISTICS_INTERVAL) {
+                printStatistics();
+                m_statisticsTimer = 0f;
+            }
         }
     }
 
+    /**
+     * @brief Prints the statistics of the main loop, the sampler, the sensor and the send queue.
+     *
+     * The scheduler reports its overruns, catch-up and dropped steps, the
+     * sampler the samples dropped because the loop did not drain it in time
+     * and the ticks it missed itself. The sensor reports the used and
+     * rejected bias samples, the stance phases and the gravity refreshes.
+     * The DSR client reports the depth, the dropped packages and the latency
+     * of its send queue.
+     */
+    private void printStatistics() {
+        System.out.println("[scheduler] " + m_scheduler.statisticsToString());
+        System.out.println("[sensor] " + m_sensor.statisticsToString());
+        if (m_sampler != null) {
+            System.out.println("[sampler] " + m_sampler.statisticsToString());
+        }
+        System.out.println("[dsr] " + m_dsr.statisticsToString());
+    }
+
+    /**
+     * @brief Sends the current sensor state as binary telemetry frame to the host.
+     *
+     * The frame is followed by the summary of all samples processed since the
+     * previous frame in the same package.
+     */
+    private void sendTelemetry() {
+        m_sensor.writeTelemetry(m_telemetry);
+        m_telemetry.set(TelemetryFrame.DISTANCE_AVERAGE, m_distSync.getAverage());
+        m_telemetry.set(TelemetryFrame.DISTANCE_RATE, m_throttle.getRate());
+        m_telemetry.setSequence(m_telemetrySequence++);
+        m_throttle.sent(m_telemetry.get(TelemetryFrame.DISTANCE), m_throttle.getRate());
+
+        m_telemetryWindow.writeSummary(m_telemetrySummary);
+        m_telemetrySummary.setSequence(m_telemetry.getSequence());
+
+        int length = m_telemetry.encode(m_telemetryBuffer, 0);
+        length += m_telemetrySummary.encode(m_telemetryBuffer, length);
+        m_dsr.sendData(m_telemetryBuffer, length, HOST_ADDRESS);
+    }
+
     /**
      * @brief The rest is boiler plate code, for Java ME compliance.
      *
@@ -142,9 +302,35 @@ public class DeadReckoningAPI extends MIDlet {
     protected void startApp() throws MIDletStateChangeException {
         new BootloaderListener().start();
         try {
-            m_clock  = new Timer();
-            m_sensor = new InertialSensor();
-            m_dsr    = new DSRClient();
+            m_scheduler = new SensorScheduler(LOOP_RATE, MAX_CATCH_UP_STEPS);
+            ISensorSource source = new AccelerometerSource(EDemoBoard.getInstance().getAccelerometer());
+            // the fixed-point pipeline lacks the drift corrections, @see FixedInertialPipeline
+            m_sensor = new InertialSensor(source, false, new RecordStoreCalibrationStore());
+            if (TRACE_URL != null) {
+                m_recorder = new TraceRecorder(Connector.openOutputStream(TRACE_URL), VM.getTimeMicros());
+                m_sensor.setTraceRecorder(m_recorder);
+            }
+            m_sensor.setGravityCompensation(USE_GRAVITY_COMPENSATION);
+            /*
+             * TrapezoidIntegrator, SimpsonIntegrator or RungeKuttaIntegrator
+             * hold the accuracy at a lower SAMPLING_RATE.
+             */
+            m_sensor.setIntegrator(new EulerIntegrator());
+            /*
+             * StateKalmanFilter may be used alternatively, it corrects the
+             * accelerations through a joint position/velocity/acceleration model.
+             */
+            m_sensor.setAccelerationFilter(new KalmanFilter());
+            m_sensor.setTelemetryWindow(m_telemetryWindow);
+            if (USE_SAMPLER) {
+                m_sampler = new AccelerometerSampler(source, SAMPLING_RATE, OVERSAMPLING, SAMPLER_CAPACITY);
+                m_sensor.useSampler(m_sampler);
+                m_sampler.start();
+            }
+            if (USE_DUTY_CYCLING) {
+                m_activity = new ActivityMonitor(m_sensor, m_scheduler, m_sampler, WATCH_STRIDE);
+            }
+            m_dsr    = new DSRClient(m_radiograms);
             run();
         } catch (IOException ex) {          
             ex.printStackTrace();
@@ -165,6 +351,19 @@ public class DeadReckoningAPI extends MIDlet {
      * if VM.stopVM() is called this method is called.
      */
     protected void destroyApp(boolean arg0) throws MIDletStateChangeException {
+        if (m_sampler != null) {
+            m_sampler.stop();
+        }
+        try {
+            if (m_recorder != null) {
+                m_recorder.close();
+            }
+            m_sensor.saveCalibration();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
         m_dsr.stop();
+        // the pool is shared with the distance sync
+        m_radiograms.closeAll();
     }
 }
@@ -0,0 +1,250 @@
+package at.fhooe.mcm.deadreckoning.application;
+
+import com.sun.squawk.VM;
+
+/**
+ * @class SensorScheduler
+ * @brief This class paces the main loop with a fixed time step.
+ *
+ * Sleeping a constant time after doing a variable amount of work lets the
+ * rate drift with the load, and measuring the frame time in whole
+ * milliseconds adds up to 1ms of jitter to every time step. The scheduler
+ * instead sleeps until an absolute deadline which advances by exactly one
+ * step per tick, so the time spent in the loop does not add up. The elapsed
+ * time is measured in microseconds and collected in an accumulator, which
+ * is handed out in whole fixed steps. If the loop has been late, the missed
+ * steps are handed out together (catch-up) up to a limit, everything beyond
+ * is dropped so a long stall does not turn into one huge time step.
+ *
+ * The scheduler records the number of ticks, overruns (wake ups later than
+ * one step after the deadline), catch-up and dropped steps as well as the
+ * wake up jitter, so the achieved rate can be measured and bounded.
+ *
+ * While the sensor rests, the ticks can be slowed down by a stride, so the
+ * loop only wakes up every few steps (@see ActivityMonitor).
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 03.06.2010
+ * @version 1.0
+ */
+public class SensorScheduler {
+
+    /** @brief The number of microseconds per millisecond. */
+    private static final long MICROS_PER_MILLI = 1000;
+
+    /** @brief The fixed time step in microseconds. */
+    private long m_stepMicros;
+
+    /** @brief The maximum number of steps handed out by a single tick. */
+    private int m_maxSteps;
+
+    /** @brief The number of steps between two ticks, 1 ticks at the full rate. */
+    private int m_stride;
+
+    /** @brief The absolute deadline of the next tick in microseconds. */
+    private long m_deadline;
+
+    /** @brief The time of the last tick in microseconds. */
+    private long m_last;
+
+    /** @brief The elapsed time not yet handed out as steps in microseconds. */
+    private long m_accumulator;
+
+    /** @brief The number of ticks. */
+    private int m_ticks;
+
+    /** @brief The number of ticks that woke up more than one step late. */
+    private int m_overruns;
+
+    /** @brief The number of additional steps handed out to catch up. */
+    private int m_catchUpSteps;
+
+    /** @brief The number of steps dropped because they exceeded the limit. */
+    private int m_droppedSteps;
+
+    /** @brief The largest wake up delay after a deadline in microseconds. */
+    private long m_maxJitter;
+
+    /** @brief The sum of all wake up delays in microseconds. */
+    private long m_jitterSum;
+
+    /**
+     * @brief Creates a new scheduler.
+     *
+     * @param _rateHz The tick rate in Hz.
+     * @param _maxSteps The maximum number of steps a single tick may hand out.
+     */
+    public SensorScheduler(int _rateHz, int _maxSteps) {
+        if (_rateHz <= 0 || _maxSteps <= 0) {
+            throw new IllegalArgumentException("Rate and step limit must be positive");
+        }
+
+        m_stepMicros = 1000000 / _rateHz;
+        m_maxSteps = _maxSteps;
+        m_stride = 1;
+        reset();
+    }
+
+    /**
+     * @brief Restarts the schedule at the current time and clears the statistics.
+     */
+    public void reset() {
+        m_last = VM.getTimeMicros();
+        m_deadline = m_last + m_stepMicros;
+        m_accumulator = 0;
+
+        m_ticks = 0;
+        m_overruns = 0;
+        m_catchUpSteps = 0;
+        m_droppedSteps = 0;
+        m_maxJitter = 0;
+        m_jitterSum = 0;
+    }
+
+    /**
+     * @brief Sleeps until the next deadline and hands out the elapsed steps.
+     *
+     * @return The number of fixed steps to process, at least one.
+     */
+    public int waitForTick() {
+        long target = m_deadline + (m_stride - 1) * m_stepMicros;
+        long sleep = (target - VM.getTimeMicros()) / MICROS_PER_MILLI;
+
+        if (sleep > 0) {
+            try {
+                Thread.sleep(sleep);
+            } catch (InterruptedException ex) {
+                ex.printStackTrace();
+            }
+        }
+
+        long now = VM.getTimeMicros();
+        long late = now - target;
+
+        if (late > 0) {
+            m_jitterSum += late;
+            if (late > m_maxJitter) {
+                m_maxJitter = late;
+            }
+            if (late >= m_stepMicros) {
+                m_overruns++;
+            }
+        }
+
+        m_accumulator += now - m_last;
+        m_last = now;
+
+        int steps = (int) (m_accumulator / m_stepMicros);
+
+        if (steps < 1) {
+            // woke up early, hand out one step and borrow the rest from the next tick
+            steps = 1;
+        }
+
+        if (steps > m_maxSteps) {
+            m_droppedSteps += steps - m_maxSteps;
+            m_accumulator = 0;
+            m_deadline = now + m_stepMicros;
+            steps = m_maxSteps;
+        } else {
+            m_accumulator -= steps * m_stepMicros;
+            m_deadline += steps * m_stepMicros;
+        }
+
+        if (steps > m_stride) {
+            m_catchUpSteps += steps - m_stride;
+        }
+        m_ticks++;
+
+        return steps;
+    }
+
+    /**
+     * @brief Slows the ticks down to a fraction of the configured rate.
+     *
+     * Each tick then hands out about <code>_stride</code> steps. The stride
+     * applies from the next tick on.
+     *
+     * @param _stride The number of steps between two ticks, 1 restores the full rate.
+     */
+    public void setStride(int _stride) {
+        if (_stride <= 0 || _stride > m_maxSteps) {
+            throw new IllegalArgumentException("Stride must be positive and not exceed the step limit");
+        }
+        m_stride = _stride;
+    }
+
+    /**
+     * @brief Provides the caller with the fixed time step.
+     *
+     * @return The time step in seconds.
+     */
+    public float getStepSeconds() {
+        return m_stepMicros * 0.000001f;
+    }
+
+    /**
+     * @brief Provides the caller with the number of ticks.
+     *
+     * @return The number of ticks since the last reset.
+     */
+    public int getTicks() {
+        return m_ticks;
+    }
+
+    /**
+     * @brief Provides the caller with the number of overruns.
+     *
+     * @return The number of ticks that woke up more than one step late.
+     */
+    public int getOverruns() {
+        return m_overruns;
+    }
+
+    /**
+     * @brief Provides the caller with the number of catch-up steps.
+     *
+     * @return The number of steps handed out in addition to the stride per tick.
+     */
+    public int getCatchUpSteps() {
+        return m_catchUpSteps;
+    }
+
+    /**
+     * @brief Provides the caller with the number of dropped steps.
+     *
+     * @return The number of steps that exceeded the limit per tick.
+     */
+    public int getDroppedSteps() {
+        return m_droppedSteps;
+    }
+
+    /**
+     * @brief Provides the caller with the largest wake up delay.
+     *
+     * @return The largest delay after a deadline in microseconds.
+     */
+    public long getMaxJitterMicros() {
+        return m_maxJitter;
+    }
+
+    /**
+     * @brief Provides the caller with the mean wake up delay.
+     *
+     * @return The mean delay after a deadline in microseconds.
+     */
+    public long getMeanJitterMicros() {
+        return (m_ticks == 0) ? 0 : m_jitterSum / m_ticks;
+    }
+
+    /**
+     * @brief Serializes the statistics to a string.
+     *
+     * @return The pipe separated ticks, overruns, catch-up steps, dropped
+     * steps, maximum and mean jitter.
+     */
+    public String statisticsToString() {
+        return m_ticks + "|" + m_overruns + "|" + m_catchUpSteps + "|" + m_droppedSteps + "|"
+                + m_maxJitter + "|" + getMeanJitterMicros() + "|";
+    }
+}
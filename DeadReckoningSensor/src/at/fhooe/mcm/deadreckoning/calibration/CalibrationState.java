@@ -0,0 +1,257 @@
+package at.fhooe.mcm.deadreckoning.calibration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * @class CalibrationState
+ * @brief This class holds the calibration of a sensor which survives a reboot.
+ *
+ * The state consists of the zero acceleration offsets of the bias estimator
+ * and the gravity vector of the tilt compensation. It is serialized to a
+ * small record starting with a magic number and a format version and ending
+ * with a CRC-32 over all preceding bytes:
+ *
+ * <code>magic(4) version(1) biasX(4) biasY(4) biasSamples(4)
+ * gravityX(4) gravityY(4) gravityZ(4) savedAt(8) crc(4)</code>
+ *
+ * A record that is truncated, corrupted or written by another format
+ * version is rejected when it is parsed, and <code>isPlausible</code> checks
+ * the values against physical limits before they are used.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 02.06.2010
+ * @version 1.0
+ */
+public class CalibrationState {
+
+    /** @brief The magic number of a calibration record, "DRCA". */
+    public static final int MAGIC = 0x44524341;
+
+    /** @brief The format version of a calibration record. */
+    public static final byte VERSION = 1;
+
+    /** @brief The size of a calibration record in bytes. */
+    public static final int RECORD_SIZE = 41;
+
+    /** @brief The largest plausible offset in m/s^2. */
+    public static final float MAX_BIAS = 2.0f;
+
+    /** @brief The largest plausible deviation of the gravity magnitude in m/s^2. */
+    public static final float MAX_GRAVITY_DEVIATION = 1.0f;
+
+    /** @brief The earth gravity in m/s^2. */
+    private static final float EARTH_ACCELERATION = 9.812865328f;
+
+    /** @brief The x-offset in m/s^2. */
+    private float m_biasX;
+
+    /** @brief The y-offset in m/s^2. */
+    private float m_biasY;
+
+    /** @brief The number of samples the offsets are based on. */
+    private int m_biasSamples;
+
+    /** @brief The x-component of the gravity vector in m/s^2. */
+    private float m_gravityX;
+
+    /** @brief The y-component of the gravity vector in m/s^2. */
+    private float m_gravityY;
+
+    /** @brief The z-component of the gravity vector in m/s^2. */
+    private float m_gravityZ;
+
+    /** @brief The time the state was saved at in milliseconds. */
+    private long m_savedAt;
+
+    /**
+     * @brief Creates a new calibration state.
+     *
+     * @param _biasX The x-offset in m/s^2.
+     * @param _biasY The y-offset in m/s^2.
+     * @param _biasSamples The number of samples the offsets are based on.
+     * @param _gravityX The x-component of the gravity vector in m/s^2.
+     * @param _gravityY The y-component of the gravity vector in m/s^2.
+     * @param _gravityZ The z-component of the gravity vector in m/s^2.
+     * @param _savedAt The time the state is saved at in milliseconds.
+     */
+    public CalibrationState(float _biasX, float _biasY, int _biasSamples,
+            float _gravityX, float _gravityY, float _gravityZ, long _savedAt) {
+        m_biasX = _biasX;
+        m_biasY = _biasY;
+        m_biasSamples = _biasSamples;
+        m_gravityX = _gravityX;
+        m_gravityY = _gravityY;
+        m_gravityZ = _gravityZ;
+        m_savedAt = _savedAt;
+    }
+
+    /**
+     * @brief Checks the values against physical limits.
+     *
+     * @return <code>true</code> if the offsets are small, the gravity vector
+     * has about the earth gravity as magnitude and the offsets are based on
+     * at least one sample.
+     */
+    public boolean isPlausible() {
+        if (m_biasSamples <= 0 || m_biasX > MAX_BIAS || m_biasX < -MAX_BIAS
+                || m_biasY > MAX_BIAS || m_biasY < -MAX_BIAS) {
+            return false;
+        }
+
+        float g = (float) Math.sqrt(m_gravityX * m_gravityX + m_gravityY * m_gravityY + m_gravityZ * m_gravityZ);
+        float deviation = g - EARTH_ACCELERATION;
+
+        return deviation <= MAX_GRAVITY_DEVIATION && deviation >= -MAX_GRAVITY_DEVIATION;
+    }
+
+    /**
+     * @brief Serializes the state to a record.
+     *
+     * @return The record including magic number, version and checksum.
+     * @throws IOException
+     */
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(RECORD_SIZE);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeFloat(m_biasX);
+        out.writeFloat(m_biasY);
+        out.writeInt(m_biasSamples);
+        out.writeFloat(m_gravityX);
+        out.writeFloat(m_gravityY);
+        out.writeFloat(m_gravityZ);
+        out.writeLong(m_savedAt);
+        out.flush();
+
+        out.writeInt(crc32(bytes.toByteArray(), RECORD_SIZE - 4));
+        out.close();
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @brief Parses a record written by <code>toBytes</code>.
+     *
+     * @param _record The record.
+     * @return The parsed state.
+     * @throws IOException If the record has a wrong size, magic number,
+     * version or checksum.
+     */
+    public static CalibrationState fromBytes(byte[] _record) throws IOException {
+        if (_record == null || _record.length != RECORD_SIZE) {
+            throw new IOException("Invalid calibration record size");
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(_record));
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Invalid calibration record magic");
+        }
+
+        if (in.readByte() != VERSION) {
+            throw new IOException("Unsupported calibration record version");
+        }
+
+        CalibrationState state = new CalibrationState(in.readFloat(), in.readFloat(), in.readInt(),
+                in.readFloat(), in.readFloat(), in.readFloat(), in.readLong());
+
+        if (in.readInt() != crc32(_record, RECORD_SIZE - 4)) {
+            throw new IOException("Calibration record checksum mismatch");
+        }
+
+        return state;
+    }
+
+    /**
+     * @brief Computes the CRC-32 (IEEE 802.3) of the first bytes of an array.
+     *
+     * The records are a few bytes long, so the bitwise algorithm is used
+     * instead of a lookup table.
+     *
+     * @param _data The data.
+     * @param _length The number of bytes to include.
+     * @return The checksum.
+     */
+    private static int crc32(byte[] _data, int _length) {
+        int crc = 0xFFFFFFFF;
+
+        for (int i = 0; i < _length; i++) {
+            crc ^= _data[i] & 0xFF;
+
+            for (int k = 0; k < 8; k++) {
+                crc = ((crc & 1) != 0) ? (crc >>> 1) ^ 0xEDB88320 : crc >>> 1;
+            }
+        }
+
+        return ~crc;
+    }
+
+    /**
+     * @brief Provides the caller with the x-offset.
+     *
+     * @return The x-offset in m/s^2.
+     */
+    public float getBiasX() {
+        return m_biasX;
+    }
+
+    /**
+     * @brief Provides the caller with the y-offset.
+     *
+     * @return The y-offset in m/s^2.
+     */
+    public float getBiasY() {
+        return m_biasY;
+    }
+
+    /**
+     * @brief Provides the caller with the number of samples the offsets are based on.
+     *
+     * @return The number of samples.
+     */
+    public int getBiasSamples() {
+        return m_biasSamples;
+    }
+
+    /**
+     * @brief Provides the caller with the x-component of the gravity vector.
+     *
+     * @return The x-component in m/s^2.
+     */
+    public float getGravityX() {
+        return m_gravityX;
+    }
+
+    /**
+     * @brief Provides the caller with the y-component of the gravity vector.
+     *
+     * @return The y-component in m/s^2.
+     */
+    public float getGravityY() {
+        return m_gravityY;
+    }
+
+    /**
+     * @brief Provides the caller with the z-component of the gravity vector.
+     *
+     * @return The z-component in m/s^2.
+     */
+    public float getGravityZ() {
+        return m_gravityZ;
+    }
+
+    /**
+     * @brief Provides the caller with the time the state was saved at.
+     *
+     * @return The time in milliseconds.
+     */
+    public long getSavedAt() {
+        return m_savedAt;
+    }
+}
@@ -0,0 +1,41 @@
+package at.fhooe.mcm.deadreckoning.calibration;
+
+import java.io.IOException;
+
+/**
+ * @class ICalibrationStore
+ * @brief This interface can be used to implement different storages for the calibration.
+ *
+ * A store keeps a single calibration state. The SPOT uses the flash backed
+ * record store, tests on a plain JVM can use a file backed implementation.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 02.06.2010
+ * @version 1.0
+ */
+public interface ICalibrationStore {
+
+    /**
+     * @brief Loads the stored calibration.
+     *
+     * @return The stored state or <code>null</code> if the store is empty or
+     * the stored record is invalid.
+     * @throws IOException If the storage cannot be accessed.
+     */
+    CalibrationState load() throws IOException;
+
+    /**
+     * @brief Replaces the stored calibration.
+     *
+     * @param _state The state to store.
+     * @throws IOException If the storage cannot be accessed.
+     */
+    void save(CalibrationState _state) throws IOException;
+
+    /**
+     * @brief Removes the stored calibration.
+     *
+     * @throws IOException If the storage cannot be accessed.
+     */
+    void clear() throws IOException;
+}
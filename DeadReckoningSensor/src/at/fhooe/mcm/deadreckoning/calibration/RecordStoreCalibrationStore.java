@@ -0,0 +1,126 @@
+package at.fhooe.mcm.deadreckoning.calibration;
+
+import java.io.IOException;
+import javax.microedition.rms.RecordStore;
+import javax.microedition.rms.RecordStoreException;
+import javax.microedition.rms.RecordStoreNotFoundException;
+
+/**
+ * @class RecordStoreCalibrationStore
+ * @brief This class stores the calibration in the flash backed record store of the SPOT.
+ *
+ * The calibration is kept as the first record of a dedicated record store.
+ * Records are only rewritten when the application saves the calibration, so
+ * the flash is not worn out by the sampling loop.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 02.06.2010
+ * @version 1.0
+ */
+public class RecordStoreCalibrationStore implements ICalibrationStore {
+
+    /** @brief The default name of the record store. */
+    public static final String DEFAULT_NAME = "calibration";
+
+    /** @brief The name of the record store. */
+    private String m_name;
+
+    /**
+     * @brief Creates a store using the default record store name.
+     */
+    public RecordStoreCalibrationStore() {
+        this(DEFAULT_NAME);
+    }
+
+    /**
+     * @brief Creates a store.
+     *
+     * @param _name The name of the record store.
+     */
+    public RecordStoreCalibrationStore(String _name) {
+        m_name = _name;
+    }
+
+    /**
+     * @brief Loads the stored calibration.
+     *
+     * @return The stored state or <code>null</code> if there is none or it is invalid.
+     * @throws IOException If the record store cannot be accessed.
+     */
+    public CalibrationState load() throws IOException {
+        RecordStore store = null;
+
+        try {
+            store = RecordStore.openRecordStore(m_name, false);
+
+            if (store.getNumRecords() == 0) {
+                return null;
+            }
+            return CalibrationState.fromBytes(store.getRecord(1));
+        } catch (RecordStoreNotFoundException ex) {
+            return null;
+        } catch (IOException ex) {
+            // corrupted or outdated record
+            return null;
+        } catch (RecordStoreException ex) {
+            throw new IOException(ex.getMessage());
+        } finally {
+            close(store);
+        }
+    }
+
+    /**
+     * @brief Replaces the stored calibration.
+     *
+     * @param _state The state to store.
+     * @throws IOException If the record store cannot be accessed.
+     */
+    public void save(CalibrationState _state) throws IOException {
+        byte[] record = _state.toBytes();
+        RecordStore store = null;
+
+        try {
+            store = RecordStore.openRecordStore(m_name, true);
+
+            if (store.getNumRecords() == 0) {
+                store.addRecord(record, 0, record.length);
+            } else {
+                store.setRecord(1, record, 0, record.length);
+            }
+        } catch (RecordStoreException ex) {
+            throw new IOException(ex.getMessage());
+        } finally {
+            close(store);
+        }
+    }
+
+    /**
+     * @brief Removes the stored calibration.
+     *
+     * @throws IOException If the record store cannot be accessed.
+     */
+    public void clear() throws IOException {
+        try {
+            RecordStore.deleteRecordStore(m_name);
+        } catch (RecordStoreNotFoundException ex) {
+            // nothing stored
+        } catch (RecordStoreException ex) {
+            throw new IOException(ex.getMessage());
+        }
+    }
+
+    /**
+     * @brief Closes a record store and ignores errors.
+     *
+     * @param _store The store to close, may be <code>null</code>.
+     */
+    private static void close(RecordStore _store) {
+        if (_store != null) {
+            try {
+                _store.closeRecordStore();
+            } catch (RecordStoreException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+}
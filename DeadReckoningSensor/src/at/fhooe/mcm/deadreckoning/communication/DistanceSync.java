@@ -5,12 +5,14 @@
 package at.fhooe.mcm.deadreckoning.Communication;
 
 import at.fhooe.mcm.deadreckoning.sensor.InertialSensor;
+import at.fhooe.mcm.deadreckoning.sensor.SensorSnapshot;
+import at.fhooe.mcm.dsr.util.RadiogramPool;
+import com.sun.spot.io.j2me.radiogram.Radiogram;
 import com.sun.spot.io.j2me.radiogram.RadiogramConnection;
 import com.sun.spot.util.Utils;
 import java.io.IOException;
 import javax.microedition.io.Connector;
 import javax.microedition.io.Datagram;
-import javax.microedition.io.DatagramConnection;
 
 /**
  * @class DistanceSync
@@ -20,6 +22,10 @@ import javax.microedition.io.DatagramConnection;
  * blocks at the receiving function and calculates the average between the own distance
  * and the received distance.
  * The sending thread sends in a interval of 5 seconds the own distance as broadcast.
+ * Both threads read the distance from a snapshot of the sensor state, so
+ * they never see a half updated sensor and never block its update.
+ * The sending thread takes its connection from a <code>RadiogramPool</code>,
+ * which may be shared with the <code>DSRClient</code>.
  * CAUTION: initialize the class ONLY after the init() of InertialSensor m_sensor!
  *
  * @author Florian Lettner, Lukas Bischof, Peter Riedl
@@ -42,7 +48,7 @@ public class DistanceSync {
     private float m_foreigndist = 0;
 
     /** @brief average distance. */
-    private float m_avg = 0;
+    private volatile float m_avg = 0;
 
     /** @brief Send thread timeout. */
     private int m_timeOut = 1000;
@@ -53,6 +59,9 @@ public class DistanceSync {
     /** @brief Indicates if data should be sent. */
     private boolean m_shoudSend = true;
 
+    /** @brief The open connections used for sending. */
+    private RadiogramPool m_radiograms = null;
+
     /**
      * @brief Should not occure.
      *
@@ -70,7 +79,18 @@ public class DistanceSync {
      * @param _sensor Reference to InertialSensor instance.
      */
     public DistanceSync(InertialSensor _sensor) {
+        this(_sensor, new RadiogramPool(1));
+    }
+
+    /**
+     * @brief CTor with reference to Inertialsensor and the connections used for sending.
+     *
+     * @param _sensor Reference to InertialSensor instance.
+     * @param _radiograms The pool of connections used for sending, e.g. the one of the <code>DSRClient</code>.
+     */
+    public DistanceSync(InertialSensor _sensor, RadiogramPool _radiograms) {
         m_sensor = _sensor;
+        m_radiograms = _radiograms;
 
         startSenderThread();
         startReceiverThread();
@@ -113,6 +133,7 @@ public class DistanceSync {
                 String tmp = null;
                 RadiogramConnection dgConnection = null;
                 Datagram dg = null;
+                SensorSnapshot snapshot = new SensorSnapshot();
 
                 try {
                     dgConnection = (RadiogramConnection) Connector.open("radiogram://:99");
@@ -131,7 +152,8 @@ public class DistanceSync {
                         tmp = dg.readUTF();
                         if (tmp.substring(0, 5).equals("DIST:")) {
                             m_foreigndist = Float.parseFloat(tmp.substring(5));
-                            m_owndist = m_sensor.getDistance();
+                            m_sensor.getSnapshot(snapshot);
+                            m_owndist = snapshot.getDistance();
                             m_avg = (m_foreigndist + m_owndist) / 2;
                         }
                         System.out.println("Received: " + tmp + " from " + dg.getAddress());
@@ -152,35 +174,30 @@ public class DistanceSync {
      *
      * As the <code>DatagramConnection.send(Datagram _dg)</code>
      * does no blocking, the thread makes a timeout after broadcasting the distance.
+     * The connection is kept open by the pool, a connection that failed is
+     * opened again for the next broadcast.
      */
     synchronized public void startSenderThread() {
         new Thread() {
 
             public void run() {
-                // We create a DatagramConnection and a Datagram
-                DatagramConnection dgConnection = null;
-                Datagram dg = null;
-                try {
-                    /** The Connection is either a broadcast or addressed to a specific receiver,
-                     * so there the receiver address will be built together.
-                     */
-                    dgConnection = (DatagramConnection) Connector.open("radiogram://" + m_rcvAddress + ":99");
-                    // Then, we ask for a datagram with the maximum size allowed
-                    dg = dgConnection.newDatagram(dgConnection.getMaximumLength());
-                } catch (IOException ex) {
-                    System.out.println("Could not open radiogram broadcast connection");
-                    ex.printStackTrace();
-                    return;
-                }
+                SensorSnapshot snapshot = new SensorSnapshot();
+                /** The Connection is either a broadcast or addressed to a specific receiver,
+                 * so there the receiver address will be built together.
+                 */
+                String url = "radiogram://" + m_rcvAddress + ":99";
 
                 while (true) {
                     try {
                         // if m_shoudSend is false, no send will occure.
                         if (m_shoudSend) {
                             // UTF Message building and sending.
-                            dg.reset();
-                            dg.writeUTF("DIST:" + m_sensor.getDistance());
-                            dgConnection.send(dg);
+                            m_sensor.getSnapshot(snapshot);
+                            synchronized (m_radiograms) {
+                                Radiogram dg = m_radiograms.getDatagram(url);
+                                dg.writeUTF("DIST:" + snapshot.getDistance());
+                                m_radiograms.send(dg);
+                            }
                         }
 
                         System.out.println("Broadcast is going through");
@@ -0,0 +1,121 @@
+package at.fhooe.mcm.deadreckoning.filter;
+
+import at.fhooe.mcm.deadreckoning.math.FixedPoint;
+
+/**
+ * @class FixedKalmanFilter
+ * @brief This class provides the Kalman filter of <code>KalmanFilter</code> in Q16.16 arithmetic.
+ *
+ * The filter equations are identical to the float version. The variance is
+ * tracked in information form, i.e. as its reciprocal, because the
+ * recursion <code>var' = var * (1 - k)</code> stalls after a few hundred
+ * updates in Q16.16 once the variance is only a few LSB large. The reciprocal
+ * simply grows by <code>1 / noise</code> each update and is kept in a long,
+ * so the gain <code>k = 1 / (1 + noise / var)</code> follows the float path
+ * to within one LSB. The gain division is done as a 64 bit integer division,
+ * which is much cheaper than the emulated float division on the Sun SPOT.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 27.05.2010
+ * @version 1.0
+ */
+public class FixedKalmanFilter implements IFixedFilter {
+
+    /** @brief Noise variance estimation in percent. */
+    private static final int PERCENT_VAR = FixedPoint.fromFloat(0.05f);
+    /** @brief Filter gain. */
+    private static final int GAIN = FixedPoint.fromFloat(0.8f);
+    /** @brief Noise variance. */
+    int[] m_noisevar;
+    /** @brief Reciprocal of the noise variance in Q16.16. */
+    long[] m_invnoisevar;
+    /** @brief Corrected/filtered value. */
+    int[] m_corrected;
+    /** @brief Reciprocal of the predicted variance in Q16.16. */
+    long[] m_invpredictedvar;
+    /** @brief Observed value due to measurement. */
+    int[] m_observed;
+    /** @brief The predicted value. */
+    int[] m_predicted;
+
+    /**
+     * @brief Initializes the filter with some initial values and defines the dimension used.
+     *
+     * @param _initialValues The Q16.16 values used for initialization.
+     * @param _dimension The dimension of the filter.
+     */
+    public void init(int[] _initialValues, int _dimension) {
+
+        m_noisevar = new int[_dimension];
+        m_corrected = new int[_dimension];
+        m_invnoisevar = new long[_dimension];
+        m_invpredictedvar = new long[_dimension];
+        m_observed = new int[_dimension];
+        m_predicted = new int[_dimension];
+
+        for (int i = 0; i < _dimension; i++) {
+            m_noisevar[i] = PERCENT_VAR;
+            m_invnoisevar[i] = ((long) FixedPoint.ONE << FixedPoint.FRACTION_BITS) / PERCENT_VAR;
+            m_invpredictedvar[i] = m_invnoisevar[i];
+        }
+
+        System.arraycopy(_initialValues, 0, m_predicted, 0, _dimension);
+        System.arraycopy(_initialValues, 0, m_corrected, 0, _dimension);
+    }
+
+    /**
+     * @brief Updates the Kalman filter.
+     *
+     * @param _observedValues The Q16.16 values gained by measuring.
+     * @param _correctedValues The array the filtered Q16.16 values are written to.
+     * @param _dtMicros Not used for this filter.
+     */
+    public void update(int[] _observedValues, int[] _correctedValues, int _dtMicros) {
+
+        // if dimensions do not match throw an exception
+        if (_observedValues.length != m_observed.length || _correctedValues.length < m_corrected.length) {
+            throw new RuntimeException("Array dimensions do not match");
+        }
+
+        for (int i = 0; i < m_observed.length; i++) {
+            m_observed[i] = _observedValues[i];
+
+            // compute the Kalman gain k = var / (var + noise) = 1 / (1 + noise / var)
+            long den = FixedPoint.ONE + ((m_noisevar[i] * m_invpredictedvar[i]) >> FixedPoint.FRACTION_BITS);
+            int kalman = (int) ((((long) FixedPoint.ONE << FixedPoint.FRACTION_BITS) + (den >> 1)) / den);
+
+            // update the sensor prediction with the measurement
+            m_corrected[i] = FixedPoint.mul(GAIN, m_predicted[i])
+                    + FixedPoint.mul(FixedPoint.ONE - GAIN, m_observed[i])
+                    + FixedPoint.mul(kalman, m_observed[i] - m_predicted[i]);
+
+            // update the variance estimation, 1 / (var * (1 - k)) = 1 / var + 1 / noise
+            m_invpredictedvar[i] += m_invnoisevar[i];
+            m_predicted[i] = m_corrected[i];
+
+            _correctedValues[i] = m_corrected[i];
+        }
+    }
+
+    /**
+     * @brief Serializes the filter data of the current state to a string.
+     *
+     * Each value is seperated by a pipe, so it can be parsed by any GUI later.
+     *
+     * @return A concatenated string carrying the current filter data.
+     */
+    public String currentStateToString() {
+
+        String temp = "";
+
+        for (int i = 0; i < m_observed.length; i++) {
+            temp += FixedPoint.toFloat(m_observed[i]) + "|";
+        }
+
+        for (int i = 0; i < m_corrected.length; i++) {
+            temp += FixedPoint.toFloat(m_corrected[i]) + "|";
+        }
+
+        return temp;
+    }
+}
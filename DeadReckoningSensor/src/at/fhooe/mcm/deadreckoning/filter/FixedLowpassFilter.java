@@ -0,0 +1,84 @@
+package at.fhooe.mcm.deadreckoning.filter;
+
+import at.fhooe.mcm.deadreckoning.math.FixedPoint;
+
+/**
+ * @class FixedLowpassFilter
+ * @brief This class provides the lowpass filter of <code>LowpassFilter</code> in Q16.16 arithmetic.
+ *
+ * The smoothing factor is computed from the time difference in microseconds
+ * by a single integer division.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 27.05.2010
+ * @version 1.0
+ */
+public class FixedLowpassFilter implements IFixedFilter {
+
+    /** @brief The time constant in microseconds in order to determine the cutoff frequency (160Hz ~ 6250us) */
+    private static final int RC_TIME_CONSTANT = 6250;
+
+    /** @brief The previously observed value. */
+    private int[] m_observed;
+
+    /** @brief The filtered value. */
+    private int[] m_corrected;
+
+    /**
+     * @brief Initializes the filter with some initial values and defines the dimension used.
+     *
+     * @param _initialValues The Q16.16 values used for initialization.
+     * @param _dimension The dimension of the filter.
+     */
+    public void init(int[] _initialValues, int _dimension) {
+        m_corrected = new int[_dimension];
+        m_observed  = new int[_dimension];
+        System.arraycopy(_initialValues, 0, m_corrected, 0, _dimension);
+    }
+
+    /**
+     * @brief Updates the lowpass filter.
+     *
+     * @param _observedValues The Q16.16 values gained by measuring.
+     * @param _correctedValues The array the filtered Q16.16 values are written to.
+     * @param _dtMicros The time in microseconds since the last update.
+     */
+    public void update(int[] _observedValues, int[] _correctedValues, int _dtMicros) {
+
+        // if dimensions do not match throw an exception
+        if (m_observed.length != _observedValues.length || _correctedValues.length < m_corrected.length) {
+            throw new RuntimeException("Array dimensions do not match");
+        }
+
+        // update smoothing factor according to the time passed
+        int alpha = FixedPoint.mulDiv(FixedPoint.ONE, _dtMicros, RC_TIME_CONSTANT + _dtMicros);
+
+        for (int i = 0; i < m_observed.length; i++) {
+            m_observed[i] = _observedValues[i];
+            m_corrected[i] += FixedPoint.mul(alpha, m_observed[i] - m_corrected[i]);
+            _correctedValues[i] = m_corrected[i];
+        }
+    }
+
+    /**
+     * @brief Serializes the filter data of the current state to a string.
+     *
+     * Each value is seperated by a pipe, so it can be parsed by any GUI later.
+     *
+     * @return A concatenated string carrying the current filter data.
+     */
+    public String currentStateToString() {
+
+        String temp = "";
+
+        for (int i = 0; i < m_observed.length; i++) {
+            temp += FixedPoint.toFloat(m_observed[i]) + "|";
+        }
+
+        for (int i = 0; i < m_corrected.length; i++) {
+            temp += FixedPoint.toFloat(m_corrected[i]) + "|";
+        }
+
+        return temp;
+    }
+}
@@ -0,0 +1,28 @@
+package at.fhooe.mcm.deadreckoning.filter;
+
+/**
+ * @class IBufferedFilter
+ * @brief This interface extends a filter by an allocation free update cycle.
+ *
+ * The observed values are read from and the corrected values are written to
+ * arrays which are owned by the caller. Implementations copy the observed
+ * values into their own state and never keep a reference to the passed arrays,
+ * so the caller may reuse the same buffers for every update. In steady state
+ * an update does not allocate any memory which keeps the garbage collector of
+ * the Squawk VM out of the sampling loop.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 26.05.2010
+ * @version 1.0
+ */
+public interface IBufferedFilter extends IFilter {
+
+    /**
+     * @brief Updates a filter each cycle using caller owned buffers.
+     *
+     * @param _observedValues The observed values needed to update the prediction.
+     * @param _correctedValues The array the corrected values are written to.
+     * @param _dtx The time difference since the last update.
+     */
+    void update(float[] _observedValues, float[] _correctedValues, float _dtx);
+}
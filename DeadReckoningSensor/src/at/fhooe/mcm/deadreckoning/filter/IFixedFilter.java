@@ -0,0 +1,46 @@
+package at.fhooe.mcm.deadreckoning.filter;
+
+/**
+ * @class IFixedFilter
+ * @brief This interface can be used to implement filters in fixed-point arithmetic.
+ *
+ * It is the counterpart of <code>IBufferedFilter</code> for the Q16.16
+ * pipeline. All values are passed as Q16.16 numbers through caller owned
+ * arrays and the time difference is passed in microseconds, so neither
+ * floats nor allocations are needed while filtering.
+ *
+ * @see at.fhooe.mcm.deadreckoning.math.FixedPoint
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 27.05.2010
+ * @version 1.0
+ */
+public interface IFixedFilter {
+
+    /**
+     * @brief Initializes a filter with some initial values.
+     *
+     * @param _initialValues The initial Q16.16 values for each dimension used.
+     * @param _dimension The amount of dimensions used for filtering.
+     */
+    void init(int[] _initialValues, int _dimension);
+
+    /**
+     * @brief Updates a filter each cycle.
+     *
+     * @param _observedValues The observed Q16.16 values needed to update the prediction.
+     * @param _correctedValues The array the corrected Q16.16 values are written to.
+     * @param _dtMicros The time difference since the last update in microseconds.
+     */
+    void update(int[] _observedValues, int[] _correctedValues, int _dtMicros);
+
+    /**
+     * @brief Serializes the filter data of the current state to a string.
+     *
+     * Each value is converted to float and seperated by a pipe, so it can be
+     * parsed by the same GUI as the float filters.
+     *
+     * @return A concatenated string carrying the current filter data.
+     */
+    String currentStateToString();
+}
@@ -11,12 +11,16 @@ package at.fhooe.mcm.deadreckoning.filter;
  * @date 20.05.2010
  * @version 2.0
  */
-public class KalmanFilter implements IFilter {
+public class KalmanFilter implements IBufferedFilter {
 
+    /** @brief The default noise variance estimation in percent. */
+    public static final float PERCENT_VAR = 0.05f;
+    /** @brief The default filter gain. */
+    public static final float GAIN = 0.8f;
     /** @brief Noise variance estimation in percent. */
-    private static float PERCENT_VAR = 0.05f;
-    /** @brief Filter gain. */
-    private static float GAIN = 0.8f;
+    private float m_percentVar;
+    /** @brief Filter gain, the weight of the prediction. */
+    private float m_gain;
     /** @brief Noise variance. */
     float[] m_noisevar;
     /** @brief Corrected/filtered value. */
@@ -32,6 +36,28 @@ public class KalmanFilter implements IFilter {
     /** @brief The predicted value. */
     float[] m_predicted;
 
+    /**
+     * @brief Creates a filter using the default parameters.
+     */
+    public KalmanFilter() {
+        this(PERCENT_VAR, GAIN);
+    }
+
+    /**
+     * @brief Creates a filter.
+     *
+     * @param _percentVar The noise variance estimation in percent.
+     * @param _gain The filter gain between 0 and 1, the weight of the prediction.
+     */
+    public KalmanFilter(float _percentVar, float _gain) {
+        if (_percentVar <= 0 || _gain < 0 || _gain > 1) {
+            throw new IllegalArgumentException("Invalid filter parameters");
+        }
+
+        m_percentVar = _percentVar;
+        m_gain = _gain;
+    }
+
     /**
      * @brief Initializes the filter with some initial values and defines the dimension used.
      *
@@ -49,11 +75,12 @@ public class KalmanFilter implements IFilter {
         m_predicted = new float[_dimension];
 
         for (int i = 0; i < _dimension; i++) {
-            m_noisevar[i] = PERCENT_VAR;
+            m_noisevar[i] = m_percentVar;
+            m_predictedvar[i] = m_percentVar;
         }
 
-        m_predictedvar = m_noisevar;
-        m_predicted = _initialValues;
+        System.arraycopy(_initialValues, 0, m_predicted, 0, _dimension);
+        System.arraycopy(_initialValues, 0, m_corrected, 0, _dimension);
     }
 
     /**
@@ -63,33 +90,46 @@ public class KalmanFilter implements IFilter {
      * @param _dtx Not used for this filter.
      */
     public void update(float[] _observedValue, float _dtx) {
+        update(_observedValue, m_corrected, _dtx);
+    }
+
+    /**
+     * @brief Updates the Kalman filter without allocating memory.
+     *
+     * The observed values are copied into the filter state, so the caller may
+     * reuse the passed arrays for the next update.
+     *
+     * @param _observedValues The values gained by measuring.
+     * @param _correctedValues The array the filtered values are written to.
+     * @param _dtx Not used for this filter.
+     */
+    public void update(float[] _observedValues, float[] _correctedValues, float _dtx) {
 
         // if dimensions do not match throw an exception
-        if (_observedValue.length != m_observed.length) {
+        if (_observedValues.length != m_observed.length || _correctedValues.length < m_corrected.length) {
             throw new RuntimeException("Array dimensions do not match");
         }
 
-        m_observed = _observedValue;
-
+        for (int i = 0; i < m_observed.length; i++) {
+            m_observed[i] = _observedValues[i];
 
-        // compute the Kalman gain for each dimension
-        for (int i = 0; i < m_kalman.length; i++) {
+            // compute the Kalman gain
             m_kalman[i] = m_predictedvar[i] / (m_predictedvar[i] + m_noisevar[i]);
-        }
 
-        // update the sensor prediction with the measurement for each dimension
-        for (int i = 0; i < m_corrected.length; i++) {
-            m_corrected[i] = GAIN * m_predicted[i] + (1.0f - GAIN) * m_observed[i] + m_kalman[i] * (m_observed[i] - m_predicted[i]);
-        }
+            // update the sensor prediction with the measurement
+            m_corrected[i] = m_gain * m_predicted[i] + (1.0f - m_gain) * m_observed[i] + m_kalman[i] * (m_observed[i] - m_predicted[i]);
 
-        // update the variance estimation
-        for (int i = 0; i < m_correctedvar.length; i++) {
+            // update the variance estimation
             m_correctedvar[i] = m_predictedvar[i] * (1.0f - m_kalman[i]);
+
+            // predict next variances and values
+            m_predictedvar[i] = m_correctedvar[i];
+            m_predicted[i] = m_corrected[i];
+        }
+
+        if (_correctedValues != m_corrected) {
+            System.arraycopy(m_corrected, 0, _correctedValues, 0, m_corrected.length);
         }
-        
-        // predict next variances and values
-        m_predictedvar = m_correctedvar;
-        m_predicted = m_corrected;
     }
 
     /**
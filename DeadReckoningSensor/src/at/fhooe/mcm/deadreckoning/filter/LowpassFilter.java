@@ -11,10 +11,13 @@ package at.fhooe.mcm.deadreckoning.filter;
  * @date 20.05.2010
  * @version 2.0
  */
-public class LowpassFilter implements IFilter {
+public class LowpassFilter implements IBufferedFilter {
 
-    /** @brief The time constant in seconds in order to determine the cutoff frequency (160Hz ~ 0.00625s) */
-    private static final float RC_TIME_CONSTANT = 0.00625f;
+    /** @brief The default time constant in seconds in order to determine the cutoff frequency (160Hz ~ 0.00625s) */
+    public static final float RC_TIME_CONSTANT = 0.00625f;
+
+    /** @brief The time constant in seconds in order to determine the cutoff frequency. */
+    private float m_rcTimeConstant;
 
     /** @brief The previously observed value. */
     private float[] m_observed;
@@ -22,6 +25,25 @@ public class LowpassFilter implements IFilter {
     /** @brief The filtered value. */
     private float[] m_corrected;
 
+    /**
+     * @brief Creates a filter using the default time constant.
+     */
+    public LowpassFilter() {
+        this(RC_TIME_CONSTANT);
+    }
+
+    /**
+     * @brief Creates a filter.
+     *
+     * @param _rcTimeConstant The time constant in seconds, the cutoff frequency is 1 / (2 * PI * RC).
+     */
+    public LowpassFilter(float _rcTimeConstant) {
+        if (_rcTimeConstant <= 0) {
+            throw new IllegalArgumentException("Time constant must be positive");
+        }
+
+        m_rcTimeConstant = _rcTimeConstant;
+    }
 
     /**
      * @brief Initializes the filter with some initial values and defines the dimension used.
@@ -33,7 +55,7 @@ public class LowpassFilter implements IFilter {
        
         m_corrected = new float[_dimension];
         m_observed  = new float[_dimension];
-        m_corrected = _initialValues;
+        System.arraycopy(_initialValues, 0, m_corrected, 0, _dimension);
     }
 
     /**
@@ -43,19 +65,36 @@ public class LowpassFilter implements IFilter {
      * @param _dtx The time in seconds since the last update.
      */
     public void update(float[] _observedValues, float _dtx) {
+        update(_observedValues, m_corrected, _dtx);
+    }
+
+    /**
+     * @brief Updates the lowpass filter without allocating memory.
+     *
+     * The observed values are copied into the filter state, so the caller may
+     * reuse the passed arrays for the next update.
+     *
+     * @param _observedValues The values gained by measuring.
+     * @param _correctedValues The array the filtered values are written to.
+     * @param _dtx The time in seconds since the last update.
+     */
+    public void update(float[] _observedValues, float[] _correctedValues, float _dtx) {
 
         // if dimensions do not match throw an exception
-        if (m_observed.length != _observedValues.length) {
+        if (m_observed.length != _observedValues.length || _correctedValues.length < m_corrected.length) {
             throw new RuntimeException("Array dimensions do not match");
         }
 
-        m_observed = _observedValues;
-
         // update smoothing factor according to the time passed
-        float alpha = _dtx / (RC_TIME_CONSTANT + _dtx);
+        float alpha = _dtx / (m_rcTimeConstant + _dtx);
 
         for (int i = 0; i < m_observed.length; i++) {
-            m_corrected[i] = m_corrected[i] * (1.0f - alpha) + alpha* m_observed[i];
+            m_observed[i] = _observedValues[i];
+            m_corrected[i] = m_corrected[i] * (1.0f - alpha) + alpha * m_observed[i];
+        }
+
+        if (_correctedValues != m_corrected) {
+            System.arraycopy(m_corrected, 0, _correctedValues, 0, m_corrected.length);
         }
     }
 
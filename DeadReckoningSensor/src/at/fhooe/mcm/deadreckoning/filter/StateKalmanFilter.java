@@ -0,0 +1,328 @@
+package at.fhooe.mcm.deadreckoning.filter;
+
+/**
+ * @class StateKalmanFilter
+ * @brief This class provides a Kalman filter tracking position, velocity and acceleration jointly.
+ *
+ * Each axis is modelled as a constant acceleration process whose
+ * acceleration changes by white noise jerk. The accelerometer only observes
+ * the acceleration, which is corrected together with the velocity and the
+ * position through the full 3x3 covariance. The corrected values provided by
+ * the filter are the accelerations, so it can replace <code>KalmanFilter</code>
+ * in the sensor chain. The velocities and positions it estimates are for
+ * diagnostics only, the sensor integrates the corrected accelerations itself
+ * and resets its own velocity at zero velocity updates, which this filter
+ * does not see.
+ *
+ * The covariance does not depend on the measurements. All axes share the
+ * same time step and noise parameters, so one covariance and one gain are
+ * computed per update and applied to every axis. For a constant time step the
+ * gain converges after a few updates. Once the gain has not changed for
+ * <code>CONVERGENCE_STEPS</code> updates it is frozen and an update only
+ * consists of the state prediction and the correction with the steady-state
+ * gain. If the time step deviates from the one the gain converged for, the
+ * covariance is propagated again with the actual time step until the gain
+ * has converged anew.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 31.05.2010
+ * @version 1.0
+ */
+public class StateKalmanFilter implements IBufferedFilter {
+
+    /** @brief The default measurement noise variance in (m/s^2)^2. */
+    public static final float DEFAULT_MEASUREMENT_VAR = 0.05f;
+
+    /** @brief The default power spectral density of the jerk in (m/s^3)^2/Hz. */
+    public static final float DEFAULT_JERK_DENSITY = 20.0f;
+
+    /** @brief The relative time step change up to which the steady-state gain is used. */
+    private static final float DT_TOLERANCE = 0.02f;
+
+    /** @brief The relative gain change below which an update counts as converged. */
+    private static final float CONVERGENCE_EPS = 0.0001f;
+
+    /** @brief The number of converged updates after which the gain is frozen. */
+    private static final int CONVERGENCE_STEPS = 8;
+
+    /** @brief The initial variance of velocity and acceleration. */
+    private static final float INITIAL_VAR = 1.0f;
+
+    /** @brief The measurement noise variance. */
+    private float m_measurementVar;
+
+    /** @brief The power spectral density of the jerk. */
+    private float m_jerkDensity;
+
+    /** @brief The positions per axis. */
+    private float[] m_position;
+
+    /** @brief The velocities per axis. */
+    private float[] m_velocity;
+
+    /** @brief The corrected accelerations per axis. */
+    private float[] m_corrected;
+
+    /** @brief The observed accelerations per axis. */
+    private float[] m_observed;
+
+    /** @brief The position variance. */
+    private float m_p00;
+
+    /** @brief The position/velocity covariance. */
+    private float m_p01;
+
+    /** @brief The position/acceleration covariance. */
+    private float m_p02;
+
+    /** @brief The velocity variance. */
+    private float m_p11;
+
+    /** @brief The velocity/acceleration covariance. */
+    private float m_p12;
+
+    /** @brief The acceleration variance. */
+    private float m_p22;
+
+    /** @brief The Kalman gain of the position. */
+    private float m_k0;
+
+    /** @brief The Kalman gain of the velocity. */
+    private float m_k1;
+
+    /** @brief The Kalman gain of the acceleration. */
+    private float m_k2;
+
+    /** @brief The time step the current gain was computed for. */
+    private float m_gainDt;
+
+    /** @brief The number of consecutive converged updates. */
+    private int m_convergedSteps;
+
+    /**
+     * @brief Creates a new filter using the default noise parameters.
+     */
+    public StateKalmanFilter() {
+        this(DEFAULT_MEASUREMENT_VAR, DEFAULT_JERK_DENSITY);
+    }
+
+    /**
+     * @brief Creates a new filter.
+     *
+     * @param _measurementVar The measurement noise variance in (m/s^2)^2.
+     * @param _jerkDensity The power spectral density of the jerk in (m/s^3)^2/Hz.
+     */
+    public StateKalmanFilter(float _measurementVar, float _jerkDensity) {
+        m_measurementVar = _measurementVar;
+        m_jerkDensity = _jerkDensity;
+    }
+
+    /**
+     * @brief Initializes the filter with the initial accelerations.
+     *
+     * Positions and velocities start at zero.
+     *
+     * @param _initialValues The initial acceleration per axis.
+     * @param _dimension The number of axes.
+     */
+    public void init(float[] _initialValues, int _dimension) {
+        m_position = new float[_dimension];
+        m_velocity = new float[_dimension];
+        m_corrected = new float[_dimension];
+        m_observed = new float[_dimension];
+
+        System.arraycopy(_initialValues, 0, m_corrected, 0, _dimension);
+        System.arraycopy(_initialValues, 0, m_observed, 0, _dimension);
+
+        m_p00 = 0;
+        m_p01 = 0;
+        m_p02 = 0;
+        m_p11 = INITIAL_VAR;
+        m_p12 = 0;
+        m_p22 = INITIAL_VAR;
+
+        m_gainDt = 0;
+        m_convergedSteps = 0;
+    }
+
+    /**
+     * @brief Updates the filter.
+     *
+     * @param _observedValue The measured accelerations.
+     * @param _dtx The time since the last update in seconds.
+     */
+    public void update(float[] _observedValue, float _dtx) {
+        update(_observedValue, m_corrected, _dtx);
+    }
+
+    /**
+     * @brief Updates the filter without allocating memory.
+     *
+     * @param _observedValues The measured accelerations.
+     * @param _correctedValues The array the filtered accelerations are written to.
+     * @param _dtx The time since the last update in seconds.
+     */
+    public void update(float[] _observedValues, float[] _correctedValues, float _dtx) {
+
+        // if dimensions do not match throw an exception
+        if (_observedValues.length != m_observed.length || _correctedValues.length < m_corrected.length) {
+            throw new RuntimeException("Array dimensions do not match");
+        }
+
+        float diff = _dtx - m_gainDt;
+        boolean sameDt = diff <= DT_TOLERANCE * _dtx && diff >= -DT_TOLERANCE * _dtx;
+
+        if (!sameDt || m_convergedSteps < CONVERGENCE_STEPS) {
+            updateGain(_dtx, sameDt);
+        }
+
+        float halfDt2 = 0.5f * _dtx * _dtx;
+
+        for (int i = 0; i < m_observed.length; i++) {
+            m_observed[i] = _observedValues[i];
+
+            // predict the state
+            float a = m_corrected[i];
+            float v = m_velocity[i] + a * _dtx;
+            float p = m_position[i] + m_velocity[i] * _dtx + a * halfDt2;
+
+            // correct the state with the measured acceleration
+            float innovation = m_observed[i] - a;
+            m_position[i] = p + m_k0 * innovation;
+            m_velocity[i] = v + m_k1 * innovation;
+            m_corrected[i] = a + m_k2 * innovation;
+        }
+
+        if (_correctedValues != m_corrected) {
+            System.arraycopy(m_corrected, 0, _correctedValues, 0, m_corrected.length);
+        }
+    }
+
+    /**
+     * @brief Propagates the covariance by one time step and computes the new gain.
+     *
+     * @param _dt The time step in seconds.
+     * @param _sameDt <code>true</code> if the time step equals the one of the previous gain.
+     */
+    private void updateGain(float _dt, boolean _sameDt) {
+        float h = 0.5f * _dt * _dt;
+
+        // F * P with F = [1 dt dt^2/2; 0 1 dt; 0 0 1]
+        float a00 = m_p00 + _dt * m_p01 + h * m_p02;
+        float a01 = m_p01 + _dt * m_p11 + h * m_p12;
+        float a02 = m_p02 + _dt * m_p12 + h * m_p22;
+        float a11 = m_p11 + _dt * m_p12;
+        float a12 = m_p12 + _dt * m_p22;
+
+        // (F * P) * F' + Q for white noise jerk
+        float q = m_jerkDensity * _dt;
+        float dt2 = _dt * _dt;
+        float n00 = a00 + _dt * a01 + h * a02 + q * dt2 * dt2 / 20.0f;
+        float n01 = a01 + _dt * a02 + q * dt2 * _dt / 8.0f;
+        float n02 = a02 + q * dt2 / 6.0f;
+        float n11 = a11 + _dt * a12 + q * dt2 / 3.0f;
+        float n12 = a12 + q * _dt / 2.0f;
+        float n22 = m_p22 + q;
+
+        // gain for a measurement of the acceleration only
+        float s = n22 + m_measurementVar;
+        float k0 = n02 / s;
+        float k1 = n12 / s;
+        float k2 = n22 / s;
+
+        // corrected covariance P - K * H * P
+        m_p00 = n00 - k0 * n02;
+        m_p01 = n01 - k0 * n12;
+        m_p02 = n02 - k0 * n22;
+        m_p11 = n11 - k1 * n12;
+        m_p12 = n12 - k1 * n22;
+        m_p22 = n22 - k2 * n22;
+
+        if (_sameDt && converged(k0, m_k0) && converged(k1, m_k1) && converged(k2, m_k2)) {
+            m_convergedSteps++;
+        } else {
+            m_convergedSteps = 0;
+        }
+
+        m_k0 = k0;
+        m_k1 = k1;
+        m_k2 = k2;
+        m_gainDt = _dt;
+    }
+
+    /**
+     * @brief Checks if a gain has not changed significantly.
+     *
+     * @param _gain The new gain.
+     * @param _previous The previous gain.
+     * @return <code>true</code> if the relative change is below <code>CONVERGENCE_EPS</code>.
+     */
+    private static boolean converged(float _gain, float _previous) {
+        float diff = _gain - _previous;
+        float limit = CONVERGENCE_EPS * ((_gain < 0) ? -_gain : _gain);
+        return diff <= limit && diff >= -limit;
+    }
+
+    /**
+     * @brief Provides the caller with the information whether the steady-state gain is used.
+     *
+     * @return <code>true</code> if the covariance propagation is skipped.
+     */
+    public boolean isSteadyState() {
+        return m_convergedSteps >= CONVERGENCE_STEPS;
+    }
+
+    /**
+     * @brief Provides the caller with the filtered accelerations since the last update.
+     *
+     * @return A float array storing the filtered accelerations.
+     */
+    public float[] getCorrectedValues() {
+        return m_corrected;
+    }
+
+    /**
+     * @brief Provides the caller with the estimated velocities.
+     *
+     * For diagnostics only, the velocities drift since they are not reset at
+     * zero velocity updates.
+     *
+     * @return A float array storing the velocity per axis in m/s.
+     */
+    public float[] getVelocities() {
+        return m_velocity;
+    }
+
+    /**
+     * @brief Provides the caller with the estimated positions.
+     *
+     * For diagnostics only, see <code>getVelocities</code>.
+     *
+     * @return A float array storing the position per axis in meters.
+     */
+    public float[] getPositions() {
+        return m_position;
+    }
+
+    /**
+     * @brief Serializes the filter data of the current state to a string.
+     *
+     * Each value is seperated by a pipe, so it can be parsed by any GUI later.
+     *
+     * @return A concatenated string carrying the current filter data.
+     */
+    public String currentStateToString() {
+
+        String temp = "";
+
+        for (int i = 0; i < m_observed.length; i++) {
+            temp += m_observed[i] + "|";
+        }
+
+        for (int i = 0; i < m_corrected.length; i++) {
+            temp += m_corrected[i] + "|";
+        }
+
+        return temp;
+    }
+}
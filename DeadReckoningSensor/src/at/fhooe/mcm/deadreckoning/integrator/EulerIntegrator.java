@@ -0,0 +1,50 @@
+package at.fhooe.mcm.deadreckoning.integrator;
+
+/**
+ * @class EulerIntegrator
+ * @brief This class integrates using the forward Euler method.
+ *
+ * Explicit and implicit methods are approaches used in numerical analysis
+ * for obtaining numerical solutions of timedependent ordinary and partial
+ * differential equations. The explicit or forward Euler method calculates a
+ * state of a system which occurs later than the current state using the
+ * derivative at one point of the interval only. It is the cheapest method
+ * but its error grows linearly with the step size, so it requires high
+ * sample rates.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 29.05.2010
+ * @version 1.0
+ */
+public class EulerIntegrator implements IIntegrator {
+
+    /**
+     * @brief The Euler method does not need any history.
+     *
+     * @param _dimension Not used for this integrator.
+     */
+    public void init(int _dimension) {
+    }
+
+    /**
+     * @brief Integrates one axis for one time step.
+     *
+     * @param _axis Not used for this integrator.
+     * @param _acceleration The previous and the current acceleration.
+     * @param _velocity The previous velocity, the current velocity is written to index 1.
+     * @param _position The previous position, the current position is written to index 1.
+     * @param _dt The time step in seconds.
+     */
+    public void integrate(int _axis, float[] _acceleration, float[] _velocity, float[] _position, float _dt) {
+        _velocity[1] = _velocity[0] + _acceleration[1] * _dt;
+        _position[1] = _position[0] + _velocity[1] * _dt;
+    }
+
+    /**
+     * @brief The Euler method does not need any history.
+     *
+     * @param _axis Not used for this integrator.
+     */
+    public void reset(int _axis) {
+    }
+}
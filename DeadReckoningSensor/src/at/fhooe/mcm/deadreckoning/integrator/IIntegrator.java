@@ -0,0 +1,51 @@
+package at.fhooe.mcm.deadreckoning.integrator;
+
+/**
+ * @class IIntegrator
+ * @brief This interface can be used to implement different numerical integration methods.
+ *
+ * An integrator calculates the velocity and the position of one axis from
+ * the acceleration. The state of each axis is passed as two-element arrays
+ * storing the previous value at index 0 and the current value at index 1.
+ * The caller provides the previous and the current acceleration as well as
+ * the previous velocity and position, the integrator writes the current
+ * velocity and position. Shifting the current values to the previous ones is
+ * left to the caller.
+ *
+ * Integrators which need a longer history keep it internally per axis, so
+ * one instance can be used for all axes of a sensor.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 29.05.2010
+ * @version 1.0
+ */
+public interface IIntegrator {
+
+    /**
+     * @brief Initializes the integrator for the passed amount of axes.
+     *
+     * @param _dimension The amount of axes to integrate.
+     */
+    void init(int _dimension);
+
+    /**
+     * @brief Integrates one axis for one time step.
+     *
+     * @param _axis The index of the axis.
+     * @param _acceleration The previous and the current acceleration.
+     * @param _velocity The previous velocity, the current velocity is written to index 1.
+     * @param _position The previous position, the current position is written to index 1.
+     * @param _dt The time step in seconds.
+     */
+    void integrate(int _axis, float[] _acceleration, float[] _velocity, float[] _position, float _dt);
+
+    /**
+     * @brief Discards the history of an axis.
+     *
+     * This has to be called whenever the velocity of an axis is changed from
+     * outside, e.g. when a movement end is detected.
+     *
+     * @param _axis The index of the axis.
+     */
+    void reset(int _axis);
+}
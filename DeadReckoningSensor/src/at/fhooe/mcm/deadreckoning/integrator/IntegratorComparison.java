@@ -0,0 +1,149 @@
+package at.fhooe.mcm.deadreckoning.integrator;
+
+/**
+ * @class IntegratorComparison
+ * @brief This class runs recorded acceleration traces through several integrators.
+ *
+ * A trace is a series of filtered accelerations of one axis together with
+ * the time step of each sample. Recorded traces start and end at rest, so
+ * the velocity left over at the end of the trace is the drift caused by the
+ * integration method. The comparison integrates the same trace with every
+ * integrator and reports the final velocity, the final position and the
+ * travelled path length.
+ *
+ * The comparison works on plain arrays, so it can be used on the device as
+ * well as on the host with traces read from any source.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 29.05.2010
+ * @version 1.0
+ */
+public class IntegratorComparison {
+
+    /** @brief The compared integrators. */
+    private IIntegrator[] m_integrators;
+
+    /** @brief The names of the compared integrators. */
+    private String[] m_names;
+
+    /** @brief The final velocity per integrator in m/s. */
+    private float[] m_drift;
+
+    /** @brief The final position per integrator in meters. */
+    private float[] m_position;
+
+    /** @brief The travelled path length per integrator in meters. */
+    private float[] m_path;
+
+    /**
+     * @brief Creates a comparison of all available integrators.
+     */
+    public IntegratorComparison() {
+        this(new IIntegrator[] {new EulerIntegrator(), new TrapezoidIntegrator(),
+                    new SimpsonIntegrator(), new RungeKuttaIntegrator()},
+                new String[] {"Euler", "Trapezoid", "Simpson", "RungeKutta"});
+    }
+
+    /**
+     * @brief Creates a comparison of the passed integrators.
+     *
+     * @param _integrators The integrators to compare.
+     * @param _names The names used in the report.
+     */
+    public IntegratorComparison(IIntegrator[] _integrators, String[] _names) {
+        if (_integrators.length != _names.length) {
+            throw new IllegalArgumentException("Every integrator needs a name");
+        }
+
+        m_integrators = _integrators;
+        m_names = _names;
+        m_drift = new float[_integrators.length];
+        m_position = new float[_integrators.length];
+        m_path = new float[_integrators.length];
+    }
+
+    /**
+     * @brief Integrates a trace with every integrator.
+     *
+     * @param _acceleration The accelerations of the trace in m/s^2.
+     * @param _dt The time step of each sample in seconds.
+     * @param _count The number of samples to use.
+     */
+    public void run(float[] _acceleration, float[] _dt, int _count) {
+        float[] accel = new float[2];
+        float[] velocity = new float[2];
+        float[] position = new float[2];
+
+        for (int k = 0; k < m_integrators.length; k++) {
+            IIntegrator integrator = m_integrators[k];
+            integrator.init(1);
+
+            accel[0] = 0;
+            velocity[0] = 0;
+            position[0] = 0;
+            float path = 0;
+
+            for (int i = 0; i < _count; i++) {
+                accel[1] = _acceleration[i];
+                integrator.integrate(0, accel, velocity, position, _dt[i]);
+
+                float step = position[1] - position[0];
+                path += (step < 0) ? -step : step;
+
+                accel[0] = accel[1];
+                velocity[0] = velocity[1];
+                position[0] = position[1];
+            }
+
+            m_drift[k] = velocity[0];
+            m_position[k] = position[0];
+            m_path[k] = path;
+        }
+    }
+
+    /**
+     * @brief Provides the caller with the velocity drift of an integrator.
+     *
+     * @param _index The index of the integrator.
+     * @return The velocity at the end of the last trace in m/s.
+     */
+    public float getDrift(int _index) {
+        return m_drift[_index];
+    }
+
+    /**
+     * @brief Provides the caller with the final position of an integrator.
+     *
+     * @param _index The index of the integrator.
+     * @return The position at the end of the last trace in meters.
+     */
+    public float getPosition(int _index) {
+        return m_position[_index];
+    }
+
+    /**
+     * @brief Provides the caller with the path length of an integrator.
+     *
+     * @param _index The index of the integrator.
+     * @return The travelled path length of the last trace in meters.
+     */
+    public float getPath(int _index) {
+        return m_path[_index];
+    }
+
+    /**
+     * @brief Serializes the result of the last trace to a string.
+     *
+     * @return One line per integrator with name, drift, position and path length.
+     */
+    public String resultToString() {
+        String temp = "";
+
+        for (int k = 0; k < m_integrators.length; k++) {
+            temp += m_names[k] + ": drift " + m_drift[k] + " m/s, position "
+                    + m_position[k] + " m, path " + m_path[k] + " m\n";
+        }
+
+        return temp;
+    }
+}
@@ -0,0 +1,80 @@
+package at.fhooe.mcm.deadreckoning.integrator;
+
+/**
+ * @class RungeKuttaIntegrator
+ * @brief This class integrates using the classic fourth order Runge-Kutta method.
+ *
+ * Position and velocity are treated as the state of the ordinary
+ * differential equation <code>x' = v, v' = a(t)</code>. The acceleration is
+ * only known at the samples, so the value at the middle of the interval which
+ * is needed by the Runge-Kutta stages is taken from the parabola through the
+ * last three samples. Until enough equidistant history is available, a
+ * straight line between the previous and the current sample is used. Because
+ * the equation is linear in the state, the four stages collapse to
+ *
+ * <code>v1 = v0 + dt / 6 * (a0 + 4 * am + a1)</code>
+ * <code>x1 = x0 + dt * v0 + dt^2 / 6 * (a0 + 2 * am)</code>
+ *
+ * which costs only a few more multiplications than the trapezoidal rule.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 29.05.2010
+ * @version 1.0
+ */
+public class RungeKuttaIntegrator implements IIntegrator {
+
+    /** @brief The relative time step change up to which samples are treated as equidistant. */
+    private static final float DT_TOLERANCE = 0.01f;
+
+    /** @brief The acceleration two samples ago per axis. */
+    private float[] m_acceleration;
+
+    /** @brief The previous time step per axis, 0 if no history is available. */
+    private float[] m_dt;
+
+    /**
+     * @brief Initializes the history for the passed amount of axes.
+     *
+     * @param _dimension The amount of axes to integrate.
+     */
+    public void init(int _dimension) {
+        m_acceleration = new float[_dimension];
+        m_dt = new float[_dimension];
+    }
+
+    /**
+     * @brief Integrates one axis for one time step.
+     *
+     * @param _axis The index of the axis.
+     * @param _acceleration The previous and the current acceleration.
+     * @param _velocity The previous velocity, the current velocity is written to index 1.
+     * @param _position The previous position, the current position is written to index 1.
+     * @param _dt The time step in seconds.
+     */
+    public void integrate(int _axis, float[] _acceleration, float[] _velocity, float[] _position, float _dt) {
+        float diff = m_dt[_axis] - _dt;
+        float mid;
+
+        if (m_dt[_axis] > 0 && diff <= DT_TOLERANCE * _dt && diff >= -DT_TOLERANCE * _dt) {
+            // value of the parabola through the last three samples at the middle of the interval
+            mid = (6.0f * _acceleration[0] + 3.0f * _acceleration[1] - m_acceleration[_axis]) * 0.125f;
+        } else {
+            mid = 0.5f * (_acceleration[0] + _acceleration[1]);
+        }
+
+        float dt6 = _dt / 6.0f;
+        _velocity[1] = _velocity[0] + (_acceleration[0] + 4.0f * mid + _acceleration[1]) * dt6;
+        _position[1] = _position[0] + _velocity[0] * _dt + (_acceleration[0] + 2.0f * mid) * _dt * dt6;
+
+        m_acceleration[_axis] = _acceleration[0];
+        m_dt[_axis] = _dt;
+    }
+
+    /**
+     * @brief The acceleration history is not affected by velocity changes.
+     *
+     * @param _axis Not used for this integrator.
+     */
+    public void reset(int _axis) {
+    }
+}
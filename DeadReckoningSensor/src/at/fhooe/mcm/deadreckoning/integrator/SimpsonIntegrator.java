@@ -0,0 +1,86 @@
+package at.fhooe.mcm.deadreckoning.integrator;
+
+/**
+ * @class SimpsonIntegrator
+ * @brief This class integrates using a running form of Simpson's rule.
+ *
+ * Simpson's rule approximates the integrand by the parabola through three
+ * samples. Applying the classic 1/3 rule to every second interval would
+ * deliver a new value only every other sample, so the parabola through the
+ * last three samples is integrated over the last interval instead:
+ *
+ * <code>x1 = x0 + dt / 12 * (5 * f1 + 8 * f0 - f-1)</code>
+ *
+ * The error grows with the third power of the step size. The rule requires
+ * equidistant samples, so the trapezoidal rule is used until enough history
+ * is available and whenever the time step changes.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 29.05.2010
+ * @version 1.0
+ */
+public class SimpsonIntegrator implements IIntegrator {
+
+    /** @brief The relative time step change up to which samples are treated as equidistant. */
+    private static final float DT_TOLERANCE = 0.01f;
+
+    /** @brief The acceleration two samples ago per axis. */
+    private float[] m_acceleration;
+
+    /** @brief The velocity two samples ago per axis. */
+    private float[] m_velocity;
+
+    /** @brief The previous time step per axis, 0 if no history is available. */
+    private float[] m_dt;
+
+    /**
+     * @brief Initializes the history for the passed amount of axes.
+     *
+     * @param _dimension The amount of axes to integrate.
+     */
+    public void init(int _dimension) {
+        m_acceleration = new float[_dimension];
+        m_velocity = new float[_dimension];
+        m_dt = new float[_dimension];
+    }
+
+    /**
+     * @brief Integrates one axis for one time step.
+     *
+     * @param _axis The index of the axis.
+     * @param _acceleration The previous and the current acceleration.
+     * @param _velocity The previous velocity, the current velocity is written to index 1.
+     * @param _position The previous position, the current position is written to index 1.
+     * @param _dt The time step in seconds.
+     */
+    public void integrate(int _axis, float[] _acceleration, float[] _velocity, float[] _position, float _dt) {
+        float diff = m_dt[_axis] - _dt;
+
+        if (m_dt[_axis] > 0 && diff <= DT_TOLERANCE * _dt && diff >= -DT_TOLERANCE * _dt) {
+            float dt12 = _dt / 12.0f;
+            _velocity[1] = _velocity[0] + (5.0f * _acceleration[1] + 8.0f * _acceleration[0] - m_acceleration[_axis]) * dt12;
+            _position[1] = _position[0] + (5.0f * _velocity[1] + 8.0f * _velocity[0] - m_velocity[_axis]) * dt12;
+        } else {
+            float halfDt = 0.5f * _dt;
+            _velocity[1] = _velocity[0] + (_acceleration[0] + _acceleration[1]) * halfDt;
+            _position[1] = _position[0] + (_velocity[0] + _velocity[1]) * halfDt;
+        }
+
+        // the previous values become the values two samples ago
+        m_acceleration[_axis] = _acceleration[0];
+        m_velocity[_axis] = _velocity[0];
+        m_dt[_axis] = _dt;
+    }
+
+    /**
+     * @brief Discards the history of an axis.
+     *
+     * The velocity history is no longer consistent after the velocity has
+     * been changed from outside, so the next step uses the trapezoidal rule.
+     *
+     * @param _axis The index of the axis.
+     */
+    public void reset(int _axis) {
+        m_dt[_axis] = 0;
+    }
+}
@@ -0,0 +1,48 @@
+package at.fhooe.mcm.deadreckoning.integrator;
+
+/**
+ * @class TrapezoidIntegrator
+ * @brief This class integrates using the trapezoidal rule.
+ *
+ * The trapezoidal rule approximates the integrand by a straight line between
+ * the previous and the current sample. Its error grows quadratically with the
+ * step size, so the same accuracy as the Euler method is reached at a much
+ * lower sample rate for the price of one additional addition per step.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 29.05.2010
+ * @version 1.0
+ */
+public class TrapezoidIntegrator implements IIntegrator {
+
+    /**
+     * @brief The trapezoidal rule does not need any history.
+     *
+     * @param _dimension Not used for this integrator.
+     */
+    public void init(int _dimension) {
+    }
+
+    /**
+     * @brief Integrates one axis for one time step.
+     *
+     * @param _axis Not used for this integrator.
+     * @param _acceleration The previous and the current acceleration.
+     * @param _velocity The previous velocity, the current velocity is written to index 1.
+     * @param _position The previous position, the current position is written to index 1.
+     * @param _dt The time step in seconds.
+     */
+    public void integrate(int _axis, float[] _acceleration, float[] _velocity, float[] _position, float _dt) {
+        float halfDt = 0.5f * _dt;
+        _velocity[1] = _velocity[0] + (_acceleration[0] + _acceleration[1]) * halfDt;
+        _position[1] = _position[0] + (_velocity[0] + _velocity[1]) * halfDt;
+    }
+
+    /**
+     * @brief The trapezoidal rule does not need any history.
+     *
+     * @param _axis Not used for this integrator.
+     */
+    public void reset(int _axis) {
+    }
+}
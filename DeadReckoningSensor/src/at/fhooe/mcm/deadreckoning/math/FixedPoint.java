@@ -0,0 +1,153 @@
+package at.fhooe.mcm.deadreckoning.math;
+
+/**
+ * @class FixedPoint
+ * @brief This class provides Q16.16 fixed-point arithmetic.
+ *
+ * The ARM9 of the Sun SPOT has no floating point unit, so every float
+ * operation is emulated in software by the Squawk VM. A Q16.16 number stores
+ * a real value in an int with 16 integer and 16 fractional bits, which allows
+ * a range of about +/-32767 with a resolution of 2^-16 (~1.5e-5). Additions
+ * are plain integer additions, multiplications and divisions use a 64 bit
+ * intermediate result.
+ *
+ * All operations round to the nearest representable value, so a single
+ * operation is off by at most half a LSB (~7.6e-6) from the exact result.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 27.05.2010
+ * @version 1.0
+ */
+public final class FixedPoint {
+
+    /** @brief The number of fractional bits. */
+    public static final int FRACTION_BITS = 16;
+
+    /** @brief The fixed-point representation of 1. */
+    public static final int ONE = 1 << FRACTION_BITS;
+
+    /** @brief The fixed-point representation of 0.5, used for rounding. */
+    public static final int HALF = ONE >> 1;
+
+    /** @brief The number of microseconds per second. */
+    public static final int MICROS_PER_SECOND = 1000000;
+
+    /**
+     * @brief Should not be instantiated.
+     */
+    private FixedPoint() {
+    }
+
+    /**
+     * @brief Converts a float value to fixed-point.
+     *
+     * @param _value The float value.
+     * @return The rounded fixed-point value.
+     */
+    public static int fromFloat(float _value) {
+        return (int) Math.floor(_value * ONE + 0.5f);
+    }
+
+    /**
+     * @brief Converts a double value to fixed-point.
+     *
+     * @param _value The double value.
+     * @return The rounded fixed-point value.
+     */
+    public static int fromDouble(double _value) {
+        return (int) Math.floor(_value * ONE + 0.5);
+    }
+
+    /**
+     * @brief Converts a fixed-point value to float.
+     *
+     * @param _value The fixed-point value.
+     * @return The float value.
+     */
+    public static float toFloat(int _value) {
+        return _value / (float) ONE;
+    }
+
+    /**
+     * @brief Multiplies two fixed-point values.
+     *
+     * @param _a The first factor.
+     * @param _b The second factor.
+     * @return The rounded product.
+     */
+    public static int mul(int _a, int _b) {
+        return (int) (((long) _a * _b + HALF) >> FRACTION_BITS);
+    }
+
+    /**
+     * @brief Divides two fixed-point values.
+     *
+     * @param _a The dividend.
+     * @param _b The divisor.
+     * @return The rounded quotient.
+     */
+    public static int div(int _a, int _b) {
+        long n = (long) _a << FRACTION_BITS;
+        long half = (_b < 0 ? -_b : _b) >> 1;
+        return (int) (((n < 0) == (_b < 0) ? n + half : n - half) / _b);
+    }
+
+    /**
+     * @brief Multiplies a fixed-point value by a ratio of two integers.
+     *
+     * The intermediate product is kept in 64 bits, so this is used to scale
+     * values by time spans given in microseconds without losing precision.
+     *
+     * @param _value The fixed-point value.
+     * @param _num The numerator.
+     * @param _den The positive denominator.
+     * @return The rounded result <code>_value * _num / _den</code>.
+     */
+    public static int mulDiv(int _value, int _num, int _den) {
+        long p = (long) _value * _num;
+        long half = _den >> 1;
+        return (int) ((p < 0 ? p - half : p + half) / _den);
+    }
+
+    /**
+     * @brief Computes the integer square root of a non-negative long.
+     *
+     * The classic bit-by-bit algorithm only needs shifts, additions and
+     * comparisons.
+     *
+     * @param _value The non-negative value.
+     * @return The largest long whose square is not greater than the value.
+     */
+    public static long isqrt(long _value) {
+        long res = 0;
+        long bit = 1L << 62;
+
+        while (bit > _value) {
+            bit >>= 2;
+        }
+
+        while (bit != 0) {
+            if (_value >= res + bit) {
+                _value -= res + bit;
+                res = (res >> 1) + bit;
+            } else {
+                res >>= 1;
+            }
+            bit >>= 2;
+        }
+        return res;
+    }
+
+    /**
+     * @brief Computes the square root of a non-negative fixed-point value.
+     *
+     * @param _value The fixed-point value.
+     * @return The fixed-point square root.
+     */
+    public static int sqrt(int _value) {
+        if (_value <= 0) {
+            return 0;
+        }
+        return (int) isqrt((long) _value << FRACTION_BITS);
+    }
+}
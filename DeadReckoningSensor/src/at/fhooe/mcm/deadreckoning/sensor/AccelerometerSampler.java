@@ -0,0 +1,318 @@
+package at.fhooe.mcm.deadreckoning.sensor;
+
+import java.io.IOException;
+
+/**
+ * @class AccelerometerSampler
+ * @brief This class samples the accelerometer at a fixed rate in a background thread.
+ *
+ * The sampler reads all three axes once per period and stores them together
+ * with a tick number in a ring buffer of primitive arrays.
+ * The period is tracked as an absolute deadline in microseconds, so the rate
+ * does not drift with the time spent reading the sensor. If the thread falls
+ * behind, the missed ticks are skipped and counted instead of being sampled in
+ * a burst.
+ *
+ * The ring buffer has exactly one writer (the sampling thread) and one reader
+ * (the integration pipeline), which only communicate through the volatile
+ * read and write counters. The reader drains the buffer in blocks and
+ * therefore neither the sampling rate nor the jitter depend on the work done
+ * in the main loop. If the reader does not keep up, new samples are dropped
+ * and counted as overruns.
+ *
+ * Optionally every stored sample is the average of several reads taken back
+ * to back (oversampling), which reduces the sensor noise by the square root
+ * of the oversampling factor.
+ *
+ * The sampler can be slowed down by a stride: only every n-th tick is then
+ * sampled and the tick numbers advance by n per sample, so the time step
+ * derived from the tick numbers stays correct while the rate changes.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 28.05.2010
+ * @version 1.0
+ */
+public class AccelerometerSampler {
+
+    /** @brief The number of microseconds per millisecond. */
+    private static final long MICROS_PER_MILLI = 1000;
+
+    /** @brief The source of the raw samples, usually the accelerometer. */
+    private ISensorSource m_source;
+
+    /** @brief Reusable buffer receiving a raw sample. */
+    private double[] m_read;
+
+    /** @brief The sampling period in microseconds. */
+    private int m_periodMicros;
+
+    /** @brief The number of reads averaged into one sample. */
+    private int m_oversampling;
+
+    /** @brief Mask to map the counters to buffer indices, the capacity is a power of two. */
+    private int m_mask;
+
+    /** @brief The tick numbers of the buffered samples. */
+    private int[] m_ticks;
+
+    /** @brief The buffered x-accelerations in G. */
+    private float[] m_x;
+
+    /** @brief The buffered y-accelerations in G. */
+    private float[] m_y;
+
+    /** @brief The buffered z-accelerations in G. */
+    private float[] m_z;
+
+    /** @brief The number of samples written so far, only modified by the sampling thread. */
+    private volatile int m_writeCount;
+
+    /** @brief The number of samples read so far, only modified by the reader. */
+    private volatile int m_readCount;
+
+    /** @brief The number of samples dropped because the buffer was full. */
+    private volatile int m_overruns;
+
+    /** @brief The number of ticks skipped because the sampling thread was late. */
+    private volatile int m_missedTicks;
+
+    /** @brief Sampling is stopped when this variable is set to <code>false</code>. */
+    private volatile boolean m_execSampling;
+
+    /** @brief The number of ticks per sample, 1 samples at the full rate. */
+    private volatile int m_stride;
+
+    /**
+     * @brief Creates a new sampler.
+     *
+     * @param _source The source to read, usually the accelerometer.
+     * @param _rateHz The sampling rate in Hz.
+     * @param _oversampling The number of reads averaged into one sample, 1 disables oversampling.
+     * @param _capacity The minimum capacity of the ring buffer, rounded up to a power of two.
+     */
+    public AccelerometerSampler(ISensorSource _source, int _rateHz, int _oversampling, int _capacity) {
+        if (_rateHz <= 0 || _oversampling <= 0 || _capacity <= 0) {
+            throw new IllegalArgumentException("Rate, oversampling and capacity must be positive");
+        }
+
+        int capacity = 1;
+        while (capacity < _capacity) {
+            capacity <<= 1;
+        }
+
+        m_source = _source;
+        m_read = new double[3];
+        m_periodMicros = 1000000 / _rateHz;
+        m_oversampling = _oversampling;
+        m_mask = capacity - 1;
+        m_stride = 1;
+
+        m_ticks = new int[capacity];
+        m_x = new float[capacity];
+        m_y = new float[capacity];
+        m_z = new float[capacity];
+    }
+
+    /**
+     * @brief Starts the sampling thread.
+     */
+    public synchronized void start() {
+        if (m_execSampling) {
+            return;
+        }
+        m_execSampling = true;
+
+        Thread t = new Thread() {
+
+            public void run() {
+                sampleLoop();
+            }
+        };
+        t.setPriority(Thread.MAX_PRIORITY);
+        t.start();
+    }
+
+    /**
+     * @brief Stops the sampling thread.
+     */
+    public void stop() {
+        m_execSampling = false;
+    }
+
+    /**
+     * @brief Samples the accelerometer until the sampler is stopped.
+     *
+     * The deadline of the next tick is advanced by exactly one period per
+     * tick, or by the stride if the sampler has been slowed down. Sleeping is
+     * done until that deadline, so the time spent reading the sensor does not
+     * add up.
+     */
+    private void sampleLoop() {
+        int tick = 0;
+        long deadline = System.currentTimeMillis() * MICROS_PER_MILLI;
+
+        while (m_execSampling) {
+            try {
+                sample(tick);
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+
+            int stride = m_stride;
+            long period = (long) m_periodMicros * stride;
+
+            tick += stride;
+            deadline += period;
+
+            long sleep = deadline / MICROS_PER_MILLI - System.currentTimeMillis();
+
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException ex) {
+                    ex.printStackTrace();
+                }
+            } else if (-sleep * MICROS_PER_MILLI >= period) {
+                // we are more than one period late, skip the missed samples
+                int missed = (int) (-sleep * MICROS_PER_MILLI / period);
+                m_missedTicks += missed * stride;
+                tick += missed * stride;
+                deadline += missed * period;
+            }
+        }
+    }
+
+    /**
+     * @brief Reads the accelerometer and stores the result in the ring buffer.
+     *
+     * Sampling stops if the source is exhausted.
+     *
+     * @param _tick The tick number of the sample.
+     * @throws IOException
+     */
+    private void sample(int _tick) throws IOException {
+        double x = 0;
+        double y = 0;
+        double z = 0;
+
+        for (int i = 0; i < m_oversampling; i++) {
+            if (!m_source.read(m_read)) {
+                m_execSampling = false;
+                return;
+            }
+            x += m_read[0];
+            y += m_read[1];
+            z += m_read[2];
+        }
+
+        int write = m_writeCount;
+
+        if (write - m_readCount > m_mask) {
+            m_overruns++;
+            return;
+        }
+
+        int idx = write & m_mask;
+        m_ticks[idx] = _tick;
+        m_x[idx] = (float) (x / m_oversampling);
+        m_y[idx] = (float) (y / m_oversampling);
+        m_z[idx] = (float) (z / m_oversampling);
+
+        // publish the sample after it has been completely written
+        m_writeCount = write + 1;
+    }
+
+    /**
+     * @brief Changes the sampling rate to a fraction of the configured rate.
+     *
+     * The new stride takes effect after the pending sample, so it is delayed
+     * by at most one period of the previous stride.
+     *
+     * @param _stride The number of ticks per sample, 1 restores the full rate.
+     */
+    public void setStride(int _stride) {
+        if (_stride <= 0) {
+            throw new IllegalArgumentException("Stride must be positive");
+        }
+        m_stride = _stride;
+    }
+
+    /**
+     * @brief Provides the caller with the number of buffered samples.
+     *
+     * @return The number of samples that can be drained.
+     */
+    public int available() {
+        return m_writeCount - m_readCount;
+    }
+
+    /**
+     * @brief Copies up to <code>_max</code> buffered samples into the passed arrays.
+     *
+     * The arrays are owned by the caller and can be reused, so draining does
+     * not allocate any memory. Only one thread may drain a sampler.
+     *
+     * @param _ticks The array receiving the tick numbers.
+     * @param _x The array receiving the x-accelerations in G.
+     * @param _y The array receiving the y-accelerations in G.
+     * @param _z The array receiving the z-accelerations in G.
+     * @param _max The maximum number of samples to copy.
+     * @return The number of copied samples.
+     */
+    public int drain(int[] _ticks, float[] _x, float[] _y, float[] _z, int _max) {
+        int read = m_readCount;
+        int count = m_writeCount - read;
+
+        if (count > _max) {
+            count = _max;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int idx = (read + i) & m_mask;
+            _ticks[i] = m_ticks[idx];
+            _x[i] = m_x[idx];
+            _y[i] = m_y[idx];
+            _z[i] = m_z[idx];
+        }
+
+        // release the slots after they have been completely read
+        m_readCount = read + count;
+        return count;
+    }
+
+    /**
+     * @brief Provides the sampling period.
+     *
+     * @return The sampling period in microseconds.
+     */
+    public int getPeriodMicros() {
+        return m_periodMicros;
+    }
+
+    /**
+     * @brief Provides the number of samples dropped because the buffer was full.
+     *
+     * @return The number of dropped samples.
+     */
+    public int getOverruns() {
+        return m_overruns;
+    }
+
+    /**
+     * @brief Provides the number of ticks skipped because the sampling thread was late.
+     *
+     * @return The number of skipped ticks.
+     */
+    public int getMissedTicks() {
+        return m_missedTicks;
+    }
+
+    /**
+     * @brief Serializes the statistics to a string.
+     *
+     * @return The pipe separated number of buffered samples, overruns and missed ticks.
+     */
+    public String statisticsToString() {
+        return available() + "|" + m_overruns + "|" + m_missedTicks + "|";
+    }
+}
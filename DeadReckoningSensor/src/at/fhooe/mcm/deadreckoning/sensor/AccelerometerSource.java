@@ -0,0 +1,55 @@
+package at.fhooe.mcm.deadreckoning.sensor;
+
+import com.sun.spot.sensorboard.peripheral.IAccelerometer3D;
+import com.sun.squawk.VM;
+import java.io.IOException;
+
+/**
+ * @class AccelerometerSource
+ * @brief This class reads samples from the accelerometer of the SPOT.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 04.06.2010
+ * @version 1.0
+ */
+public class AccelerometerSource implements ISensorSource {
+
+    /** @brief The interface to access the Sun Spot's accelerometer. */
+    private IAccelerometer3D m_accel;
+
+    /** @brief The time stamp of the last read sample in microseconds. */
+    private long m_time;
+
+    /**
+     * @brief Creates a new source.
+     *
+     * @param _accel The accelerometer to read.
+     */
+    public AccelerometerSource(IAccelerometer3D _accel) {
+        m_accel = _accel;
+    }
+
+    /**
+     * @brief Reads all three axes of the accelerometer.
+     *
+     * @param _accel The array receiving the x-, y- and z-acceleration in G.
+     * @return Always <code>true</code>.
+     * @throws IOException If the accelerometer cannot be read.
+     */
+    public boolean read(double[] _accel) throws IOException {
+        m_time = VM.getTimeMicros();
+        _accel[0] = m_accel.getAccelX();
+        _accel[1] = m_accel.getAccelY();
+        _accel[2] = m_accel.getAccelZ();
+        return true;
+    }
+
+    /**
+     * @brief Provides the caller with the time stamp of the last read sample.
+     *
+     * @return The time stamp in microseconds.
+     */
+    public long getTimeMicros() {
+        return m_time;
+    }
+}
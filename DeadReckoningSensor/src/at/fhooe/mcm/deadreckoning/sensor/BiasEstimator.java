@@ -0,0 +1,130 @@
+package at.fhooe.mcm.deadreckoning.sensor;
+
+/**
+ * @class BiasEstimator
+ * @brief This class tracks the zero acceleration offsets of the x- and y-axis.
+ *
+ * The offsets of the accelerometer drift with the temperature, so a one-shot
+ * calibration at boot is outdated after a few minutes. The estimator refines
+ * the offsets whenever the sensor is known to be stationary, because the
+ * measured accelerations then only consist of the offsets and noise.
+ *
+ * The first samples are averaged cumulatively, so the estimate converges as
+ * fast as a calibration. Afterwards an exponential moving average with the
+ * time constant <code>TIME_CONSTANT</code> follows the slow thermal drift.
+ * Samples deviating by more than <code>MAX_DEVIATION</code> from the current
+ * estimate are ignored, so a slow movement that is taken for a stance phase
+ * does not spoil the offsets.
+ *
+ * The estimate can be restored, so long-running nodes persisting their
+ * offsets (@see CalibrationState) start with them after a reboot.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 01.06.2010
+ * @version 1.0
+ */
+public class BiasEstimator {
+
+    /** @brief The time constant of the moving average in seconds. */
+    public static final float TIME_CONSTANT = 30.0f;
+
+    /** @brief The maximum deviation from the estimate in m/s^2 accepted as bias sample. */
+    public static final float MAX_DEVIATION = 0.5f;
+
+    /** @brief The number of samples averaged before the deviation check is applied. */
+    private static final int WARMUP_SAMPLES = 32;
+
+    /** @brief The estimated x-offset in m/s^2. */
+    private float m_biasX;
+
+    /** @brief The estimated y-offset in m/s^2. */
+    private float m_biasY;
+
+    /** @brief The number of samples the estimate is based on. */
+    private int m_sampleCount;
+
+    /** @brief The number of rejected samples. */
+    private int m_rejectedCount;
+
+    /**
+     * @brief Adds a sample taken while the sensor is stationary.
+     *
+     * @param _x The measured x-acceleration in m/s^2.
+     * @param _y The measured y-acceleration in m/s^2.
+     * @param _dt The time since the last sample in seconds.
+     * @return <code>true</code> if the sample has been used.
+     */
+    public boolean update(float _x, float _y, float _dt) {
+        float dx = _x - m_biasX;
+        float dy = _y - m_biasY;
+
+        if (m_sampleCount >= WARMUP_SAMPLES
+                && (dx > MAX_DEVIATION || dx < -MAX_DEVIATION || dy > MAX_DEVIATION || dy < -MAX_DEVIATION)) {
+            m_rejectedCount++;
+            return false;
+        }
+
+        m_sampleCount++;
+
+        // cumulative average until it is slower than the moving average
+        float alpha = 1.0f / m_sampleCount;
+        float ema = _dt / (TIME_CONSTANT + _dt);
+
+        if (alpha < ema) {
+            alpha = ema;
+        }
+
+        m_biasX += alpha * dx;
+        m_biasY += alpha * dy;
+        return true;
+    }
+
+    /**
+     * @brief Provides the caller with the estimated x-offset.
+     *
+     * @return The x-offset in m/s^2.
+     */
+    public float getBiasX() {
+        return m_biasX;
+    }
+
+    /**
+     * @brief Provides the caller with the estimated y-offset.
+     *
+     * @return The y-offset in m/s^2.
+     */
+    public float getBiasY() {
+        return m_biasY;
+    }
+
+    /**
+     * @brief Provides the caller with the number of samples the estimate is based on.
+     *
+     * @return The number of used samples.
+     */
+    public int getSampleCount() {
+        return m_sampleCount;
+    }
+
+    /**
+     * @brief Provides the caller with the number of rejected samples.
+     *
+     * @return The number of samples ignored because of their deviation.
+     */
+    public int getRejectedCount() {
+        return m_rejectedCount;
+    }
+
+    /**
+     * @brief Sets the estimate, e.g. to a persisted one.
+     *
+     * @param _biasX The x-offset in m/s^2.
+     * @param _biasY The y-offset in m/s^2.
+     * @param _sampleCount The number of samples the estimate is based on.
+     */
+    public void restore(float _biasX, float _biasY, int _sampleCount) {
+        m_biasX = _biasX;
+        m_biasY = _biasY;
+        m_sampleCount = _sampleCount;
+    }
+}
@@ -0,0 +1,554 @@
+package at.fhooe.mcm.deadreckoning.sensor;
+
+import at.fhooe.mcm.deadreckoning.filter.FixedKalmanFilter;
+import at.fhooe.mcm.deadreckoning.filter.FixedLowpassFilter;
+import at.fhooe.mcm.deadreckoning.filter.IFixedFilter;
+import at.fhooe.mcm.deadreckoning.math.FixedPoint;
+
+/**
+ * @class FixedInertialPipeline
+ * @brief This class provides the dead reckoning chain of <code>InertialSensor</code> in Q16.16 arithmetic.
+ *
+ * Acceleration scaling, Kalman filtering, the discrimination window, Euler
+ * integration, movement end detection, lowpass filtering and the distance
+ * calculation are done with integer operations only. Time differences are
+ * handled in microseconds, so the integration step does not suffer from
+ * the coarse Q16.16 representation of 0.01s.
+ *
+ * Rounding bound against the float filters: every single operation rounds
+ * to the nearest LSB (2^-16 ~ 1.5e-5). Fed with the same samples and
+ * offsets, the scaled accelerations are off by at most ~6 LSB from
+ * <code>KalmanFilter</code>'s input, and because the Kalman prediction is
+ * weighted with at most 0.8 the filtered accelerations stay within ~40 LSB
+ * (~6e-4 m/s^2) of its output. Each integration step adds at most ~1 LSB
+ * to the velocity and the position error, which is reset together with the
+ * velocity whenever a movement end is detected. The distance is accumulated
+ * with 8 additional fractional bits and therefore adds at most 2^-24 m per
+ * sample on top of the position error. Accelerations within the error bound
+ * of the discrimination window limit may be classified differently.
+ *
+ * The stance detection of <code>ZeroVelocityDetector</code> runs on the
+ * same scaled samples, so <code>isStationary</code> and
+ * <code>getNewestDeviation</code> are available without float operations.
+ * The window sums are kept in 64 bit integers, which are exact, so neither a
+ * reference vector nor a periodic rebuild of the sums is needed. The mean
+ * magnitude is compared with the gravity in squared form and therefore needs
+ * no square root either. The pipeline does not use the stance state to
+ * clamp the velocity.
+ *
+ * This bound does not hold for the distance of the float path of
+ * <code>InertialSensor</code>, because the pipeline leaves out its gravity
+ * compensation, the offset refinement and the zero velocity updates during
+ * stance phases, and always integrates with the Euler method. The distances
+ * of both paths therefore differ by far more than the rounding error, e.g.
+ * 155.3 m in fixed-point against 185.2 m in float on the same walking trace.
+ * The pipeline also ignores the tuning setters of the float path. Until
+ * these stages are ported, the fixed-point mode is only meant for replays
+ * on the host and is neither used by <code>DeadReckoningAPI</code> nor
+ * measured by the benchmarks of the sensor.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 27.05.2010
+ * @version 1.0
+ */
+public class FixedInertialPipeline {
+
+    /** @brief The earth gravity in m/s^2 in Q16.16. */
+    private static final int EARTH_ACCELERATION = FixedPoint.fromFloat(9.812865328f);
+
+    /** @brief The size of the discrimination window in Q16.16. */
+    private static final int DISCRIMINATION_SIZE = FixedPoint.fromFloat(2.0f);
+
+    /** @brief A threshold to indicate movement ends. */
+    private static final int SLOWDOWN_THRESHOLD = 15;
+
+    /** @brief Additional fractional bits of the distance accumulator. */
+    private static final int DISTANCE_EXTRA_BITS = 8;
+
+    /** @brief Limit of squared position changes that can be shifted without overflow. */
+    private static final long DISTANCE_SHIFT_LIMIT = 1L << (62 - 2 * DISTANCE_EXTRA_BITS);
+
+    /** @brief The number of samples in the stance window. */
+    private static final int STANCE_WINDOW = ZeroVelocityDetector.DEFAULT_WINDOW_SIZE;
+
+    /** @brief The variance below which a stance phase starts in Q32.32 (m/s^2)^2. */
+    private static final long ENTER_VARIANCE = (long) FixedPoint.fromFloat(ZeroVelocityDetector.DEFAULT_ENTER_VARIANCE) << FixedPoint.FRACTION_BITS;
+
+    /** @brief The variance above which a stance phase ends in Q32.32 (m/s^2)^2. */
+    private static final long EXIT_VARIANCE = (long) FixedPoint.fromFloat(ZeroVelocityDetector.DEFAULT_EXIT_VARIANCE) << FixedPoint.FRACTION_BITS;
+
+    /** @brief The smallest squared mean magnitude of a stance phase in Q32.32 (m/s^2)^2. */
+    private static final long MIN_GRAVITY_SQ = square(EARTH_ACCELERATION - FixedPoint.fromFloat(ZeroVelocityDetector.DEFAULT_GRAVITY_TOLERANCE));
+
+    /** @brief The largest squared mean magnitude of a stance phase in Q32.32 (m/s^2)^2. */
+    private static final long MAX_GRAVITY_SQ = square(EARTH_ACCELERATION + FixedPoint.fromFloat(ZeroVelocityDetector.DEFAULT_GRAVITY_TOLERANCE));
+
+    /** @brief The value of one in Q32.32. */
+    private static final float Q32_ONE = 4294967296f;
+
+    /** @brief Storage for the current and the previous x-acceleration. */
+    private int[] m_accelerationX;
+
+    /** @brief Storage for the current and the previous y-acceleration. */
+    private int[] m_accelerationY;
+
+    /** @brief Storage for the current and the previous x-velocity. */
+    private int[] m_velocityX;
+
+    /** @brief Storage for the current and the previous y-velocity. */
+    private int[] m_velocityY;
+
+    /** @brief Storage for the current and the previous x-position. */
+    private int[] m_positionX;
+
+    /** @brief Storage for the current and the previous y-position. */
+    private int[] m_positionY;
+
+    /** @brief Reusable filter input buffer. */
+    private int[] m_in;
+
+    /** @brief Reusable filter output buffer. */
+    private int[] m_out;
+
+    /** @brief The last input of the Kalman filter. */
+    private int[] m_filterIn;
+
+    /** @brief The last output of the Kalman filter. */
+    private int[] m_filterOut;
+
+    /** @brief Filter interface for a Kalman filter. */
+    private IFixedFilter m_kalmanFilter;
+
+    /** @brief Filter interface for a Kalman based lowpass filter. */
+    private IFixedFilter m_lowpassFilter;
+
+    /** @brief The sensor offset for the x-axis. */
+    private int m_offsetX;
+
+    /** @brief The sensor offset for the y-axis. */
+    private int m_offsetY;
+
+    /** @brief Counter to detect movement stops on the x-axis. */
+    private int m_cntX;
+
+    /** @brief Counter to detect movement stops on the y-axis. */
+    private int m_cntY;
+
+    /** @brief The overall distance with additional fractional bits. */
+    private long m_distance;
+
+    /** @brief The x-accelerations in the stance window in Q16.16. */
+    private int[] m_windowX;
+
+    /** @brief The y-accelerations in the stance window in Q16.16. */
+    private int[] m_windowY;
+
+    /** @brief The z-accelerations in the stance window in Q16.16. */
+    private int[] m_windowZ;
+
+    /** @brief The index of the oldest sample in the stance window. */
+    private int m_next;
+
+    /** @brief The number of samples in the stance window. */
+    private int m_count;
+
+    /** @brief The sum of the x-accelerations in the stance window in Q16.16. */
+    private long m_sumX;
+
+    /** @brief The sum of the y-accelerations in the stance window in Q16.16. */
+    private long m_sumY;
+
+    /** @brief The sum of the z-accelerations in the stance window in Q16.16. */
+    private long m_sumZ;
+
+    /** @brief The sum of the squared acceleration magnitudes in the stance window in Q32.32. */
+    private long m_sumSq;
+
+    /** @brief A flag to indicate a stance phase. */
+    private boolean m_isStationary;
+
+    /** @brief The number of detected stance phases. */
+    private int m_stanceCount;
+
+    /**
+     * @brief Creates a new instance of a <code>FixedInertialPipeline</code>.
+     */
+    public FixedInertialPipeline() {
+        m_accelerationX = new int[2];
+        m_accelerationY = new int[2];
+        m_velocityX = new int[2];
+        m_velocityY = new int[2];
+        m_positionX = new int[2];
+        m_positionY = new int[2];
+        m_in = new int[2];
+        m_out = new int[2];
+        m_filterIn = new int[2];
+        m_filterOut = new int[2];
+        m_windowX = new int[STANCE_WINDOW];
+        m_windowY = new int[STANCE_WINDOW];
+        m_windowZ = new int[STANCE_WINDOW];
+
+        m_kalmanFilter = new FixedKalmanFilter();
+        m_lowpassFilter = new FixedLowpassFilter();
+    }
+
+    /**
+     * @brief Initializes the pipeline with the calibration result.
+     *
+     * @param _offsetX The calibrated x-offset in m/s^2.
+     * @param _offsetY The calibrated y-offset in m/s^2.
+     * @param _accelX The last calibration sample on the x-axis in m/s^2.
+     * @param _accelY The last calibration sample on the y-axis in m/s^2.
+     */
+    public void init(float _offsetX, float _offsetY, float _accelX, float _accelY) {
+        m_offsetX = FixedPoint.fromFloat(_offsetX);
+        m_offsetY = FixedPoint.fromFloat(_offsetY);
+
+        m_in[0] = FixedPoint.fromFloat(_accelX) - m_offsetX;
+        m_in[1] = FixedPoint.fromFloat(_accelY) - m_offsetY;
+        m_kalmanFilter.init(m_in, 2);
+
+        m_in[0] = m_positionX[1];
+        m_in[1] = m_positionY[1];
+        m_lowpassFilter.init(m_in, 2);
+    }
+
+    /**
+     * @brief Updates the pipeline with a new accelerometer sample.
+     *
+     * @param _accelX The x-acceleration in G as provided by the accelerometer.
+     * @param _accelY The y-acceleration in G as provided by the accelerometer.
+     * @param _accelZ The z-acceleration in G as provided by the accelerometer.
+     * @param _dtMicros The time since the last update in microseconds.
+     */
+    public void update(double _accelX, double _accelY, double _accelZ, int _dtMicros) {
+        int x = FixedPoint.mul(FixedPoint.fromDouble(_accelX), EARTH_ACCELERATION);
+        int y = FixedPoint.mul(FixedPoint.fromDouble(_accelY), EARTH_ACCELERATION);
+
+        detectStance(x, y, FixedPoint.mul(FixedPoint.fromDouble(_accelZ), EARTH_ACCELERATION));
+        filterAcceleration(x, y, _dtMicros);
+        integrate(_dtMicros);
+        detectMovementEnd();
+        filterPosition(_dtMicros);
+        calculateDistance();
+    }
+
+    /**
+     * @brief Adds a sample to the stance window and updates the stance state.
+     *
+     * @param _x The x-acceleration in Q16.16 m/s^2.
+     * @param _y The y-acceleration in Q16.16 m/s^2.
+     * @param _z The z-acceleration in Q16.16 m/s^2.
+     */
+    private void detectStance(int _x, int _y, int _z) {
+        if (m_count == STANCE_WINDOW) {
+            int x = m_windowX[m_next];
+            int y = m_windowY[m_next];
+            int z = m_windowZ[m_next];
+
+            m_sumX -= x;
+            m_sumY -= y;
+            m_sumZ -= z;
+            m_sumSq -= square(x) + square(y) + square(z);
+        } else {
+            m_count++;
+        }
+
+        m_windowX[m_next] = _x;
+        m_windowY[m_next] = _y;
+        m_windowZ[m_next] = _z;
+        m_sumX += _x;
+        m_sumY += _y;
+        m_sumZ += _z;
+        m_sumSq += square(_x) + square(_y) + square(_z);
+
+        if (++m_next == STANCE_WINDOW) {
+            m_next = 0;
+        }
+
+        if (m_count < STANCE_WINDOW) {
+            return;
+        }
+
+        // n^2 times the squared mean magnitude and the variance, in Q32.32
+        long n2 = m_count * m_count;
+        long meanSq = m_sumX * m_sumX + m_sumY * m_sumY + m_sumZ * m_sumZ;
+        long variance = (m_count * m_sumSq - meanSq) / n2;
+        boolean gravityOnly = meanSq >= MIN_GRAVITY_SQ * n2 && meanSq <= MAX_GRAVITY_SQ * n2;
+
+        if (m_isStationary) {
+            if (variance > EXIT_VARIANCE || !gravityOnly) {
+                m_isStationary = false;
+            }
+        } else if (variance < ENTER_VARIANCE && gravityOnly) {
+            m_isStationary = true;
+            m_stanceCount++;
+        }
+    }
+
+    /**
+     * @brief Squares a Q16.16 value.
+     *
+     * @param _value The value in Q16.16.
+     * @return The square in Q32.32.
+     */
+    private static long square(int _value) {
+        return (long) _value * _value;
+    }
+
+    /**
+     * @brief Filters the measured accelerations and applies the discrimination window.
+     *
+     * @param _accelX The x-acceleration in Q16.16 m/s^2.
+     * @param _accelY The y-acceleration in Q16.16 m/s^2.
+     * @param _dtMicros The time since the last update in microseconds.
+     */
+    private void filterAcceleration(int _accelX, int _accelY, int _dtMicros) {
+        m_in[0] = _accelX - m_offsetX;
+        m_in[1] = _accelY - m_offsetY;
+
+        m_kalmanFilter.update(m_in, m_out, _dtMicros);
+
+        m_filterIn[0] = m_in[0];
+        m_filterIn[1] = m_in[1];
+        m_filterOut[0] = m_out[0];
+        m_filterOut[1] = m_out[1];
+
+        m_accelerationX[1] = m_out[0];
+        m_accelerationY[1] = m_out[1];
+
+        if ((m_accelerationX[1] <= DISCRIMINATION_SIZE) && (m_accelerationX[1] >= -DISCRIMINATION_SIZE)) {
+            m_accelerationX[1] = 0;
+        }
+
+        if ((m_accelerationY[1] <= DISCRIMINATION_SIZE) && (m_accelerationY[1] >= -DISCRIMINATION_SIZE)) {
+            m_accelerationY[1] = 0;
+        }
+    }
+
+    /**
+     * @brief Integrates the filtered accelerations using the forward Euler method.
+     *
+     * @param _dtMicros The time since the last update in microseconds.
+     */
+    private void integrate(int _dtMicros) {
+
+        // calculate new velocity
+        m_velocityX[1] = m_velocityX[0] + FixedPoint.mulDiv(m_accelerationX[1], _dtMicros, FixedPoint.MICROS_PER_SECOND);
+        m_velocityY[1] = m_velocityY[0] + FixedPoint.mulDiv(m_accelerationY[1], _dtMicros, FixedPoint.MICROS_PER_SECOND);
+
+        // calculate new position
+        m_positionX[1] = m_positionX[0] + FixedPoint.mulDiv(m_velocityX[1], _dtMicros, FixedPoint.MICROS_PER_SECOND);
+        m_positionY[1] = m_positionY[0] + FixedPoint.mulDiv(m_velocityY[1], _dtMicros, FixedPoint.MICROS_PER_SECOND);
+
+        // store current values as previous values for next integral step
+        m_accelerationX[0] = m_accelerationX[1];
+        m_accelerationY[0] = m_accelerationY[1];
+        m_velocityX[0] = m_velocityX[1];
+        m_velocityY[0] = m_velocityY[1];
+    }
+
+    /**
+     * @brief Detects movement ends and sets the velocity to zero.
+     */
+    private void detectMovementEnd() {
+        m_cntX = (m_accelerationX[1] == 0) ? m_cntX + 1 : 0;
+
+        if (m_cntX >= SLOWDOWN_THRESHOLD) {
+            m_velocityX[0] = 0;
+            m_velocityX[1] = 0;
+        }
+
+        m_cntY = (m_accelerationY[1] == 0) ? m_cntY + 1 : 0;
+
+        if (m_cntY >= SLOWDOWN_THRESHOLD) {
+            m_velocityY[0] = 0;
+            m_velocityY[1] = 0;
+        }
+    }
+
+    /**
+     * @brief Filters the position using a lowpass filter.
+     *
+     * @param _dtMicros The time since the last update in microseconds.
+     */
+    private void filterPosition(int _dtMicros) {
+        m_in[0] = m_positionX[1];
+        m_in[1] = m_positionY[1];
+
+        m_lowpassFilter.update(m_in, m_out, _dtMicros);
+
+        m_positionX[1] = m_out[0];
+        m_positionY[1] = m_out[1];
+    }
+
+    /**
+     * @brief Updates the distance using position data.
+     *
+     * The squared position change is computed in 64 bits and shifted before
+     * taking the integer square root, which yields the step length with
+     * additional fractional bits.
+     */
+    private void calculateDistance() {
+        long posXdt = m_positionX[1] - m_positionX[0];
+        long posYdt = m_positionY[1] - m_positionY[0];
+        long sq = posXdt * posXdt + posYdt * posYdt;
+
+        if (sq < DISTANCE_SHIFT_LIMIT) {
+            m_distance += FixedPoint.isqrt(sq << (2 * DISTANCE_EXTRA_BITS));
+        } else {
+            m_distance += FixedPoint.isqrt(sq) << DISTANCE_EXTRA_BITS;
+        }
+
+        // store current positions as previous values for the next integral step
+        m_positionX[0] = m_positionX[1];
+        m_positionY[0] = m_positionY[1];
+    }
+
+    /**
+     * @brief Provides the caller with the current x-acceleration.
+     *
+     * @return The filtered x-acceleration in m/s^2.
+     */
+    public float getAccelerationX() {
+        return FixedPoint.toFloat(m_accelerationX[1]);
+    }
+
+    /**
+     * @brief Provides the caller with the current y-acceleration.
+     *
+     * @return The filtered y-acceleration in m/s^2.
+     */
+    public float getAccelerationY() {
+        return FixedPoint.toFloat(m_accelerationY[1]);
+    }
+
+    /**
+     * @brief Provides the caller with the current x-velocity.
+     *
+     * @return The x-velocity in m/s.
+     */
+    public float getVelocityX() {
+        return FixedPoint.toFloat(m_velocityX[1]);
+    }
+
+    /**
+     * @brief Provides the caller with the current y-velocity.
+     *
+     * @return The y-velocity in m/s.
+     */
+    public float getVelocityY() {
+        return FixedPoint.toFloat(m_velocityY[1]);
+    }
+
+    /**
+     * @brief Provides the caller with the current x-position.
+     *
+     * @return The x-position in meters.
+     */
+    public float getPositionX() {
+        return FixedPoint.toFloat(m_positionX[1]);
+    }
+
+    /**
+     * @brief Provides the caller with the current y-position.
+     *
+     * @return The y-position in meters.
+     */
+    public float getPositionY() {
+        return FixedPoint.toFloat(m_positionY[1]);
+    }
+
+    /**
+     * @brief Provides the caller with the x-position change of the last update.
+     *
+     * @return The x-position change in meters.
+     */
+    public float getPositionDeltaX() {
+        return FixedPoint.toFloat(m_positionX[1] - m_positionX[0]);
+    }
+
+    /**
+     * @brief Provides the caller with the y-position change of the last update.
+     *
+     * @return The y-position change in meters.
+     */
+    public float getPositionDeltaY() {
+        return FixedPoint.toFloat(m_positionY[1] - m_positionY[0]);
+    }
+
+    /**
+     * @brief Provides the caller with the current distance.
+     *
+     * @return The overall measured distance in meters.
+     */
+    public float getDistance() {
+        return FixedPoint.toFloat((int) (m_distance >> DISTANCE_EXTRA_BITS));
+    }
+
+    /**
+     * @brief Provides the caller with the stance state.
+     *
+     * @return <code>true</code> if the sensor is stationary.
+     */
+    public boolean isStationary() {
+        return m_isStationary;
+    }
+
+    /**
+     * @brief Provides the caller with the deviation of the newest sample from the stance window mean.
+     *
+     * @return The squared distance of the newest acceleration vector from the mean in (m/s^2)^2.
+     */
+    public float getNewestDeviation() {
+        if (m_count == 0) {
+            return 0;
+        }
+
+        int newest = ((m_next == 0) ? STANCE_WINDOW : m_next) - 1;
+        // n times the distance from the mean in Q16.16
+        long dx = m_count * (long) m_windowX[newest] - m_sumX;
+        long dy = m_count * (long) m_windowY[newest] - m_sumY;
+        long dz = m_count * (long) m_windowZ[newest] - m_sumZ;
+
+        return (dx * dx + dy * dy + dz * dz) / (m_count * m_count) / Q32_ONE;
+    }
+
+    /**
+     * @brief Provides the caller with the number of detected stance phases.
+     *
+     * @return The number of stance phases since the pipeline was created.
+     */
+    public int getStanceCount() {
+        return m_stanceCount;
+    }
+
+    /**
+     * @brief Provides the caller with the last input of the Kalman filter.
+     *
+     * @param _axis 0 for the x-axis, 1 for the y-axis.
+     * @return The offset corrected acceleration in m/s^2.
+     */
+    public float getFilterInput(int _axis) {
+        return FixedPoint.toFloat(m_filterIn[_axis]);
+    }
+
+    /**
+     * @brief Provides the caller with the last output of the Kalman filter.
+     *
+     * @param _axis 0 for the x-axis, 1 for the y-axis.
+     * @return The filtered acceleration in m/s^2.
+     */
+    public float getFilterOutput(int _axis) {
+        return FixedPoint.toFloat(m_filterOut[_axis]);
+    }
+
+    /**
+     * @brief Serializes the Kalman filter state to a string.
+     *
+     * @return The pipe separated filter state.
+     */
+    public String filterStateToString() {
+        return m_kalmanFilter.currentStateToString();
+    }
+}
@@ -0,0 +1,250 @@
+package at.fhooe.mcm.deadreckoning.sensor;
+
+/**
+ * @class GravityCompensator
+ * @brief This class projects 3-axis accelerations onto the horizontal plane.
+ *
+ * If the SPOT is tilted, a part of the earth gravity is measured on the x-
+ * and the y-axis and integrated to a velocity that grows without bound. The
+ * compensator estimates the gravity vector by lowpass filtering the measured
+ * accelerations and rotates every sample so that the estimated gravity points
+ * along the z-axis. The rotated x- and y-components are the horizontal
+ * accelerations.
+ *
+ * The rotation is the smallest one which maps the gravity direction onto the
+ * z-axis (Rodrigues' rotation formula), so for small tilts the horizontal
+ * axes stay close to the sensor axes. Computing the rotation needs a square
+ * root and a division, therefore it is precomputed and only refreshed when
+ * the estimated gravity direction has moved by more than
+ * <code>REFRESH_ANGLE</code> since the last refresh. Detecting this needs a
+ * few multiplications only, so the per sample cost is the lowpass filter, the
+ * check and six multiply-adds for the projection.
+ *
+ * The gravity estimate adapts quickly while the sensor is stationary and
+ * slowly while it moves, so sustained accelerations of a walk are not taken
+ * for a tilt.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 01.06.2010
+ * @version 1.0
+ */
+public class GravityCompensator {
+
+    /** @brief The time constant of the gravity estimate while stationary in seconds. */
+    public static final float STATIONARY_TIME_CONSTANT = 0.2f;
+
+    /** @brief The time constant of the gravity estimate while moving in seconds. */
+    public static final float MOVING_TIME_CONSTANT = 5.0f;
+
+    /** @brief The change of the gravity direction in degrees which triggers a refresh of the rotation. */
+    public static final float REFRESH_ANGLE = 2.0f;
+
+    /** @brief The squared cosine of <code>REFRESH_ANGLE</code>. */
+    private static final float REFRESH_COS_SQ = 0.998782f;
+
+    /** @brief The earth gravity in m/s^2. */
+    private static final float EARTH_ACCELERATION = 9.812865328f;
+
+    /** @brief The x-component of the estimated gravity vector. */
+    private float m_gravityX;
+
+    /** @brief The y-component of the estimated gravity vector. */
+    private float m_gravityY;
+
+    /** @brief The z-component of the estimated gravity vector. */
+    private float m_gravityZ;
+
+    /** @brief The x-component of the normalized gravity direction the rotation was computed for. */
+    private float m_refX;
+
+    /** @brief The y-component of the normalized gravity direction the rotation was computed for. */
+    private float m_refY;
+
+    /** @brief The z-component of the normalized gravity direction the rotation was computed for. */
+    private float m_refZ;
+
+    /** @brief Element (0, 0) of the rotation matrix. */
+    private float m_r00;
+
+    /** @brief Element (0, 1) of the rotation matrix. */
+    private float m_r01;
+
+    /** @brief Element (0, 2) of the rotation matrix. */
+    private float m_r02;
+
+    /** @brief Element (1, 0) of the rotation matrix. */
+    private float m_r10;
+
+    /** @brief Element (1, 1) of the rotation matrix. */
+    private float m_r11;
+
+    /** @brief Element (1, 2) of the rotation matrix. */
+    private float m_r12;
+
+    /** @brief The horizontal x-acceleration of the last sample. */
+    private float m_horizontalX;
+
+    /** @brief The horizontal y-acceleration of the last sample. */
+    private float m_horizontalY;
+
+    /** @brief A flag to indicate that the gravity estimate is initialized. */
+    private boolean m_isInitialized;
+
+    /** @brief The number of rotation refreshes. */
+    private int m_refreshCount;
+
+    /**
+     * @brief Adds a sample and projects it onto the horizontal plane.
+     *
+     * @param _x The x-acceleration in m/s^2.
+     * @param _y The y-acceleration in m/s^2.
+     * @param _z The z-acceleration in m/s^2.
+     * @param _dt The time since the last sample in seconds.
+     * @param _stationary <code>true</code> if the sensor is currently stationary.
+     */
+    public void update(float _x, float _y, float _z, float _dt, boolean _stationary) {
+        if (!m_isInitialized) {
+            m_gravityX = _x;
+            m_gravityY = _y;
+            m_gravityZ = _z;
+            refreshRotation();
+            m_isInitialized = true;
+        } else {
+            float tau = _stationary ? STATIONARY_TIME_CONSTANT : MOVING_TIME_CONSTANT;
+            float alpha = _dt / (tau + _dt);
+
+            m_gravityX += alpha * (_x - m_gravityX);
+            m_gravityY += alpha * (_y - m_gravityY);
+            m_gravityZ += alpha * (_z - m_gravityZ);
+
+            // refresh if the angle to the reference exceeds the limit, i.e.
+            // (g * ref)^2 < cos^2 * |g|^2 for a positive projection
+            float dot = m_gravityX * m_refX + m_gravityY * m_refY + m_gravityZ * m_refZ;
+            float sq = m_gravityX * m_gravityX + m_gravityY * m_gravityY + m_gravityZ * m_gravityZ;
+
+            if (dot < 0 || dot * dot < REFRESH_COS_SQ * sq) {
+                refreshRotation();
+            }
+        }
+
+        m_horizontalX = m_r00 * _x + m_r01 * _y + m_r02 * _z;
+        m_horizontalY = m_r10 * _x + m_r11 * _y + m_r12 * _z;
+    }
+
+    /**
+     * @brief Sets the gravity estimate, e.g. to a persisted one.
+     *
+     * @param _x The x-component of the gravity vector in m/s^2.
+     * @param _y The y-component of the gravity vector in m/s^2.
+     * @param _z The z-component of the gravity vector in m/s^2.
+     */
+    public void restore(float _x, float _y, float _z) {
+        m_gravityX = _x;
+        m_gravityY = _y;
+        m_gravityZ = _z;
+        refreshRotation();
+        m_isInitialized = true;
+    }
+
+    /**
+     * @brief Discards the gravity estimate, the next sample initializes it again.
+     */
+    public void reset() {
+        m_isInitialized = false;
+    }
+
+    /**
+     * @brief Computes the rotation which maps the estimated gravity direction onto the z-axis.
+     *
+     * With the normalized gravity u, v = u x e_z and c = u * e_z the rotation
+     * is R = I + [v]x + [v]x^2 / (1 + c). Only the first two rows are needed
+     * for the horizontal components, the third row is u itself.
+     */
+    private void refreshRotation() {
+        float norm = (float) Math.sqrt(m_gravityX * m_gravityX + m_gravityY * m_gravityY + m_gravityZ * m_gravityZ);
+
+        if (norm == 0) {
+            m_refX = 0;
+            m_refY = 0;
+            m_refZ = 1;
+        } else {
+            m_refX = m_gravityX / norm;
+            m_refY = m_gravityY / norm;
+            m_refZ = m_gravityZ / norm;
+        }
+
+        if (m_refZ < -0.9999f) {
+            // upside down, rotate by 180 degrees around the x-axis
+            m_r00 = 1;
+            m_r01 = 0;
+            m_r02 = 0;
+            m_r10 = 0;
+            m_r11 = -1;
+            m_r12 = 0;
+        } else {
+            float f = 1.0f / (1.0f + m_refZ);
+            m_r00 = 1.0f - m_refX * m_refX * f;
+            m_r01 = -m_refX * m_refY * f;
+            m_r02 = -m_refX;
+            m_r10 = m_r01;
+            m_r11 = 1.0f - m_refY * m_refY * f;
+            m_r12 = -m_refY;
+        }
+
+        m_refreshCount++;
+    }
+
+    /**
+     * @brief Provides the caller with the horizontal x-acceleration of the last sample.
+     *
+     * @return The x-acceleration in the horizontal plane in m/s^2.
+     */
+    public float getHorizontalX() {
+        return m_horizontalX;
+    }
+
+    /**
+     * @brief Provides the caller with the horizontal y-acceleration of the last sample.
+     *
+     * @return The y-acceleration in the horizontal plane in m/s^2.
+     */
+    public float getHorizontalY() {
+        return m_horizontalY;
+    }
+
+    /**
+     * @brief Provides the caller with the x-component of the estimated gravity.
+     *
+     * @return The x-component in m/s^2.
+     */
+    public float getGravityX() {
+        return m_gravityX;
+    }
+
+    /**
+     * @brief Provides the caller with the y-component of the estimated gravity.
+     *
+     * @return The y-component in m/s^2.
+     */
+    public float getGravityY() {
+        return m_gravityY;
+    }
+
+    /**
+     * @brief Provides the caller with the z-component of the estimated gravity.
+     *
+     * @return The z-component in m/s^2.
+     */
+    public float getGravityZ() {
+        return m_gravityZ;
+    }
+
+    /**
+     * @brief Provides the caller with the number of rotation refreshes.
+     *
+     * @return The number of times the rotation has been recomputed.
+     */
+    public int getRefreshCount() {
+        return m_refreshCount;
+    }
+}
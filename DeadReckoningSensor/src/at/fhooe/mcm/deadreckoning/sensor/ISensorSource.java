@@ -0,0 +1,37 @@
+package at.fhooe.mcm.deadreckoning.sensor;
+
+import java.io.IOException;
+
+/**
+ * @class ISensorSource
+ * @brief This interface provides raw 3-axis accelerometer samples.
+ *
+ * The dead reckoning chain only depends on this interface instead of the
+ * accelerometer of the SPOT, so the samples can come from the hardware, a
+ * recorded trace or a simulation. Every sample carries a time stamp in
+ * microseconds. For live sources it is taken from the system clock, for
+ * replayed traces it is the recorded time, which acts as a virtual clock.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 04.06.2010
+ * @version 1.0
+ */
+public interface ISensorSource {
+
+    /**
+     * @brief Reads the next sample.
+     *
+     * @param _accel The array receiving the x-, y- and z-acceleration in G.
+     * @return <code>true</code> if a sample has been read, <code>false</code>
+     * if the source is exhausted.
+     * @throws IOException If the sample cannot be read.
+     */
+    boolean read(double[] _accel) throws IOException;
+
+    /**
+     * @brief Provides the caller with the time stamp of the last read sample.
+     *
+     * @return The time stamp in microseconds.
+     */
+    long getTimeMicros();
+}
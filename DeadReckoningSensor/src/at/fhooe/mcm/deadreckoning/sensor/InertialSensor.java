@@ -1,10 +1,17 @@
 package at.fhooe.mcm.deadreckoning.sensor;
 
-import at.fhooe.mcm.deadreckoning.filter.IFilter;
+import at.fhooe.mcm.deadreckoning.calibration.CalibrationState;
+import at.fhooe.mcm.deadreckoning.calibration.ICalibrationStore;
+import at.fhooe.mcm.deadreckoning.filter.IBufferedFilter;
 import at.fhooe.mcm.deadreckoning.filter.KalmanFilter;
 import at.fhooe.mcm.deadreckoning.filter.LowpassFilter;
+import at.fhooe.mcm.deadreckoning.integrator.EulerIntegrator;
+import at.fhooe.mcm.deadreckoning.integrator.IIntegrator;
+import at.fhooe.mcm.deadreckoning.telemetry.TelemetryFrame;
+import at.fhooe.mcm.deadreckoning.telemetry.TelemetrySummary;
+import at.fhooe.mcm.deadreckoning.telemetry.TelemetryWindow;
+import at.fhooe.mcm.deadreckoning.trace.TraceRecorder;
 import com.sun.spot.sensorboard.EDemoBoard;
-import com.sun.spot.sensorboard.peripheral.IAccelerometer3D;
 import java.io.IOException;
 
 /**
@@ -24,20 +31,47 @@ public class InertialSensor {
     /** @brief The earth gravity in m/s is calculated by mass(earth)/radius(earth). */
     private static final float EARTH_ACCELERATION = 9.812865328f;
 
-    /** @brief The size of the discrimination window used to correct accelerations. */
-    private static final float DISCRIMINATION_SIZE = 2.0f;
+    /** @brief The default size of the discrimination window used to correct accelerations. */
+    public static final float DISCRIMINATION_SIZE = 2.0f;
 
-    /** @brief A threshold to indicate movement ends. */
-    private static final float SLOWDOWN_THRESHOLD = 15.0f;
+    /** @brief The default threshold to indicate movement ends. */
+    public static final float SLOWDOWN_THRESHOLD = 15.0f;
 
     /** @brief The number of samples used for zero threshold estimation. */
     private static final int NO_CALIBRATION_SAMPLES = 32;
 
-    /** @brief The interface to access the Sun Spot's accelerometer. */
-    private IAccelerometer3D m_accel;
+    /** @brief The maximum number of samples drained from the sampler at once. */
+    private static final int SAMPLER_BLOCK_SIZE = 16;
 
-    /** @brief A counter to indicate how many calibration samples have been taken. */
-    private int m_calibrationCount;
+    /** @brief The source of the raw samples, usually the Sun Spot's accelerometer. */
+    private ISensorSource m_source;
+
+    /** @brief Reusable buffer receiving a raw sample from the source. */
+    private double[] m_raw;
+
+    /** @brief The time stamp of the last sample read by <code>updateFromSource</code>, -1 if none. */
+    private long m_lastSourceTime;
+
+    /** @brief The background sampler, or <code>null</code> if the accelerometer is read on update. */
+    private AccelerometerSampler m_sampler;
+
+    /** @brief Reusable block of tick numbers drained from the sampler. */
+    private int[] m_blockTicks;
+
+    /** @brief Reusable block of x-accelerations in G drained from the sampler. */
+    private float[] m_blockX;
+
+    /** @brief Reusable block of y-accelerations in G drained from the sampler. */
+    private float[] m_blockY;
+
+    /** @brief Reusable block of z-accelerations in G drained from the sampler. */
+    private float[] m_blockZ;
+
+    /** @brief The tick number of the last sample drained from the sampler, -1 if none. */
+    private int m_lastTick;
+
+    /** @brief Tracks the zero acceleration offsets during calibration and stance phases. */
+    private BiasEstimator m_biasEstimator;
     
     /** @brief Storage for the current and the previous x-acceleration. */
     private float[] m_accelerationX;
@@ -58,10 +92,40 @@ public class InertialSensor {
     private float[] m_positionY;
 
     /** @brief Filter interface for a Kalman filter. */
-    private IFilter m_kalmanFilter;
+    private IBufferedFilter m_kalmanFilter;
 
     /** @brief Filter interface for a Kalman based lowpass filter. */
-    private IFilter m_lowpassFilter;
+    private IBufferedFilter m_lowpassFilter;
+
+    /** @brief The numerical integration method used to calculate velocities and positions. */
+    private IIntegrator m_integrator;
+
+    /** @brief Detects stance phases in which the velocity is clamped to zero. */
+    private ZeroVelocityDetector m_zeroVelocityDetector;
+
+    /** @brief Projects the accelerations onto the horizontal plane, <code>null</code> if not used. */
+    private GravityCompensator m_gravityCompensator;
+
+    /** @brief Reusable buffer passing the offset corrected accelerations into the Kalman filter. */
+    private float[] m_accelIn;
+
+    /** @brief Reusable buffer receiving the filtered accelerations. */
+    private float[] m_accelOut;
+
+    /** @brief Reusable buffer passing the integrated positions into the lowpass filter. */
+    private float[] m_positionIn;
+
+    /** @brief Reusable buffer receiving the filtered positions. */
+    private float[] m_positionOut;
+
+    /** @brief Last measured x-acceleration in G as provided by the accelerometer. */
+    private double m_xAccelRaw;
+
+    /** @brief Last measured y-acceleration in G as provided by the accelerometer. */
+    private double m_yAccelRaw;
+
+    /** @brief Last measured z-acceleration in G as provided by the accelerometer. */
+    private double m_zAccelRaw;
 
     /** @brief Last measured raw x-acceleration. */
     private float m_xAccelSample;
@@ -72,6 +136,12 @@ public class InertialSensor {
     /** @brief Last measured raw y-acceleration. */
     private float m_zAccelSample;
 
+    /** @brief The size of the discrimination window used to correct accelerations in m/s^2. */
+    private float m_discriminationSize;
+
+    /** @brief The number of samples without acceleration indicating a movement end. */
+    private float m_slowdownThreshold;
+
     /** @brief Counter to detect movement stops on the x-axis. */
     private float m_cntX;
 
@@ -95,11 +165,85 @@ public class InertialSensor {
 
     /** @brief A flag to indicate if the the sensor is calibrated. */
     private boolean m_isCalibrated;
+
+    /** @brief The Q16.16 pipeline, or <code>null</code> if the float path is used. */
+    private FixedInertialPipeline m_fixedPipeline;
+
+    /** @brief The storage of the calibration, <code>null</code> if it is not persisted. */
+    private ICalibrationStore m_calibrationStore;
+
+    /** @brief The calibration loaded at construction until it is confirmed by the first sample. */
+    private CalibrationState m_restoredCalibration;
+
+    /** @brief The number of processed samples. */
+    private int m_sampleCount;
+
+    /** @brief Aggregates every processed sample, <code>null</code> if not used. */
+    private TelemetryWindow m_telemetryWindow;
+
+    /** @brief Records every processed sample, <code>null</code> if not used or after a write error. */
+    private TraceRecorder m_recorder;
+
+    /** @brief The state published for other threads, written only while the version is odd. */
+    private SensorSnapshot m_snapshot;
+
+    /** @brief Twice the number of published updates, odd while an update is published. */
+    private volatile int m_snapshotVersion;
     
     /**
-     * @brief Creates a new instance of an <code>InertialSensor</code>.
+     * @brief Creates a new instance of an <code>InertialSensor</code> using float arithmetic.
      */
     public InertialSensor() {
+        this(false);
+    }
+
+    /**
+     * @brief Creates a new instance of an <code>InertialSensor</code> without persisted calibration.
+     *
+     * @param _fixedPoint <code>true</code> to use Q16.16 arithmetic,
+     * <code>false</code> to use float arithmetic.
+     */
+    public InertialSensor(boolean _fixedPoint) {
+        this(_fixedPoint, null);
+    }
+
+    /**
+     * @brief Creates a new instance of an <code>InertialSensor</code> reading the accelerometer of the SPOT.
+     *
+     * @param _fixedPoint <code>true</code> to use Q16.16 arithmetic,
+     * <code>false</code> to use float arithmetic.
+     * @param _store The storage of the calibration or <code>null</code>.
+     */
+    public InertialSensor(boolean _fixedPoint, ICalibrationStore _store) {
+        this(new AccelerometerSource(EDemoBoard.getInstance().getAccelerometer()), _fixedPoint, _store);
+    }
+
+    /**
+     * @brief Creates a new instance of an <code>InertialSensor</code>.
+     *
+     * The fixed-point mode runs the whole chain after calibration in Q16.16
+     * arithmetic, which avoids the software emulated float operations of the
+     * Squawk VM. @see FixedInertialPipeline for its error bound. The pipeline
+     * detects stance phases in Q16.16 as well, so <code>isStationary</code>
+     * and <code>getMotionDeviation</code> work in both modes, but the
+     * fixed-point chain does not use them to clamp the velocity or to refine
+     * the offsets.
+     *
+     * If a calibration store is passed, a valid and plausible calibration is
+     * loaded from it, so the sensor is calibrated with the first sample
+     * instead of collecting calibration samples first. The loaded offsets are
+     * confirmed by the first sample, if it does not match them the node has
+     * been moved or tilted since and the sensor is calibrated from scratch.
+     *
+     * The samples are read from the passed source, which allows to run the
+     * sensor on recorded traces or simulated data.
+     *
+     * @param _source The source of the raw samples.
+     * @param _fixedPoint <code>true</code> to use Q16.16 arithmetic,
+     * <code>false</code> to use float arithmetic.
+     * @param _store The storage of the calibration or <code>null</code>.
+     */
+    public InertialSensor(ISensorSource _source, boolean _fixedPoint, ICalibrationStore _store) {
         m_accelerationX = new float[2];
         m_accelerationY = new float[2];
         m_velocityX = new float[2];
@@ -107,6 +251,12 @@ public class InertialSensor {
         m_positionX = new float[2];
         m_positionY = new float[2];
 
+        m_accelIn = new float[2];
+        m_accelOut = new float[2];
+        m_positionIn = new float[2];
+        m_positionOut = new float[2];
+        m_snapshot = new SensorSnapshot();
+
         m_xAccelSample = 0;
         m_yAccelSample = 0;
         m_zAccelSample = 0;
@@ -120,32 +270,107 @@ public class InertialSensor {
 
         m_isCalibrated = false;
 
-        m_accel = EDemoBoard.getInstance().getAccelerometer();
+        m_source = _source;
+        m_raw = new double[3];
+        m_lastSourceTime = -1;
         m_kalmanFilter = new KalmanFilter();
         m_lowpassFilter = new LowpassFilter();
+        m_discriminationSize = DISCRIMINATION_SIZE;
+        m_slowdownThreshold = SLOWDOWN_THRESHOLD;
+        setIntegrator(new EulerIntegrator());
+        m_zeroVelocityDetector = new ZeroVelocityDetector();
+        m_biasEstimator = new BiasEstimator();
+
+        if (_fixedPoint) {
+            m_fixedPipeline = new FixedInertialPipeline();
+        }
+
+        m_calibrationStore = _store;
+        restoreCalibration();
     }
 
     /**
-     * @brief Calibrates the sensor.
+     * @brief Loads the persisted calibration into the bias estimator.
+     */
+    private void restoreCalibration() {
+        if (m_calibrationStore == null) {
+            return;
+        }
+
+        try {
+            CalibrationState state = m_calibrationStore.load();
+
+            if (state != null && state.isPlausible()) {
+                m_biasEstimator.restore(state.getBiasX(), state.getBiasY(), state.getBiasSamples());
+                m_restoredCalibration = state;
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * @brief Persists the current calibration.
      *
-     * This method takes 1024 samples of sensor values and provides a filtered
-     * value by averaging the taken samples.
+     * This writes to flash on the SPOT, so it should only be called rarely,
+     * e.g. on shutdown and in long intervals.
      *
-     * @throws IOException
+     * @throws IOException If the calibration cannot be stored.
      */
-    private void calibrate(int _noSamples) throws IOException {
+    public void saveCalibration() throws IOException {
+        if (m_calibrationStore == null || !m_isCalibrated) {
+            return;
+        }
 
-        getSensorValues();
-        m_offsetX += m_xAccelSample;
-        m_offsetY += m_yAccelSample;
+        CalibrationState state;
 
-        if(m_calibrationCount == _noSamples) {
-            m_offsetX /= (float)_noSamples;
-            m_offsetY /= (float)_noSamples;
-            m_isCalibrated = true;
+        if (m_gravityCompensator != null) {
+            state = new CalibrationState(m_biasEstimator.getBiasX(), m_biasEstimator.getBiasY(),
+                    m_biasEstimator.getSampleCount(), m_gravityCompensator.getGravityX(),
+                    m_gravityCompensator.getGravityY(), m_gravityCompensator.getGravityZ(),
+                    System.currentTimeMillis());
+        } else {
+            state = new CalibrationState(m_biasEstimator.getBiasX(), m_biasEstimator.getBiasY(),
+                    m_biasEstimator.getSampleCount(), m_xAccelSample, m_yAccelSample, m_zAccelSample,
+                    System.currentTimeMillis());
+        }
+
+        m_calibrationStore.save(state);
+    }
+
+    /**
+     * @brief Calibrates the sensor.
+     *
+     * This method feeds samples of sensor values into the bias estimator
+     * until the estimate is based on more than the passed number of samples.
+     * If the estimator has been restored from a persisted state, the
+     * calibration finishes with the first sample.
+     */
+    private void calibrate(int _noSamples) {
+
+        scaleSensorValues();
+        compensateGravity(true);
+
+        if (!m_biasEstimator.update(m_xAccelSample, m_yAccelSample, m_frameLength)
+                && m_restoredCalibration != null) {
+            // the node has been moved since the calibration was stored
+            m_biasEstimator.restore(0, 0, 0);
+
+            if (m_gravityCompensator != null) {
+                m_gravityCompensator.reset();
+            }
         }
+        m_restoredCalibration = null;
+
+        if (m_biasEstimator.getSampleCount() > _noSamples) {
+            m_offsetX = m_biasEstimator.getBiasX();
+            m_offsetY = m_biasEstimator.getBiasY();
+            m_isCalibrated = true;
 
-        m_calibrationCount++;
+            if (m_fixedPipeline != null) {
+                m_fixedPipeline.init(m_offsetX, m_offsetY, m_xAccelSample, m_yAccelSample);
+            }
+        }
     }
 
     /**
@@ -157,8 +382,13 @@ public class InertialSensor {
      * @throws IOException
      */
     public void init() throws IOException {
-        m_kalmanFilter.init(new float[]{m_xAccelSample - m_offsetX, m_yAccelSample - m_offsetY}, 2);
-        m_lowpassFilter.init(new float[]{m_positionX[1], m_positionY[1]}, 2);
+        m_accelIn[0] = m_xAccelSample - m_offsetX;
+        m_accelIn[1] = m_yAccelSample - m_offsetY;
+        m_kalmanFilter.init(m_accelIn, 2);
+
+        m_positionIn[0] = m_positionX[1];
+        m_positionIn[1] = m_positionY[1];
+        m_lowpassFilter.init(m_positionIn, 2);
     }
 
     /**
@@ -172,39 +402,381 @@ public class InertialSensor {
      */
     public void update(float _dt) throws IOException {
 
+        if (m_sampler == null) {
+            if (getSensorValues()) {
+                record((int) (_dt * 1000000f + 0.5f));
+                processSample(_dt);
+            }
+            publishSnapshot();
+            return;
+        }
+
+        // drain the sampler in blocks, each sample carries its own time step;
+        // only the samples buffered on entry are processed, so the update
+        // returns even if the sampler refills the buffer faster than that
+        int remaining = m_sampler.available();
+        while (remaining > 0) {
+            int count = m_sampler.drain(m_blockTicks, m_blockX, m_blockY, m_blockZ, Math.min(remaining, SAMPLER_BLOCK_SIZE));
+            remaining -= count;
+
+            for (int i = 0; i < count; i++) {
+                int ticks = (m_lastTick < 0) ? 1 : m_blockTicks[i] - m_lastTick;
+                m_lastTick = m_blockTicks[i];
+
+                m_xAccelRaw = m_blockX[i];
+                m_yAccelRaw = m_blockY[i];
+                m_zAccelRaw = m_blockZ[i];
+                int dtMicros = ticks * m_sampler.getPeriodMicros();
+                record(dtMicros);
+                processSample(dtMicros * 0.000001f);
+            }
+        }
+        publishSnapshot();
+    }
+
+    /**
+     * @brief Processes the next sample of the source using its time stamp.
+     *
+     * The time step is derived from the time stamps of the source instead of
+     * being passed in, so a recorded trace is processed with its recorded
+     * timing as fast as it can be read. The time step of the first sample is
+     * measured from the time stamp the source reports before it, i.e. the
+     * recording start of a trace. A trace recorded by the sensor
+     * (@see setTraceRecorder) is thereby integrated with the same time steps
+     * as on the device.
+     *
+     * @return <code>true</code> if a sample has been processed,
+     * <code>false</code> if the source is exhausted.
+     * @throws IOException If the source cannot be read.
+     */
+    public boolean updateFromSource() throws IOException {
+        if (m_lastSourceTime < 0) {
+            m_lastSourceTime = m_source.getTimeMicros();
+        }
+
+        if (!getSensorValues()) {
+            return false;
+        }
+
+        long time = m_source.getTimeMicros();
+        float dt = (time - m_lastSourceTime) * 0.000001f;
+        m_lastSourceTime = time;
+
+        processSample(dt);
+        publishSnapshot();
+        return true;
+    }
+
+    /**
+     * @brief Publishes the current state for other threads.
+     *
+     * The version is odd while the snapshot is written, so a reader that
+     * sees an odd or changed version knows its copy may be torn. The writer
+     * never waits for readers.
+     */
+    private void publishSnapshot() {
+        int version = m_snapshotVersion + 1;
+        m_snapshotVersion = version;
+
+        SensorSnapshot s = m_snapshot;
+        if (m_fixedPipeline != null) {
+            s.m_accelerationX = m_fixedPipeline.getAccelerationX();
+            s.m_accelerationY = m_fixedPipeline.getAccelerationY();
+            s.m_velocityX = m_fixedPipeline.getVelocityX();
+            s.m_velocityY = m_fixedPipeline.getVelocityY();
+            s.m_positionX = m_fixedPipeline.getPositionX();
+            s.m_positionY = m_fixedPipeline.getPositionY();
+        } else {
+            s.m_accelerationX = m_accelerationX[1];
+            s.m_accelerationY = m_accelerationY[1];
+            s.m_velocityX = m_velocityX[1];
+            s.m_velocityY = m_velocityY[1];
+            s.m_positionX = m_positionX[1];
+            s.m_positionY = m_positionY[1];
+        }
+        s.m_distance = m_distance;
+        s.m_stationary = isStationary();
+
+        m_snapshotVersion = version + 1;
+    }
+
+    /**
+     * @brief Copies the state of the last update into the passed snapshot.
+     *
+     * This method may be called by any thread while the sensor is updated.
+     * It never blocks the updating thread: if an update is published during
+     * the copy, the copy is simply repeated.
+     *
+     * @param _snapshot The snapshot receiving the state, owned by the caller.
+     */
+    public void getSnapshot(SensorSnapshot _snapshot) {
+        while (true) {
+            int version = m_snapshotVersion;
+
+            if ((version & 1) == 0) {
+                _snapshot.copyFrom(m_snapshot);
+
+                if (m_snapshotVersion == version) {
+                    _snapshot.m_update = version >>> 1;
+                    return;
+                }
+            }
+
+            // let the writer finish the update it has been interrupted in
+            Thread.yield();
+        }
+    }
+
+    /**
+     * @brief Uses a background sampler instead of reading the accelerometer on update.
+     *
+     * Once a sampler is set, <code>update</code> processes all samples the
+     * sampler had buffered when the update started and the time step of each
+     * sample is derived from its tick number instead of the passed frame time.
+     *
+     * @param _sampler The sampler to drain, it has to be started by the caller.
+     */
+    public void useSampler(AccelerometerSampler _sampler) {
+        m_blockTicks = new int[SAMPLER_BLOCK_SIZE];
+        m_blockX = new float[SAMPLER_BLOCK_SIZE];
+        m_blockY = new float[SAMPLER_BLOCK_SIZE];
+        m_blockZ = new float[SAMPLER_BLOCK_SIZE];
+        m_lastTick = -1;
+        m_sampler = _sampler;
+    }
+
+    /**
+     * @brief Sets the filter used to correct the measured accelerations.
+     *
+     * The filter has to provide the filtered accelerations as corrected
+     * values, e.g. <code>KalmanFilter</code> (default) or
+     * <code>StateKalmanFilter</code>. It is initialized by <code>init</code>,
+     * so it has to be set before.
+     *
+     * @param _filter The acceleration filter of the float path.
+     */
+    public void setAccelerationFilter(IBufferedFilter _filter) {
+        m_kalmanFilter = _filter;
+    }
+
+    /**
+     * @brief Sets the filter used to smooth the integrated positions.
+     *
+     * The default is a <code>LowpassFilter</code>. It is initialized by
+     * <code>init</code>, so it has to be set before.
+     *
+     * @param _filter The position filter of the float path.
+     */
+    public void setPositionFilter(IBufferedFilter _filter) {
+        m_lowpassFilter = _filter;
+    }
+
+    /**
+     * @brief Sets the size of the discrimination window of the float path.
+     *
+     * Filtered accelerations within +/- the size are treated as zero.
+     *
+     * @param _size The size of the window in m/s^2.
+     */
+    public void setDiscriminationSize(float _size) {
+        m_discriminationSize = _size;
+    }
+
+    /**
+     * @brief Sets the movement end threshold of the float path.
+     *
+     * The velocity of an axis is reset after this number of consecutive
+     * samples without filtered acceleration on that axis.
+     *
+     * @param _samples The number of samples.
+     */
+    public void setSlowdownThreshold(float _samples) {
+        m_slowdownThreshold = _samples;
+    }
+
+    /**
+     * @brief Enables or disables the gravity compensation of the float path.
+     *
+     * If enabled, the accelerations are projected onto the horizontal plane
+     * before calibration and filtering, so a tilt of the SPOT does not leak
+     * gravity into the x- and y-axis. It has to be set before calibration.
+     *
+     * @param _enabled <code>true</code> to enable the compensation.
+     */
+    public void setGravityCompensation(boolean _enabled) {
+        m_gravityCompensator = _enabled ? new GravityCompensator() : null;
+
+        if (m_gravityCompensator != null && m_restoredCalibration != null) {
+            m_gravityCompensator.restore(m_restoredCalibration.getGravityX(),
+                    m_restoredCalibration.getGravityY(), m_restoredCalibration.getGravityZ());
+        }
+    }
+
+    /**
+     * @brief Sets the numerical integration method of the float path.
+     *
+     * Higher order methods hold the accuracy at lower sample rates, which
+     * saves CPU time and power. The fixed-point pipeline always uses the
+     * forward Euler method.
+     *
+     * @param _integrator The integrator to use.
+     */
+    public void setIntegrator(IIntegrator _integrator) {
+        _integrator.init(2);
+        m_integrator = _integrator;
+    }
+
+    /**
+     * @brief Sets the window every processed sample is aggregated in.
+     *
+     * @param _window The window, <code>null</code> disables the aggregation.
+     */
+    public void setTelemetryWindow(TelemetryWindow _window) {
+        m_telemetryWindow = _window;
+    }
+
+    /**
+     * @brief Records every processed sample to a trace.
+     *
+     * The samples are recorded by <code>update</code> as they are processed,
+     * on the thread calling it. With a sampler these are the averaged
+     * samples it published, stored with the time step derived from their
+     * tick numbers, so samples the sampler dropped and the single reads of
+     * the oversampling are not recorded and the sampler thread never waits
+     * for the trace. If writing fails, recording stops.
+     *
+     * @param _recorder The recorder, <code>null</code> stops recording.
+     */
+    public void setTraceRecorder(TraceRecorder _recorder) {
+        m_recorder = _recorder;
+    }
+
+    /**
+     * @brief Records the current raw sample if a recorder is set.
+     *
+     * @param _dtMicros The time step the sample is integrated with in microseconds.
+     */
+    private void record(int _dtMicros) {
+        if (m_recorder == null) {
+            return;
+        }
+
+        try {
+            m_recorder.record(_dtMicros, m_xAccelRaw, m_yAccelRaw, m_zAccelRaw);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            m_recorder = null;
+        }
+    }
+
+    /**
+     * @brief Runs a single sample through the deadreckoning system.
+     *
+     * @param _dt The time between the previous and the current sample in seconds.
+     */
+    private void processSample(float _dt) {
+
         m_frameLength = _dt;
+        m_sampleCount++;
 
         if (!m_isCalibrated) {
             calibrate(NO_CALIBRATION_SAMPLES);
+        } else if (m_fixedPipeline != null) {
+            m_fixedPipeline.update(m_xAccelRaw, m_yAccelRaw, m_zAccelRaw, (int) (_dt * 1000000f));
+            m_distance = m_fixedPipeline.getDistance();
         } else {
-            getSensorValues();
+            scaleSensorValues();
+            m_zeroVelocityDetector.update(m_xAccelSample, m_yAccelSample, m_zAccelSample);
+            compensateGravity(m_zeroVelocityDetector.isStationary());
+            updateBias(_dt);
             filterAcceleration(_dt);
             integrate(_dt);
             detectMovementEnd();
             filterPosition(_dt);
             calculateDistance();
         }
+
+        if (m_isCalibrated && m_telemetryWindow != null) {
+            aggregate(_dt);
+        }
+    }
+
+    /**
+     * @brief Adds the state of the processed sample to the telemetry window.
+     *
+     * @param _dt The time between the previous and the current sample in seconds.
+     */
+    private void aggregate(float _dt) {
+        if (m_fixedPipeline != null) {
+            m_telemetryWindow.add(TelemetrySummary.ACCELERATION_X, m_fixedPipeline.getAccelerationX());
+            m_telemetryWindow.add(TelemetrySummary.ACCELERATION_Y, m_fixedPipeline.getAccelerationY());
+            m_telemetryWindow.add(TelemetrySummary.VELOCITY_X, m_fixedPipeline.getVelocityX());
+            m_telemetryWindow.add(TelemetrySummary.VELOCITY_Y, m_fixedPipeline.getVelocityY());
+        } else {
+            m_telemetryWindow.add(TelemetrySummary.ACCELERATION_X, m_accelerationX[1]);
+            m_telemetryWindow.add(TelemetrySummary.ACCELERATION_Y, m_accelerationY[1]);
+            m_telemetryWindow.add(TelemetrySummary.VELOCITY_X, m_velocityX[1]);
+            m_telemetryWindow.add(TelemetrySummary.VELOCITY_Y, m_velocityY[1]);
+        }
+        m_telemetryWindow.add(TelemetrySummary.DISTANCE, m_distance);
+        m_telemetryWindow.addTime(_dt);
     }
 
     /**
      * @brief Provides the caller with the current m_distance.
      *
+     * Only the updating thread may rely on this value being consistent with
+     * the rest of the state, other threads use <code>getSnapshot</code>.
+     *
      * @return The overall measured m_distance in meters.
      */
     public float getDistance() {
         return m_distance;
     }
 
+    /**
+     * @brief Provides the caller with the current x-velocity.
+     *
+     * @return The x-velocity in m/s.
+     */
+    public float getVelocityX() {
+        return (m_fixedPipeline != null) ? m_fixedPipeline.getVelocityX() : m_velocityX[1];
+    }
+
+    /**
+     * @brief Provides the caller with the current y-velocity.
+     *
+     * @return The y-velocity in m/s.
+     */
+    public float getVelocityY() {
+        return (m_fixedPipeline != null) ? m_fixedPipeline.getVelocityY() : m_velocityY[1];
+    }
+
     /**
      * @brief Serializes the current sensor state to a string.
      *
      * Each value has to be seperated using pipes in order
-     * to be parsed back by the GUI.
+     * to be parsed back by the GUI. The state is only consistent if this
+     * method is called by the updating thread.
      *
      * @return A string containing a representation of the current sensor state.
      */
     public String currentStateToString() {
         String temp = "";
+
+        if (m_fixedPipeline != null) {
+            temp += m_fixedPipeline.getAccelerationX() + "|";
+            temp += m_fixedPipeline.getAccelerationY() + "|";
+            temp += m_fixedPipeline.getVelocityX() + "|";
+            temp += m_fixedPipeline.getVelocityY() + "|";
+            temp += m_fixedPipeline.getPositionDeltaX() + "|";
+            temp += m_fixedPipeline.getPositionDeltaY() + "|";
+            temp += m_distance + "|";
+            temp += m_frameLength + "|";
+            temp += m_fixedPipeline.filterStateToString();
+
+            return temp;
+        }
         
         temp += m_accelerationX[1] + "|";
         temp += m_accelerationY[1] + "|";
@@ -219,6 +791,44 @@ public class InertialSensor {
         return temp;
     }
 
+    /**
+     * @brief Writes the current sensor state into a telemetry frame.
+     *
+     * This is the allocation free counterpart of
+     * <code>currentStateToString</code>, all fields except the average
+     * distance, the distance rate and the sequence number are set.
+     *
+     * @param _frame The frame receiving the state.
+     */
+    public void writeTelemetry(TelemetryFrame _frame) {
+        if (m_fixedPipeline != null) {
+            _frame.set(TelemetryFrame.ACCELERATION_X, m_fixedPipeline.getAccelerationX());
+            _frame.set(TelemetryFrame.ACCELERATION_Y, m_fixedPipeline.getAccelerationY());
+            _frame.set(TelemetryFrame.VELOCITY_X, m_fixedPipeline.getVelocityX());
+            _frame.set(TelemetryFrame.VELOCITY_Y, m_fixedPipeline.getVelocityY());
+            _frame.set(TelemetryFrame.POSITION_DELTA_X, m_fixedPipeline.getPositionDeltaX());
+            _frame.set(TelemetryFrame.POSITION_DELTA_Y, m_fixedPipeline.getPositionDeltaY());
+            _frame.set(TelemetryFrame.FILTER_INPUT_X, m_fixedPipeline.getFilterInput(0));
+            _frame.set(TelemetryFrame.FILTER_INPUT_Y, m_fixedPipeline.getFilterInput(1));
+            _frame.set(TelemetryFrame.FILTER_OUTPUT_X, m_fixedPipeline.getFilterOutput(0));
+            _frame.set(TelemetryFrame.FILTER_OUTPUT_Y, m_fixedPipeline.getFilterOutput(1));
+        } else {
+            _frame.set(TelemetryFrame.ACCELERATION_X, m_accelerationX[1]);
+            _frame.set(TelemetryFrame.ACCELERATION_Y, m_accelerationY[1]);
+            _frame.set(TelemetryFrame.VELOCITY_X, m_velocityX[1]);
+            _frame.set(TelemetryFrame.VELOCITY_Y, m_velocityY[1]);
+            _frame.set(TelemetryFrame.POSITION_DELTA_X, m_positionX[1] - m_positionX[0]);
+            _frame.set(TelemetryFrame.POSITION_DELTA_Y, m_positionY[1] - m_positionY[0]);
+            _frame.set(TelemetryFrame.FILTER_INPUT_X, m_accelIn[0]);
+            _frame.set(TelemetryFrame.FILTER_INPUT_Y, m_accelIn[1]);
+            _frame.set(TelemetryFrame.FILTER_OUTPUT_X, m_accelOut[0]);
+            _frame.set(TelemetryFrame.FILTER_OUTPUT_Y, m_accelOut[1]);
+        }
+
+        _frame.set(TelemetryFrame.DISTANCE, m_distance);
+        _frame.set(TelemetryFrame.INTERVAL, m_frameLength);
+    }
+
     /**
      * @brief Updates the m_distance using position data.
      *
@@ -253,17 +863,16 @@ public class InertialSensor {
      * for stiff equations that have a larger h. In this case the Implicit Euler
      * Method could be used.
      *
+     * The forward Euler method is used by default, @see setIntegrator to
+     * select a higher order method.
+     *
      * @param _dt The difference between the current and the previous frame in seconds.
      */
     private void integrate(float _dt) {
 
-        // calculate new velocity
-        m_velocityX[1] = m_velocityX[0] + m_accelerationX[1] * _dt;
-        m_velocityY[1] = m_velocityY[0] + m_accelerationY[1] * _dt;
-
-        // calculate new position
-        m_positionX[1] = m_positionX[0] + m_velocityX[1] * _dt;
-        m_positionY[1] = m_positionY[0] + m_velocityY[1] * _dt;
+        // calculate new velocities and positions
+        m_integrator.integrate(0, m_accelerationX, m_velocityX, m_positionX, _dt);
+        m_integrator.integrate(1, m_accelerationY, m_velocityY, m_positionY, _dt);
 
         // store current values as previous values for next integral step
         m_accelerationX[0] = m_accelerationX[1];
@@ -276,16 +885,18 @@ public class InertialSensor {
      * @brief Filters the position using a lowpass filter.
      *
      * This method updates the lowpass filter and corrects the calculated positions.
+     * The filter is fed through preallocated buffers, so no memory is allocated.
      *
      * @param _dtx The time passed in seconds since the last update.
      */
     private void filterPosition(float _dtx) {
-        m_lowpassFilter.update(new float[]{m_positionX[1], m_positionY[1]}, _dtx);
- 
-        float[] tempPos = m_lowpassFilter.getCorrectedValues();
+        m_positionIn[0] = m_positionX[1];
+        m_positionIn[1] = m_positionY[1];
+
+        m_lowpassFilter.update(m_positionIn, m_positionOut, _dtx);
 
-        m_positionX[1] = tempPos[0];
-        m_positionY[1] = tempPos[1];
+        m_positionX[1] = m_positionOut[0];
+        m_positionY[1] = m_positionOut[1];
     }
 
     /**
@@ -301,31 +912,39 @@ public class InertialSensor {
      */
     private void filterAcceleration(float _dtx) {
 
-        m_kalmanFilter.update(new float[]{m_xAccelSample - m_offsetX, m_yAccelSample - m_offsetY}, _dtx);
+        m_accelIn[0] = m_xAccelSample - m_offsetX;
+        m_accelIn[1] = m_yAccelSample - m_offsetY;
 
-        float[] temp = m_kalmanFilter.getCorrectedValues();
+        m_kalmanFilter.update(m_accelIn, m_accelOut, _dtx);
 
-        m_accelerationX[1] = temp[0];
-        m_accelerationY[1] = temp[1];
+        m_accelerationX[1] = m_accelOut[0];
+        m_accelerationY[1] = m_accelOut[1];
 
         /*
          * Create discrimination window for very small accelerations which would
          * be very slow movements. Additionally, assume that this sensor is used
          * by human people who are moving around on their own feet.
          */
-        if ((m_accelerationX[1] <= DISCRIMINATION_SIZE) && (m_accelerationX[1] >= -DISCRIMINATION_SIZE)) {
+        if ((m_accelerationX[1] <= m_discriminationSize) && (m_accelerationX[1] >= -m_discriminationSize)) {
             m_accelerationX[1] = 0;
         }
 
-        if ((m_accelerationY[1] <= DISCRIMINATION_SIZE) && (m_accelerationY[1] >= -DISCRIMINATION_SIZE)) {
+        if ((m_accelerationY[1] <= m_discriminationSize) && (m_accelerationY[1] >= -m_discriminationSize)) {
             m_accelerationY[1] = 0;
         }
     }
 
     /**
      * @brief Detects movement ends and sets the velocity to zero.
+     *
+     * The velocity of both axes is clamped during stance phases reported by
+     * the zero velocity detector. Additionally, the velocity of an axis is
+     * reset after a number of consecutive samples without filtered
+     * acceleration on that axis.
      */
     private void detectMovementEnd() {
+        boolean stationary = m_zeroVelocityDetector.isStationary();
+
         if (m_accelerationX[1] == 0) {
             m_cntX++;
         } else {
@@ -333,9 +952,10 @@ public class InertialSensor {
         }
 
         // 25 is an estimated threshold which can be adopted
-        if (m_cntX >= SLOWDOWN_THRESHOLD) {
+        if (stationary || m_cntX >= m_slowdownThreshold) {
             m_velocityX[0] = 0;
-            m_velocityX[1] = 0;       
+            m_velocityX[1] = 0;
+            m_integrator.reset(0);
         }
 
         if (m_accelerationY[1] == 0) {
@@ -345,14 +965,106 @@ public class InertialSensor {
         }
 
         // 25 is an estimated threshold which can be adopted
-        if (m_cntY >= SLOWDOWN_THRESHOLD) {
+        if (stationary || m_cntY >= m_slowdownThreshold) {
             m_velocityY[0] = 0;
             m_velocityY[1] = 0;
+            m_integrator.reset(1);
+        }
+    }
+
+    /**
+     * @brief Provides the caller with the stance state.
+     *
+     * @return <code>true</code> if the sensor is currently detected stationary.
+     */
+    public boolean isStationary() {
+        return (m_fixedPipeline != null) ? m_fixedPipeline.isStationary() : m_zeroVelocityDetector.isStationary();
+    }
+
+    /**
+     * @brief Provides the caller with the deviation of the latest sample from the stance mean.
+     *
+     * @return The squared deviation of the acceleration in (m/s^2)^2.
+     */
+    public float getMotionDeviation() {
+        return (m_fixedPipeline != null) ? m_fixedPipeline.getNewestDeviation()
+                : m_zeroVelocityDetector.getNewestDeviation();
+    }
+
+    /**
+     * @brief Provides the caller with the number of processed samples.
+     *
+     * @return The number of samples, including the calibration samples.
+     */
+    public int getSampleCount() {
+        return m_sampleCount;
+    }
+
+    /**
+     * @brief Serializes the statistics of the drift corrections to a string.
+     *
+     * The string holds the samples the bias estimate is based on, the samples
+     * rejected by the bias estimator, the detected stance phases and the
+     * rotation refreshes of the gravity compensation.
+     *
+     * @return The statistics separated by '|'.
+     */
+    public String statisticsToString() {
+        int refreshes = (m_gravityCompensator != null) ? m_gravityCompensator.getRefreshCount() : 0;
+        int stances = (m_fixedPipeline != null) ? m_fixedPipeline.getStanceCount()
+                : m_zeroVelocityDetector.getStanceCount();
+
+        return m_biasEstimator.getSampleCount() + "|" + m_biasEstimator.getRejectedCount() + "|"
+                + stances + "|" + refreshes + "|";
+    }
+
+    /**
+     * @brief Gets the sensor values from the source.
+     *
+     * @return <code>true</code> if a sample has been read.
+     * @throws IOException
+     */
+    private boolean getSensorValues() throws IOException {
+        if (!m_source.read(m_raw)) {
+            return false;
         }
+
+        m_xAccelRaw = m_raw[0];
+        m_yAccelRaw = m_raw[1];
+        m_zAccelRaw = m_raw[2];
+        return true;
+    }
+
+    /**
+     * @brief Refines the offsets with the last sample during stance phases.
+     *
+     * @param _dt The time since the last sample in seconds.
+     */
+    private void updateBias(float _dt) {
+        if (m_zeroVelocityDetector.isStationary()
+                && m_biasEstimator.update(m_xAccelSample, m_yAccelSample, _dt)) {
+            m_offsetX = m_biasEstimator.getBiasX();
+            m_offsetY = m_biasEstimator.getBiasY();
+        }
+    }
+
+    /**
+     * @brief Replaces the last x- and y-accelerations by their horizontal components.
+     *
+     * @param _stationary <code>true</code> if the sensor is currently stationary.
+     */
+    private void compensateGravity(boolean _stationary) {
+        if (m_gravityCompensator == null) {
+            return;
+        }
+
+        m_gravityCompensator.update(m_xAccelSample, m_yAccelSample, m_zAccelSample, m_frameLength, _stationary);
+        m_xAccelSample = m_gravityCompensator.getHorizontalX();
+        m_yAccelSample = m_gravityCompensator.getHorizontalY();
     }
 
     /**
-     * @brief Gets the sensor values from the sensor.
+     * @brief Converts the last sensor values to m/s.
      *
      * Sensor values are provided in G. 1 G ~ 9.81m/s. These sensor values
      * are converted in m/s. However, it would also be possible to describe
@@ -362,12 +1074,10 @@ public class InertialSensor {
      * proportional to the mass of the object: for each kilogram of mass, the
      * Earth exerts a nominal force of ~ 9.81 newtons. Though, the precise value
      * varies depending on the location of measurement.
-     *
-     * @throws IOException
      */
-    private void getSensorValues() throws IOException {
-        m_xAccelSample = (float) m_accel.getAccelX() * EARTH_ACCELERATION;
-        m_yAccelSample = (float) m_accel.getAccelY() * EARTH_ACCELERATION;
-        m_zAccelSample = (float) m_accel.getAccelZ() * EARTH_ACCELERATION;
+    private void scaleSensorValues() {
+        m_xAccelSample = (float) m_xAccelRaw * EARTH_ACCELERATION;
+        m_yAccelSample = (float) m_yAccelRaw * EARTH_ACCELERATION;
+        m_zAccelSample = (float) m_zAccelRaw * EARTH_ACCELERATION;
     }
 }
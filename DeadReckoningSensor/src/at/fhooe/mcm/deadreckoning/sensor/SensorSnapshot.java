@@ -0,0 +1,146 @@
+package at.fhooe.mcm.deadreckoning.sensor;
+
+/**
+ * @class SensorSnapshot
+ * @brief This class holds a consistent copy of the state of an <code>InertialSensor</code>.
+ *
+ * The sensor publishes its state once per update into a snapshot guarded by
+ * a version counter (@see InertialSensor.getSnapshot). Threads other than
+ * the updating one, e.g. the threads of <code>DistanceSync</code>, copy it
+ * into their own snapshot instead of reading the fields of the sensor while
+ * they change. A snapshot can be reused for every copy, so reading does not
+ * allocate any memory.
+ *
+ * The fields are volatile, so the version check is also valid on a desktop
+ * VM that may reorder plain reads; on the Squawk VM this costs nothing.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 12.06.2010
+ * @version 1.0
+ */
+public class SensorSnapshot {
+
+    /** @brief The number of updates published before this state. */
+    volatile int m_update;
+
+    /** @brief The overall distance in meters. */
+    volatile float m_distance;
+
+    /** @brief The x-acceleration in m/s^2. */
+    volatile float m_accelerationX;
+
+    /** @brief The y-acceleration in m/s^2. */
+    volatile float m_accelerationY;
+
+    /** @brief The x-velocity in m/s. */
+    volatile float m_velocityX;
+
+    /** @brief The y-velocity in m/s. */
+    volatile float m_velocityY;
+
+    /** @brief The x-position in meters. */
+    volatile float m_positionX;
+
+    /** @brief The y-position in meters. */
+    volatile float m_positionY;
+
+    /** @brief <code>true</code> if the sensor was detected stationary. */
+    volatile boolean m_stationary;
+
+    /**
+     * @brief Copies the state of another snapshot.
+     *
+     * @param _other The snapshot to copy.
+     */
+    void copyFrom(SensorSnapshot _other) {
+        m_distance = _other.m_distance;
+        m_accelerationX = _other.m_accelerationX;
+        m_accelerationY = _other.m_accelerationY;
+        m_velocityX = _other.m_velocityX;
+        m_velocityY = _other.m_velocityY;
+        m_positionX = _other.m_positionX;
+        m_positionY = _other.m_positionY;
+        m_stationary = _other.m_stationary;
+    }
+
+    /**
+     * @brief Provides the caller with the number of updates before this state.
+     *
+     * @return The update count, it only wraps after 2^31 updates.
+     */
+    public int getUpdate() {
+        return m_update;
+    }
+
+    /**
+     * @brief Provides the caller with the distance.
+     *
+     * @return The overall measured distance in meters.
+     */
+    public float getDistance() {
+        return m_distance;
+    }
+
+    /**
+     * @brief Provides the caller with the x-acceleration.
+     *
+     * @return The filtered x-acceleration in m/s^2.
+     */
+    public float getAccelerationX() {
+        return m_accelerationX;
+    }
+
+    /**
+     * @brief Provides the caller with the y-acceleration.
+     *
+     * @return The filtered y-acceleration in m/s^2.
+     */
+    public float getAccelerationY() {
+        return m_accelerationY;
+    }
+
+    /**
+     * @brief Provides the caller with the x-velocity.
+     *
+     * @return The x-velocity in m/s.
+     */
+    public float getVelocityX() {
+        return m_velocityX;
+    }
+
+    /**
+     * @brief Provides the caller with the y-velocity.
+     *
+     * @return The y-velocity in m/s.
+     */
+    public float getVelocityY() {
+        return m_velocityY;
+    }
+
+    /**
+     * @brief Provides the caller with the x-position.
+     *
+     * @return The filtered x-position in meters.
+     */
+    public float getPositionX() {
+        return m_positionX;
+    }
+
+    /**
+     * @brief Provides the caller with the y-position.
+     *
+     * @return The filtered y-position in meters.
+     */
+    public float getPositionY() {
+        return m_positionY;
+    }
+
+    /**
+     * @brief Provides the caller with the stance state.
+     *
+     * @return <code>true</code> if the sensor was detected stationary.
+     */
+    public boolean isStationary() {
+        return m_stationary;
+    }
+}
@@ -0,0 +1,311 @@
+package at.fhooe.mcm.deadreckoning.sensor;
+
+/**
+ * @class ZeroVelocityDetector
+ * @brief This class detects stance phases for zero velocity updates (ZUPT).
+ *
+ * While the sensor does not move, the measured acceleration only consists of
+ * the earth gravity and the sensor noise. The detector keeps the mean and the
+ * variance of the acceleration over a sliding window of the last samples.
+ * The variance is the mean squared distance of the acceleration vectors from
+ * their mean, i.e. the sum of the variances of the three axes. Unlike the
+ * variance of the magnitude, it also reacts to horizontal accelerations which
+ * hardly change the magnitude of the gravity dominated vector. The mean
+ * magnitude has to match the gravity as well.
+ *
+ * Mean and variance are updated in constant time by adding the newest and
+ * removing the oldest sample from running sums. The sums are kept relative to
+ * a reference vector, which keeps them small and the variance precise in
+ * float arithmetic. Whenever the window has been cycled once, the reference
+ * is moved to the current mean and the sums are rebuilt from the window. This
+ * also keeps rounding errors from piling up and is still constant time per
+ * sample on average.
+ *
+ * The detector uses hysteresis: a stance phase starts when the variance drops
+ * below a lower threshold and only ends when it rises above a higher one, so
+ * the state does not toggle on noise around a single threshold.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 30.05.2010
+ * @version 1.0
+ */
+public class ZeroVelocityDetector {
+
+    /** @brief The default number of samples in the window, 0.16s at 100Hz. */
+    public static final int DEFAULT_WINDOW_SIZE = 16;
+
+    /** @brief The default variance in (m/s^2)^2 below which a stance phase starts. */
+    public static final float DEFAULT_ENTER_VARIANCE = 0.3f;
+
+    /** @brief The default variance in (m/s^2)^2 above which a stance phase ends. */
+    public static final float DEFAULT_EXIT_VARIANCE = 0.8f;
+
+    /** @brief The default maximum deviation of the mean magnitude from gravity in m/s^2. */
+    public static final float DEFAULT_GRAVITY_TOLERANCE = 1.0f;
+
+    /** @brief The earth gravity in m/s^2. */
+    private static final float EARTH_ACCELERATION = 9.812865328f;
+
+    /** @brief The x-accelerations in the window. */
+    private float[] m_windowX;
+
+    /** @brief The y-accelerations in the window. */
+    private float[] m_windowY;
+
+    /** @brief The z-accelerations in the window. */
+    private float[] m_windowZ;
+
+    /** @brief The index of the oldest sample in the window. */
+    private int m_next;
+
+    /** @brief The number of samples in the window. */
+    private int m_count;
+
+    /** @brief The x-component of the reference the running sums are relative to. */
+    private float m_refX;
+
+    /** @brief The y-component of the reference the running sums are relative to. */
+    private float m_refY;
+
+    /** @brief The z-component of the reference the running sums are relative to. */
+    private float m_refZ;
+
+    /** @brief The running sum of the x-accelerations relative to the reference. */
+    private float m_sumX;
+
+    /** @brief The running sum of the y-accelerations relative to the reference. */
+    private float m_sumY;
+
+    /** @brief The running sum of the z-accelerations relative to the reference. */
+    private float m_sumZ;
+
+    /** @brief The running sum of the squared distances from the reference. */
+    private float m_sumSq;
+
+    /** @brief The variance below which a stance phase starts. */
+    private float m_enterVariance;
+
+    /** @brief The variance above which a stance phase ends. */
+    private float m_exitVariance;
+
+    /** @brief The maximum deviation of the mean magnitude from gravity. */
+    private float m_gravityTolerance;
+
+    /** @brief A flag to indicate a stance phase. */
+    private boolean m_isStationary;
+
+    /** @brief The number of detected stance phases. */
+    private int m_stanceCount;
+
+    /**
+     * @brief Creates a new detector using the default parameters.
+     */
+    public ZeroVelocityDetector() {
+        this(DEFAULT_WINDOW_SIZE, DEFAULT_ENTER_VARIANCE, DEFAULT_EXIT_VARIANCE, DEFAULT_GRAVITY_TOLERANCE);
+    }
+
+    /**
+     * @brief Creates a new detector.
+     *
+     * @param _windowSize The number of samples in the window.
+     * @param _enterVariance The variance in (m/s^2)^2 below which a stance phase starts.
+     * @param _exitVariance The variance in (m/s^2)^2 above which a stance phase ends.
+     * @param _gravityTolerance The maximum deviation of the mean magnitude from gravity in m/s^2.
+     */
+    public ZeroVelocityDetector(int _windowSize, float _enterVariance, float _exitVariance, float _gravityTolerance) {
+        if (_windowSize < 2 || _enterVariance > _exitVariance) {
+            throw new IllegalArgumentException("Window needs two samples and enter variance must not exceed exit variance");
+        }
+
+        m_windowX = new float[_windowSize];
+        m_windowY = new float[_windowSize];
+        m_windowZ = new float[_windowSize];
+        m_enterVariance = _enterVariance;
+        m_exitVariance = _exitVariance;
+        m_gravityTolerance = _gravityTolerance;
+    }
+
+    /**
+     * @brief Adds a sample and updates the stance state.
+     *
+     * @param _x The x-acceleration in m/s^2.
+     * @param _y The y-acceleration in m/s^2.
+     * @param _z The z-acceleration in m/s^2.
+     * @return <code>true</code> if the sensor is stationary.
+     */
+    public boolean update(float _x, float _y, float _z) {
+        if (m_count == 0) {
+            m_refX = _x;
+            m_refY = _y;
+            m_refZ = _z;
+        }
+
+        if (m_count == m_windowX.length) {
+            remove(m_windowX[m_next] - m_refX, m_windowY[m_next] - m_refY, m_windowZ[m_next] - m_refZ);
+        } else {
+            m_count++;
+        }
+
+        m_windowX[m_next] = _x;
+        m_windowY[m_next] = _y;
+        m_windowZ[m_next] = _z;
+        add(_x - m_refX, _y - m_refY, _z - m_refZ);
+
+        if (++m_next == m_windowX.length) {
+            m_next = 0;
+            rebuildSums();
+        }
+
+        if (m_count < m_windowX.length) {
+            return m_isStationary;
+        }
+
+        float variance = getVariance();
+        float deviation = getMean() - EARTH_ACCELERATION;
+        boolean gravityOnly = (deviation <= m_gravityTolerance) && (deviation >= -m_gravityTolerance);
+
+        if (m_isStationary) {
+            if (variance > m_exitVariance || !gravityOnly) {
+                m_isStationary = false;
+            }
+        } else if (variance < m_enterVariance && gravityOnly) {
+            m_isStationary = true;
+            m_stanceCount++;
+        }
+
+        return m_isStationary;
+    }
+
+    /**
+     * @brief Adds a sample relative to the reference to the running sums.
+     *
+     * @param _dx The x-distance from the reference.
+     * @param _dy The y-distance from the reference.
+     * @param _dz The z-distance from the reference.
+     */
+    private void add(float _dx, float _dy, float _dz) {
+        m_sumX += _dx;
+        m_sumY += _dy;
+        m_sumZ += _dz;
+        m_sumSq += _dx * _dx + _dy * _dy + _dz * _dz;
+    }
+
+    /**
+     * @brief Removes a sample relative to the reference from the running sums.
+     *
+     * @param _dx The x-distance from the reference.
+     * @param _dy The y-distance from the reference.
+     * @param _dz The z-distance from the reference.
+     */
+    private void remove(float _dx, float _dy, float _dz) {
+        m_sumX -= _dx;
+        m_sumY -= _dy;
+        m_sumZ -= _dz;
+        m_sumSq -= _dx * _dx + _dy * _dy + _dz * _dz;
+    }
+
+    /**
+     * @brief Moves the reference to the current mean and recomputes the running sums.
+     */
+    private void rebuildSums() {
+        m_refX += m_sumX / m_count;
+        m_refY += m_sumY / m_count;
+        m_refZ += m_sumZ / m_count;
+
+        m_sumX = 0;
+        m_sumY = 0;
+        m_sumZ = 0;
+        m_sumSq = 0;
+
+        for (int i = 0; i < m_count; i++) {
+            add(m_windowX[i] - m_refX, m_windowY[i] - m_refY, m_windowZ[i] - m_refZ);
+        }
+    }
+
+    /**
+     * @brief Clears the window and leaves the stance phase.
+     */
+    public void reset() {
+        m_next = 0;
+        m_count = 0;
+        m_sumX = 0;
+        m_sumY = 0;
+        m_sumZ = 0;
+        m_sumSq = 0;
+        m_isStationary = false;
+    }
+
+    /**
+     * @brief Provides the caller with the stance state.
+     *
+     * @return <code>true</code> if the sensor is stationary.
+     */
+    public boolean isStationary() {
+        return m_isStationary;
+    }
+
+    /**
+     * @brief Provides the caller with the deviation of the newest sample from the window mean.
+     *
+     * Unlike the variance, this reacts to a single sample, so a motion onset
+     * is noticed even if the window spans a long time at a low sampling rate.
+     *
+     * @return The squared distance of the newest acceleration vector from the mean in (m/s^2)^2.
+     */
+    public float getNewestDeviation() {
+        if (m_count == 0) {
+            return 0;
+        }
+
+        int newest = ((m_next == 0) ? m_windowX.length : m_next) - 1;
+        float dx = m_windowX[newest] - m_refX - m_sumX / m_count;
+        float dy = m_windowY[newest] - m_refY - m_sumY / m_count;
+        float dz = m_windowZ[newest] - m_refZ - m_sumZ / m_count;
+
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * @brief Provides the caller with the magnitude of the mean acceleration in the window.
+     *
+     * @return The mean acceleration magnitude in m/s^2.
+     */
+    public float getMean() {
+        if (m_count == 0) {
+            return 0;
+        }
+
+        float x = m_refX + m_sumX / m_count;
+        float y = m_refY + m_sumY / m_count;
+        float z = m_refZ + m_sumZ / m_count;
+
+        return (float) Math.sqrt(x * x + y * y + z * z);
+    }
+
+    /**
+     * @brief Provides the caller with the variance of the acceleration in the window.
+     *
+     * @return The sum of the variances of all axes in (m/s^2)^2.
+     */
+    public float getVariance() {
+        if (m_count < 2) {
+            return 0;
+        }
+
+        float mx = m_sumX / m_count;
+        float my = m_sumY / m_count;
+        float mz = m_sumZ / m_count;
+        float variance = m_sumSq / m_count - (mx * mx + my * my + mz * mz);
+
+        return (variance < 0) ? 0 : variance;
+    }
+
+    /**
+     * @brief Provides the caller with the number of detected stance phases.
+     *
+     * @return The number of stance phases since the detector was created.
+     */
+    public int getStanceCount() {
+        return m_stanceCount;
+    }
+}
@@ -0,0 +1,249 @@
+package at.fhooe.mcm.deadreckoning.telemetry;
+
+/**
+ * @class TelemetryFrame
+ * @brief This class represents the sensor state sent to the host.
+ *
+ * The frame replaces the pipe separated text of
+ * <code>InertialSensor.currentStateToString</code> by a fixed binary layout
+ * of 35 bytes, big endian:
+ * <pre>
+ * offset size field
+ *      0    1 version
+ *      1    2 sequence number, unsigned
+ *      3   24 12 x int16: acceleration x/y, velocity x/y, position change x/y,
+ *             interval, filter input x/y, filter output x/y, distance rate
+ *     27    8 2 x int32: distance, average distance
+ * </pre>
+ * The values are stored as fixed-point numbers with the resolution given by
+ * <code>RESOLUTION</code>, which is at least as fine as the three decimals
+ * shown by the GUI. Values outside the range of a field are saturated.
+ *
+ * The distance rate is the smoothed speed along the walked path, the host
+ * uses it to extrapolate the distance between frames
+ * (@see TelemetryPredictor).
+ *
+ * Encoding and decoding work on caller provided arrays and do not allocate
+ * any memory, so a single frame and buffer can be reused for every update.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 09.06.2010
+ * @version 1.0
+ */
+public class TelemetryFrame {
+
+    /** @brief The version of the frame layout. */
+    public static final byte VERSION = 2;
+
+    /** @brief The size of an encoded frame in bytes. */
+    public static final int SIZE = 35;
+
+    /** @brief The x-acceleration in m/s^2. */
+    public static final int ACCELERATION_X = 0;
+
+    /** @brief The y-acceleration in m/s^2. */
+    public static final int ACCELERATION_Y = 1;
+
+    /** @brief The x-velocity in m/s. */
+    public static final int VELOCITY_X = 2;
+
+    /** @brief The y-velocity in m/s. */
+    public static final int VELOCITY_Y = 3;
+
+    /** @brief The x-position change of the last update in meters. */
+    public static final int POSITION_DELTA_X = 4;
+
+    /** @brief The y-position change of the last update in meters. */
+    public static final int POSITION_DELTA_Y = 5;
+
+    /** @brief The length of the last update interval in seconds. */
+    public static final int INTERVAL = 6;
+
+    /** @brief The x-acceleration fed into the acceleration filter in m/s^2. */
+    public static final int FILTER_INPUT_X = 7;
+
+    /** @brief The y-acceleration fed into the acceleration filter in m/s^2. */
+    public static final int FILTER_INPUT_Y = 8;
+
+    /** @brief The x-acceleration provided by the acceleration filter in m/s^2. */
+    public static final int FILTER_OUTPUT_X = 9;
+
+    /** @brief The y-acceleration provided by the acceleration filter in m/s^2. */
+    public static final int FILTER_OUTPUT_Y = 10;
+
+    /** @brief The smoothed rate at which the distance grows in m/s. */
+    public static final int DISTANCE_RATE = 11;
+
+    /** @brief The overall distance in meters. */
+    public static final int DISTANCE = 12;
+
+    /** @brief The average distance of the reference sensors in meters. */
+    public static final int DISTANCE_AVERAGE = 13;
+
+    /** @brief The number of values of a frame. */
+    public static final int FIELD_COUNT = 14;
+
+    /** @brief The number of values encoded as int16, they precede the int32 values. */
+    private static final int SHORT_FIELDS = 12;
+
+    /** @brief The offset of the first value. */
+    private static final int HEADER_SIZE = 3;
+
+    /** @brief The resolution of the fields in their units. */
+    public static final float[] RESOLUTION = {
+        0.001f, 0.001f, 0.001f, 0.001f, 0.0001f, 0.0001f, 0.0001f,
+        0.001f, 0.001f, 0.001f, 0.001f, 0.001f, 0.001f, 0.001f
+    };
+
+    /** @brief The values of the frame, indexed by field. */
+    private float[] m_values;
+
+    /** @brief The sequence number of the frame. */
+    private int m_sequence;
+
+    /**
+     * @brief Creates an empty frame.
+     */
+    public TelemetryFrame() {
+        m_values = new float[FIELD_COUNT];
+    }
+
+    /**
+     * @brief Sets a value.
+     *
+     * @param _field The field, e.g. <code>DISTANCE</code>.
+     * @param _value The value in the unit of the field.
+     */
+    public void set(int _field, float _value) {
+        m_values[_field] = _value;
+    }
+
+    /**
+     * @brief Provides the caller with a value.
+     *
+     * After decoding, the value is rounded to the resolution of the field.
+     *
+     * @param _field The field, e.g. <code>DISTANCE</code>.
+     * @return The value in the unit of the field.
+     */
+    public float get(int _field) {
+        return m_values[_field];
+    }
+
+    /**
+     * @brief Sets the sequence number.
+     *
+     * @param _sequence The sequence number, only the lower 16 bits are sent.
+     */
+    public void setSequence(int _sequence) {
+        m_sequence = _sequence & 0xFFFF;
+    }
+
+    /**
+     * @brief Provides the caller with the sequence number.
+     *
+     * @return The sequence number between 0 and 65535.
+     */
+    public int getSequence() {
+        return m_sequence;
+    }
+
+    /**
+     * @brief Encodes the frame.
+     *
+     * @param _buffer The buffer receiving the frame.
+     * @param _offset The offset of the frame within the buffer.
+     * @return The number of written bytes, always <code>SIZE</code>.
+     */
+    public int encode(byte[] _buffer, int _offset) {
+        int pos = _offset;
+
+        _buffer[pos++] = VERSION;
+        _buffer[pos++] = (byte) (m_sequence >> 8);
+        _buffer[pos++] = (byte) m_sequence;
+
+        for (int i = 0; i < SHORT_FIELDS; i++) {
+            int v = quantize(i);
+
+            // the interval is never negative, so it uses the full unsigned range
+            int min = (i == INTERVAL) ? 0 : Short.MIN_VALUE;
+            int max = (i == INTERVAL) ? 0xFFFF : Short.MAX_VALUE;
+
+            if (v > max) {
+                v = max;
+            } else if (v < min) {
+                v = min;
+            }
+
+            _buffer[pos++] = (byte) (v >> 8);
+            _buffer[pos++] = (byte) v;
+        }
+
+        for (int i = SHORT_FIELDS; i < FIELD_COUNT; i++) {
+            int v = quantize(i);
+
+            _buffer[pos++] = (byte) (v >> 24);
+            _buffer[pos++] = (byte) (v >> 16);
+            _buffer[pos++] = (byte) (v >> 8);
+            _buffer[pos++] = (byte) v;
+        }
+
+        return pos - _offset;
+    }
+
+    /**
+     * @brief Decodes a frame.
+     *
+     * The frame is left unchanged if the data is not a frame of this version.
+     *
+     * @param _buffer The buffer holding the frame.
+     * @param _offset The offset of the frame within the buffer.
+     * @param _length The number of available bytes.
+     * @return <code>true</code> if a frame has been decoded.
+     */
+    public boolean decode(byte[] _buffer, int _offset, int _length) {
+        if (_length < SIZE || _buffer[_offset] != VERSION) {
+            return false;
+        }
+
+        int pos = _offset + 1;
+        m_sequence = ((_buffer[pos] & 0xFF) << 8) | (_buffer[pos + 1] & 0xFF);
+        pos += 2;
+
+        for (int i = 0; i < SHORT_FIELDS; i++) {
+            int v = (_buffer[pos] << 8) | (_buffer[pos + 1] & 0xFF);
+            if (i == INTERVAL) {
+                v &= 0xFFFF;
+            }
+            m_values[i] = v * RESOLUTION[i];
+            pos += 2;
+        }
+
+        for (int i = SHORT_FIELDS; i < FIELD_COUNT; i++) {
+            int v = (_buffer[pos] << 24) | ((_buffer[pos + 1] & 0xFF) << 16)
+                    | ((_buffer[pos + 2] & 0xFF) << 8) | (_buffer[pos + 3] & 0xFF);
+            m_values[i] = v * RESOLUTION[i];
+            pos += 4;
+        }
+
+        return true;
+    }
+
+    /**
+     * @brief Converts a value to its fixed-point representation.
+     *
+     * @param _field The field.
+     * @return The value in units of the field resolution, rounded to the nearest integer.
+     */
+    private int quantize(int _field) {
+        float scaled = m_values[_field] / RESOLUTION[_field];
+
+        if (scaled >= Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        if (scaled <= Integer.MIN_VALUE) {
+            return Integer.MIN_VALUE;
+        }
+        return (int) Math.floor(scaled + 0.5f);
+    }
+}
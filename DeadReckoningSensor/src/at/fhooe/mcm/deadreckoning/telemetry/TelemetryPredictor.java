@@ -0,0 +1,99 @@
+package at.fhooe.mcm.deadreckoning.telemetry;
+
+/**
+ * @class TelemetryPredictor
+ * @brief This class extrapolates the distance of a sensor from its last telemetry frame.
+ *
+ * The distance is assumed to grow linearly with the distance rate of the
+ * frame. The sensor and the host use the same model: the sensor to decide
+ * when the host's prediction has become too inaccurate (@see TelemetryThrottle),
+ * the host to show a distance between two frames.
+ *
+ * Frames are identified by their sequence number. A frame slightly older than
+ * the last one is ignored, e.g. if it has been delayed on another route,
+ * while a large jump backwards is taken as a restart of the sensor. A
+ * rebooted sensor restarts its sequence at 0, which may lie within the
+ * reorder window of the last frame. A running sensor sends a frame at least
+ * every heartbeat interval (@see TelemetryThrottle), so after a longer gap
+ * the next frame is accepted whatever its sequence number.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 10.06.2010
+ * @version 1.0
+ */
+public class TelemetryPredictor {
+
+    /** @brief The number of sequence numbers behind the last frame which are treated as outdated. */
+    private static final int REORDER_WINDOW = 64;
+
+    /** @brief The time after the last frame in seconds after which any frame is accepted. */
+    private static final float RESTART_GAP = TelemetryThrottle.HEARTBEAT_INTERVAL;
+
+    /** @brief The distance of the reference frame in meters. */
+    private float m_distance;
+
+    /** @brief The distance rate of the reference frame in m/s. */
+    private float m_rate;
+
+    /** @brief The sequence number of the reference frame, -1 if none has been accepted. */
+    private int m_sequence;
+
+    /**
+     * @brief Creates a predictor without reference.
+     */
+    public TelemetryPredictor() {
+        m_sequence = -1;
+    }
+
+    /**
+     * @brief Sets the reference the prediction starts from.
+     *
+     * @param _distance The distance in meters.
+     * @param _rate The distance rate in m/s.
+     */
+    public void reset(float _distance, float _rate) {
+        m_distance = _distance;
+        m_rate = _rate;
+    }
+
+    /**
+     * @brief Uses a received frame as new reference.
+     *
+     * @param _frame The decoded frame.
+     * @param _elapsed The time passed since the reference in seconds.
+     * @return <code>false</code> if the frame is outdated and has been ignored.
+     */
+    public boolean update(TelemetryFrame _frame, float _elapsed) {
+        int sequence = _frame.getSequence();
+
+        if (m_sequence >= 0 && _elapsed <= RESTART_GAP) {
+            int delta = (sequence - m_sequence) & 0xFFFF;
+            if (delta == 0 || delta > 0xFFFF - REORDER_WINDOW) {
+                return false;
+            }
+        }
+
+        m_sequence = sequence;
+        reset(_frame.get(TelemetryFrame.DISTANCE), _frame.get(TelemetryFrame.DISTANCE_RATE));
+        return true;
+    }
+
+    /**
+     * @brief Predicts the distance.
+     *
+     * @param _elapsed The time passed since the reference in seconds.
+     * @return The predicted distance in meters.
+     */
+    public float predict(float _elapsed) {
+        return m_distance + m_rate * _elapsed;
+    }
+
+    /**
+     * @brief Provides the caller with the state of the predictor.
+     *
+     * @return <code>true</code> if a frame has been accepted as reference.
+     */
+    public boolean hasReference() {
+        return m_sequence >= 0;
+    }
+}
@@ -0,0 +1,303 @@
+package at.fhooe.mcm.deadreckoning.telemetry;
+
+/**
+ * @class TelemetrySummary
+ * @brief This class represents the statistics of the samples processed between two telemetry frames.
+ *
+ * A telemetry frame is a snapshot of a single sample, the summary describes
+ * every sample since the previous frame by its minimum, maximum, mean and
+ * standard deviation (@see TelemetryWindow). It is sent right behind the
+ * frame in the same package and has a fixed binary layout of 55 bytes, big
+ * endian:
+ * <pre>
+ * offset size field
+ *      0    1 type, 0x80 + version
+ *      1    2 sequence number of the frame it belongs to, unsigned
+ *      3    2 window length in milliseconds, unsigned
+ *      5    2 number of samples, unsigned
+ *      7   32 4 x 4 x int16: min, max, mean, standard deviation of
+ *             acceleration x/y and velocity x/y
+ *     39   16 4 x int32: min, max, mean, standard deviation of the distance
+ * </pre>
+ * The values have a resolution of 0.001 in their units and are saturated
+ * to the range of their field. The type byte has the high bit set, so a
+ * summary can not be mistaken for a frame.
+ *
+ * Encoding and decoding work on caller provided arrays and do not allocate
+ * any memory.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 11.06.2010
+ * @version 1.0
+ */
+public class TelemetrySummary {
+
+    /** @brief The type and version of the summary layout. */
+    public static final byte TYPE = (byte) 0x81;
+
+    /** @brief The size of an encoded summary in bytes. */
+    public static final int SIZE = 55;
+
+    /** @brief The x-acceleration in m/s^2. */
+    public static final int ACCELERATION_X = 0;
+
+    /** @brief The y-acceleration in m/s^2. */
+    public static final int ACCELERATION_Y = 1;
+
+    /** @brief The x-velocity in m/s. */
+    public static final int VELOCITY_X = 2;
+
+    /** @brief The y-velocity in m/s. */
+    public static final int VELOCITY_Y = 3;
+
+    /** @brief The overall distance in meters. */
+    public static final int DISTANCE = 4;
+
+    /** @brief The number of channels of a summary. */
+    public static final int CHANNEL_COUNT = 5;
+
+    /** @brief The smallest value of a channel. */
+    public static final int MIN = 0;
+
+    /** @brief The largest value of a channel. */
+    public static final int MAX = 1;
+
+    /** @brief The mean of a channel. */
+    public static final int MEAN = 2;
+
+    /** @brief The standard deviation of a channel. */
+    public static final int STANDARD_DEVIATION = 3;
+
+    /** @brief The number of statistics per channel. */
+    public static final int STAT_COUNT = 4;
+
+    /** @brief The number of channels encoded as int16, they precede the int32 channels. */
+    private static final int SHORT_CHANNELS = 4;
+
+    /** @brief The offset of the first value. */
+    private static final int HEADER_SIZE = 7;
+
+    /** @brief The resolution of all values in their units. */
+    private static final float RESOLUTION = 0.001f;
+
+    /** @brief The statistics, indexed by channel * STAT_COUNT + statistic. */
+    private float[] m_values;
+
+    /** @brief The sequence number of the frame the summary belongs to. */
+    private int m_sequence;
+
+    /** @brief The length of the window in seconds. */
+    private float m_duration;
+
+    /** @brief The number of samples in the window. */
+    private int m_count;
+
+    /**
+     * @brief Creates an empty summary.
+     */
+    public TelemetrySummary() {
+        m_values = new float[CHANNEL_COUNT * STAT_COUNT];
+    }
+
+    /**
+     * @brief Sets a statistic.
+     *
+     * @param _channel The channel, e.g. <code>ACCELERATION_X</code>.
+     * @param _stat The statistic, e.g. <code>MEAN</code>.
+     * @param _value The value in the unit of the channel.
+     */
+    public void set(int _channel, int _stat, float _value) {
+        m_values[_channel * STAT_COUNT + _stat] = _value;
+    }
+
+    /**
+     * @brief Provides the caller with a statistic.
+     *
+     * @param _channel The channel, e.g. <code>ACCELERATION_X</code>.
+     * @param _stat The statistic, e.g. <code>MEAN</code>.
+     * @return The value in the unit of the channel.
+     */
+    public float get(int _channel, int _stat) {
+        return m_values[_channel * STAT_COUNT + _stat];
+    }
+
+    /**
+     * @brief Sets the sequence number.
+     *
+     * @param _sequence The sequence number of the frame, only the lower 16 bits are sent.
+     */
+    public void setSequence(int _sequence) {
+        m_sequence = _sequence & 0xFFFF;
+    }
+
+    /**
+     * @brief Provides the caller with the sequence number.
+     *
+     * @return The sequence number between 0 and 65535.
+     */
+    public int getSequence() {
+        return m_sequence;
+    }
+
+    /**
+     * @brief Sets the window the statistics cover.
+     *
+     * @param _duration The length of the window in seconds.
+     * @param _count The number of samples in the window.
+     */
+    public void setWindow(float _duration, int _count) {
+        m_duration = _duration;
+        m_count = _count;
+    }
+
+    /**
+     * @brief Provides the caller with the length of the window.
+     *
+     * @return The length in seconds.
+     */
+    public float getDuration() {
+        return m_duration;
+    }
+
+    /**
+     * @brief Provides the caller with the number of samples in the window.
+     *
+     * @return The number of samples.
+     */
+    public int getCount() {
+        return m_count;
+    }
+
+    /**
+     * @brief Encodes the summary.
+     *
+     * @param _buffer The buffer receiving the summary.
+     * @param _offset The offset of the summary within the buffer.
+     * @return The number of written bytes, always <code>SIZE</code>.
+     */
+    public int encode(byte[] _buffer, int _offset) {
+        int pos = _offset;
+
+        _buffer[pos++] = TYPE;
+        pos = writeShort(_buffer, pos, m_sequence);
+        pos = writeShort(_buffer, pos, clamp(quantize(m_duration, 0.001f), 0, 0xFFFF));
+        pos = writeShort(_buffer, pos, clamp(m_count, 0, 0xFFFF));
+
+        int shortValues = SHORT_CHANNELS * STAT_COUNT;
+
+        for (int i = 0; i < shortValues; i++) {
+            pos = writeShort(_buffer, pos, clamp(quantize(m_values[i], RESOLUTION), Short.MIN_VALUE, Short.MAX_VALUE));
+        }
+
+        for (int i = shortValues; i < m_values.length; i++) {
+            int v = quantize(m_values[i], RESOLUTION);
+
+            _buffer[pos++] = (byte) (v >> 24);
+            _buffer[pos++] = (byte) (v >> 16);
+            _buffer[pos++] = (byte) (v >> 8);
+            _buffer[pos++] = (byte) v;
+        }
+
+        return pos - _offset;
+    }
+
+    /**
+     * @brief Decodes a summary.
+     *
+     * The summary is left unchanged if the data is not a summary of this version.
+     *
+     * @param _buffer The buffer holding the summary.
+     * @param _offset The offset of the summary within the buffer.
+     * @param _length The number of available bytes.
+     * @return <code>true</code> if a summary has been decoded.
+     */
+    public boolean decode(byte[] _buffer, int _offset, int _length) {
+        if (_length < SIZE || _buffer[_offset] != TYPE) {
+            return false;
+        }
+
+        m_sequence = readUnsignedShort(_buffer, _offset + 1);
+        m_duration = readUnsignedShort(_buffer, _offset + 3) * 0.001f;
+        m_count = readUnsignedShort(_buffer, _offset + 5);
+
+        int pos = _offset + HEADER_SIZE;
+
+        int shortValues = SHORT_CHANNELS * STAT_COUNT;
+
+        for (int i = 0; i < shortValues; i++) {
+            m_values[i] = ((_buffer[pos] << 8) | (_buffer[pos + 1] & 0xFF)) * RESOLUTION;
+            pos += 2;
+        }
+
+        for (int i = shortValues; i < m_values.length; i++) {
+            int v = (_buffer[pos] << 24) | ((_buffer[pos + 1] & 0xFF) << 16)
+                    | ((_buffer[pos + 2] & 0xFF) << 8) | (_buffer[pos + 3] & 0xFF);
+            m_values[i] = v * RESOLUTION;
+            pos += 4;
+        }
+
+        return true;
+    }
+
+    /**
+     * @brief Writes the lower 16 bits of a value.
+     *
+     * @param _buffer The buffer.
+     * @param _pos The position to write to.
+     * @param _value The value.
+     * @return The position behind the written bytes.
+     */
+    private static int writeShort(byte[] _buffer, int _pos, int _value) {
+        _buffer[_pos] = (byte) (_value >> 8);
+        _buffer[_pos + 1] = (byte) _value;
+        return _pos + 2;
+    }
+
+    /**
+     * @brief Reads an unsigned 16 bit value.
+     *
+     * @param _buffer The buffer.
+     * @param _pos The position to read from.
+     * @return The value between 0 and 65535.
+     */
+    private static int readUnsignedShort(byte[] _buffer, int _pos) {
+        return ((_buffer[_pos] & 0xFF) << 8) | (_buffer[_pos + 1] & 0xFF);
+    }
+
+    /**
+     * @brief Converts a value to its fixed-point representation.
+     *
+     * @param _value The value.
+     * @param _resolution The resolution of the representation.
+     * @return The value in units of the resolution, rounded to the nearest integer.
+     */
+    private static int quantize(float _value, float _resolution) {
+        float scaled = _value / _resolution;
+
+        if (scaled >= Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        if (scaled <= Integer.MIN_VALUE) {
+            return Integer.MIN_VALUE;
+        }
+        return (int) Math.floor(scaled + 0.5f);
+    }
+
+    /**
+     * @brief Limits a value to a range.
+     *
+     * @param _value The value.
+     * @param _min The lower limit.
+     * @param _max The upper limit.
+     * @return The saturated value.
+     */
+    private static int clamp(int _value, int _min, int _max) {
+        if (_value > _max) {
+            return _max;
+        }
+        if (_value < _min) {
+            return _min;
+        }
+        return _value;
+    }
+}
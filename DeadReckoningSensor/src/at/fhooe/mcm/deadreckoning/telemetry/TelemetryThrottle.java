@@ -0,0 +1,131 @@
+package at.fhooe.mcm.deadreckoning.telemetry;
+
+/**
+ * @class TelemetryThrottle
+ * @brief This class decides when a telemetry frame has to be sent.
+ *
+ * Instead of sending the state periodically, the sensor runs the same
+ * prediction as the host (@see TelemetryPredictor) from the last sent frame.
+ * A new frame is only due if the measured distance deviates from that
+ * prediction by more than the error bound, or if no frame has been sent for
+ * the heartbeat interval. A standing node therefore only sends heartbeats and
+ * a node walking at a steady pace only sends when its pace changes.
+ *
+ * The distance rate used for the prediction is smoothed with a first order
+ * lowpass, because the zero velocity updates reset the velocity at every
+ * step and the instantaneous speed is meaningless for extrapolation.
+ *
+ * The host predicts from the quantized frame values, which differ from the
+ * model by at most 0.001 m/s, i.e. less than 1cm within a heartbeat interval.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 10.06.2010
+ * @version 1.0
+ */
+public class TelemetryThrottle {
+
+    /** @brief The default maximum deviation of the host's prediction in meters. */
+    public static final float ERROR_BOUND = 0.25f;
+
+    /** @brief The default maximum time between two frames in seconds. */
+    public static final float HEARTBEAT_INTERVAL = 5f;
+
+    /** @brief The minimum time between two frames in seconds, limits the radio load. */
+    public static final float MIN_INTERVAL = 0.1f;
+
+    /** @brief The time constant of the distance rate smoothing in seconds, about two steps. */
+    private static final float RATE_TIME_CONSTANT = 1f;
+
+    /** @brief The prediction of the host. */
+    private TelemetryPredictor m_model;
+
+    /** @brief The maximum deviation of the prediction in meters. */
+    private float m_errorBound;
+
+    /** @brief The maximum time between two frames in seconds. */
+    private float m_heartbeat;
+
+    /** @brief The time since the last frame has been sent in seconds. */
+    private float m_elapsed;
+
+    /** @brief The smoothed distance rate in m/s. */
+    private float m_rate;
+
+    /** @brief The distance of the previous update in meters. */
+    private float m_lastDistance;
+
+    /** @brief <code>false</code> until the first frame has been sent. */
+    private boolean m_hasSent;
+
+    /**
+     * @brief Creates a throttle using the default error bound and heartbeat interval.
+     */
+    public TelemetryThrottle() {
+        this(ERROR_BOUND, HEARTBEAT_INTERVAL);
+    }
+
+    /**
+     * @brief Creates a throttle.
+     *
+     * @param _errorBound The maximum deviation of the host's prediction in meters.
+     * @param _heartbeat The maximum time between two frames in seconds.
+     */
+    public TelemetryThrottle(float _errorBound, float _heartbeat) {
+        if (_errorBound <= 0 || _heartbeat < MIN_INTERVAL) {
+            throw new IllegalArgumentException("Invalid error bound or heartbeat interval");
+        }
+        m_model = new TelemetryPredictor();
+        m_errorBound = _errorBound;
+        m_heartbeat = _heartbeat;
+    }
+
+    /**
+     * @brief Updates the model with the current distance.
+     *
+     * @param _dt The time since the previous update in seconds.
+     * @param _distance The measured distance in meters.
+     * @return <code>true</code> if a frame has to be sent.
+     */
+    public boolean update(float _dt, float _distance) {
+        if (_dt > 0) {
+            float rate = (_distance - m_lastDistance) / _dt;
+            m_rate += (rate - m_rate) * _dt / (RATE_TIME_CONSTANT + _dt);
+        }
+        m_lastDistance = _distance;
+        m_elapsed += _dt;
+
+        if (!m_hasSent) {
+            return true;
+        }
+        if (m_elapsed < MIN_INTERVAL) {
+            return false;
+        }
+        if (m_elapsed >= m_heartbeat) {
+            return true;
+        }
+
+        float error = _distance - m_model.predict(m_elapsed);
+        return error > m_errorBound || error < -m_errorBound;
+    }
+
+    /**
+     * @brief Notifies the throttle that a frame has been sent.
+     *
+     * @param _distance The distance of the frame in meters.
+     * @param _rate The distance rate of the frame in m/s.
+     */
+    public void sent(float _distance, float _rate) {
+        m_model.reset(_distance, _rate);
+        m_elapsed = 0;
+        m_hasSent = true;
+    }
+
+    /**
+     * @brief Provides the caller with the smoothed distance rate.
+     *
+     * @return The distance rate in m/s to be sent with the next frame.
+     */
+    public float getRate() {
+        return m_rate;
+    }
+}
@@ -0,0 +1,131 @@
+package at.fhooe.mcm.deadreckoning.telemetry;
+
+/**
+ * @class TelemetryWindow
+ * @brief This class aggregates the samples processed between two telemetry frames.
+ *
+ * For every channel of a <code>TelemetrySummary</code> the minimum, maximum,
+ * mean and variance are updated with each sample. The mean and variance use
+ * Welford's running algorithm, so each sample costs a constant number of
+ * operations, no sample has to be stored and no memory is allocated. The
+ * standard deviation, the only square root, is computed once per summary.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 11.06.2010
+ * @version 1.0
+ */
+public class TelemetryWindow {
+
+    /** @brief The number of samples per channel. */
+    private int[] m_count;
+
+    /** @brief The smallest value per channel. */
+    private float[] m_min;
+
+    /** @brief The largest value per channel. */
+    private float[] m_max;
+
+    /** @brief The running mean per channel. */
+    private float[] m_mean;
+
+    /** @brief The running sum of squared deviations from the mean per channel. */
+    private float[] m_m2;
+
+    /** @brief The length of the window in seconds. */
+    private float m_duration;
+
+    /**
+     * @brief Creates an empty window.
+     */
+    public TelemetryWindow() {
+        m_count = new int[TelemetrySummary.CHANNEL_COUNT];
+        m_min = new float[TelemetrySummary.CHANNEL_COUNT];
+        m_max = new float[TelemetrySummary.CHANNEL_COUNT];
+        m_mean = new float[TelemetrySummary.CHANNEL_COUNT];
+        m_m2 = new float[TelemetrySummary.CHANNEL_COUNT];
+    }
+
+    /**
+     * @brief Adds a sample to a channel.
+     *
+     * @param _channel The channel, e.g. <code>TelemetrySummary.ACCELERATION_X</code>.
+     * @param _value The value in the unit of the channel.
+     */
+    public void add(int _channel, float _value) {
+        int n = ++m_count[_channel];
+
+        if (n == 1) {
+            m_min[_channel] = _value;
+            m_max[_channel] = _value;
+            m_mean[_channel] = _value;
+            m_m2[_channel] = 0;
+            return;
+        }
+
+        if (_value < m_min[_channel]) {
+            m_min[_channel] = _value;
+        } else if (_value > m_max[_channel]) {
+            m_max[_channel] = _value;
+        }
+
+        float delta = _value - m_mean[_channel];
+        m_mean[_channel] += delta / n;
+        m_m2[_channel] += delta * (_value - m_mean[_channel]);
+    }
+
+    /**
+     * @brief Extends the window.
+     *
+     * @param _dt The time covered by the added samples in seconds.
+     */
+    public void addTime(float _dt) {
+        m_duration += _dt;
+    }
+
+    /**
+     * @brief Provides the caller with the variance of a channel.
+     *
+     * @param _channel The channel.
+     * @return The population variance, 0 if the channel has less than two samples.
+     */
+    public float getVariance(int _channel) {
+        int n = m_count[_channel];
+        return (n < 2) ? 0 : m_m2[_channel] / n;
+    }
+
+    /**
+     * @brief Writes the statistics of the window into a summary and starts a new window.
+     *
+     * @param _summary The summary receiving the statistics.
+     */
+    public void writeSummary(TelemetrySummary _summary) {
+        int count = 0;
+
+        for (int c = 0; c < TelemetrySummary.CHANNEL_COUNT; c++) {
+            _summary.set(c, TelemetrySummary.MIN, m_min[c]);
+            _summary.set(c, TelemetrySummary.MAX, m_max[c]);
+            _summary.set(c, TelemetrySummary.MEAN, m_mean[c]);
+            _summary.set(c, TelemetrySummary.STANDARD_DEVIATION, (float) Math.sqrt(getVariance(c)));
+
+            if (m_count[c] > count) {
+                count = m_count[c];
+            }
+        }
+        _summary.setWindow(m_duration, count);
+
+        reset();
+    }
+
+    /**
+     * @brief Starts a new window.
+     *
+     * The statistics of the previous window are kept until the first sample
+     * of a channel is added, so a summary of an empty window repeats them.
+     */
+    public void reset() {
+        for (int c = 0; c < TelemetrySummary.CHANNEL_COUNT; c++) {
+            m_count[c] = 0;
+        }
+        m_duration = 0;
+    }
+}
@@ -0,0 +1,114 @@
+package at.fhooe.mcm.deadreckoning.trace;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * @class TraceRecorder
+ * @brief This class writes the samples processed by the dead reckoning chain to a binary trace.
+ *
+ * A trace starts with a header consisting of the magic number, the format
+ * version and the time stamp of the recording start. Each sample is stored as
+ * the time step it has been integrated with and its raw accelerations:
+ *
+ * <code>header: magic(4) version(1) startMicros(8)</code>
+ * <code>sample: dtMicros(4) x(4) y(4) z(4)</code>
+ *
+ * All values are big endian, the accelerations are floats in G. A sample
+ * therefore takes 16 bytes, an hour at 100Hz about 5.8MB. A trace has no
+ * trailer, so a recording that is cut off is still readable up to the last
+ * complete sample.
+ *
+ * <code>InertialSensor</code> records the samples as it processes them,
+ * i.e. the averaged samples drained from the sampler with the time step
+ * derived from their tick numbers. Replaying a trace with
+ * <code>InertialSensor.updateFromSource</code> therefore integrates with
+ * exactly the same time steps as the device did. Recording and closing are
+ * synchronized, so the trace can be closed while the sensor is updated by
+ * another thread, later samples are ignored.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 04.06.2010
+ * @version 1.0
+ */
+public class TraceRecorder {
+
+    /** @brief The magic number of a trace, "DRTR". */
+    public static final int MAGIC = 0x44525452;
+
+    /** @brief The format version of a trace. */
+    public static final byte VERSION = 1;
+
+    /** @brief The size of the header in bytes. */
+    public static final int HEADER_SIZE = 13;
+
+    /** @brief The size of a sample in bytes. */
+    public static final int SAMPLE_SIZE = 16;
+
+    /** @brief The stream the trace is written to, <code>null</code> after closing. */
+    private DataOutputStream m_out;
+
+    /** @brief The number of recorded samples. */
+    private int m_count;
+
+    /**
+     * @brief Creates a recorder and writes the header.
+     *
+     * @param _out The stream the trace is written to.
+     * @param _startMicros The time stamp of the recording start in microseconds.
+     * @throws IOException
+     */
+    public TraceRecorder(OutputStream _out, long _startMicros) throws IOException {
+        m_out = new DataOutputStream(_out);
+        m_out.writeInt(MAGIC);
+        m_out.writeByte(VERSION);
+        m_out.writeLong(_startMicros);
+    }
+
+    /**
+     * @brief Appends a sample to the trace.
+     *
+     * @param _dtMicros The time step the sample has been integrated with in microseconds.
+     * @param _x The x-acceleration in G.
+     * @param _y The y-acceleration in G.
+     * @param _z The z-acceleration in G.
+     * @throws IOException
+     */
+    public synchronized void record(int _dtMicros, double _x, double _y, double _z) throws IOException {
+        if (m_out == null) {
+            return;
+        }
+
+        m_out.writeInt(_dtMicros);
+        m_out.writeFloat((float) _x);
+        m_out.writeFloat((float) _y);
+        m_out.writeFloat((float) _z);
+        m_count++;
+    }
+
+    /**
+     * @brief Provides the caller with the number of recorded samples.
+     *
+     * @return The number of samples written so far.
+     */
+    public synchronized int getCount() {
+        return m_count;
+    }
+
+    /**
+     * @brief Flushes and closes the trace.
+     *
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException {
+        if (m_out == null) {
+            return;
+        }
+
+        DataOutputStream out = m_out;
+        m_out = null;
+        out.flush();
+        out.close();
+    }
+}
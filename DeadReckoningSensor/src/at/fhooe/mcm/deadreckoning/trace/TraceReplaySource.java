@@ -0,0 +1,104 @@
+package at.fhooe.mcm.deadreckoning.trace;
+
+import at.fhooe.mcm.deadreckoning.sensor.ISensorSource;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @class TraceReplaySource
+ * @brief This class replays a trace written by <code>TraceRecorder</code>.
+ *
+ * The samples are provided as fast as they are read, the recorded time
+ * stamps act as virtual clock. The accelerations are stored as floats, so
+ * every replay of a trace feeds exactly the same values into the chain.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 04.06.2010
+ * @version 1.0
+ */
+public class TraceReplaySource implements ISensorSource {
+
+    /** @brief The stream the trace is read from. */
+    private DataInputStream m_in;
+
+    /** @brief The time stamp of the last read sample in microseconds. */
+    private long m_time;
+
+    /** @brief The number of read samples. */
+    private int m_count;
+
+    /**
+     * @brief Creates a replay source and reads the header.
+     *
+     * @param _in The stream the trace is read from.
+     * @throws IOException If the header is missing or invalid.
+     */
+    public TraceReplaySource(InputStream _in) throws IOException {
+        m_in = new DataInputStream(_in);
+
+        if (m_in.readInt() != TraceRecorder.MAGIC) {
+            throw new IOException("Invalid trace magic");
+        }
+
+        if (m_in.readByte() != TraceRecorder.VERSION) {
+            throw new IOException("Unsupported trace version");
+        }
+
+        m_time = m_in.readLong();
+    }
+
+    /**
+     * @brief Reads the next sample of the trace.
+     *
+     * @param _accel The array receiving the x-, y- and z-acceleration in G.
+     * @return <code>true</code> if a sample has been read, <code>false</code>
+     * at the end of the trace or after an incomplete last sample.
+     * @throws IOException If the trace cannot be read.
+     */
+    public boolean read(double[] _accel) throws IOException {
+        try {
+            int dt = m_in.readInt();
+            float x = m_in.readFloat();
+            float y = m_in.readFloat();
+            float z = m_in.readFloat();
+
+            m_time += dt;
+            _accel[0] = x;
+            _accel[1] = y;
+            _accel[2] = z;
+            m_count++;
+            return true;
+        } catch (EOFException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @brief Provides the caller with the time stamp of the last read sample.
+     *
+     * @return The recorded time stamp in microseconds.
+     */
+    public long getTimeMicros() {
+        return m_time;
+    }
+
+    /**
+     * @brief Provides the caller with the number of read samples.
+     *
+     * @return The number of samples read so far.
+     */
+    public int getCount() {
+        return m_count;
+    }
+
+    /**
+     * @brief Closes the trace.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        m_in.close();
+    }
+}
@@ -1,12 +1,22 @@
 package at.fhooe.mcm.dsr;
 
+import at.fhooe.mcm.dsr.packages.BinaryDataPkg;
+import at.fhooe.mcm.dsr.packages.ControlPkg;
 import at.fhooe.mcm.dsr.packages.DataPkg;
+import at.fhooe.mcm.dsr.packages.IPacket;
+import at.fhooe.mcm.dsr.packages.PacketHeader;
 import at.fhooe.mcm.dsr.packages.RREPPkg;
 import at.fhooe.mcm.dsr.packages.RREQPkg;
+import at.fhooe.mcm.dsr.packages.RelayPkg;
+import at.fhooe.mcm.dsr.packages.SourceRoute;
+import at.fhooe.mcm.dsr.util.Address;
 import at.fhooe.mcm.dsr.util.IITupel;
+import at.fhooe.mcm.dsr.util.RadiogramPool;
 import at.fhooe.mcm.dsr.util.RequestTable;
 import at.fhooe.mcm.dsr.util.RouteRecord;
 import at.fhooe.mcm.dsr.util.RouteTable;
+import at.fhooe.mcm.dsr.util.SendQueue;
+import at.fhooe.mcm.dsr.util.SendRequest;
 import com.sun.spot.io.j2me.radiogram.Radiogram;
 import com.sun.spot.io.j2me.radiogram.RadiogramConnection;
 import com.sun.spot.peripheral.NoRouteException;
@@ -14,8 +24,8 @@ import com.sun.spot.peripheral.radio.RadioFactory;
 import com.sun.spot.sensorboard.EDemoBoard;
 import com.sun.spot.sensorboard.peripheral.ITriColorLED;
 import com.sun.spot.sensorboard.peripheral.LEDColor;
-import com.sun.spot.sensorboard.peripheral.TriColorLED;
-import com.sun.spot.util.IEEEAddress;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.Vector;
 import javax.microedition.io.Connector;
@@ -27,7 +37,20 @@ import javax.microedition.io.Connector;
  * The only public funtion "sendData" is used to send data to any host in the
  * network. In order to perform dynamic soure routing, the client listens to any
  * connections on port 66 all the time. The received packets are inspected and
- * treated according to their type ([RREQ], [RREP] and [DATA].
+ * treated according to the type in their header ([RREQ], [RREP], [DATA] and
+ * [BDATA], @see PacketHeader).
+ *
+ * Data passed to "sendData" is queued (@see SendQueue) and sent by a single
+ * sender thread, so a burst of calls neither creates threads nor blocks the
+ * caller.
+ *
+ * All LEDs are driven by a single LED thread. Indicating an event only sets
+ * a pending flag of its LED, which the LED thread picks up within
+ * <code>LED_PERIOD</code>, so neither sending nor relaying creates threads.
+ *
+ * Routed packages that are not addressed to this node are relayed in place:
+ * only the next hop index of the received body is moved and the body is sent
+ * on without being decoded (@see SourceRoute).
  *
  * @author Florian Lettner, Lukas Bischof, Peter Riedl
  * @date 12.05.2010
@@ -56,8 +79,8 @@ public class DSRClient {
     /** @brief Color for indicating receiving data. */
     private static final LEDColor RECEIVE_DATA_COL = LEDColor.GREEN;
 
-    /** @brief The first 8 digits of all sunSPOTS could be used for reduction of packet overhead. */
-    private static final String ADDRESS_START = "0014.4F01.";
+    /** @brief Omits the first 8 digits shared by all sunSPOTS from the addresses of sent packages to reduce the packet overhead. */
+    private static final boolean COMPACT_ADDRESSES = true;
 
     /** @brief Base address of all connections indicating a radiogram connection. */
     private static final String BASE_ADDRESS = "radiogram://";
@@ -65,12 +88,18 @@ public class DSRClient {
     /** @brief The timeout after which the routing table is discarded and rebuilt. */
     private static final int DISCOVERY_TIMEOUT = 10000;
 
-    /** @brief The timeout after which the data are sent after a route request had to be performed. */
+    /** @brief The maximum time the data wait for a route after a route request had to be performed. */
     private static final int ROUTE_REQUEST_TIMEOUT = 500;
     
     /** @brief The time the according LED is set on when something is indicated */
     private static final int BLINK_TIME = 500;
 
+    /** @brief The interval in which the LED thread updates the LEDs in milliseconds. */
+    private static final int LED_PERIOD = 100;
+
+    /** @brief The half period of the LED indicating the running program, 1Hz. */
+    private static final int RUNNING_BLINK_TIME = 500;
+
     /**@brief The index of the LED indicating sending data. */
     private static final int SEND_DATA_LED = 0;
 
@@ -92,6 +121,9 @@ public class DSRClient {
     /** @brief The index of the LED indicating receiving DATA. */
     private static final int RECEIVE_DATA_LED = 6;
 
+    /** @brief The index of the LED indicating the running program. */
+    private static final int RUNNING_LED = 7;
+
     /**@brief The port of all connections. */
     private static final int CONNECTION_PORT = 66;
 
@@ -106,7 +138,19 @@ public class DSRClient {
 
     /**@brief An array containing all available LEDs. */
     private ITriColorLED m_leds[] = EDemoBoard.getInstance().getLEDs();
+
+    /** @brief The pending blink of every LED, set by any thread and cleared by the LED thread. */
+    private boolean[] m_blinkPending = new boolean[RUNNING_LED];
+
+    /** @brief The color of the pending blink of every LED. */
+    private LEDColor[] m_blinkColors = new LEDColor[RUNNING_LED];
+
+    /** @brief The time every LED is turned off in milliseconds, 0 if it is off. Only used by the LED thread. */
+    private long[] m_blinkOff = new long[RUNNING_LED];
     
+    /** @brief The own address, retrieved from the radio on first use. */
+    private long m_ownAddress = Address.NONE;
+
     /** @brief The ID of the last generated [RREQ] package. */
     private int m_lastRRQID = 0;
 
@@ -125,14 +169,44 @@ public class DSRClient {
     /**@brief Blinking is stopped when this variable is set to <code>false</code>. */
     private boolean m_execBlink = true;
 
+    /** @brief Reusable buffer receiving the data of [BDATA] packages, the maximum payload of a radiogram. */
+    private byte[] m_binaryBuffer = new byte[1260];
+
+    /** @brief Reusable buffer receiving the body of routed packages, the maximum payload of a radiogram. */
+    private byte[] m_packetBuffer = new byte[1260];
+
+    /** @brief Input decoding the packages in the packet buffer, <code>reset</code> rewinds it to the start of the buffer. */
+    private DataInputStream m_packetInput = new DataInputStream(new ByteArrayInputStream(m_packetBuffer));
+
+    /** @brief Reusable package sending the relayed bodies. */
+    private RelayPkg m_relayPkg = new RelayPkg();
+
+    /** @brief The data waiting to be sent by the sender thread, old telemetry is dropped in favour of new one. */
+    private SendQueue m_sendQueue = new SendQueue(SendQueue.DEFAULT_CAPACITY, SendQueue.DROP_OLDEST);
+
+    /** @brief The open connections used for sending, possibly shared with other senders. */
+    private RadiogramPool m_radiograms;
+
     /**
-     * @brief Starts all neccessary threads for the DSR client.
+     * @brief Starts all neccessary threads for the DSR client using its own connection pool.
      */
     public DSRClient() {
+        this(new RadiogramPool(RadiogramPool.DEFAULT_CAPACITY));
+    }
+
+    /**
+     * @brief Starts all neccessary threads for the DSR client.
+     *
+     * @param _radiograms The pool of connections used for sending, it may be
+     * shared with other senders, e.g. <code>DistanceSync</code>.
+     */
+    public DSRClient(RadiogramPool _radiograms) {
+        m_radiograms = _radiograms;
+
         new Thread() {
 
             public void run() {
-                indicateProgramRunning();
+                ledLoop();
             }
         }.start();
 
@@ -143,6 +217,13 @@ public class DSRClient {
             }
         }.start();
 
+        new Thread() {
+
+            public void run() {
+                sendLoop();
+            }
+        }.start();
+
         new Thread() {
 
             public void run() {
@@ -154,37 +235,133 @@ public class DSRClient {
     /**
      * @brief Sends data to de specified target.
      *
-     * If neccessary the route to the target address is discovered and afterwards
-     * the data are sent over the route.
+     * The data is queued and sent by the sender thread. If neccessary the
+     * route to the target address is discovered and afterwards the data are
+     * sent over the route. If the queue is full, the oldest queued data is
+     * dropped.
      *
      * @param _data The data to be sent.
      * @param _addr The address of the target.
      */
-    public synchronized void sendData(final String _data, final String _addr) {
+    public void sendData(final String _data, final String _addr) {
+        sendData(_data, Address.parse(_addr));
+    }
+
+    /**
+     * @brief Sends data to de specified target.
+     *
+     * @param _data The data to be sent.
+     * @param _addr The 64 bit address of the target.
+     */
+    public void sendData(final String _data, final long _addr) {
         indicateSendData();
-        new Thread() {
+        m_sendQueue.put(_data, _addr);
+    }
 
-            public void run() {
-                System.out.println("sending data");
-                if (!m_routeTable.contains(_addr)) {
-                    System.out.println("route was not in table");
-                    performRREQ(_addr);
-                    try {
-                        Thread.sleep(ROUTE_REQUEST_TIMEOUT);
-                    } catch (InterruptedException ex) {
-                        ex.printStackTrace();
-                    }
-                }
+    /**
+     * @brief Sends binary data to de specified target.
+     *
+     * The data is sent as [BDATA] package, so it is neither converted to text
+     * nor parsed by relays. The data is copied into the queue, so the caller
+     * may reuse the buffer immediately.
+     *
+     * @param _data The buffer holding the data to be sent.
+     * @param _length The number of bytes to send.
+     * @param _addr The address of the target.
+     */
+    public void sendData(byte[] _data, int _length, String _addr) {
+        sendData(_data, _length, Address.parse(_addr));
+    }
+
+    /**
+     * @brief Sends binary data to de specified target.
+     *
+     * @param _data The buffer holding the data to be sent.
+     * @param _length The number of bytes to send.
+     * @param _addr The 64 bit address of the target.
+     */
+    public void sendData(byte[] _data, int _length, long _addr) {
+        indicateSendData();
+        m_sendQueue.put(_data, _length, _addr);
+    }
+
+    /**
+     * @brief Provides the caller with the statistics of the send queue.
+     *
+     * @return The statistics, @see SendQueue.statisticsToString.
+     */
+    public String statisticsToString() {
+        return m_sendQueue.statisticsToString();
+    }
+
+    /**
+     * @brief Sends the queued data until the client is stopped.
+     *
+     * This is the only thread sending data, so the number of threads and
+     * the memory used for sending do not grow with the number of
+     * <code>sendData</code> calls.
+     */
+    private void sendLoop() {
+        SendRequest request = new SendRequest();
+
+        while ((request = m_sendQueue.take(request)) != null) {
+            sendRequest(request);
+            m_sendQueue.complete(request);
+        }
+    }
+
+    /**
+     * @brief Sends queued data to its target.
+     *
+     * @param _request The queued data.
+     */
+    private void sendRequest(SendRequest _request) {
+        long addr = _request.getTarget();
+
+        System.out.println("sending data");
+        if (!m_routeTable.contains(addr)) {
+            System.out.println("route was not in table");
+            performRREQ(addr);
+            waitForRoute(addr);
+        }
+
+        if (m_routeTable.contains(addr)) {
+            System.out.println("route is in table");
+            RouteRecord r = m_routeTable.getRouteToTarget(addr);
+            if (_request.getText() != null) {
+                DataPkg pkg = new DataPkg(r, _request.getText());
+                sendDataOverRoute(pkg, pkg.getNextHop());
+            } else {
+                BinaryDataPkg pkg = new BinaryDataPkg(r, _request.getBinary(), _request.getLength());
+                sendDataOverRoute(pkg, pkg.getNextHop());
+            }
+        } else {
+            System.out.println("route still not in table");
+        }
+    }
+
+    /**
+     * @brief Waits until a route to a target has been discovered.
+     *
+     * The wait ends as soon as a RREP is stored, at the latest after
+     * <code>ROUTE_REQUEST_TIMEOUT</code>.
+     *
+     * @param _target The target of the route.
+     */
+    private void waitForRoute(long _target) {
+        long deadline = System.currentTimeMillis() + ROUTE_REQUEST_TIMEOUT;
 
-                if (m_routeTable.contains(_addr)) {
-                    System.out.println("route is in table");
-                    RouteRecord r = m_routeTable.getRouteToTarget(_addr);
-                    sendDataOverRoute(new DataPkg(r, _data).toString(), r);
-                } else {
-                    System.out.println("route still not in table");
+        synchronized (m_routeTable) {
+            long left = deadline - System.currentTimeMillis();
+            while (!m_routeTable.contains(_target) && left > 0) {
+                try {
+                    m_routeTable.wait(left);
+                } catch (InterruptedException ex) {
+                    ex.printStackTrace();
                 }
+                left = deadline - System.currentTimeMillis();
             }
-        }.start();
+        }
     }
 
     /**
@@ -241,70 +418,129 @@ public class DSRClient {
      * @param _rrg The radiogram containing the message to parse.
      */
     private void processReceivedMessage(Radiogram _rrg) {
-        String msg = "";
         try {
-            msg = _rrg.readUTF();
+            int header = PacketHeader.read(_rrg);
+            int type = header & PacketHeader.TYPE_MASK;
+            boolean compact = (header & PacketHeader.COMPACT) != 0;
+            if (header == PacketHeader.UNKNOWN) {
+                System.out.println("package of unknown version ignored");
+            } else if (type == PacketHeader.PING) {
+                sendPingACK(BASE_ADDRESS + _rrg.getAddress() + ":" + CONNECTION_PORT);
+            } else if (type == PacketHeader.ACK) {
+                addClientInRange(_rrg.getAddress());
+            } else if (type == PacketHeader.RREQ) {
+                processRREQ(new RREQPkg(_rrg, compact));
+            } else if (SourceRoute.isRouted(type)) {
+                processRouted(_rrg, type, compact);
+            }
         } catch (IOException ex) {
             ex.printStackTrace();
         }
-        if (msg.equals("ping")) {
-            sendPingACK(BASE_ADDRESS + _rrg.getAddress() + ":" + CONNECTION_PORT);
-        } else if (msg.equals("ack")) {
-            addClientInRange(_rrg.getAddress());
-        } else if (msg.startsWith("[RREQ]")) {
-            System.out.println("[RREQ] discovered");
-            RREQPkg pkg = new RREQPkg(msg);
-            IITupel tupel = pkg.getIITupel();
-            if (m_reqTable.contains(tupel) || pkg.getRouteRecord().getInitiator().equals(getOwnAddress())) {
-                System.out.println("[RREQ] ignored");
-                return;
-            } else if (pkg.getTargetAddress().equals(getOwnAddress())) {
-                sendRREPTarget(pkg.getRouteRecord());
-                m_reqTable.addTupel(tupel);
-            } else if (m_routeTable.contains(pkg.getTargetAddress())) {
-                sendRREPRouteToTarget(pkg.getRouteRecord(), pkg.getTargetAddress());
-                m_reqTable.addTupel(tupel);
-            } else {
-                System.out.println("forwarding RREQ");
-                m_reqTable.addTupel(tupel);
-                forwardRREQ(pkg);
-            }
-            System.out.println("added tupel to list");
-        } else if (msg.startsWith("[RREP]")) {
-            RREPPkg pkg = new RREPPkg(msg);
-            if (pkg.getRouteRecord().getInitiator().equals(getOwnAddress())) {
-                indicateReceiveRREP();
-                m_routeTable.addRoute(pkg.getRouteRecord().getTarget(), pkg.getRouteRecord());
-                System.out.println("added route to table");
-            } else {
-                forwardRREP(pkg);
-                System.out.println("[RREP] forwarded");
-            }
-            System.out.println(msg);
-        } else if (msg.startsWith("[DATA]")) {
-            DataPkg pkg = new DataPkg(msg);
-            if (pkg.getRouteRecord().getTarget().equals(getOwnAddress())) {
-                indicateReceiveData();
-                System.out.println("###[DATA] received:" + msg.substring(msg.indexOf("]") + 1));
+    }
+
+    /**
+     * @brief Relays a received routed package or decodes it if it has reached its destination.
+     *
+     * @param _rrg The radiogram positioned behind the header.
+     * @param _type The type of the package.
+     * @param _compact <code>true</code> if the header has the <code>COMPACT</code> flag set.
+     * @throws IOException If the package cannot be read.
+     */
+    private void processRouted(Radiogram _rrg, int _type, boolean _compact) throws IOException {
+        int length = _rrg.getLength() - 1;
+        if (length > m_packetBuffer.length) {
+            System.out.println("package too long ignored");
+            return;
+        }
+        _rrg.readFully(m_packetBuffer, 0, length);
+
+        if (!SourceRoute.isNextHop(m_packetBuffer, length, _compact, getOwnAddress())) {
+            System.out.println("package for other node ignored");
+        } else if (!SourceRoute.isDestination(m_packetBuffer, _type)) {
+            relay(_type, _compact, length);
+        } else {
+            m_packetInput.reset();
+            if (_type == PacketHeader.RREP) {
+                processRREP(new RREPPkg(m_packetInput, _compact));
+            } else if (_type == PacketHeader.DATA) {
+                processData(new DataPkg(m_packetInput, _compact));
             } else {
-                forwardData(pkg);
-                System.out.println("[DATA] forwarded");
+                processData(new BinaryDataPkg(m_packetInput, _compact, m_binaryBuffer));
             }
         }
     }
 
     /**
-     * @brief Appends the own address to a newly creater RREP package and sends it over
-     * the reversed route to the initiator of the RREQ.
+     * @brief Answers, forwards or ignores a received RREQ.
+     *
+     * @param _pkg The received package.
+     */
+    private void processRREQ(RREQPkg _pkg) {
+        System.out.println("[RREQ] discovered");
+        IITupel tupel = _pkg.getIITupel();
+        if (m_reqTable.contains(tupel) || _pkg.getRouteRecord().getInitiator() == getOwnAddress()) {
+            System.out.println("[RREQ] ignored");
+            return;
+        } else if (_pkg.getTargetAddress() == getOwnAddress()) {
+            sendRREPTarget(_pkg.getRouteRecord());
+            m_reqTable.addTupel(tupel);
+        } else if (m_routeTable.contains(_pkg.getTargetAddress())) {
+            sendRREPRouteToTarget(_pkg.getRouteRecord(), _pkg.getTargetAddress());
+            m_reqTable.addTupel(tupel);
+        } else {
+            System.out.println("forwarding RREQ");
+            m_reqTable.addTupel(tupel);
+            forwardRREQ(_pkg);
+        }
+        System.out.println("added tupel to list");
+    }
+
+    /**
+     * @brief Stores the route of a RREP that has reached its initiator.
+     *
+     * @param _pkg The received package.
+     */
+    private void processRREP(RREPPkg _pkg) {
+        indicateReceiveRREP();
+        synchronized (m_routeTable) {
+            m_routeTable.addRoute(_pkg.getRouteRecord().getTarget(), _pkg.getRouteRecord());
+            m_routeTable.notifyAll();
+        }
+        System.out.println("added route to table");
+        System.out.println(_pkg);
+    }
+
+    /**
+     * @brief Receives DATA that has reached its target.
+     *
+     * @param _pkg The received package.
+     */
+    private void processData(DataPkg _pkg) {
+        indicateReceiveData();
+        System.out.println("###[DATA] received:" + _pkg.getRouteRecord() + ";" + _pkg.getData());
+    }
+
+    /**
+     * @brief Receives binary DATA that has reached its target.
+     *
+     * @param _pkg The received package.
+     */
+    private void processData(BinaryDataPkg _pkg) {
+        indicateReceiveData();
+        System.out.println("###[BDATA] received:" + _pkg.getLength() + " bytes");
+    }
+
+    /**
+     * @brief Appends the own address to a newly creater RREP package and sends it back
+     * along the route to the initiator of the RREQ.
      *
      * @param _rr The RouteRecord contained in the RREQ.
      */
     private void sendRREPTarget(RouteRecord _rr) {
         System.out.println("sending RREP target");
         _rr.addNodeAddr(getOwnAddress());
-        RouteRecord r = new RouteRecord(_rr.toString());
-
-        sendDataOverRoute(new RREPPkg(_rr).toString(), r.reverse());
+        RREPPkg pkg = new RREPPkg(_rr, _rr.size() - 2);
+        sendDataOverRoute(pkg, pkg.getNextHop());
     }
 
     /**
@@ -314,24 +550,21 @@ public class DSRClient {
      * @param _rr The RouteRecord contained in the RREQ.
      * @param _target The target of the RREQ.
      */
-    private void sendRREPRouteToTarget(RouteRecord _rr, String _target) {
+    private void sendRREPRouteToTarget(RouteRecord _rr, long _target) {
         System.out.println("sending RREP route to target");
         RouteRecord r = _rr.concat(m_routeTable.getRouteToTarget(_target));
-        _rr.addNodeAddr(getOwnAddress());
-        sendDataOverRoute(new RREPPkg(r).toString(), _rr.reverse());
+        RREPPkg pkg = new RREPPkg(r, _rr.size() - 1);
+        sendDataOverRoute(pkg, pkg.getNextHop());
     }
 
     /**
-     * @brief Extracts the next hop from the passed RouteRecord.
+     * @brief Sends a routed package to its next hop.
      *
-     * The RouteRecord is sent the provided address.
-     *
-     * @param _data The data to be sent.
-     * @param _rr The RouteRecord containing the next hop.
+     * @param _pkg The package to be sent.
+     * @param _addr The address of the next hop.
      */
-    private void sendDataOverRoute(String _data, RouteRecord _rr) {
-        String addr = _rr.getNextHop(getOwnAddress());
-        sendDataToTarget(_data, BASE_ADDRESS + addr + ":" + CONNECTION_PORT);
+    private void sendDataOverRoute(IPacket _pkg, long _addr) {
+        sendRadiogram(_pkg, null, _addr);
     }
 
     /**
@@ -339,14 +572,14 @@ public class DSRClient {
      * @param _addr The address of the sender of the ping.
      */
     private void sendPingACK(String _addr) {
-        sendDataToTarget("ack", _addr);
+        sendRadiogram(ControlPkg.ACK, _addr);
     }
 
     /**
      * @brief Sends a ping over the broadcast address.
      */
     private void broadcastPing() {
-        sendBroadcast("ping");
+        sendBroadcast(ControlPkg.PING);
     }
 
     /**
@@ -356,12 +589,12 @@ public class DSRClient {
      * moment the only entry in the RouteRecord.
      * @param _target the intended target of the RREQ.
      */
-    private void performRREQ(String _target) {
+    private void performRREQ(long _target) {
         indicateCreateRREQ();
         RouteRecord r = new RouteRecord();
         r.addNodeAddr(getOwnAddress());
-        m_lastRRQID++;
-        sendBroadcast(new RREQPkg(getOwnAddress(), _target, r, m_lastRRQID).toString());
+        m_lastRRQID = (m_lastRRQID + 1) & RREQPkg.ID_MASK;
+        sendBroadcast(new RREQPkg(getOwnAddress(), _target, r, m_lastRRQID));
     }
 
     /**
@@ -372,104 +605,98 @@ public class DSRClient {
     private void forwardRREQ(RREQPkg _pkg) {
         indicateForwardRREQ();
         _pkg.getRouteRecord().addNodeAddr(getOwnAddress());
-        sendBroadcast(_pkg.toString());
+        sendBroadcast(_pkg);
     }
 
     /**
-     * @brief Forwards received DATA.
+     * @brief Forwards a received RREP or DATA held in the packet buffer.
      *
-     * @param _pkg The data to forward.
+     * The next hop index is moved in place and the body is sent on unchanged.
+     * The LED is only flagged for the LED thread and the connection to the
+     * next hop is looked up by its address, so relaying neither creates threads
+     * nor allocates anything once the connection is open.
+     *
+     * @param _type The type of the package.
+     * @param _compact <code>true</code> if the header has the <code>COMPACT</code> flag set.
+     * @param _length The length of the body.
      */
-    private void forwardData(DataPkg _pkg) {
-        indicateForwardData();
-        sendDataOverRoute(_pkg.toString(), _pkg.getRouteRecord());
+    private void relay(int _type, boolean _compact, int _length) {
+        if (_type == PacketHeader.RREP) {
+            indicateForwardRREP();
+        } else {
+            indicateForwardData();
+        }
+        long addr = SourceRoute.advance(m_packetBuffer, _type, _compact);
+        m_relayPkg.set(_type, _compact, m_packetBuffer, _length);
+        sendDataOverRoute(m_relayPkg, addr);
+        System.out.println("package forwarded");
     }
 
     /**
-     * @brief Forwards a reveived RREP.
+     * @brief Sends a package over the broadcast address.
      *
-     * @param _pkg The package to forward.
+     * @param _pkg The package to send.
      */
-    private void forwardRREP(RREPPkg _pkg) {
-        indicateForwardRREP();
-        sendDataOverRoute(_pkg.toString(), _pkg.getRouteRecord().reverse());
+    private void sendBroadcast(IPacket _pkg) {
+        sendRadiogram(_pkg, m_broadcastAddr);
     }
 
     /**
-     * @brief Sends data over the broadcast address.
+     * @brief Sends a radiogram to the passed address.
      *
-     * @param _msg The data to send.
+     * @param _pkg The package to be sent.
+     * @param _addr The address to send to.
      */
-    private void sendBroadcast(String _msg) {
-        sendDataToTarget(_msg, m_broadcastAddr);
+    private void sendRadiogram(final IPacket _pkg, final String _addr) {
+        sendRadiogram(_pkg, _addr, Address.NONE);
     }
 
     /**
-     * @brief Establishes a connection to the passed address and sends the data over it.
+     * @brief Sends a radiogram to the passed URL or node.
      *
-     * @param _msg The message to be sent.
-     * @param _addr The address to send to.
+     * The connection is taken from the pool and kept open for the following
+     * packages. Nodes are looked up by their address, so no URL is built for
+     * a node that is in the pool. A connection without route is closed by the
+     * pool and the routing table is discarded.
+     *
+     * @param _pkg The package to be sent.
+     * @param _url The URL to send to, <code>null</code> to send to the node.
+     * @param _addr The 64 bit address of the node, used if no URL is passed.
      */
-    private synchronized void sendDataToTarget(final String _msg, final String _addr) {
-
-        // new Thread()
-        {
-            //   public void run ()
-            {
-                RadiogramConnection txConn = null;
-                try {
-                    txConn = (RadiogramConnection) Connector.open(_addr);
-                    txConn.setMaxBroadcastHops(1);
-
-                    Radiogram tdg = (Radiogram) txConn.newDatagram(txConn.getMaximumLength());
-                    tdg.reset();
-                    tdg.writeUTF(_msg);
-                    txConn.send(tdg);
-                } catch (NoRouteException _nae) {
-                    m_routeTable.clear();
-                    System.out.println("routing table was cleared after no ack");
-                } catch (IOException _ioe) {
-                    System.out.println("send exception (IO):" + _ioe.getMessage());
-
-                    _ioe.printStackTrace();
-                } catch (Exception _e) {
-                    System.out.println("send exception:" + _e.getMessage());
-                } finally {
-                    try {
-                        if (txConn != null) {
-                            txConn.close();
-                        }
-                    } catch (IOException ex) {
-                        ex.printStackTrace();
-                    }
-                }
+    private void sendRadiogram(IPacket _pkg, String _url, long _addr) {
+        try {
+            synchronized (m_radiograms) {
+                Radiogram tdg = (_url != null) ? m_radiograms.getDatagram(_url)
+                        : m_radiograms.getDatagram(_addr, CONNECTION_PORT);
+                _pkg.writeTo(tdg, COMPACT_ADDRESSES);
+                m_radiograms.send(tdg);
             }
-        }//.start();
+        } catch (NoRouteException _nae) {
+            m_routeTable.clear();
+            System.out.println("routing table was cleared after no ack");
+        } catch (IOException _ioe) {
+            System.out.println("send exception (IO):" + _ioe.getMessage());
+
+            _ioe.printStackTrace();
+        } catch (Exception _e) {
+            System.out.println("send exception:" + _e.getMessage());
+        }
     }
 
     /**
      * @brief Activates the blink mode for a certain led.
      *
-     * Sets the passed color for the led at the passed index, turns it on, sleeps
-     * for the BLINK_TIME and turns it off again.
+     * Only marks the blink as pending, the LED thread sets the passed color
+     * for the led at the passed index, turns it on and turns it off again
+     * after BLINK_TIME. The flags are not synchronized, a blink that is
+     * picked up one period late or merged with the next one is harmless.
      *
      * @param _ledIdx the index of the LED to blink.
      * @param _col the color in which the LED should blink.
      */
-    private synchronized void blink(final int _ledIdx, final LEDColor _col) {
-        new Thread() {
-
-            public void run() {
-                m_leds[_ledIdx].setColor(_col);
-                m_leds[_ledIdx].setOn();
-                try {
-                    Thread.sleep(BLINK_TIME);
-                } catch (InterruptedException ex) {
-                    ex.printStackTrace();
-                }
-                m_leds[_ledIdx].setOff();
-            }
-        }.start();
+    private void blink(int _ledIdx, LEDColor _col) {
+        m_blinkColors[_ledIdx] = _col;
+        m_blinkPending[_ledIdx] = true;
     }
 
     /**
@@ -522,22 +749,39 @@ public class DSRClient {
     }
 
     /**
-     * @brief Lets the rightmost LED blink with a frequency of 1Hz.
+     * @brief Drives all LEDs until the client is stopped.
+     *
+     * Turns on the LEDs with a pending blink, turns them off after
+     * BLINK_TIME and lets the rightmost LED blink with a frequency of 1Hz to
+     * indicate the running program.
      */
-    private void indicateProgramRunning() {
-        EDemoBoard demoBoard = EDemoBoard.getInstance();
-        TriColorLED blinkLed = (TriColorLED) demoBoard.getLEDs()[7];
-        blinkLed.setColor(LEDColor.ORANGE);
+    private void ledLoop() {
+        ITriColorLED runningLed = m_leds[RUNNING_LED];
+        runningLed.setColor(LEDColor.ORANGE);
+
         while (m_execBlink) {
-            blinkLed.setOn();
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException ex) {
-                ex.printStackTrace();
+            long now = System.currentTimeMillis();
+
+            for (int i = 0; i < RUNNING_LED; i++) {
+                if (m_blinkPending[i]) {
+                    m_blinkPending[i] = false;
+                    m_leds[i].setColor(m_blinkColors[i]);
+                    m_leds[i].setOn();
+                    m_blinkOff[i] = now + BLINK_TIME;
+                } else if (m_blinkOff[i] != 0 && now >= m_blinkOff[i]) {
+                    m_leds[i].setOff();
+                    m_blinkOff[i] = 0;
+                }
+            }
+
+            if ((now / RUNNING_BLINK_TIME) % 2 == 0) {
+                runningLed.setOn();
+            } else {
+                runningLed.setOff();
             }
-            blinkLed.setOff();
+
             try {
-                Thread.sleep(500);
+                Thread.sleep(LED_PERIOD);
             } catch (InterruptedException ex) {
                 ex.printStackTrace();
             }
@@ -560,22 +804,27 @@ public class DSRClient {
 
     /**
      * @brief Retrieves the address of the sunSpot and returns it.
-     * 
-     * return The string representation of the own address.
+     *
+     * The address is retrieved from the radio once and cached.
+     *
+     * @return The 64 bit own address.
      */
-    private String getOwnAddress() {
-        String addr = IEEEAddress.toDottedHex(RadioFactory.getRadioPolicyManager().
-                getIEEEAddress());
-        return addr;
+    private long getOwnAddress() {
+        if (m_ownAddress == Address.NONE) {
+            m_ownAddress = RadioFactory.getRadioPolicyManager().getIEEEAddress();
+        }
+        return m_ownAddress;
     }
 
     /**
-     * @brief Stops all running threads.
+     * @brief Stops all running threads and closes the pooled connections.
      */
     public void stop() {
         m_execRCVLoop = false;
         m_execNodeDiscovery = false;
         m_execBlink = false;
+        m_sendQueue.close();
+        m_radiograms.closeAll();
     }
 
     /**
@@ -584,7 +833,7 @@ public class DSRClient {
      */
     private void testSendData() {
         while (true) {
-            sendData("geilo", ADDRESS_START + "0000.6EF0");
+            sendData("geilo", Address.PREFIX | 0x6EF0L);
             try {
                 Thread.sleep(5000);
             } catch (InterruptedException ex) {
@@ -0,0 +1,147 @@
+package at.fhooe.mcm.dsr.packages;
+
+import at.fhooe.mcm.dsr.util.RouteRecord;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * @class BinaryDataPkg
+ * @brief This class represents a data package with binary content used by DSR.
+ *
+ * Like a <code>DataPkg</code> it contains the route from initiator to
+ * target, but the data is a raw byte array instead of a string. The package
+ * is written as its header followed by the next hop index and the route, then the length of the
+ * data as unsigned short and the data itself. The data is therefore neither
+ * converted to text nor parsed by relays.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 09.06.2010
+ * @version 1.0
+ */
+public class BinaryDataPkg implements IPacket {
+
+    /** @brief The route from the initiator to the target of the data. */
+    private RouteRecord m_rec = new RouteRecord();
+
+    /** @brief The index of the hop the package is sent to, @see SourceRoute. */
+    private int m_next = 1;
+
+    /** @brief The buffer holding the data. */
+    private byte[] m_data;
+
+    /** @brief The number of valid bytes in the buffer. */
+    private int m_length;
+
+    /**
+     * @brief Instantiates a new binary data package with passed route and data.
+     *
+     * The package is sent by the first node of the route to the second one.
+     *
+     * @param _rr The route for the data.
+     * @param _data The buffer holding the data, it is not copied.
+     * @param _length The number of valid bytes in the buffer.
+     */
+    public BinaryDataPkg(RouteRecord _rr, byte[] _data, int _length) {
+        m_rec = _rr;
+        m_data = _data;
+        m_length = _length;
+    }
+
+    /**
+     * @brief Reads a binary data package whose header has already been read.
+     *
+     * @param _in The input the package is read from.
+     * @param _compact <code>true</code> if the header has the <code>COMPACT</code> flag set.
+     * @param _buffer A buffer to read the data into, a new one is allocated
+     * if it is <code>null</code> or too small.
+     * @throws IOException If the data cannot be read.
+     */
+    public BinaryDataPkg(DataInput _in, boolean _compact, byte[] _buffer) throws IOException {
+        m_next = _in.readUnsignedByte();
+        setRouteRecord(new RouteRecord(_in, _compact));
+
+        m_length = _in.readUnsignedShort();
+        m_data = (_buffer != null && _buffer.length >= m_length) ? _buffer : new byte[m_length];
+        _in.readFully(m_data, 0, m_length);
+    }
+
+    /**
+     * @brief Writes the package.
+     *
+     * @param _out The output the package is written to.
+     * @param _compact <code>true</code> to write the addresses in compact form if possible.
+     * @throws IOException If the package cannot be written.
+     */
+    public void writeTo(DataOutput _out, boolean _compact) throws IOException {
+        boolean compact = _compact && m_rec.hasPrefix();
+        PacketHeader.write(_out, PacketHeader.BDATA, compact);
+        _out.writeByte(m_next);
+        m_rec.writeTo(_out, compact);
+        _out.writeShort(m_length);
+        _out.write(m_data, 0, m_length);
+    }
+
+    /**
+     * @brief Creates a string representation of the package for logging.
+     *
+     * @return The string "[BDATA]" followed by the route and the length of the data.
+     */
+    public String toString() {
+        return "[BDATA]" + getRouteRecord().toString() + ";" + m_length;
+    }
+
+    /**
+     * @brief Provides the buffer holding the data.
+     *
+     * @return The buffer, only the first <code>getLength()</code> bytes are valid.
+     */
+    public byte[] getData() {
+        return m_data;
+    }
+
+    /**
+     * @brief Provides the length of the data.
+     *
+     * @return The number of valid bytes in the buffer.
+     */
+    public int getLength() {
+        return m_length;
+    }
+
+    /**
+     * @brief Provides the route to the data.
+     *
+     * @return The route to the data.
+     */
+    public RouteRecord getRouteRecord() {
+        return m_rec;
+    }
+
+    /**
+     * @brief Sets the passed RouteRecord as RouteRecord for the package.
+     *
+     * @param _rec The RouteRecord of the data.
+     */
+    public void setRouteRecord(RouteRecord _rec) {
+        this.m_rec = _rec;
+    }
+
+    /**
+     * @brief Provides the index of the hop the package is sent to.
+     *
+     * @return The index within the RouteRecord.
+     */
+    public int getNextIndex() {
+        return m_next;
+    }
+
+    /**
+     * @brief Provides the address of the hop the package is sent to.
+     *
+     * @return The address of the next hop.
+     */
+    public long getNextHop() {
+        return m_rec.getNodeAddr(m_next);
+    }
+}
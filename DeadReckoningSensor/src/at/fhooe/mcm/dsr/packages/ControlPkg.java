@@ -0,0 +1,56 @@
+package at.fhooe.mcm.dsr.packages;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * @class ControlPkg
+ * @brief This class represents a ping or an acknowledge used by DSR.
+ *
+ * Both packages consist of their header only, the sender is taken from the
+ * radiogram. As they carry no state, the two instances are shared.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 14.06.2010
+ * @version 1.0
+ */
+public class ControlPkg implements IPacket {
+
+    /** @brief The ping sent to discover the nodes in range. */
+    public static final ControlPkg PING = new ControlPkg(PacketHeader.PING);
+
+    /** @brief The acknowledge of a ping. */
+    public static final ControlPkg ACK = new ControlPkg(PacketHeader.ACK);
+
+    /** @brief The type of the package. */
+    private int m_type;
+
+    /**
+     * @brief Instantiates a new control package.
+     *
+     * @param _type The type of the package.
+     */
+    private ControlPkg(int _type) {
+        m_type = _type;
+    }
+
+    /**
+     * @brief Writes the header of the package.
+     *
+     * @param _out The output the package is written to.
+     * @param _compact Ignored, the package contains no address.
+     * @throws IOException If the package cannot be written.
+     */
+    public void writeTo(DataOutput _out, boolean _compact) throws IOException {
+        PacketHeader.write(_out, m_type, false);
+    }
+
+    /**
+     * @brief Provides a string representation of the package.
+     *
+     * @return "ping" or "ack".
+     */
+    public String toString() {
+        return (m_type == PacketHeader.PING) ? "ping" : "ack";
+    }
+}
@@ -0,0 +1,30 @@
+package at.fhooe.mcm.dsr.packages;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * @class IPacket
+ * @brief This interface is implemented by all packages sent by DSR.
+ *
+ * A package writes itself in the binary wire format, starting with its
+ * <code>PacketHeader</code>. It is read by the constructor of the package
+ * class taking a <code>DataInput</code> after the header has been read and
+ * dispatched on.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 14.06.2010
+ * @version 1.0
+ */
+public interface IPacket {
+
+    /**
+     * @brief Writes the package including its header.
+     *
+     * @param _out The output the package is written to.
+     * @param _compact <code>true</code> to write the addresses in compact form
+     * if all of them carry the common SunSPOT prefix.
+     * @throws IOException If the package cannot be written.
+     */
+    void writeTo(DataOutput _out, boolean _compact) throws IOException;
+}
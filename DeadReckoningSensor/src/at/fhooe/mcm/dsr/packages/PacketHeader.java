@@ -0,0 +1,103 @@
+package at.fhooe.mcm.dsr.packages;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * @class PacketHeader
+ * @brief This class defines the one byte header of all DSR packages.
+ *
+ * Every radiogram starts with a single byte holding the version of the wire
+ * format in the upper four bits, the <code>COMPACT</code> flag and the type
+ * of the package in the lower three bits, followed by the binary body of
+ * the package:
+ * <pre>
+ * type  body
+ * PING  -
+ * ACK   -
+ * RREQ  id (unsigned short), target, route
+ * RREP  next, route
+ * DATA  next, route, data (UTF)
+ * BDATA next, route, length (unsigned short), data
+ * </pre>
+ * A route is written as the number of hops (unsigned byte) followed by the
+ * address of every hop (@see RouteRecord.writeTo). An address is written
+ * with 8 bytes, or with 4 bytes if the <code>COMPACT</code> flag is set
+ * (@see Address). The next hop index (unsigned byte) in front of the route
+ * of the routed packages lets relays forward them without decoding
+ * (@see SourceRoute).
+ *
+ * Radiograms written by an older version start with a different version
+ * and are discarded instead of being misinterpreted. This includes the text
+ * format, whose length prefix starts with a 0 byte for every package, and
+ * version 1, which had no next hop index.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 14.06.2010
+ * @version 1.0
+ */
+public final class PacketHeader {
+
+    /** @brief The version of the wire format. */
+    public static final int VERSION = 2;
+
+    /** @brief A ping sent to discover the nodes in range. */
+    public static final int PING = 1;
+
+    /** @brief The acknowledge of a ping. */
+    public static final int ACK = 2;
+
+    /** @brief A route request. */
+    public static final int RREQ = 3;
+
+    /** @brief A route reply. */
+    public static final int RREP = 4;
+
+    /** @brief A data package with string content. */
+    public static final int DATA = 5;
+
+    /** @brief A data package with binary content. */
+    public static final int BDATA = 6;
+
+    /** @brief The flag set if all addresses of the package are written in compact form. */
+    public static final int COMPACT = 0x08;
+
+    /** @brief The mask selecting the type from the value returned by <code>read</code>. */
+    public static final int TYPE_MASK = 0x07;
+
+    /** @brief The value returned for a header of another version. */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * @brief Should not be instantiated.
+     */
+    private PacketHeader() {
+    }
+
+    /**
+     * @brief Writes the header of a package.
+     *
+     * @param _out The output the header is written to.
+     * @param _type The type of the package, e.g. <code>RREQ</code>.
+     * @param _compact <code>true</code> if the addresses are written in compact form.
+     * @throws IOException If the header cannot be written.
+     */
+    public static void write(DataOutput _out, int _type, boolean _compact) throws IOException {
+        _out.writeByte((VERSION << 4) | (_compact ? COMPACT : 0) | _type);
+    }
+
+    /**
+     * @brief Reads the header of a package.
+     *
+     * @param _in The input the header is read from.
+     * @return The type of the package combined with the <code>COMPACT</code>
+     * flag, or <code>UNKNOWN</code> if the package has been written by
+     * another version.
+     * @throws IOException If the header cannot be read.
+     */
+    public static int read(DataInput _in) throws IOException {
+        int header = _in.readUnsignedByte();
+        return ((header >> 4) == VERSION) ? (header & 0x0F) : UNKNOWN;
+    }
+}
@@ -6,7 +6,12 @@ import java.util.Vector;
  * @class RequestTable
  * @brief This class represents an RequestTable for storage of IITupels.
  *
- * Container for IItupels of several RREQs.
+ * Container for IItupels of several RREQs. A RREQ only floods the network
+ * for a few seconds, so a tupel is forgotten after <code>MAX_AGE</code>
+ * milliseconds. This keeps the table small and lets an initiator reuse an
+ * ID after its 16 bit counter has wrapped. If more than
+ * <code>MAX_SIZE</code> tupels arrive within that time, the oldest ones are
+ * forgotten early.
  *
  * @author Florian Lettner, Lukas Bischof, Peter Riedl
  * @date 14.05.2010
@@ -14,16 +19,33 @@ import java.util.Vector;
  */
 public class RequestTable {
 
-    /**@brief A vector storing the IITupels of several RREQs. */
+    /** @brief The time in milliseconds after which a tupel is forgotten. */
+    public static final long MAX_AGE = 30000;
+
+    /** @brief The maximum number of stored tupels. */
+    public static final int MAX_SIZE = 64;
+
+    /**@brief A vector storing the IITupels of several RREQs, oldest first. */
     private Vector m_requests = new Vector();
 
+    /** @brief The times the tupels have been added in milliseconds, as <code>Long</code>. */
+    private Vector m_times = new Vector();
+
     /**
      * @brief Adds the passed IITupel to the vector of IITupels.
      *
      * @param _tupel The IITupel to add.
      */
     public void addTupel(IITupel _tupel) {
+        long now = System.currentTimeMillis();
+
+        prune(now);
+        if (m_requests.size() >= MAX_SIZE) {
+            m_requests.removeElementAt(0);
+            m_times.removeElementAt(0);
+        }
         m_requests.addElement(_tupel);
+        m_times.addElement(new Long(now));
     }
 
     /**
@@ -34,6 +56,7 @@ public class RequestTable {
      * passed IITupel, <code>false</code> otherwise.
      */
     public boolean contains(IITupel _tupel) {
+        prune(System.currentTimeMillis());
         for (int i = 0; i < m_requests.size(); i++) {
             if (((IITupel) m_requests.elementAt(i)).equals(_tupel)) {
                 return true;
@@ -48,6 +71,31 @@ public class RequestTable {
      * @param _tupel The IITupel to be removed.
      */
     public void remove(IITupel _tupel) {
-        m_requests.removeElement(_tupel);
+        int i = m_requests.indexOf(_tupel);
+        if (i >= 0) {
+            m_requests.removeElementAt(i);
+            m_times.removeElementAt(i);
+        }
+    }
+
+    /**
+     * @brief Provides the caller with the number of stored IITupels.
+     *
+     * @return The number of IITupels.
+     */
+    public int size() {
+        return m_requests.size();
+    }
+
+    /**
+     * @brief Forgets the IITupels older than <code>MAX_AGE</code>.
+     *
+     * @param _now The current time in milliseconds.
+     */
+    private void prune(long _now) {
+        while (!m_times.isEmpty() && _now - ((Long) m_times.elementAt(0)).longValue() > MAX_AGE) {
+            m_requests.removeElementAt(0);
+            m_times.removeElementAt(0);
+        }
     }
 }
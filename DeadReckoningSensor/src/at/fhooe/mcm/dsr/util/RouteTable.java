@@ -7,7 +7,8 @@ import java.util.Hashtable;
  * @brief This class represents a RouteTable used in DSR.
  *
  * This class is a ontainer for storage of a list of <target address, RouteRecord>
- * tupels in a hashtable.
+ * tupels in a hashtable. The 64 bit target addresses are wrapped in
+ * <code>Long</code> keys.
  *
  * @author Florian Lettner, Lukas Bischof, Peter Riedl
  * @date 14.05.2010
@@ -25,11 +26,11 @@ public class RouteTable {
      * @param _target The target address to add.
      * @param _route The RouteRecord to add.
      */
-    public void addRoute(String _target, RouteRecord _route) {
+    public void addRoute(long _target, RouteRecord _route) {
         if (contains(_target)) {
             return;
         }
-        m_table.put(_target, _route);
+        m_table.put(new Long(_target), _route);
     }
 
     /**
@@ -39,8 +40,8 @@ public class RouteTable {
      * @return <code>true</code> if the RouteRecord to the target address is
      * stored in the RouteTable, <code>false</code> otherwise.
      */
-    public boolean contains(String _target) {
-        return m_table.containsKey(_target);
+    public boolean contains(long _target) {
+        return m_table.containsKey(new Long(_target));
     }
 
     /**
@@ -49,8 +50,8 @@ public class RouteTable {
      * @param _target The target to get the RouteRecord for.
      * @return The RouteRecord to the specified target.
      */
-    public RouteRecord getRouteToTarget(String _target) {
-        return (RouteRecord) m_table.get(_target);
+    public RouteRecord getRouteToTarget(long _target) {
+        return (RouteRecord) m_table.get(new Long(_target));
     }
 
     /**
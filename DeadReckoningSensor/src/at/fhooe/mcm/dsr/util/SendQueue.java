@@ -0,0 +1,257 @@
+package at.fhooe.mcm.dsr.util;
+
+/**
+ * @class SendQueue
+ * @brief This class is a bounded queue of data waiting to be sent by a single sender thread.
+ *
+ * Any thread may queue data, only the sender thread takes it. The requests
+ * live in a ring allocated once. The sender swaps a spare request for the
+ * one it takes, so the taken request cannot be overwritten while it is
+ * being sent and neither side allocates memory.
+ *
+ * If the queue is full, the overflow policy decides which data is lost:
+ * <ul>
+ * <li>DROP_OLDEST: the oldest request is discarded. This suits telemetry,
+ * where a newer state supersedes an older one.</li>
+ * <li>DROP_NEWEST: the new data is rejected.</li>
+ * </ul>
+ * The queue counts queued, dropped and completed requests and tracks the
+ * depth and the latency from queueing to completion, so the send throughput
+ * can be read from <code>statisticsToString</code>.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 18.06.2010
+ * @version 1.0
+ */
+public class SendQueue {
+
+    /** @brief Discards the oldest request if the queue is full. */
+    public static final int DROP_OLDEST = 0;
+
+    /** @brief Rejects new data if the queue is full. */
+    public static final int DROP_NEWEST = 1;
+
+    /** @brief The default number of requests the queue holds. */
+    public static final int DEFAULT_CAPACITY = 8;
+
+    /** @brief The ring of requests. */
+    private SendRequest[] m_requests;
+
+    /** @brief The index of the oldest request. */
+    private int m_head;
+
+    /** @brief The number of queued requests. */
+    private int m_depth;
+
+    /** @brief The overflow policy. */
+    private int m_policy;
+
+    /** @brief <code>false</code> after the queue has been closed. */
+    private boolean m_open = true;
+
+    /** @brief The largest number of queued requests. */
+    private int m_maxDepth;
+
+    /** @brief The number of queued requests. */
+    private int m_queued;
+
+    /** @brief The number of requests lost due to overflow. */
+    private int m_dropped;
+
+    /** @brief The number of requests completed by the sender. */
+    private int m_completed;
+
+    /** @brief The sum of the latencies of the completed requests in milliseconds. */
+    private long m_latencySum;
+
+    /** @brief The largest latency of a completed request in milliseconds. */
+    private long m_maxLatency;
+
+    /**
+     * @brief Creates an empty queue.
+     *
+     * @param _capacity The maximum number of queued requests.
+     * @param _policy The overflow policy, <code>DROP_OLDEST</code> or <code>DROP_NEWEST</code>.
+     */
+    public SendQueue(int _capacity, int _policy) {
+        if (_capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        m_requests = new SendRequest[_capacity];
+        for (int i = 0; i < _capacity; i++) {
+            m_requests[i] = new SendRequest();
+        }
+        m_policy = _policy;
+    }
+
+    /**
+     * @brief Queues string data.
+     *
+     * @param _text The data.
+     * @param _target The 64 bit address of the target.
+     * @return <code>false</code> if the data has been rejected.
+     */
+    public synchronized boolean put(String _text, long _target) {
+        SendRequest r = append();
+        if (r == null) {
+            return false;
+        }
+        r.setText(_text, _target, System.currentTimeMillis());
+        notify();
+        return true;
+    }
+
+    /**
+     * @brief Queues binary data.
+     *
+     * @param _data The buffer holding the data, it is copied, so the caller may reuse it immediately.
+     * @param _length The number of bytes to send.
+     * @param _target The 64 bit address of the target.
+     * @return <code>false</code> if the data has been rejected.
+     */
+    public synchronized boolean put(byte[] _data, int _length, long _target) {
+        SendRequest r = append();
+        if (r == null) {
+            return false;
+        }
+        r.setBinary(_data, _length, _target, System.currentTimeMillis());
+        notify();
+        return true;
+    }
+
+    /**
+     * @brief Takes the oldest request, waiting until one is queued.
+     *
+     * @param _spare A request that is no longer used, it takes the place of the returned one.
+     * @return The oldest request, <code>null</code> if the queue has been closed.
+     */
+    public synchronized SendRequest take(SendRequest _spare) {
+        while (m_open && m_depth == 0) {
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                ex.printStackTrace();
+            }
+        }
+        if (!m_open) {
+            return null;
+        }
+
+        SendRequest r = m_requests[m_head];
+        m_requests[m_head] = _spare;
+        m_head = (m_head + 1) % m_requests.length;
+        m_depth--;
+        return r;
+    }
+
+    /**
+     * @brief Notifies the queue that the sender has completed a request.
+     *
+     * @param _request The request taken before.
+     */
+    public synchronized void complete(SendRequest _request) {
+        long latency = System.currentTimeMillis() - _request.getTime();
+
+        m_completed++;
+        m_latencySum += latency;
+        if (latency > m_maxLatency) {
+            m_maxLatency = latency;
+        }
+    }
+
+    /**
+     * @brief Closes the queue, the waiting sender returns from <code>take</code>.
+     */
+    public synchronized void close() {
+        m_open = false;
+        notifyAll();
+    }
+
+    /**
+     * @brief Provides the caller with the number of queued requests.
+     *
+     * @return The current depth of the queue.
+     */
+    public synchronized int getDepth() {
+        return m_depth;
+    }
+
+    /**
+     * @brief Provides the caller with the largest number of queued requests.
+     *
+     * @return The largest depth so far.
+     */
+    public synchronized int getMaxDepth() {
+        return m_maxDepth;
+    }
+
+    /**
+     * @brief Provides the caller with the number of requests lost due to overflow.
+     *
+     * @return The number of dropped requests.
+     */
+    public synchronized int getDropped() {
+        return m_dropped;
+    }
+
+    /**
+     * @brief Provides the caller with the mean latency.
+     *
+     * @return The mean time from queueing to completion in milliseconds, 0 if
+     * no request has been completed yet.
+     */
+    public synchronized long getMeanLatency() {
+        return (m_completed == 0) ? 0 : m_latencySum / m_completed;
+    }
+
+    /**
+     * @brief Provides the caller with the largest latency.
+     *
+     * @return The largest time from queueing to completion in milliseconds.
+     */
+    public synchronized long getMaxLatency() {
+        return m_maxLatency;
+    }
+
+    /**
+     * @brief Serializes the statistics to a string.
+     *
+     * @return The current and largest depth, the number of queued, dropped
+     * and completed requests and the mean and largest latency in
+     * milliseconds, separated by pipes.
+     */
+    public synchronized String statisticsToString() {
+        return m_depth + "|" + m_maxDepth + "|" + m_queued + "|" + m_dropped + "|"
+                + m_completed + "|" + getMeanLatency() + "|" + m_maxLatency + "|";
+    }
+
+    /**
+     * @brief Provides the caller with the request at the end of the queue.
+     *
+     * If the queue is full, the overflow policy is applied.
+     *
+     * @return The request to be filled, <code>null</code> if the data is rejected.
+     */
+    private SendRequest append() {
+        if (!m_open) {
+            return null;
+        }
+
+        if (m_depth == m_requests.length) {
+            m_dropped++;
+            if (m_policy == DROP_NEWEST) {
+                return null;
+            }
+            m_head = (m_head + 1) % m_requests.length;
+            m_depth--;
+        }
+
+        SendRequest r = m_requests[(m_head + m_depth) % m_requests.length];
+        m_depth++;
+        m_queued++;
+        if (m_depth > m_maxDepth) {
+            m_maxDepth = m_depth;
+        }
+        return r;
+    }
+}
@@ -0,0 +1,109 @@
+package at.fhooe.mcm.dsr.util;
+
+/**
+ * @class SendRequest
+ * @brief This class holds the data of a single <code>sendData</code> call waiting in a <code>SendQueue</code>.
+ *
+ * A request carries either a string or binary data. The binary data is
+ * copied into a buffer owned by the request, which only grows if a longer
+ * package is queued, so requests are allocated once and reused.
+ *
+ * @author Florian Lettner, Lukas Bischof, Peter Riedl
+ * @date 18.06.2010
+ * @version 1.0
+ */
+public class SendRequest {
+
+    /** @brief The string data, <code>null</code> for binary data. */
+    private String m_text;
+
+    /** @brief The buffer holding the binary data. */
+    private byte[] m_binary = new byte[0];
+
+    /** @brief The number of valid bytes in the buffer. */
+    private int m_length;
+
+    /** @brief The 64 bit address of the target. */
+    private long m_target;
+
+    /** @brief The time the request has been queued in milliseconds. */
+    private long m_time;
+
+    /**
+     * @brief Sets string data.
+     *
+     * @param _text The data.
+     * @param _target The 64 bit address of the target.
+     * @param _time The current time in milliseconds.
+     */
+    void setText(String _text, long _target, long _time) {
+        m_text = _text;
+        m_length = 0;
+        m_target = _target;
+        m_time = _time;
+    }
+
+    /**
+     * @brief Sets binary data.
+     *
+     * @param _data The buffer holding the data, it is copied.
+     * @param _length The number of bytes to send.
+     * @param _target The 64 bit address of the target.
+     * @param _time The current time in milliseconds.
+     */
+    void setBinary(byte[] _data, int _length, long _target, long _time) {
+        if (m_binary.length < _length) {
+            m_binary = new byte[_length];
+        }
+        System.arraycopy(_data, 0, m_binary, 0, _length);
+        m_text = null;
+        m_length = _length;
+        m_target = _target;
+        m_time = _time;
+    }
+
+    /**
+     * @brief Provides the string data.
+     *
+     * @return The data, <code>null</code> if the request carries binary data.
+     */
+    public String getText() {
+        return m_text;
+    }
+
+    /**
+     * @brief Provides the buffer holding the binary data.
+     *
+     * @return The buffer, only the first <code>getLength()</code> bytes are valid.
+     */
+    public byte[] getBinary() {
+        return m_binary;
+    }
+
+    /**
+     * @brief Provides the length of the binary data.
+     *
+     * @return The number of valid bytes in the buffer.
+     */
+    public int getLength() {
+        return m_length;
+    }
+
+    /**
+     * @brief Provides the target of the data.
+     *
+     * @return The 64 bit address of the target.
+     */
+    public long getTarget() {
+        return m_target;
+    }
+
+    /**
+     * @brief Provides the time the request has been queued.
+     *
+     * @return The time in milliseconds.
+     */
+    public long getTime() {
+        return m_time;
+    }
+}